@@ -0,0 +1,109 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.ann;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ojalgo.ann.ArtificialNeuralNetwork.Activator;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Normal;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.structure.RowView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One epoch of training, and batched inference, with an MNIST-shaped network (784-100-10). Training is done
+ * with different mini-batch sizes – a batch size of 1 is the original per-sample training.
+ *
+ * @author apete
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TrainingBenchmark {
+
+    private static final int HIDDEN = 100;
+    private static final int INPUTS = 784;
+    private static final int OUTPUTS = 10;
+    private static final int SAMPLES = 1_000;
+
+    @Param({ "1", "32", "128" })
+    public int batch;
+
+    private Primitive64Store myInputs;
+    private Iterable<RowView<Double>> myInputRows;
+    private NetworkInvoker myInvoker;
+    private ArtificialNeuralNetwork myNetwork;
+    private Primitive64Store myOutputs;
+    private Primitive64Store myTargets;
+    private Iterable<RowView<Double>> myTargetRows;
+    private NetworkTrainer myTrainer;
+
+    @Benchmark
+    public Primitive64Store invoke() {
+        myInvoker.invoke(myInputs, myOutputs);
+        return myOutputs;
+    }
+
+    @Setup
+    public void setup() {
+
+        myNetwork = ArtificialNeuralNetwork.builder(Primitive64Store.FACTORY, INPUTS).layer(HIDDEN, Activator.RECTIFIER).layer(OUTPUTS, Activator.SOFTMAX)
+                .get();
+
+        myTrainer = myNetwork.newTrainer().batch(batch);
+        myInvoker = myNetwork.newInvoker(batch);
+
+        myInputs = Primitive64Store.FACTORY.makeFilled(SAMPLES, INPUTS, new Uniform());
+        myTargets = Primitive64Store.FACTORY.make(SAMPLES, OUTPUTS);
+        myOutputs = Primitive64Store.FACTORY.make(SAMPLES, OUTPUTS);
+
+        Normal normal = new Normal(OUTPUTS / 2.0, OUTPUTS / 4.0);
+        for (int i = 0; i < SAMPLES; i++) {
+            int label = Math.min(Math.max((int) normal.doubleValue(), 0), OUTPUTS - 1);
+            myTargets.set(i, label, 1.0);
+        }
+
+        myInputRows = myInputs.rows();
+        myTargetRows = myTargets.rows();
+    }
+
+    @Benchmark
+    public ArtificialNeuralNetwork train() {
+        myTrainer.train(myInputRows, myTargetRows);
+        return myNetwork;
+    }
+
+}
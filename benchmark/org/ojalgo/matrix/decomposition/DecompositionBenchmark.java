@@ -0,0 +1,101 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The primitive (double) matrix decompositions: LU, QR, Cholesky, SVD and Eigenvalue. The input is a
+ * (random) symmetric positive definite matrix so that all of them are applicable, and the decomposition
+ * instances are reused between invocations the same way a solver would use them.
+ *
+ * @author apete
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DecompositionBenchmark {
+
+    @Param({ "10", "50", "100", "500" })
+    public int dim;
+
+    private Cholesky<Double> myCholesky;
+    private Eigenvalue<Double> myEigenvalue;
+    private LU<Double> myLU;
+    private Primitive64Store myMatrix;
+    private QR<Double> myQR;
+    private SingularValue<Double> mySingularValue;
+
+    @Benchmark
+    public boolean cholesky() {
+        return myCholesky.decompose(myMatrix);
+    }
+
+    @Benchmark
+    public boolean eigenvalue() {
+        return myEigenvalue.decompose(myMatrix);
+    }
+
+    @Benchmark
+    public boolean lu() {
+        return myLU.decompose(myMatrix);
+    }
+
+    @Benchmark
+    public boolean qr() {
+        return myQR.decompose(myMatrix);
+    }
+
+    @Setup
+    public void setup() {
+
+        myMatrix = Primitive64Store.FACTORY.makeSPD(dim);
+
+        myCholesky = Cholesky.PRIMITIVE.make(myMatrix);
+        myEigenvalue = Eigenvalue.PRIMITIVE.make(myMatrix, true);
+        myLU = LU.PRIMITIVE.make(myMatrix);
+        myQR = QR.PRIMITIVE.make(myMatrix);
+        mySingularValue = SingularValue.PRIMITIVE.make(myMatrix);
+    }
+
+    @Benchmark
+    public boolean singularValue() {
+        return mySingularValue.decompose(myMatrix);
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ojalgo.random.Uniform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dense matrix multiplication, for all the {@link PhysicalStore} implementations. The transpose variants
+ * select which of MultiplyNeither, MultiplyLeft, MultiplyRight or MultiplyBoth is used – use the results
+ * when tuning their THRESHOLD values.
+ *
+ * @author apete
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MultiplyBenchmark {
+
+    public enum Transpose {
+
+        BOTH, LEFT, NEITHER, RIGHT;
+
+        <N extends Comparable<N>> void multiply(final PhysicalStore<N> product, final MatrixStore<N> left, final MatrixStore<N> right) {
+            switch (this) {
+            case BOTH:
+                product.fillByMultiplying(left.transpose(), right.transpose());
+                break;
+            case LEFT:
+                product.fillByMultiplying(left.transpose(), right);
+                break;
+            case RIGHT:
+                product.fillByMultiplying(left, right.transpose());
+                break;
+            default:
+                product.fillByMultiplying(left, right);
+                break;
+            }
+        }
+
+    }
+
+    static PhysicalStore.Factory<?, ?> factory(final String type) {
+        switch (type) {
+        case "COMPLEX":
+            return GenericStore.COMPLEX;
+        case "PRIMITIVE32":
+            return Primitive32Store.FACTORY;
+        case "QUATERNION":
+            return GenericStore.QUATERNION;
+        case "RATIONAL":
+            return GenericStore.RATIONAL;
+        default:
+            return Primitive64Store.FACTORY;
+        }
+    }
+
+    @Param({ "10", "50", "100", "500" })
+    public int dim;
+
+    @Param({ "NEITHER", "LEFT", "RIGHT", "BOTH" })
+    public Transpose transpose;
+
+    @Param({ "PRIMITIVE64", "PRIMITIVE32", "COMPLEX", "QUATERNION", "RATIONAL" })
+    public String type;
+
+    private PhysicalStore<?> myLeft;
+    private PhysicalStore<?> myProduct;
+    private PhysicalStore<?> myRight;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Benchmark
+    public PhysicalStore<?> multiply() {
+        transpose.multiply((PhysicalStore) myProduct, (MatrixStore) myLeft, (MatrixStore) myRight);
+        return myProduct;
+    }
+
+    @Setup
+    public void setup() {
+
+        PhysicalStore.Factory<?, ?> factory = MultiplyBenchmark.factory(type);
+
+        myLeft = factory.makeFilled(dim, dim, new Uniform());
+        myRight = factory.makeFilled(dim, dim, new Uniform());
+        myProduct = factory.make(dim, dim);
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ojalgo.random.Uniform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sparse matrix - dense vector multiplication (SpMV), with {@link SparseStore} as well as the compressed
+ * (CSC) {@link CompressedSparseStore}.
+ *
+ * @author apete
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SparseMultiplyBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int dim;
+
+    /**
+     * Average number of nonzeros per column
+     */
+    @Param({ "5", "50" })
+    public int nonzeros;
+
+    private CompressedSparseStore myCompressed;
+    private Primitive64Store myProduct;
+    private SparseStore<Double> mySparse;
+    private Primitive64Store myVector;
+
+    @Benchmark
+    public Primitive64Store compressed() {
+        myCompressed.multiply(myVector, myProduct);
+        return myProduct;
+    }
+
+    @Setup
+    public void setup() {
+
+        Uniform uniform = new Uniform();
+
+        mySparse = SparseStore.makePrimitive(dim, dim);
+        for (int j = 0; j < dim; j++) {
+            for (int k = 0; k < nonzeros; k++) {
+                mySparse.set(Uniform.randomInteger(dim), j, uniform.doubleValue());
+            }
+        }
+
+        myCompressed = mySparse.compress();
+
+        myVector = Primitive64Store.FACTORY.makeFilled(dim, 1, uniform);
+        myProduct = Primitive64Store.FACTORY.make(dim, 1);
+    }
+
+    @Benchmark
+    public Primitive64Store sparse() {
+        mySparse.multiply(myVector, myProduct);
+        return myProduct;
+    }
+
+}
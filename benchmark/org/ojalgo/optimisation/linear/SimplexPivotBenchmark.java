@@ -0,0 +1,110 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Uniform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A single {@link SimplexTableau} pivot, dense as well as sparse. Each invocation pivots the first row
+ * alternately on one of two columns, so the tableau stays well defined however many invocations there are.
+ *
+ * @author apete
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SimplexPivotBenchmark {
+
+    /**
+     * Number of constraints, there are twice as many variables.
+     */
+    @Param({ "50", "200", "1000" })
+    public int constraints;
+
+    /**
+     * Approximate fraction of nonzero constraint coefficients
+     */
+    @Param({ "0.01", "1.0" })
+    public double density;
+
+    @Param({ "DENSE", "SPARSE" })
+    public String tableau;
+
+    private final SimplexTableau.IterationPoint myPoint = new SimplexTableau.IterationPoint();
+    private SimplexTableau myTableau;
+
+    @Benchmark
+    public SimplexTableau pivot() {
+        myPoint.row = 0;
+        myPoint.col = myPoint.col == 0 ? 1 : 0;
+        myTableau.pivot(myPoint);
+        return myTableau;
+    }
+
+    @Setup
+    public void setup() {
+
+        int variables = 2 * constraints;
+
+        Uniform uniform = new Uniform(1.0, 1.0);
+
+        Primitive64Store c = Primitive64Store.FACTORY.makeFilled(variables, 1, uniform);
+        Primitive64Store A = Primitive64Store.FACTORY.make(constraints, variables);
+        Primitive64Store b = Primitive64Store.FACTORY.makeFilled(constraints, 1, uniform);
+
+        for (int i = 0; i < constraints; i++) {
+            for (int j = 0; j < variables; j++) {
+                if ((j == i) || (j == (i + 1)) || (Math.random() < density)) {
+                    A.set(i, j, uniform.doubleValue());
+                }
+            }
+        }
+
+        LinearSolver.Builder builder = LinearSolver.getBuilder(c).equalities(A, b);
+
+        if ("SPARSE".equals(tableau)) {
+            myTableau = new SimplexTableau.SparseTableau(builder);
+        } else {
+            myTableau = new SimplexTableau.DenseTableau(builder);
+        }
+
+        myPoint.reset();
+    }
+
+}
@@ -42,6 +42,7 @@ import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.Primitive32Store;
 import org.ojalgo.matrix.store.Primitive64Store;
 import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
 import org.ojalgo.structure.Structure2D;
 
 public final class ArtificialNeuralNetwork implements BasicFunction.PlainUnary<Access1D<Double>, MatrixStore<Double>> {
@@ -327,6 +328,14 @@ public final class ArtificialNeuralNetwork implements BasicFunction.PlainUnary<A
         return new NetworkInvoker(this);
     }
 
+    /**
+     * @param batchSize The number of input vectors processed together when invoking with batches – see
+     *        {@link NetworkInvoker#invoke(Access2D, PhysicalStore)}.
+     */
+    public NetworkInvoker newInvoker(final int batchSize) {
+        return new NetworkInvoker(this, batchSize);
+    }
+
     public NetworkTrainer newTrainer() {
         NetworkTrainer trainer = new NetworkTrainer(this);
         if (this.getOutputActivator() == Activator.SOFTMAX) {
@@ -394,6 +403,11 @@ public final class ArtificialNeuralNetwork implements BasicFunction.PlainUnary<A
                 myConfiguration.probabilityDidKeepInput(layer), myConfiguration.regularisation());
     }
 
+    void adjust(final int layer, final MatrixStore<Double> input, final PhysicalStore<Double> output, final PhysicalStore<Double> upstreamGradient,
+            final PhysicalStore<Double> downstreamGradient, final PhysicalStore<Double> weightGradient, final PhysicalStore<Double> biasGradient) {
+        myLayers[layer].adjust(input, output, layer == 0 ? null : upstreamGradient, downstreamGradient, weightGradient, biasGradient);
+    }
+
     int countInputNodes(final int layer) {
         return myLayers[layer].countInputNodes();
     }
@@ -422,6 +436,14 @@ public final class ArtificialNeuralNetwork implements BasicFunction.PlainUnary<A
         }
     }
 
+    PhysicalStore<Double> invoke(final int layer, final MatrixStore<Double> input, final PhysicalStore<Double> output) {
+        if (myConfiguration != null) {
+            return myLayers[layer].invoke(input, output, myConfiguration.probabilityWillKeepOutput(layer, this.depth()));
+        } else {
+            return myLayers[layer].invoke(input, output);
+        }
+    }
+
     PhysicalStore<Double> newStore(final int rows, final int columns) {
         return myFactory.make(rows, columns);
     }
@@ -457,6 +479,15 @@ public final class ArtificialNeuralNetwork implements BasicFunction.PlainUnary<A
         myLayers[layer].setWeight(input, output, weight);
     }
 
+    /**
+     * @param numberOfSamples The number of samples that contributed to the (summed) gradients – they are
+     *        scaled by its inverse so that it's the average gradient that is applied. Regularisation is not.
+     */
+    void update(final int layer, final Access2D<Double> weightGradient, final Access1D<Double> biasGradient, final int numberOfSamples) {
+        myLayers[layer].update(weightGradient, biasGradient, numberOfSamples, -myConfiguration.learningRate, myConfiguration.probabilityDidKeepInput(layer),
+                myConfiguration.regularisation());
+    }
+
     Structure2D[] structure() {
 
         Structure2D[] retVal = new Structure2D[myLayers.length];
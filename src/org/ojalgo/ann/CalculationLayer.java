@@ -25,10 +25,12 @@ import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import java.util.function.DoubleUnaryOperator;
 
+import org.ojalgo.function.PrimitiveFunction;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.random.Uniform;
 import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
 import org.ojalgo.structure.Structure2D;
 
 final class CalculationLayer {
@@ -127,6 +129,51 @@ final class CalculationLayer {
         }
     }
 
+    /**
+     * Mini-batch version of the back propagation step. Each row of input, output and the gradients represent
+     * one sample. The weight and bias gradients are summed over the samples and stored in the supplied
+     * accumulators – nothing is changed in this layer. Use {@link #update(Access2D, Access1D, int, double, double, DoubleUnaryOperator)}
+     * to apply them.
+     */
+    void adjust(final MatrixStore<Double> input, final PhysicalStore<Double> output, final PhysicalStore<Double> upstreamGradient,
+            final PhysicalStore<Double> downstreamGradient, final PhysicalStore<Double> weightGradient, final PhysicalStore<Double> biasGradient) {
+
+        PrimitiveFunction.Unary derivative = myActivator.getDerivativeInTermsOfOutput();
+        for (long i = 0L, limit = downstreamGradient.count(); i < limit; i++) {
+            downstreamGradient.set(i, downstreamGradient.doubleValue(i) * derivative.invoke(output.doubleValue(i)));
+        }
+
+        if (upstreamGradient != null) {
+            // No need to do this multiplication for the input layer
+            upstreamGradient.fillByMultiplying(downstreamGradient, myWeights.transpose());
+        }
+
+        weightGradient.fillByMultiplying(input.transpose(), downstreamGradient);
+
+        for (long j = 0L, numbOutput = downstreamGradient.countColumns(); j < numbOutput; j++) {
+            double sum = ZERO;
+            for (long i = 0L, numbSamples = downstreamGradient.countRows(); i < numbSamples; i++) {
+                sum += downstreamGradient.doubleValue(i, j);
+            }
+            biasGradient.set(j, sum);
+        }
+    }
+
+    /**
+     * output = input * weights + bias (the bias added to each row)
+     */
+    private void combine(final MatrixStore<Double> input, final PhysicalStore<Double> output) {
+
+        output.fillByMultiplying(input, myWeights);
+
+        for (long j = 0L, numbOutput = output.countColumns(); j < numbOutput; j++) {
+            double bias = myBias.doubleValue(j);
+            for (long i = 0L, numbSamples = output.countRows(); i < numbSamples; i++) {
+                output.add(i, j, bias);
+            }
+        }
+    }
+
     int countInputNodes() {
         return Math.toIntExact(myWeights.countRows());
     }
@@ -167,6 +214,60 @@ final class CalculationLayer {
         return output;
     }
 
+    /**
+     * Batch version of {@link #invoke(Access1D, PhysicalStore)}. Each row of the input is a sample, and the
+     * corresponding row of the output is where the result ends up. Everything is done in place – nothing is
+     * allocated.
+     */
+    PhysicalStore<Double> invoke(final MatrixStore<Double> input, final PhysicalStore<Double> output) {
+
+        this.combine(input, output);
+
+        if (myActivator.isSingleFolded()) {
+            output.modifyAll(myActivator.getFunction(output));
+        } else {
+            // SOFTMAX is the only activator that is not single folded – normalise each sample (row) in place
+            for (long i = 0L, numbSamples = output.countRows(); i < numbSamples; i++) {
+                double total = ZERO;
+                for (long j = 0L, numbOutput = output.countColumns(); j < numbOutput; j++) {
+                    double part = EXP.invoke(output.doubleValue(i, j));
+                    output.set(i, j, part);
+                    total += part;
+                }
+                for (long j = 0L, numbOutput = output.countColumns(); j < numbOutput; j++) {
+                    output.set(i, j, output.doubleValue(i, j) / total);
+                }
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Mini-batch version of {@link #invoke(Access1D, PhysicalStore, double)}. Each row of the input is a sample,
+     * and the corresponding row of the output is where the result ends up.
+     */
+    PhysicalStore<Double> invoke(final MatrixStore<Double> input, final PhysicalStore<Double> output, final double probabilityToKeep) {
+
+        this.combine(input, output);
+
+        if (myActivator.isSingleFolded()) {
+            output.modifyAll(myActivator.getFunction(output, probabilityToKeep));
+        } else {
+            // The activator function depends on all the outputs of a sample - must be done one row at the time
+            PhysicalStore<Double> sample = output.physical().make(1L, output.countColumns());
+            for (long i = 0L, numbSamples = output.countRows(); i < numbSamples; i++) {
+                sample.fillRow(0L, output.sliceRow(i));
+                PrimitiveFunction.Unary function = myActivator.getFunction(sample, probabilityToKeep);
+                for (long j = 0L, numbOutput = sample.countColumns(); j < numbOutput; j++) {
+                    output.set(i, j, function.invoke(sample.doubleValue(j)));
+                }
+            }
+        }
+
+        return output;
+    }
+
     void randomise() {
 
         double magnitude = ONE / Math.sqrt(this.countInputNodes());
@@ -182,6 +283,29 @@ final class CalculationLayer {
         myWeights.modifyAll(MULTIPLY.second(factor));
     }
 
+    /**
+     * Apply the (summed) gradients calculated by
+     * {@link #adjust(MatrixStore, PhysicalStore, PhysicalStore, PhysicalStore, PhysicalStore, PhysicalStore)}.
+     * The gradients are divided by the number of samples, so that it's the average gradient that is applied,
+     * while regularisation is applied once per call with the unscaled learning rate – the same as for a
+     * single sample.
+     */
+    void update(final Access2D<Double> weightGradient, final Access1D<Double> biasGradient, final int numberOfSamples, final double learningRate,
+            final double dropoutsFactor, final DoubleUnaryOperator regularisation) {
+
+        double averagedRate = learningRate / numberOfSamples;
+
+        for (long j = 0L, numbOutput = myWeights.countColumns(); j < numbOutput; j++) {
+            for (long i = 0L, numbInput = myWeights.countRows(); i < numbInput; i++) {
+                if (regularisation != null) {
+                    myWeights.add(i, j, learningRate * regularisation.applyAsDouble(myWeights.doubleValue(i, j)));
+                }
+                myWeights.add(i, j, averagedRate * (weightGradient.doubleValue(i, j) / dropoutsFactor));
+            }
+            myBias.add(j, averagedRate * biasGradient.doubleValue(j));
+        }
+    }
+
     void setActivator(final ArtificialNeuralNetwork.Activator activator) {
         myActivator = activator;
     }
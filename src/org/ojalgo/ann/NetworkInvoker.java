@@ -21,14 +21,130 @@
  */
 package org.ojalgo.ann;
 
+import org.ojalgo.ProgrammingError;
 import org.ojalgo.function.BasicFunction;
 import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
 
+/**
+ * Invokes (evaluates) a network. An invoker contains all invocation specific state – reusable buffers for
+ * the intermediate results – and must not be shared between threads. Create one invoker per thread (they can
+ * all share the same network).
+ *
+ * @author apete
+ */
 public class NetworkInvoker extends WrappedANN implements BasicFunction.PlainUnary<Access1D<Double>, MatrixStore<Double>> {
 
+    static final class Buffers {
+
+        final PhysicalStore<Double> input;
+        final PhysicalStore<Double>[] outputs;
+
+        @SuppressWarnings("unchecked")
+        Buffers(final ArtificialNeuralNetwork network, final int rows) {
+
+            super();
+
+            input = network.newStore(rows, network.countInputNodes(0));
+
+            outputs = (PhysicalStore<Double>[]) new PhysicalStore<?>[network.depth()];
+            for (int l = 0; l < outputs.length; l++) {
+                outputs[l] = network.newStore(rows, network.countOutputNodes(l));
+            }
+        }
+
+        void invoke(final ArtificialNeuralNetwork network, final Access2D<Double> source, final int first, final PhysicalStore<Double> destination) {
+
+            int rows = Math.toIntExact(input.countRows());
+
+            for (int i = 0; i < rows; i++) {
+                for (long j = 0L, limit = input.countColumns(); j < limit; j++) {
+                    input.set(i, j, source.doubleValue(first + i, j));
+                }
+            }
+
+            MatrixStore<Double> current = input;
+            for (int l = 0; l < outputs.length; l++) {
+                current = network.invoke(l, current, outputs[l]);
+            }
+
+            for (int i = 0; i < rows; i++) {
+                for (long j = 0L, limit = current.countColumns(); j < limit; j++) {
+                    destination.set(first + i, j, current.doubleValue(i, j));
+                }
+            }
+        }
+
+    }
+
+    private Buffers myBatchBuffers = null;
+    private final int myBatchSize;
+    private Buffers mySingleBuffers = null;
+
     NetworkInvoker(final ArtificialNeuralNetwork network) {
+        this(network, 1);
+    }
+
+    NetworkInvoker(final ArtificialNeuralNetwork network, final int batchSize) {
+
         super(network);
+
+        if (batchSize < 1) {
+            ProgrammingError.throwWithMessage("The batch size must be at least 1!");
+        }
+
+        myBatchSize = batchSize;
+    }
+
+    /**
+     * Invoke the network with many input vectors at once – each row of the inputs is one input vector, and
+     * the corresponding row of the outputs is where the result is written.
+     * <p>
+     * The rows are processed in batches (of the size specified when creating the invoker) using matrix-matrix
+     * multiplications. The buffers for the intermediate results are allocated the first time this method is
+     * called, and then reused. After that nothing is allocated per call. Use
+     * {@link ArtificialNeuralNetwork#newInvoker(int)} to specify the batch size – the default is 1. (With
+     * batch sizes larger than {@link org.ojalgo.array.operation.MultiplyNeither#THRESHOLD} the matrix
+     * multiplications may be executed in parallel, and the tasks that requires are allocated per call.)
+     *
+     * @param inputs [number of input vectors] x [number of network inputs]
+     * @param outputs [number of input vectors] x [number of network outputs]
+     * @return The outputs
+     */
+    public PhysicalStore<Double> invoke(final Access2D<Double> inputs, final PhysicalStore<Double> outputs) {
+
+        int numberOfRows = Math.toIntExact(inputs.countRows());
+        if (outputs.countRows() < numberOfRows) {
+            ProgrammingError.throwForIllegalInvocation();
+        }
+
+        ArtificialNeuralNetwork network = this.get();
+        network.setConfiguration(null);
+
+        int first = 0;
+
+        if (numberOfRows >= myBatchSize) {
+            if (myBatchBuffers == null) {
+                myBatchBuffers = new Buffers(network, myBatchSize);
+            }
+            for (; (first + myBatchSize) <= numberOfRows; first += myBatchSize) {
+                myBatchBuffers.invoke(network, inputs, first, outputs);
+            }
+        }
+
+        if (first < numberOfRows) {
+            // Any remaining (less than a full batch) rows are done one at the time
+            if (mySingleBuffers == null) {
+                mySingleBuffers = new Buffers(network, 1);
+            }
+            for (; first < numberOfRows; first++) {
+                mySingleBuffers.invoke(network, inputs, first, outputs);
+            }
+        }
+
+        return outputs;
     }
 
     @Override
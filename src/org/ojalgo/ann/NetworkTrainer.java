@@ -21,13 +21,20 @@
  */
 package org.ojalgo.ann;
 
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Objects;
+import java.util.function.IntSupplier;
 
 import org.ojalgo.ProgrammingError;
 import org.ojalgo.ann.ArtificialNeuralNetwork.Activator;
 import org.ojalgo.ann.ArtificialNeuralNetwork.Error;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.concurrent.Parallelism;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Access2D;
@@ -40,6 +47,103 @@ import org.ojalgo.structure.Structure2D;
  */
 public final class NetworkTrainer extends WrappedANN {
 
+    /**
+     * Per worker (thread confined) state used when training with mini-batches. All buffers are reused from
+     * batch to batch, and only reallocated if the number of samples changes.
+     */
+    static final class BatchState {
+
+        private final PhysicalStore<Double>[] myBiasGradients;
+        private final PhysicalStore<Double>[] myGradients;
+        private final PhysicalStore<Double> myInput;
+        private final ArtificialNeuralNetwork myNetwork;
+        private final PhysicalStore<Double>[] myOutputs;
+        private final int mySamples;
+        private final PhysicalStore<Double> myTarget;
+        private final PhysicalStore<Double>[] myWeightGradients;
+
+        @SuppressWarnings("unchecked")
+        BatchState(final ArtificialNeuralNetwork network, final int samples) {
+
+            super();
+
+            myNetwork = network;
+            mySamples = samples;
+
+            int depth = network.depth();
+
+            myInput = network.newStore(samples, network.countInputNodes(0));
+            myTarget = network.newStore(samples, network.countOutputNodes(depth - 1));
+
+            myOutputs = (PhysicalStore<Double>[]) new PhysicalStore<?>[depth];
+            myGradients = (PhysicalStore<Double>[]) new PhysicalStore<?>[1 + depth];
+            myWeightGradients = (PhysicalStore<Double>[]) new PhysicalStore<?>[depth];
+            myBiasGradients = (PhysicalStore<Double>[]) new PhysicalStore<?>[depth];
+
+            for (int l = 0; l < depth; l++) {
+                int numberOfInputs = network.countInputNodes(l);
+                int numberOfOutputs = network.countOutputNodes(l);
+                myOutputs[l] = network.newStore(samples, numberOfOutputs);
+                if (l > 0) {
+                    // No upstream gradient needed for the input layer
+                    myGradients[l] = network.newStore(samples, numberOfInputs);
+                }
+                myWeightGradients[l] = network.newStore(numberOfInputs, numberOfOutputs);
+                myBiasGradients[l] = network.newStore(1, numberOfOutputs);
+            }
+            myGradients[depth] = network.newStore(samples, network.countOutputNodes(depth - 1));
+        }
+
+        /**
+         * Forward and backward pass for the samples [first, first + samples) – the gradients are summed in the
+         * local accumulators.
+         */
+        void compute(final Access2D<Double> givenInputs, final Access2D<Double> targetOutputs, final int first, final PrimitiveFunction.Binary derivative) {
+
+            int depth = myOutputs.length;
+
+            for (int i = 0; i < mySamples; i++) {
+                for (long j = 0L, limit = myInput.countColumns(); j < limit; j++) {
+                    myInput.set(i, j, givenInputs.doubleValue(first + i, j));
+                }
+                for (long j = 0L, limit = myTarget.countColumns(); j < limit; j++) {
+                    myTarget.set(i, j, targetOutputs.doubleValue(first + i, j));
+                }
+            }
+
+            MatrixStore<Double> input = myInput;
+            for (int l = 0; l < depth; l++) {
+                input = myNetwork.invoke(l, input, myOutputs[l]);
+            }
+
+            myGradients[depth].fillMatching(myTarget, derivative, myOutputs[depth - 1]);
+
+            for (int k = depth - 1; k >= 0; k--) {
+                myNetwork.adjust(k, k == 0 ? myInput : myOutputs[k - 1], myOutputs[k], myGradients[k], myGradients[k + 1], myWeightGradients[k],
+                        myBiasGradients[k]);
+            }
+        }
+
+        PhysicalStore<Double> getBiasGradient(final int layer) {
+            return myBiasGradients[layer];
+        }
+
+        int getSamples() {
+            return mySamples;
+        }
+
+        PhysicalStore<Double> getWeightGradient(final int layer) {
+            return myWeightGradients[layer];
+        }
+
+    }
+
+    /**
+     * The smallest number of samples (in a mini-batch) worth giving to a separate thread.
+     */
+    public static int THRESHOLD = 32;
+
+    private BatchState[] myBatchStates = null;
     private final TrainingConfiguration myConfiguration = new TrainingConfiguration();
     private final PhysicalStore<Double>[] myGradients;
 
@@ -108,6 +212,20 @@ public final class NetworkTrainer extends WrappedANN {
         return this;
     }
 
+    /**
+     * Train using mini-batches of this size. The gradients are averaged over the samples in a batch, and the
+     * weights updated once per batch. Batches are split among multiple threads (see
+     * {@link #parallelism(IntSupplier)}). The default batch size is 1 – pure stochastic gradient descent, one
+     * update per sample.
+     */
+    public NetworkTrainer batch(final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The batch size must be at least 1!");
+        }
+        myConfiguration.batchSize = size;
+        return this;
+    }
+
     public NetworkTrainer bias(final int layer, final int output, final double bias) {
         this.setBias(layer, output, bias);
         return this;
@@ -166,6 +284,15 @@ public final class NetworkTrainer extends WrappedANN {
         return this;
     }
 
+    /**
+     * The (max) number of threads to use when training with mini-batches. The default is
+     * {@link Parallelism#LOWER}.
+     */
+    public NetworkTrainer parallelism(final IntSupplier parallelism) {
+        myConfiguration.parallelism = parallelism;
+        return this;
+    }
+
     public NetworkTrainer rate(final double rate) {
         myConfiguration.learningRate = rate;
         return this;
@@ -220,17 +347,53 @@ public final class NetworkTrainer extends WrappedANN {
     /**
      * Note that the required {@link Iterable}:s can be obtained from calling {@link Access2D#rows()} or
      * {@link Access2D#columns()} on anything "2D".
+     * <p>
+     * If a batch size (larger than 1) has been set, the samples are grouped in to mini-batches of that size
+     * and each batch is trained using {@link #trainBatch(Access2D, Access2D)}.
      */
     public void train(final Iterable<? extends Access1D<Double>> givenInputs, final Iterable<? extends Access1D<Double>> targetOutputs) {
 
         Iterator<? extends Access1D<Double>> iterI = givenInputs.iterator();
         Iterator<? extends Access1D<Double>> iterO = targetOutputs.iterator();
 
-        while (iterI.hasNext() && iterO.hasNext()) {
-            this.train(iterI.next(), iterO.next());
+        int batchSize = myConfiguration.batchSize;
+
+        if (batchSize <= 1) {
+
+            while (iterI.hasNext() && iterO.hasNext()) {
+                this.train(iterI.next(), iterO.next());
+            }
+
+        } else {
+
+            ArtificialNeuralNetwork network = this.get();
+            PhysicalStore<Double> batchI = network.newStore(batchSize, network.countInputNodes(0));
+            PhysicalStore<Double> batchO = network.newStore(batchSize, network.countOutputNodes(this.depth() - 1));
+
+            int samples = 0;
+            while (iterI.hasNext() && iterO.hasNext()) {
+                batchI.fillRow(samples, iterI.next());
+                batchO.fillRow(samples, iterO.next());
+                if (++samples == batchSize) {
+                    this.trainBatch(batchI, batchO, samples);
+                    samples = 0;
+                }
+            }
+            if (samples > 0) {
+                this.trainBatch(batchI, batchO, samples);
+            }
         }
     }
 
+    /**
+     * Train on one mini-batch – each row of the inputs/outputs is a sample. The gradients are calculated for
+     * all samples (in parallel, using thread confined buffers), averaged, and then the weights are updated
+     * once.
+     */
+    public void trainBatch(final Access2D<Double> givenInputs, final Access2D<Double> targetOutputs) {
+        this.trainBatch(givenInputs, targetOutputs, Math.toIntExact(Math.min(givenInputs.countRows(), targetOutputs.countRows())));
+    }
+
     public NetworkTrainer weight(final int layer, final int input, final int output, final double weight) {
         this.setWeight(layer, input, output, weight);
         return this;
@@ -240,4 +403,58 @@ public final class NetworkTrainer extends WrappedANN {
         return myConfiguration.error.invoke(target, current);
     }
 
+    void trainBatch(final Access2D<Double> givenInputs, final Access2D<Double> targetOutputs, final int numberOfSamples) {
+
+        if (numberOfSamples <= 0) {
+            return;
+        }
+
+        ArtificialNeuralNetwork network = this.get();
+        network.setConfiguration(myConfiguration);
+
+        int parallelism = Math.max(1, myConfiguration.parallelism.getAsInt());
+        int workers = Math.max(1, Math.min(parallelism, numberOfSamples / THRESHOLD));
+        int chunk = (numberOfSamples + workers - 1) / workers;
+        workers = (numberOfSamples + chunk - 1) / chunk;
+
+        if ((myBatchStates == null) || (myBatchStates.length < workers)) {
+            myBatchStates = Arrays.copyOf(myBatchStates != null ? myBatchStates : new BatchState[0], workers);
+        }
+        for (int w = 0; w < workers; w++) {
+            int samples = Math.min(chunk, numberOfSamples - (w * chunk));
+            if ((myBatchStates[w] == null) || (myBatchStates[w].getSamples() != samples)) {
+                myBatchStates[w] = new BatchState(network, samples);
+            }
+        }
+
+        BatchState[] states = myBatchStates;
+        PrimitiveFunction.Binary derivative = myConfiguration.error.getDerivative();
+
+        if (workers == 1) {
+            states[0].compute(givenInputs, targetOutputs, 0, derivative);
+        } else {
+            DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    for (int w = first; w < limit; w++) {
+                        states[w].compute(givenInputs, targetOutputs, w * chunk, derivative);
+                    }
+                }
+
+            };
+            conquerer.invoke(0, workers, 1);
+        }
+
+        for (int l = 0, depth = this.depth(); l < depth; l++) {
+            PhysicalStore<Double> weightGradient = states[0].getWeightGradient(l);
+            PhysicalStore<Double> biasGradient = states[0].getBiasGradient(l);
+            for (int w = 1; w < workers; w++) {
+                weightGradient.modifyMatching(ADD, states[w].getWeightGradient(l));
+                biasGradient.modifyMatching(ADD, states[w].getBiasGradient(l));
+            }
+            network.update(l, weightGradient, biasGradient, numberOfSamples);
+        }
+    }
+
 }
@@ -24,12 +24,17 @@ package org.ojalgo.ann;
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntSupplier;
+
+import org.ojalgo.concurrent.Parallelism;
 
 final class TrainingConfiguration {
 
+    int batchSize = 1;
     boolean dropouts = false;
     ArtificialNeuralNetwork.Error error = ArtificialNeuralNetwork.Error.HALF_SQUARED_DIFFERENCE;
     double learningRate = ONE;
+    IntSupplier parallelism = Parallelism.LOWER;
     boolean regularisationL1 = false;
     double regularisationL1Factor = ZERO;
     boolean regularisationL2 = false;
@@ -48,6 +53,9 @@ final class TrainingConfiguration {
             return false;
         }
         TrainingConfiguration other = (TrainingConfiguration) obj;
+        if (batchSize != other.batchSize) {
+            return false;
+        }
         if (dropouts != other.dropouts) {
             return false;
         }
@@ -76,6 +84,7 @@ final class TrainingConfiguration {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
+        result = (prime * result) + batchSize;
         result = (prime * result) + (dropouts ? 1231 : 1237);
         result = (prime * result) + ((error == null) ? 0 : error.hashCode());
         long temp;
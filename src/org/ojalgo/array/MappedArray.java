@@ -0,0 +1,247 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+
+import org.ojalgo.structure.AccessAnyD;
+import org.ojalgo.structure.StructureAnyD;
+
+/**
+ * A read-only view of (a region of) a memory mapped file. The region is mapped in segments, each less than
+ * 2GB, so there is no limit to the file size or the number of elements. Mapping a file does not read
+ * anything – the data is paged in (by the operating system, using its page cache) as it is accessed. The
+ * elements are never copied, but converted to double as they are accessed, according to the
+ * {@link ElementType}.
+ * <p>
+ * To create (write) large files, of doubles, use {@link BufferArray#make(File, long...)}.
+ *
+ * @author apete
+ */
+public abstract class MappedArray implements AccessAnyD<Double> {
+
+    public enum ElementType {
+
+        BYTE(0), DOUBLE(3), FLOAT(2), INT(2), SHORT(1), UNSIGNED_BYTE(0), UNSIGNED_SHORT(1);
+
+        private final int mySizeBits;
+
+        ElementType(final int sizeBits) {
+            mySizeBits = sizeBits;
+        }
+
+        /**
+         * @return The number of bytes per element
+         */
+        public int size() {
+            return 1 << mySizeBits;
+        }
+
+        MappedArray newInstance(final ByteBuffer[] segments, final int indexBits, final long[] shape) {
+            switch (this) {
+            case BYTE:
+                return new MappedArray(segments, indexBits, mySizeBits, shape) {
+
+                    @Override
+                    double doubleValue(final ByteBuffer segment, final int position) {
+                        return segment.get(position);
+                    }
+                };
+            case DOUBLE:
+                return new MappedArray(segments, indexBits, mySizeBits, shape) {
+
+                    @Override
+                    double doubleValue(final ByteBuffer segment, final int position) {
+                        return segment.getDouble(position);
+                    }
+                };
+            case FLOAT:
+                return new MappedArray(segments, indexBits, mySizeBits, shape) {
+
+                    @Override
+                    double doubleValue(final ByteBuffer segment, final int position) {
+                        return segment.getFloat(position);
+                    }
+                };
+            case INT:
+                return new MappedArray(segments, indexBits, mySizeBits, shape) {
+
+                    @Override
+                    double doubleValue(final ByteBuffer segment, final int position) {
+                        return segment.getInt(position);
+                    }
+                };
+            case SHORT:
+                return new MappedArray(segments, indexBits, mySizeBits, shape) {
+
+                    @Override
+                    double doubleValue(final ByteBuffer segment, final int position) {
+                        return segment.getShort(position);
+                    }
+                };
+            case UNSIGNED_BYTE:
+                return new MappedArray(segments, indexBits, mySizeBits, shape) {
+
+                    @Override
+                    double doubleValue(final ByteBuffer segment, final int position) {
+                        return segment.get(position) & 0xFF;
+                    }
+                };
+            case UNSIGNED_SHORT:
+                return new MappedArray(segments, indexBits, mySizeBits, shape) {
+
+                    @Override
+                    double doubleValue(final ByteBuffer segment, final int position) {
+                        return segment.getShort(position) & 0xFFFF;
+                    }
+                };
+            default:
+                throw new IllegalStateException();
+            }
+        }
+
+    }
+
+    /**
+     * Each segment is (at most) 2^30 bytes.
+     */
+    static final int SEGMENT_BITS = 30;
+
+    /**
+     * Map the whole file, as a 1-dimensional array.
+     */
+    public static MappedArray map(final File file, final ElementType type, final ByteOrder order) {
+        return MappedArray.map(file, 0L, type, order, file.length() / type.size());
+    }
+
+    /**
+     * @param file The file to map
+     * @param position The position (in bytes) within the file where the elements start – typically after some
+     *        header
+     * @param type The element type
+     * @param order The byte order of multi-byte elements
+     * @param shape The structure of the data – the number of elements is the product of these
+     */
+    public static MappedArray map(final File file, final long position, final ElementType type, final ByteOrder order, final long... shape) {
+        return MappedArray.map(SEGMENT_BITS, file, position, type, order, shape);
+    }
+
+    static MappedArray map(final int segmentBits, final File file, final long position, final ElementType type, final ByteOrder order,
+            final long... shape) {
+
+        long count = StructureAnyD.count(shape);
+
+        int sizeBits = type.mySizeBits;
+        int indexBits = segmentBits - sizeBits;
+        long segmentSize = 1L << indexBits;
+
+        int numberOfSegments = Math.toIntExact((count + segmentSize - 1L) / segmentSize);
+        ByteBuffer[] segments = new ByteBuffer[Math.max(1, numberOfSegments)];
+
+        try (RandomAccessFile source = new RandomAccessFile(file, "r")) {
+
+            FileChannel channel = source.getChannel();
+
+            long totalBytes = count << sizeBits;
+            if ((position + totalBytes) > channel.size()) {
+                throw new IllegalArgumentException("The file is too small!");
+            }
+
+            for (int s = 0; s < segments.length; s++) {
+                long offset = (long) s << segmentBits;
+                long length = Math.min(1L << segmentBits, totalBytes - offset);
+                // The mapping remains valid after the channel is closed
+                segments[s] = channel.map(MapMode.READ_ONLY, position + offset, length).order(order);
+            }
+
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+
+        return type.newInstance(segments, indexBits, shape.clone());
+    }
+
+    private final long myCount;
+    private final int myIndexBits;
+    private final long myIndexMask;
+    private final ByteBuffer[] mySegments;
+    private final long[] myShape;
+    private final int mySizeBits;
+
+    MappedArray(final ByteBuffer[] segments, final int indexBits, final int sizeBits, final long[] shape) {
+
+        super();
+
+        mySegments = segments;
+        myIndexBits = indexBits;
+        myIndexMask = (1L << indexBits) - 1L;
+        mySizeBits = sizeBits;
+        myShape = shape;
+        myCount = StructureAnyD.count(shape);
+    }
+
+    @Override
+    public long count() {
+        return myCount;
+    }
+
+    public long count(final int dimension) {
+        return StructureAnyD.count(myShape, dimension);
+    }
+
+    @Override
+    public double doubleValue(final long index) {
+        return this.doubleValue(mySegments[(int) (index >>> myIndexBits)], (int) (index & myIndexMask) << mySizeBits);
+    }
+
+    public double doubleValue(final long[] ref) {
+        return this.doubleValue(StructureAnyD.index(myShape, ref));
+    }
+
+    @Override
+    public Double get(final long index) {
+        return this.doubleValue(index);
+    }
+
+    public Double get(final long[] ref) {
+        return this.doubleValue(ref);
+    }
+
+    public long[] shape() {
+        return myShape.clone();
+    }
+
+    @Override
+    public String toString() {
+        return MappedArray.class.getSimpleName() + " " + Arrays.toString(myShape);
+    }
+
+    abstract double doubleValue(ByteBuffer segment, int position);
+
+}
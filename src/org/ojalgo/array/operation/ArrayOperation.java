@@ -51,6 +51,11 @@ public interface ArrayOperation {
         ApplyLU.THRESHOLD = Math.min(value, ApplyLU.THRESHOLD);
         ASUM.THRESHOLD = Math.min(value, ASUM.THRESHOLD);
         AXPY.THRESHOLD = Math.min(value, AXPY.THRESHOLD);
+        BlockedCholesky.THRESHOLD = Math.min(value, BlockedCholesky.THRESHOLD);
+        BlockedHouseholder.THRESHOLD = Math.min(value, BlockedHouseholder.THRESHOLD);
+        BlockedLDL.THRESHOLD = Math.min(value, BlockedLDL.THRESHOLD);
+        BlockedLU.THRESHOLD = Math.min(value, BlockedLU.THRESHOLD);
+        BlockedQR.THRESHOLD = Math.min(value, BlockedQR.THRESHOLD);
         CorePrimitiveOperation.THRESHOLD = Math.min(value, CorePrimitiveOperation.THRESHOLD);
         CABS1.THRESHOLD = Math.min(value, CABS1.THRESHOLD);
         COPY.THRESHOLD = Math.min(value, COPY.THRESHOLD);
@@ -69,6 +74,7 @@ public interface ArrayOperation {
         IndexOf.THRESHOLD = Math.min(value, IndexOf.THRESHOLD);
         ModifyAll.THRESHOLD = Math.min(value, ModifyAll.THRESHOLD);
         MultiplyBoth.THRESHOLD = Math.min(value, MultiplyBoth.THRESHOLD);
+        MultiplyBlocked.THRESHOLD = Math.min(value, MultiplyBlocked.THRESHOLD);
         MultiplyHermitianAndVector.THRESHOLD = Math.min(value, MultiplyHermitianAndVector.THRESHOLD);
         MultiplyLeft.THRESHOLD = Math.min(value, MultiplyLeft.THRESHOLD);
         MultiplyNeither.THRESHOLD = Math.min(value, MultiplyNeither.THRESHOLD);
@@ -108,6 +114,11 @@ public interface ArrayOperation {
         ApplyLU.THRESHOLD = Math.max(value, ApplyLU.THRESHOLD);
         ASUM.THRESHOLD = Math.max(value, ASUM.THRESHOLD);
         AXPY.THRESHOLD = Math.max(value, AXPY.THRESHOLD);
+        BlockedCholesky.THRESHOLD = Math.max(value, BlockedCholesky.THRESHOLD);
+        BlockedHouseholder.THRESHOLD = Math.max(value, BlockedHouseholder.THRESHOLD);
+        BlockedLDL.THRESHOLD = Math.max(value, BlockedLDL.THRESHOLD);
+        BlockedLU.THRESHOLD = Math.max(value, BlockedLU.THRESHOLD);
+        BlockedQR.THRESHOLD = Math.max(value, BlockedQR.THRESHOLD);
         CorePrimitiveOperation.THRESHOLD = Math.max(value, CorePrimitiveOperation.THRESHOLD);
         CABS1.THRESHOLD = Math.max(value, CABS1.THRESHOLD);
         COPY.THRESHOLD = Math.max(value, COPY.THRESHOLD);
@@ -126,6 +137,7 @@ public interface ArrayOperation {
         IndexOf.THRESHOLD = Math.max(value, IndexOf.THRESHOLD);
         ModifyAll.THRESHOLD = Math.max(value, ModifyAll.THRESHOLD);
         MultiplyBoth.THRESHOLD = Math.max(value, MultiplyBoth.THRESHOLD);
+        MultiplyBlocked.THRESHOLD = Math.max(value, MultiplyBlocked.THRESHOLD);
         MultiplyHermitianAndVector.THRESHOLD = Math.max(value, MultiplyHermitianAndVector.THRESHOLD);
         MultiplyLeft.THRESHOLD = Math.max(value, MultiplyLeft.THRESHOLD);
         MultiplyNeither.THRESHOLD = Math.max(value, MultiplyNeither.THRESHOLD);
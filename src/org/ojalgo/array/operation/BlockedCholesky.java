@@ -0,0 +1,186 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+
+/**
+ * Blocked (right-looking, level-3) Cholesky decomposition, in place, of a column-major primitive (double)
+ * matrix. Only the lower triangle is read and written. A narrow panel of columns is factored (left-looking
+ * within the panel) and then the trailing sub-matrix is updated, block column by block column, using
+ * {@link MultiplyBlocked}. The result is the same as with repeated {@link ApplyCholesky} rank-1 updates.
+ *
+ * @author apete
+ */
+public final class BlockedCholesky implements BLAS3 {
+
+    /**
+     * The decompositions use the blocked algorithm when the dimension is at least this large.
+     */
+    public static int THRESHOLD = 256;
+
+    /**
+     * Panel width
+     */
+    static final int BLOCK = 64;
+
+    public static boolean isApplicable(final long dim) {
+        return dim >= THRESHOLD;
+    }
+
+    /**
+     * @param data The (square) matrix, column-major, the lower triangle will be overwritten by L
+     * @param dim The number of rows/columns
+     * @param diagonal Will be set to the (updated) diagonal elements, before the square root is taken - the
+     *        same values that the unblocked algorithm checks for positive definiteness.
+     * @return The number of columns successfully factored - equal to dim if the matrix is positive definite,
+     *         otherwise the index of the first non-positive diagonal element.
+     */
+    public static int invoke(final double[] data, final int dim, final double[] diagonal) {
+        return BlockedCholesky.invoke(data, dim, diagonal, BLOCK);
+    }
+
+    static int invoke(final double[] data, final int dim, final double[] diagonal, final int block) {
+
+        for (int k = 0; k < dim; k += block) {
+
+            final int limit = Math.min(k + block, dim);
+
+            final int factored = BlockedCholesky.panel(data, dim, k, limit, diagonal);
+            if (factored < limit) {
+                return factored;
+            }
+
+            if (limit < dim) {
+                BlockedCholesky.update(data, dim, k, limit, data, dim, block);
+            }
+        }
+
+        return dim;
+    }
+
+    /**
+     * Factors the panel of columns [first, limit)
+     *
+     * @return The index of the first column that could not be factored, or limit
+     */
+    static int panel(final double[] data, final int dim, final int first, final int limit, final double[] diagonal) {
+
+        for (int ij = first; ij < limit; ij++) {
+
+            final int colBase = ij * dim;
+
+            for (int p = first; p < ij; p++) {
+                AXPY.invoke(data, colBase, -data[ij + (p * dim)], data, p * dim, ij, dim);
+            }
+
+            final double value = data[ij + colBase];
+            diagonal[ij] = value;
+
+            if (value > 0.0) {
+
+                final double sqrt = Math.sqrt(value);
+                data[ij + colBase] = sqrt;
+
+                for (int i = ij + 1; i < dim; i++) {
+                    data[i + colBase] /= sqrt;
+                }
+
+            } else {
+
+                return ij;
+            }
+        }
+
+        return limit;
+    }
+
+    /**
+     * Lower triangle of the trailing sub-matrix -= L21 * W<sup>T</sup> where L21 is the (factored) panel below
+     * the diagonal block, and W is either the same (Cholesky) or L21 scaled by D (LDL).
+     *
+     * @param left The panel, columns [first, limit), of data
+     * @param right Element (i,p) of W is at right[(i - limit) + p * rightStructure] (if right is a different
+     *        array than data) or the same position as in data (when right == data)
+     */
+    static void update(final double[] data, final int dim, final int first, final int limit, final double[] right, final int rightStructure,
+            final int block) {
+
+        final int blocks = (dim - limit + block - 1) / block;
+
+        if (((long) (dim - limit) * (dim - limit) * (limit - first)) > (1L << 21)) {
+
+            final DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int firstBlock, final int blockLimit) {
+                    BlockedCholesky.update(data, dim, first, limit, right, rightStructure, block, firstBlock, blockLimit);
+                }
+            };
+
+            conquerer.invoke(0, blocks, 1);
+
+        } else {
+
+            BlockedCholesky.update(data, dim, first, limit, right, rightStructure, block, 0, blocks);
+        }
+    }
+
+    static void update(final double[] data, final int dim, final int first, final int limit, final double[] right, final int rightStructure,
+            final int block, final int firstBlock, final int blockLimit) {
+
+        final int complexity = limit - first;
+
+        final boolean same = right == data;
+        final int rightRowStride = same ? dim : rightStructure;
+        final int rightBase = same ? first * dim : -limit;
+
+        for (int b = firstBlock; b < blockLimit; b++) {
+
+            final int jb = limit + (b * block);
+            final int width = Math.min(block, dim - jb);
+
+            // The diagonal block, lower triangle only
+            for (int j = jb; j < (jb + width); j++) {
+                for (int p = 0; p < complexity; p++) {
+                    final double w = right[rightBase + j + (p * rightRowStride)];
+                    if (w != 0.0) {
+                        AXPY.invoke(data, j * dim, -w, data, (first + p) * dim, j, jb + width);
+                    }
+                }
+            }
+
+            // Everything below the diagonal block
+            final int below = jb + width;
+            if (below < dim) {
+                MultiplyBlocked.update(data, below + (jb * dim), dim, dim - below, 0, width, -1.0, data, below + (first * dim), 1, dim, complexity,
+                        right, rightBase + jb, rightRowStride, 1);
+            }
+        }
+    }
+
+    @Override
+    public int threshold() {
+        return THRESHOLD;
+    }
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.scalar.PrimitiveScalar;
+
+/**
+ * Applies sequences of Householder reflectors, stored the way the matrix decompositions store them, using
+ * the compact WY representation: the product of a block of k reflectors H<sub>1</sub>H<sub>2</sub>...
+ * H<sub>k</sub> is I - V T V<sup>T</sup> where V contains the Householder vectors and T is a k-by-k upper
+ * triangular matrix. Applying such a block is (mostly) done with matrix-matrix multiplications using
+ * {@link MultiplyBlocked}.
+ * <p>
+ * Reflector j has an implicit 1 at index (j + shift), elements at lower indices are zero and elements at
+ * higher indices i are found at reflectors[i * elementStride + j * vectorStride]. That covers Householder
+ * vectors stored below the diagonal in the columns (elementStride=1, vectorStride=structure) as well as
+ * to the right of the diagonal in the rows (elementStride=structure, vectorStride=1).
+ *
+ * @author apete
+ */
+public final class BlockedHouseholder implements BLAS3 {
+
+    /**
+     * The blocked algorithm is used when both the number of reflectors and the number of columns to
+     * transform are at least this large.
+     */
+    public static int THRESHOLD = 128;
+
+    /**
+     * Number of reflectors per block
+     */
+    static final int BLOCK = 32;
+
+    /**
+     * Calculates the beta (tau) values, 2 / v<sup>T</sup>v, of a sequence of stored Householder reflectors.
+     * Reflectors that are (numerically) zero get beta = 0.0 - the identity transformation. That matches
+     * what {@link org.ojalgo.matrix.transformation.HouseholderReference#isZero()} does.
+     *
+     * @param length The full length of the Householder vectors
+     * @param count The number of reflectors
+     */
+    public static double[] beta(final double[] reflectors, final int elementStride, final int vectorStride, final int shift, final int length,
+            final int count) {
+
+        final double[] retVal = new double[count];
+
+        for (int j = 0; j < count; j++) {
+
+            final int base = j * vectorStride;
+
+            boolean zero = true;
+            double sumOfSquares = PrimitiveMath.ONE;
+            for (int i = j + shift + 1; i < length; i++) {
+                final double value = reflectors[base + (i * elementStride)];
+                zero &= PrimitiveScalar.isSmall(PrimitiveMath.ONE, value);
+                sumOfSquares += value * value;
+            }
+
+            retVal[j] = zero ? PrimitiveMath.ZERO : PrimitiveMath.TWO / sumOfSquares;
+        }
+
+        return retVal;
+    }
+
+    public static boolean isApplicable(final long count, final long columns) {
+        return Math.min(count, columns) >= THRESHOLD;
+    }
+
+    /**
+     * @param target The matrix to transform, column-major, with all its rows transformed
+     * @param structure The number of rows in target - also the length of the Householder vectors
+     * @param columns The number of columns in target
+     * @param reflectors The stored Householder vectors
+     * @param beta The beta values of the reflectors
+     * @param count The number of reflectors
+     * @param transpose true: target = Q<sup>T</sup>target, false: target = Q target where Q = H<sub>0</sub>
+     *        H<sub>1</sub>...H<sub>count-1</sub>
+     * @param eye true if the target is known to be (or have started out as) the identity matrix - the
+     *        columns before the first reflector of a block are then not touched. Only valid together with
+     *        transpose=false.
+     */
+    public static void invoke(final double[] target, final int structure, final int columns, final double[] reflectors, final int elementStride,
+            final int vectorStride, final int shift, final double[] beta, final int count, final boolean transpose, final boolean eye) {
+        BlockedHouseholder.invoke(target, structure, columns, reflectors, elementStride, vectorStride, shift, beta, count, transpose, eye, BLOCK);
+    }
+
+    /**
+     * Applies the block of reflectors [first, limit) to the columns [firstColumn, columnLimit) of target.
+     */
+    static void apply(final double[] target, final int structure, final int firstColumn, final int columnLimit, final double[] reflectors,
+            final int elementStride, final int vectorStride, final int shift, final double[] beta, final int first, final int limit,
+            final boolean transpose) {
+
+        final int width = limit - first;
+        final int columns = columnLimit - firstColumn;
+
+        if ((width <= 0) || (columns <= 0)) {
+            return;
+        }
+
+        final int firstRow = first + shift;
+        final int blockRowLimit = firstRow + width;
+        final int below = structure - blockRowLimit;
+        final int belowOffset = (blockRowLimit * elementStride) + (first * vectorStride);
+
+        final double[] factor = BlockedHouseholder.factor(reflectors, elementStride, vectorStride, shift, structure, beta, first, limit);
+
+        // work = V^T C
+
+        final double[] work = new double[width * columns];
+
+        for (int j = 0; j < columns; j++) {
+            final int colBase = (firstColumn + j) * structure;
+            for (int p = 0; p < width; p++) {
+                final int vecBase = (first + p) * vectorStride;
+                final int row = firstRow + p;
+                double sum = target[row + colBase];
+                for (int i = row + 1; i < blockRowLimit; i++) {
+                    sum += reflectors[vecBase + (i * elementStride)] * target[i + colBase];
+                }
+                work[p + (j * width)] = sum;
+            }
+        }
+
+        MultiplyBlocked.update(work, 0, width, width, columns, PrimitiveMath.ONE, reflectors, belowOffset, vectorStride, elementStride, below, target,
+                blockRowLimit + (firstColumn * structure), 1, structure);
+
+        // work = T^T work or T work
+
+        for (int j = 0; j < columns; j++) {
+            final int colBase = j * width;
+            if (transpose) {
+                for (int p = width - 1; p >= 0; p--) {
+                    double sum = PrimitiveMath.ZERO;
+                    for (int q = 0; q <= p; q++) {
+                        sum += factor[q + (p * width)] * work[q + colBase];
+                    }
+                    work[p + colBase] = sum;
+                }
+            } else {
+                for (int p = 0; p < width; p++) {
+                    double sum = PrimitiveMath.ZERO;
+                    for (int q = p; q < width; q++) {
+                        sum += factor[p + (q * width)] * work[q + colBase];
+                    }
+                    work[p + colBase] = sum;
+                }
+            }
+        }
+
+        // C = C - V work
+
+        MultiplyBlocked.update(target, blockRowLimit + (firstColumn * structure), structure, below, columns, PrimitiveMath.NEG, reflectors, belowOffset,
+                elementStride, vectorStride, width, work, 0, 1, width);
+
+        for (int j = 0; j < columns; j++) {
+            final int colBase = (firstColumn + j) * structure;
+            for (int p = 0; p < width; p++) {
+                final double value = work[p + (j * width)];
+                if (value != PrimitiveMath.ZERO) {
+                    final int vecBase = (first + p) * vectorStride;
+                    final int row = firstRow + p;
+                    target[row + colBase] -= value;
+                    for (int i = row + 1; i < blockRowLimit; i++) {
+                        target[i + colBase] -= value * reflectors[vecBase + (i * elementStride)];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Forms the upper triangular T (column-major, width-by-width) of the compact WY representation of the
+     * reflectors [first, limit).
+     */
+    static double[] factor(final double[] reflectors, final int elementStride, final int vectorStride, final int shift, final int length,
+            final double[] beta, final int first, final int limit) {
+
+        final int width = limit - first;
+
+        final double[] retVal = new double[width * width];
+        final double[] products = new double[width];
+
+        for (int p = 0; p < width; p++) {
+
+            final double betaP = beta[first + p];
+            final int rowP = first + p + shift;
+            final int baseP = (first + p) * vectorStride;
+
+            retVal[p + (p * width)] = betaP;
+
+            if (betaP != PrimitiveMath.ZERO) {
+
+                // products = V[:,0:p]^T v_p
+
+                for (int q = 0; q < p; q++) {
+                    final int baseQ = (first + q) * vectorStride;
+                    double sum = reflectors[baseQ + (rowP * elementStride)];
+                    for (int i = rowP + 1; i < length; i++) {
+                        sum += reflectors[baseQ + (i * elementStride)] * reflectors[baseP + (i * elementStride)];
+                    }
+                    products[q] = sum;
+                }
+
+                // T[0:p,p] = -beta T[0:p,0:p] products
+
+                for (int q = 0; q < p; q++) {
+                    double sum = PrimitiveMath.ZERO;
+                    for (int r = q; r < p; r++) {
+                        sum += retVal[q + (r * width)] * products[r];
+                    }
+                    retVal[q + (p * width)] = -betaP * sum;
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    static void invoke(final double[] target, final int structure, final int columns, final double[] reflectors, final int elementStride,
+            final int vectorStride, final int shift, final double[] beta, final int count, final boolean transpose, final boolean eye, final int block) {
+
+        final int limit = Math.min(count, structure - shift);
+
+        if ((columns * 4) < block) {
+            // Too few columns for the blocked algorithm to pay off
+            if (transpose) {
+                for (int j = 0; j < limit; j++) {
+                    BlockedHouseholder.reflect(target, structure, 0, columns, reflectors, elementStride, vectorStride, shift, beta, j);
+                }
+            } else {
+                for (int j = limit - 1; j >= 0; j--) {
+                    BlockedHouseholder.reflect(target, structure, eye ? j : 0, columns, reflectors, elementStride, vectorStride, shift, beta, j);
+                }
+            }
+            return;
+        }
+
+        if (transpose) {
+            for (int k = 0; k < limit; k += block) {
+                BlockedHouseholder.apply(target, structure, 0, columns, reflectors, elementStride, vectorStride, shift, beta, k, Math.min(k + block, limit),
+                        true);
+            }
+        } else {
+            for (int k = ((limit - 1) / block) * block; k >= 0; k -= block) {
+                BlockedHouseholder.apply(target, structure, eye ? k : 0, columns, reflectors, elementStride, vectorStride, shift, beta, k,
+                        Math.min(k + block, limit), false);
+            }
+        }
+    }
+
+    /**
+     * Applies the single reflector j to the columns [firstColumn, columnLimit) of target.
+     */
+    static void reflect(final double[] target, final int structure, final int firstColumn, final int columnLimit, final double[] reflectors,
+            final int elementStride, final int vectorStride, final int shift, final double[] beta, final int j) {
+
+        final double betaJ = beta[j];
+
+        if (betaJ == PrimitiveMath.ZERO) {
+            return;
+        }
+
+        final int vecBase = j * vectorStride;
+        final int row = j + shift;
+
+        for (int c = firstColumn; c < columnLimit; c++) {
+
+            final int colBase = c * structure;
+
+            double scale = target[row + colBase];
+            for (int i = row + 1; i < structure; i++) {
+                scale += reflectors[vecBase + (i * elementStride)] * target[i + colBase];
+            }
+            scale *= betaJ;
+
+            if (scale != PrimitiveMath.ZERO) {
+                target[row + colBase] -= scale;
+                for (int i = row + 1; i < structure; i++) {
+                    target[i + colBase] -= scale * reflectors[vecBase + (i * elementStride)];
+                }
+            }
+        }
+    }
+
+    @Override
+    public int threshold() {
+        return THRESHOLD;
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+/**
+ * Blocked (right-looking, level-3) LDL decomposition, with optional symmetric (diagonal) pivoting, in place,
+ * of a column-major primitive (double) matrix. Only the lower triangle is read and written. Works the same way
+ * as {@link BlockedCholesky} - the trailing sub-matrix is updated with L21 * (L21 * D)<sup>T</sup>. When
+ * pivoting, the (updated) diagonal is tracked explicitly so that the pivot selection is the same as with
+ * repeated {@link ApplyLDL} rank-1 updates.
+ *
+ * @author apete
+ */
+public final class BlockedLDL implements BLAS3 {
+
+    /**
+     * The decompositions use the blocked algorithm when the dimension is at least this large.
+     */
+    public static int THRESHOLD = 256;
+
+    /**
+     * Panel width
+     */
+    static final int BLOCK = 64;
+
+    public static boolean isApplicable(final long dim) {
+        return dim >= THRESHOLD;
+    }
+
+    /**
+     * @param data The (square) matrix, column-major, the lower triangle will be overwritten by D (on the
+     *        diagonal) and L (below the diagonal, unit diagonal implied)
+     * @param dim The number of rows/columns
+     * @param pivots If null there is no pivoting, otherwise, for each index, ij, along the diagonal pivots[ij]
+     *        will be set to the index of the row/column that was (symmetrically) exchanged with ij (can be ij
+     *        itself).
+     */
+    public static void invoke(final double[] data, final int dim, final int[] pivots) {
+        BlockedLDL.invoke(data, dim, pivots, BLOCK);
+    }
+
+    static void exchangeHermitian(final double[] data, final int dim, final int indexA, final int indexB) {
+
+        final int indexMin = Math.min(indexA, indexB);
+        final int indexMax = Math.max(indexA, indexB);
+
+        double tmpVal;
+
+        for (int j = 0; j < indexMin; j++) {
+            tmpVal = data[indexMin + (j * dim)];
+            data[indexMin + (j * dim)] = data[indexMax + (j * dim)];
+            data[indexMax + (j * dim)] = tmpVal;
+        }
+
+        tmpVal = data[indexMin + (indexMin * dim)];
+        data[indexMin + (indexMin * dim)] = data[indexMax + (indexMax * dim)];
+        data[indexMax + (indexMax * dim)] = tmpVal;
+
+        for (int ij = indexMin + 1; ij < indexMax; ij++) {
+            tmpVal = data[ij + (indexMin * dim)];
+            data[ij + (indexMin * dim)] = data[indexMax + (ij * dim)];
+            data[indexMax + (ij * dim)] = tmpVal;
+        }
+
+        for (int i = indexMax + 1; i < dim; i++) {
+            tmpVal = data[i + (indexMin * dim)];
+            data[i + (indexMin * dim)] = data[i + (indexMax * dim)];
+            data[i + (indexMax * dim)] = tmpVal;
+        }
+    }
+
+    static void invoke(final double[] data, final int dim, final int[] pivots, final int block) {
+
+        final double[] diagonal = pivots != null ? new double[dim] : null;
+        final double[] scaled = new double[dim * Math.min(block, dim)];
+
+        for (int k = 0; k < dim; k += block) {
+
+            final int limit = Math.min(k + block, dim);
+
+            BlockedLDL.panel(data, dim, k, limit, pivots, diagonal);
+
+            if (limit < dim) {
+
+                // W = L21 * D1
+                final int structure = dim - limit;
+                for (int p = k; p < limit; p++) {
+                    final double d = data[p + (p * dim)];
+                    final int base = (p - k) * structure;
+                    for (int i = limit; i < dim; i++) {
+                        scaled[base + (i - limit)] = d * data[i + (p * dim)];
+                    }
+                }
+
+                BlockedCholesky.update(data, dim, k, limit, scaled, structure, block);
+            }
+        }
+    }
+
+    /**
+     * Factors the panel of columns [first, limit)
+     */
+    static void panel(final double[] data, final int dim, final int first, final int limit, final int[] pivots, final double[] diagonal) {
+
+        if (pivots != null) {
+            for (int j = first; j < dim; j++) {
+                diagonal[j] = data[j + (j * dim)];
+            }
+        }
+
+        for (int ij = first; ij < limit; ij++) {
+
+            if (pivots != null) {
+                final int pivot = AMAX.invoke(diagonal, ij, dim, 1);
+                pivots[ij] = pivot;
+                if (pivot != ij) {
+                    BlockedLDL.exchangeHermitian(data, dim, pivot, ij);
+                    final double tmpVal = diagonal[ij];
+                    diagonal[ij] = diagonal[pivot];
+                    diagonal[pivot] = tmpVal;
+                }
+            }
+
+            final int colBase = ij * dim;
+
+            for (int p = first; p < ij; p++) {
+                final double w = data[p + (p * dim)] * data[ij + (p * dim)];
+                if (w != 0.0) {
+                    AXPY.invoke(data, colBase, -w, data, p * dim, ij, dim);
+                }
+            }
+
+            final double d = data[ij + colBase];
+
+            if (d != 0.0) {
+
+                for (int i = ij + 1; i < dim; i++) {
+                    data[i + colBase] /= d;
+                }
+
+                if (pivots != null) {
+                    for (int i = ij + 1; i < dim; i++) {
+                        final double l = data[i + colBase];
+                        diagonal[i] -= d * l * l;
+                    }
+                }
+
+            } else {
+
+                data[ij + colBase] = 0.0;
+            }
+        }
+    }
+
+    @Override
+    public int threshold() {
+        return THRESHOLD;
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+
+/**
+ * Blocked (right-looking, level-3) LU decomposition with partial pivoting, in place, of a column-major
+ * primitive (double) matrix. A narrow panel of columns is factored (left-looking within the panel), the
+ * corresponding block row of U is solved for, and then the trailing sub-matrix is updated with a single
+ * matrix multiplication using {@link MultiplyBlocked}. The result is the same as with repeated
+ * {@link ApplyLU} rank-1 updates, but the vast majority of the flops are done in cache friendly
+ * matrix-matrix operations.
+ *
+ * @author apete
+ */
+public final class BlockedLU implements BLAS3 {
+
+    /**
+     * The decompositions use the blocked algorithm when the (min) dimension is at least this large.
+     */
+    public static int THRESHOLD = 512;
+
+    /**
+     * Panel width
+     */
+    static final int BLOCK = 64;
+
+    public static boolean isApplicable(final long rows, final long columns) {
+        return Math.min(rows, columns) >= THRESHOLD;
+    }
+
+    /**
+     * @param data The matrix, column-major, will be overwritten by L (below the diagonal, unit diagonal
+     *        implied) and U
+     * @param rows The number of rows (the structure)
+     * @param columns The number of columns
+     * @param pivots For each row/column index, ij, along the diagonal pivots[ij] will be set to the index of the
+     *        row that was exchanged with row ij (can be ij itself).
+     */
+    public static void invoke(final double[] data, final int rows, final int columns, final int[] pivots) {
+        BlockedLU.invoke(data, rows, columns, pivots, BLOCK);
+    }
+
+    static void exchangeRows(final double[] data, final int rows, final int columns, final int rowA, final int rowB) {
+        double tmpVal;
+        for (int j = 0, indexA = rowA, indexB = rowB; j < columns; j++, indexA += rows, indexB += rows) {
+            tmpVal = data[indexA];
+            data[indexA] = data[indexB];
+            data[indexB] = tmpVal;
+        }
+    }
+
+    static void invoke(final double[] data, final int rows, final int columns, final int[] pivots, final int block) {
+
+        final int minDim = Math.min(rows, columns);
+
+        for (int k = 0; k < minDim; k += block) {
+
+            final int limit = Math.min(k + block, minDim);
+
+            BlockedLU.panel(data, rows, columns, k, limit, pivots);
+
+            if (limit < columns) {
+
+                BlockedLU.solve(data, rows, k, limit, limit, columns);
+
+                MultiplyBlocked.update(data, limit + (limit * rows), rows, rows - limit, columns - limit, -1.0, data, limit + (k * rows), 1, rows,
+                        limit - k, data, k + (limit * rows), 1, rows);
+            }
+        }
+    }
+
+    /**
+     * Factors the panel of columns [first, limit) - the columns are updated left-looking, one at the time, and
+     * then the pivot row is selected and exchanged (full rows).
+     */
+    static void panel(final double[] data, final int rows, final int columns, final int first, final int limit, final int[] pivots) {
+
+        for (int ij = first; ij < limit; ij++) {
+
+            final int colBase = ij * rows;
+
+            // Apply the transformations from the previous columns of this panel
+            for (int p = first; p < ij; p++) {
+                final double value = data[p + colBase];
+                if (value != 0.0) {
+                    AXPY.invoke(data, colBase, -value, data, p * rows, p + 1, rows);
+                }
+            }
+
+            // Find, and exchange, pivot row
+            final int pivotRow = AMAX.invoke(data, colBase + ij, colBase + rows, 1) - colBase;
+            pivots[ij] = pivotRow;
+            if (pivotRow != ij) {
+                BlockedLU.exchangeRows(data, rows, columns, pivotRow, ij);
+            }
+
+            // Calculate the multipliers
+            final double pivotElement = data[ij + colBase];
+            if (pivotElement != 0.0) {
+                for (int i = ij + 1; i < rows; i++) {
+                    data[i + colBase] /= pivotElement;
+                }
+            } else {
+                data[ij + colBase] = 0.0;
+            }
+        }
+    }
+
+    /**
+     * Solves L[first:limit,first:limit] X = A[first:limit,firstColumn:columnLimit] (L is unit lower
+     * triangular) overwriting A - the U block row.
+     */
+    static void solve(final double[] data, final int rows, final int first, final int limit, final int firstColumn, final int columnLimit) {
+
+        if ((columnLimit - firstColumn) > ApplyLU.THRESHOLD) {
+
+            final DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int firstInRange, final int limitInRange) {
+                    BlockedLU.substitute(data, rows, first, limit, firstInRange, limitInRange);
+                }
+            };
+
+            conquerer.invoke(firstColumn, columnLimit, ApplyLU.THRESHOLD);
+
+        } else {
+
+            BlockedLU.substitute(data, rows, first, limit, firstColumn, columnLimit);
+        }
+    }
+
+    static void substitute(final double[] data, final int rows, final int first, final int limit, final int firstColumn, final int columnLimit) {
+        for (int j = firstColumn; j < columnLimit; j++) {
+            final int colBase = j * rows;
+            for (int p = first; p < limit; p++) {
+                final double value = data[p + colBase];
+                if (value != 0.0) {
+                    AXPY.invoke(data, colBase, -value, data, p * rows, p + 1, limit);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int threshold() {
+        return THRESHOLD;
+    }
+
+}
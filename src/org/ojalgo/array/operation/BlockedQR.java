@@ -0,0 +1,93 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import org.ojalgo.matrix.transformation.Householder;
+
+/**
+ * Blocked (level-3) Householder QR decomposition, in place, of a column-major primitive (double) matrix. A
+ * panel of columns is factored one reflector at the time, exactly as with
+ * {@link GenerateApplyAndCopyHouseholderColumn} and {@link HouseholderLeft}, and then the accumulated block
+ * reflector is applied to the trailing columns using {@link BlockedHouseholder}.
+ *
+ * @author apete
+ */
+public final class BlockedQR implements BLAS3 {
+
+    /**
+     * The decompositions use the blocked algorithm when the (min) dimension is at least this large.
+     */
+    public static int THRESHOLD = 128;
+
+    public static boolean isApplicable(final long rows, final long columns) {
+        return Math.min(rows, columns) >= THRESHOLD;
+    }
+
+    /**
+     * @param data The matrix, column-major, will be overwritten by R (on and above the diagonal) and the
+     *        Householder vectors (below the diagonal, the leading 1 is implied)
+     * @param rows The number of rows (the structure)
+     * @param columns The number of columns
+     * @param beta For each of the min(rows,columns) reflectors the beta value will be set - 0.0 if that
+     *        reflector is the identity transformation (not generated).
+     * @return The number of (non-identity) Householder transformations
+     */
+    public static int invoke(final double[] data, final int rows, final int columns, final double[] beta) {
+        return BlockedQR.invoke(data, rows, columns, beta, BlockedHouseholder.BLOCK);
+    }
+
+    static int invoke(final double[] data, final int rows, final int columns, final double[] beta, final int block) {
+
+        final Householder.Primitive64 householder = new Householder.Primitive64(rows);
+
+        int retVal = 0;
+
+        final int minDim = Math.min(rows, columns);
+
+        for (int k = 0; k < minDim; k += block) {
+
+            final int limit = Math.min(k + block, minDim);
+
+            for (int ij = k; ij < limit; ij++) {
+                if (((ij + 1) < rows) && GenerateApplyAndCopyHouseholderColumn.invoke(data, rows, ij, ij, householder)) {
+                    HouseholderLeft.invoke(data, rows, ij + 1, limit, householder);
+                    beta[ij] = householder.beta;
+                    retVal++;
+                } else {
+                    beta[ij] = 0.0;
+                }
+            }
+
+            if (limit < columns) {
+                BlockedHouseholder.apply(data, rows, limit, columns, data, 1, rows, 0, beta, k, limit, true);
+            }
+        }
+
+        return retVal;
+    }
+
+    @Override
+    public int threshold() {
+        return THRESHOLD;
+    }
+
+}
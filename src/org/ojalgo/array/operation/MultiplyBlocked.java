@@ -0,0 +1,524 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import java.util.Arrays;
+
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.matrix.store.TransformableRegion;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * Cache-blocked (packed panel) matrix multiplication for large dense primitive matrices - the GotoBLAS/BLIS
+ * approach. Blocks of the left and right matrices are copied (packed) to contiguous buffers that fit in the L2
+ * and L1 caches respectively, and then a register-tiled {@value #MR}x{@value #NR} micro-kernel accumulates
+ * into the product. The micro-kernel is fully unrolled to give the JIT something it can keep in registers and
+ * vectorise.
+ * <p>
+ * All matrices are column-major. The product is overwritten (not added to).
+ *
+ * @author apete
+ */
+public final class MultiplyBlocked implements BLAS3 {
+
+    /**
+     * The blocked algorithm is used when all of rows, columns and complexity are at least this large.
+     */
+    public static int THRESHOLD = 128;
+
+    /**
+     * Depth (complexity) of the packed blocks
+     */
+    static final int KC = 256;
+    /**
+     * Number of rows in a packed left block
+     */
+    static final int MC = 128;
+    /**
+     * Micro-kernel rows
+     */
+    static final int MR = 4;
+    /**
+     * Max number of columns in a packed right block
+     */
+    static final int NC = 1024;
+    /**
+     * Micro-kernel columns
+     */
+    static final int NR = 4;
+
+    /**
+     * When choosing an implementation, before the complexity is known. The implementation chosen must then
+     * still check the complexity when invoked.
+     */
+    public static boolean isApplicable(final long rows, final long columns) {
+        return (rows >= THRESHOLD) && (columns >= THRESHOLD);
+    }
+
+    public static boolean isApplicable(final long rows, final long complexity, final long columns) {
+        return (rows >= THRESHOLD) && (complexity >= THRESHOLD) && (columns >= THRESHOLD);
+    }
+
+    public static void invoke(final double[] product, final Access1D<?> left, final int complexity, final Access1D<?> right) {
+
+        final int rows = Math.toIntExact(left.count() / complexity);
+        final int columns = Math.toIntExact(right.count() / complexity);
+
+        final double[] leftData = left instanceof Primitive64Array ? ((Primitive64Array) left).data : null;
+        final double[] rightData = right instanceof Primitive64Array ? ((Primitive64Array) right).data : null;
+
+        Arrays.fill(product, 0, rows * columns, 0.0);
+
+        MultiplyBlocked.divide(product, rows, columns, leftData, left, complexity, rightData, right);
+    }
+
+    public static void invoke(final double[] product, final Access1D<?> left, final int complexity, final double[] right) {
+
+        final int rows = Math.toIntExact(left.count() / complexity);
+        final int columns = right.length / complexity;
+
+        final double[] leftData = left instanceof Primitive64Array ? ((Primitive64Array) left).data : null;
+
+        Arrays.fill(product, 0, rows * columns, 0.0);
+
+        MultiplyBlocked.divide(product, rows, columns, leftData, left, complexity, right, null);
+    }
+
+    public static void invoke(final double[] product, final double[] left, final int complexity, final Access1D<?> right) {
+
+        final int rows = left.length / complexity;
+        final int columns = Math.toIntExact(right.count() / complexity);
+
+        final double[] rightData = right instanceof Primitive64Array ? ((Primitive64Array) right).data : null;
+
+        Arrays.fill(product, 0, rows * columns, 0.0);
+
+        MultiplyBlocked.divide(product, rows, columns, left, null, complexity, rightData, right);
+    }
+
+    public static void invoke(final double[] product, final double[] left, final int complexity, final double[] right) {
+
+        final int rows = left.length / complexity;
+        final int columns = right.length / complexity;
+
+        Arrays.fill(product, 0, rows * columns, 0.0);
+
+        MultiplyBlocked.divide(product, rows, columns, left, null, complexity, right, null);
+    }
+
+    public static void invoke(final TransformableRegion<Double> product, final Access1D<?> left, final int complexity, final Access1D<?> right) {
+
+        final int rows = Math.toIntExact(left.count() / complexity);
+        final int columns = Math.toIntExact(right.count() / complexity);
+
+        if ((product instanceof Primitive64Array) && (product.countRows() == rows) && (product.countColumns() == columns)) {
+            MultiplyBlocked.invoke(((Primitive64Array) product).data, left, complexity, right);
+            return;
+        }
+
+        final double[] tmpProduct = new double[rows * columns];
+
+        MultiplyBlocked.invoke(tmpProduct, left, complexity, right);
+
+        for (int j = 0; j < columns; j++) {
+            for (int i = 0; i < rows; i++) {
+                product.set(i, j, tmpProduct[i + (j * rows)]);
+            }
+        }
+    }
+
+    /**
+     * product += alpha * left * right, where all three are sub-matrices of (larger) column-major arrays - a
+     * general GEMM-style update. Used for the (trailing sub-matrix) updates of the blocked matrix
+     * decompositions. Element (i,j) of the product is at productOffset + i + j * productStructure. Elements of
+     * the left and right matrices are located using row and column strides - swap the strides to use the
+     * transpose.
+     */
+    public static void update(final double[] product, final int productOffset, final int productStructure, final int rows, final int columns,
+            final double alpha, final double[] left, final int leftOffset, final int leftRowStride, final int leftColumnStride, final int complexity,
+            final double[] right, final int rightOffset, final int rightRowStride, final int rightColumnStride) {
+
+        if ((rows <= 0) || (columns <= 0) || (complexity <= 0)) {
+            return;
+        }
+
+        if ((columns > NR) && (((long) rows * complexity * columns) > (1L << 21))) {
+
+            final DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    MultiplyBlocked.update(product, productOffset, productStructure, rows, first, limit, alpha, left, leftOffset, leftRowStride,
+                            leftColumnStride, complexity, right, rightOffset, rightRowStride, rightColumnStride);
+                }
+
+            };
+
+            conquerer.invoke(0, columns, Math.max(NR, THRESHOLD / 2));
+
+        } else {
+
+            MultiplyBlocked.update(product, productOffset, productStructure, rows, 0, columns, alpha, left, leftOffset, leftRowStride, leftColumnStride,
+                    complexity, right, rightOffset, rightRowStride, rightColumnStride);
+        }
+    }
+
+    static void divide(final double[] product, final int rows, final int columns, final double[] leftData, final Access1D<?> left,
+            final int complexity, final double[] rightData, final Access1D<?> right) {
+
+        if ((columns > NR) && (((long) rows * complexity * columns) > (1L << 21))) {
+
+            final DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    MultiplyBlocked.multiply(product, rows, first, limit, leftData, left, complexity, rightData, right);
+                }
+
+            };
+
+            conquerer.invoke(0, columns, Math.max(NR, THRESHOLD / 2));
+
+        } else {
+
+            MultiplyBlocked.multiply(product, rows, 0, columns, leftData, left, complexity, rightData, right);
+        }
+    }
+
+    static void kernel(final int kc, final double[] packedLeft, final int leftOffset, final double[] packedRight, final int rightOffset,
+            final double[] product, final int productOffset, final int structure) {
+
+        double c00 = 0.0, c10 = 0.0, c20 = 0.0, c30 = 0.0;
+        double c01 = 0.0, c11 = 0.0, c21 = 0.0, c31 = 0.0;
+        double c02 = 0.0, c12 = 0.0, c22 = 0.0, c32 = 0.0;
+        double c03 = 0.0, c13 = 0.0, c23 = 0.0, c33 = 0.0;
+
+        int a = leftOffset;
+        int b = rightOffset;
+
+        for (int p = 0; p < kc; p++) {
+
+            final double a0 = packedLeft[a];
+            final double a1 = packedLeft[a + 1];
+            final double a2 = packedLeft[a + 2];
+            final double a3 = packedLeft[a + 3];
+
+            double bj = packedRight[b];
+            c00 += a0 * bj;
+            c10 += a1 * bj;
+            c20 += a2 * bj;
+            c30 += a3 * bj;
+
+            bj = packedRight[b + 1];
+            c01 += a0 * bj;
+            c11 += a1 * bj;
+            c21 += a2 * bj;
+            c31 += a3 * bj;
+
+            bj = packedRight[b + 2];
+            c02 += a0 * bj;
+            c12 += a1 * bj;
+            c22 += a2 * bj;
+            c32 += a3 * bj;
+
+            bj = packedRight[b + 3];
+            c03 += a0 * bj;
+            c13 += a1 * bj;
+            c23 += a2 * bj;
+            c33 += a3 * bj;
+
+            a += MR;
+            b += NR;
+        }
+
+        int c = productOffset;
+        product[c] += c00;
+        product[c + 1] += c10;
+        product[c + 2] += c20;
+        product[c + 3] += c30;
+
+        c += structure;
+        product[c] += c01;
+        product[c + 1] += c11;
+        product[c + 2] += c21;
+        product[c + 3] += c31;
+
+        c += structure;
+        product[c] += c02;
+        product[c + 1] += c12;
+        product[c + 2] += c22;
+        product[c + 3] += c32;
+
+        c += structure;
+        product[c] += c03;
+        product[c + 1] += c13;
+        product[c + 2] += c23;
+        product[c + 3] += c33;
+    }
+
+    /**
+     * Edge tiles, with fewer than {@link #MR} rows and/or {@link #NR} columns. The packed panels are zero-padded
+     * so the full tile is calculated, but only the valid part is added to the product.
+     */
+    static void kernel(final int kc, final double[] packedLeft, final int leftOffset, final double[] packedRight, final int rightOffset,
+            final double[] product, final int productOffset, final int structure, final int mr, final int nr, final double[] tile) {
+
+        Arrays.fill(tile, 0.0);
+
+        int a = leftOffset;
+        int b = rightOffset;
+
+        for (int p = 0; p < kc; p++) {
+            for (int j = 0; j < NR; j++) {
+                final double bj = packedRight[b + j];
+                for (int i = 0; i < MR; i++) {
+                    tile[i + (j * MR)] += packedLeft[a + i] * bj;
+                }
+            }
+            a += MR;
+            b += NR;
+        }
+
+        for (int j = 0; j < nr; j++) {
+            for (int i = 0; i < mr; i++) {
+                product[productOffset + i + (j * structure)] += tile[i + (j * MR)];
+            }
+        }
+    }
+
+    /**
+     * Calculates the columns [firstColumn, columnLimit) of the product, adding to what's already there.
+     */
+    static void multiply(final double[] product, final int rows, final int firstColumn, final int columnLimit, final double[] leftData,
+            final Access1D<?> left, final int complexity, final double[] rightData, final Access1D<?> right) {
+
+        final double[] packedLeft = new double[MC * KC];
+        final double[] packedRight = new double[KC * Math.min(NC, MultiplyBlocked.roundUp(columnLimit - firstColumn, NR))];
+        final double[] tile = new double[MR * NR];
+
+        for (int jc = firstColumn; jc < columnLimit; jc += NC) {
+            final int nc = Math.min(NC, columnLimit - jc);
+
+            for (int pc = 0; pc < complexity; pc += KC) {
+                final int kc = Math.min(KC, complexity - pc);
+
+                MultiplyBlocked.packRight(packedRight, rightData, right, complexity, pc, kc, jc, nc);
+
+                for (int ic = 0; ic < rows; ic += MC) {
+                    final int mc = Math.min(MC, rows - ic);
+
+                    MultiplyBlocked.packLeft(packedLeft, leftData, left, rows, ic, mc, pc, kc);
+
+                    for (int jr = 0; jr < nc; jr += NR) {
+                        final int nr = Math.min(NR, nc - jr);
+                        final int rightOffset = jr * kc;
+
+                        for (int ir = 0; ir < mc; ir += MR) {
+                            final int mr = Math.min(MR, mc - ir);
+                            final int leftOffset = ir * kc;
+                            final int productOffset = (ic + ir) + ((jc + jr) * rows);
+
+                            if ((mr == MR) && (nr == NR)) {
+                                MultiplyBlocked.kernel(kc, packedLeft, leftOffset, packedRight, rightOffset, product, productOffset, rows);
+                            } else {
+                                MultiplyBlocked.kernel(kc, packedLeft, leftOffset, packedRight, rightOffset, product, productOffset, rows, mr, nr, tile);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs left[ic:ic+mc, pc:pc+kc] to consecutive {@link #MR}-row panels, each stored with the MR elements of
+     * one column together. Rows beyond the matrix are zero-padded.
+     */
+    static void packLeft(final double[] packed, final double[] data, final Access1D<?> left, final int rows, final int ic, final int mc, final int pc,
+            final int kc) {
+
+        int index = 0;
+
+        for (int ir = 0; ir < mc; ir += MR) {
+            final int mr = Math.min(MR, mc - ir);
+            final int firstRow = ic + ir;
+
+            for (int p = 0; p < kc; p++) {
+                final int base = firstRow + ((pc + p) * rows);
+                if (data != null) {
+                    for (int i = 0; i < mr; i++) {
+                        packed[index + i] = data[base + i];
+                    }
+                } else {
+                    for (int i = 0; i < mr; i++) {
+                        packed[index + i] = left.doubleValue(base + i);
+                    }
+                }
+                for (int i = mr; i < MR; i++) {
+                    packed[index + i] = 0.0;
+                }
+                index += MR;
+            }
+        }
+    }
+
+    /**
+     * Packs right[pc:pc+kc, jc:jc+nc] to consecutive {@link #NR}-column panels, each stored with the NR elements
+     * of one row together. Columns beyond the matrix are zero-padded.
+     */
+    static void packRight(final double[] packed, final double[] data, final Access1D<?> right, final int complexity, final int pc, final int kc,
+            final int jc, final int nc) {
+
+        int index = 0;
+
+        for (int jr = 0; jr < nc; jr += NR) {
+            final int nr = Math.min(NR, nc - jr);
+            final int firstColumn = jc + jr;
+
+            for (int p = 0; p < kc; p++) {
+                final int base = (pc + p) + (firstColumn * complexity);
+                if (data != null) {
+                    for (int j = 0; j < nr; j++) {
+                        packed[index + j] = data[base + (j * complexity)];
+                    }
+                } else {
+                    for (int j = 0; j < nr; j++) {
+                        packed[index + j] = right.doubleValue(base + (j * complexity));
+                    }
+                }
+                for (int j = nr; j < NR; j++) {
+                    packed[index + j] = 0.0;
+                }
+                index += NR;
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #packLeft(double[], double[], Access1D, int, int, int, int, int)} but for a sub-matrix with
+     * arbitrary row and column strides, and with the elements scaled by alpha.
+     */
+    static void packStridedLeft(final double[] packed, final double[] data, final int offset, final int rowStride, final int columnStride,
+            final double alpha, final int ic, final int mc, final int pc, final int kc) {
+
+        int index = 0;
+
+        for (int ir = 0; ir < mc; ir += MR) {
+            final int mr = Math.min(MR, mc - ir);
+            final int firstRow = ic + ir;
+
+            for (int p = 0; p < kc; p++) {
+                final int base = offset + (firstRow * rowStride) + ((pc + p) * columnStride);
+                for (int i = 0; i < mr; i++) {
+                    packed[index + i] = alpha * data[base + (i * rowStride)];
+                }
+                for (int i = mr; i < MR; i++) {
+                    packed[index + i] = 0.0;
+                }
+                index += MR;
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #packRight(double[], double[], Access1D, int, int, int, int, int)} but for a
+     * sub-matrix with arbitrary row and column strides.
+     */
+    static void packStridedRight(final double[] packed, final double[] data, final int offset, final int rowStride, final int columnStride,
+            final int pc, final int kc, final int jc, final int nc) {
+
+        int index = 0;
+
+        for (int jr = 0; jr < nc; jr += NR) {
+            final int nr = Math.min(NR, nc - jr);
+            final int firstColumn = jc + jr;
+
+            for (int p = 0; p < kc; p++) {
+                final int base = offset + ((pc + p) * rowStride) + (firstColumn * columnStride);
+                for (int j = 0; j < nr; j++) {
+                    packed[index + j] = data[base + (j * columnStride)];
+                }
+                for (int j = nr; j < NR; j++) {
+                    packed[index + j] = 0.0;
+                }
+                index += NR;
+            }
+        }
+    }
+
+    static int roundUp(final int value, final int multiple) {
+        return ((value + multiple - 1) / multiple) * multiple;
+    }
+
+    /**
+     * Updates the columns [firstColumn, columnLimit) of the product.
+     */
+    static void update(final double[] product, final int productOffset, final int productStructure, final int rows, final int firstColumn,
+            final int columnLimit, final double alpha, final double[] left, final int leftOffset, final int leftRowStride, final int leftColumnStride,
+            final int complexity, final double[] right, final int rightOffset, final int rightRowStride, final int rightColumnStride) {
+
+        final double[] packedLeft = new double[MC * KC];
+        final double[] packedRight = new double[KC * Math.min(NC, MultiplyBlocked.roundUp(columnLimit - firstColumn, NR))];
+        final double[] tile = new double[MR * NR];
+
+        for (int jc = firstColumn; jc < columnLimit; jc += NC) {
+            final int nc = Math.min(NC, columnLimit - jc);
+
+            for (int pc = 0; pc < complexity; pc += KC) {
+                final int kc = Math.min(KC, complexity - pc);
+
+                MultiplyBlocked.packStridedRight(packedRight, right, rightOffset, rightRowStride, rightColumnStride, pc, kc, jc, nc);
+
+                for (int ic = 0; ic < rows; ic += MC) {
+                    final int mc = Math.min(MC, rows - ic);
+
+                    MultiplyBlocked.packStridedLeft(packedLeft, left, leftOffset, leftRowStride, leftColumnStride, alpha, ic, mc, pc, kc);
+
+                    for (int jr = 0; jr < nc; jr += NR) {
+                        final int nr = Math.min(NR, nc - jr);
+                        final int rightOffsetPacked = jr * kc;
+
+                        for (int ir = 0; ir < mc; ir += MR) {
+                            final int mr = Math.min(MR, mc - ir);
+                            final int leftOffsetPacked = ir * kc;
+                            final int offset = productOffset + (ic + ir) + ((jc + jr) * productStructure);
+
+                            if ((mr == MR) && (nr == NR)) {
+                                MultiplyBlocked.kernel(kc, packedLeft, leftOffsetPacked, packedRight, rightOffsetPacked, product, offset, productStructure);
+                            } else {
+                                MultiplyBlocked.kernel(kc, packedLeft, leftOffsetPacked, packedRight, rightOffsetPacked, product, offset, productStructure, mr,
+                                        nr, tile);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int threshold() {
+        return THRESHOLD;
+    }
+
+}
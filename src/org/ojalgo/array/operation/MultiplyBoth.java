@@ -548,6 +548,14 @@ public final class MultiplyBoth implements ArrayOperation {
         }
     };
 
+    static final MultiplyBoth.Primitive PRIMITIVE_BLOCKED = (product, left, complexity, right) -> {
+        if (complexity >= MultiplyBlocked.THRESHOLD) {
+            MultiplyBlocked.invoke(product, left, Math.toIntExact(complexity), right);
+        } else {
+            MultiplyBoth.PRIMITIVE_MT.invoke(product, left, complexity, right);
+        }
+    };
+
     static final MultiplyBoth.Primitive PRIMITIVE_MT = (product, left, complexity, right) -> {
 
         final DivideAndConquer tmpConquerer = new DivideAndConquer() {
@@ -590,7 +598,9 @@ public final class MultiplyBoth implements ArrayOperation {
     }
 
     public static MultiplyBoth.Primitive newPrimitive64(final int rows, final int columns) {
-        if (rows > THRESHOLD) {
+        if (MultiplyBlocked.isApplicable(rows, columns)) {
+            return PRIMITIVE_BLOCKED;
+        } else if (rows > THRESHOLD) {
             return PRIMITIVE_MT;
         } else if (rows == 10) {
             return PRIMITIVE_0XN;
@@ -556,6 +556,14 @@ public final class MultiplyLeft implements ArrayOperation {
         }
     };
 
+    static final MultiplyLeft.Primitive64 PRIMITIVE_BLOCKED = (product, left, complexity, right) -> {
+        if (complexity >= MultiplyBlocked.THRESHOLD) {
+            MultiplyBlocked.invoke(product, left, complexity, right);
+        } else {
+            MultiplyLeft.PRIMITIVE_MT.invoke(product, left, complexity, right);
+        }
+    };
+
     static final MultiplyLeft.Primitive64 PRIMITIVE_MT = (product, left, complexity, right) -> {
 
         Arrays.fill(product, 0.0);
@@ -606,7 +614,9 @@ public final class MultiplyLeft implements ArrayOperation {
     }
 
     public static MultiplyLeft.Primitive64 newPrimitive64(final long rows, final long columns) {
-        if (rows > THRESHOLD) {
+        if (MultiplyBlocked.isApplicable(rows, columns)) {
+            return PRIMITIVE_BLOCKED;
+        } else if (rows > THRESHOLD) {
             return PRIMITIVE_MT;
         } else if (rows == 10) {
             return PRIMITIVE_0XN;
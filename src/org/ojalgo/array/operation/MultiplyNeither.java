@@ -555,6 +555,14 @@ public final class MultiplyNeither implements ArrayOperation {
         }
     };
 
+    static final MultiplyNeither.Primitive64 PRIMITIVE_BLOCKED = (product, left, complexity, right) -> {
+        if (complexity >= MultiplyBlocked.THRESHOLD) {
+            MultiplyBlocked.invoke(product, left, complexity, right);
+        } else {
+            MultiplyNeither.PRIMITIVE_MT.invoke(product, left, complexity, right);
+        }
+    };
+
     static final MultiplyNeither.Primitive64 PRIMITIVE_MT = (product, left, complexity, right) -> {
 
         Arrays.fill(product, 0.0);
@@ -605,7 +613,9 @@ public final class MultiplyNeither implements ArrayOperation {
     }
 
     public static MultiplyNeither.Primitive64 newPrimitive64(final long rows, final long columns) {
-        if (rows > THRESHOLD) {
+        if (MultiplyBlocked.isApplicable(rows, columns)) {
+            return PRIMITIVE_BLOCKED;
+        } else if (rows > THRESHOLD) {
             return PRIMITIVE_MT;
         } else if (rows == 10) {
             return PRIMITIVE_0XN;
@@ -636,12 +646,9 @@ public final class MultiplyNeither implements ArrayOperation {
 
         final int structure = left.length / complexity;
 
-        final double[] leftColumn = new double[structure];
         for (int c = 0; c < complexity; c++) {
-            System.arraycopy(left, c * structure, leftColumn, 0, structure);
-
             for (int j = firstColumn; j < columnLimit; j++) {
-                AXPY.invoke(product, j * structure, right[c + (j * complexity)], leftColumn, 0, 0, structure);
+                AXPY.invoke(product, j * structure, right[c + (j * complexity)], left, c * structure, 0, structure);
             }
         }
     }
@@ -650,12 +657,9 @@ public final class MultiplyNeither implements ArrayOperation {
 
         final int structure = left.length / complexity;
 
-        final float[] leftColumn = new float[structure];
         for (int c = 0; c < complexity; c++) {
-            System.arraycopy(left, c * structure, leftColumn, 0, structure);
-
             for (int j = firstColumn; j < columnLimit; j++) {
-                AXPY.invoke(product, j * structure, right[c + (j * complexity)], leftColumn, 0, 0, structure);
+                AXPY.invoke(product, j * structure, right[c + (j * complexity)], left, c * structure, 0, structure);
             }
         }
     }
@@ -558,6 +558,14 @@ public final class MultiplyRight implements ArrayOperation {
         }
     };
 
+    static final MultiplyRight.Primitive64 PRIMITIVE_BLOCKED = (product, left, complexity, right) -> {
+        if (complexity >= MultiplyBlocked.THRESHOLD) {
+            MultiplyBlocked.invoke(product, left, complexity, right);
+        } else {
+            MultiplyRight.PRIMITIVE_MT.invoke(product, left, complexity, right);
+        }
+    };
+
     static final MultiplyRight.Primitive64 PRIMITIVE_MT = (product, left, complexity, right) -> {
 
         Arrays.fill(product, 0.0);
@@ -608,7 +616,9 @@ public final class MultiplyRight implements ArrayOperation {
     }
 
     public static MultiplyRight.Primitive64 newPrimitive64(final long rows, final long columns) {
-        if (columns > THRESHOLD) {
+        if (MultiplyBlocked.isApplicable(rows, columns)) {
+            return PRIMITIVE_BLOCKED;
+        } else if (columns > THRESHOLD) {
             return PRIMITIVE_MT;
         } else if (rows == 10) {
             return PRIMITIVE_0XN;
@@ -21,19 +21,89 @@
  */
 package org.ojalgo.concurrent;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import org.ojalgo.OjAlgoUtils;
-import org.ojalgo.ProgrammingError;
 
 /**
+ * Recursively splits an index range in halves until the parts are small enough, and then calls
+ * {@link #conquer(int, int)} for each part. Execution is based on a {@link ForkJoinPool} - at each split the
+ * first half is forked (available for other workers to steal) and the second half is executed by the current
+ * thread. No worker thread is ever blocked waiting for a sub-task that nobody works on, and nested invocations
+ * (a parallel multiplication inside a parallel decomposition) simply add more tasks to the same pool.
+ * <p>
+ * When invoked from within a {@link ForkJoinPool} that pool is used. Otherwise a pool can be specified per call,
+ * per instance, or the default (shared) pool is used.
+ *
  * @author apete
  */
 public abstract class DivideAndConquer {
 
+    final class Divider extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int myFirst;
+        private final int myLimit;
+        private final int myThreshold;
+        private final int myWorkers;
+
+        Divider(final int first, final int limit, final int threshold, final int workers) {
+            super();
+            myFirst = first;
+            myLimit = limit;
+            myThreshold = threshold;
+            myWorkers = workers;
+        }
+
+        @Override
+        protected void compute() {
+            DivideAndConquer.this.divide(myFirst, myLimit, myThreshold, myWorkers);
+        }
+
+    }
+
+    private static volatile ForkJoinPool POOL = null;
+
+    /**
+     * The pool used when nothing else is specified, and the invoking thread is not already part of a
+     * {@link ForkJoinPool}.
+     */
+    public static ForkJoinPool getDefaultPool() {
+        ForkJoinPool retVal = POOL;
+        if (retVal == null) {
+            synchronized (DivideAndConquer.class) {
+                retVal = POOL;
+                if (retVal == null) {
+                    POOL = retVal = new ForkJoinPool(OjAlgoUtils.ENVIRONMENT.threads);
+                }
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Replace the default pool. The previous pool is not shut down.
+     */
+    public static void setDefaultPool(final ForkJoinPool pool) {
+        POOL = pool;
+    }
+
+    private final ForkJoinPool myPool;
+
     public DivideAndConquer() {
+        this(null);
+    }
+
+    /**
+     * @param pool The pool to execute in (unless invoked from within another {@link ForkJoinPool}). If null the
+     *        default pool is used.
+     */
+    public DivideAndConquer(final ForkJoinPool pool) {
         super();
+        myPool = pool;
     }
 
     /**
@@ -43,10 +113,26 @@ public abstract class DivideAndConquer {
      * @param limit The first index NOT to include - last (excl.) index in a range.
      */
     public final void invoke(final int first, final int limit, final int threshold) {
+        if (ForkJoinTask.inForkJoinPool()) {
+            new Divider(first, limit, threshold, ForkJoinTask.getPool().getParallelism()).invoke();
+        } else {
+            this.invoke(myPool != null ? myPool : DivideAndConquer.getDefaultPool(), first, limit, threshold);
+        }
+    }
 
-        final int availableWorkers = OjAlgoUtils.ENVIRONMENT.threads - (DaemonPoolExecutor.INSTANCE.getActiveCount() / 2);
-
-        this.divide(first, limit, threshold, availableWorkers);
+    /**
+     * Synchronous execution, in the specified pool - wait until it's finished.
+     *
+     * @param pool The pool to execute in
+     * @param first The first index, in a range, to include.
+     * @param limit The first index NOT to include - last (excl.) index in a range.
+     */
+    public final void invoke(final ForkJoinPool pool, final int first, final int limit, final int threshold) {
+        if (ForkJoinTask.getPool() == pool) {
+            new Divider(first, limit, threshold, pool.getParallelism()).invoke();
+        } else {
+            pool.invoke(new Divider(first, limit, threshold, pool.getParallelism()));
+        }
     }
 
     protected abstract void conquer(final int first, final int limit);
@@ -60,16 +146,12 @@ public abstract class DivideAndConquer {
             final int split = first + (count / 2);
             final int nextWorkers = workers / 2;
 
-            final Future<?> firstPart = DaemonPoolExecutor.INSTANCE.submit(() -> this.divide(first, split, threshold, nextWorkers));
-            final Future<?> secondPart = DaemonPoolExecutor.INSTANCE.submit(() -> this.divide(split, limit, threshold, nextWorkers));
+            final Divider firstPart = new Divider(first, split, threshold, nextWorkers);
+            firstPart.fork();
 
-            try {
-                firstPart.get();
-                secondPart.get();
-            } catch (final InterruptedException | ExecutionException exception) {
-                exception.printStackTrace();
-                throw new ProgrammingError(exception);
-            }
+            this.divide(split, limit, threshold, nextWorkers);
+
+            firstPart.join();
 
         } else {
 
@@ -110,6 +110,26 @@ public class DataProcessors {
         return DataProcessors.covariances(factory, RawStore.wrap(data).transpose());
     }
 
+    /**
+     * Covariances limited to the largest principal components, calculated without a full SVD. Decomposes the
+     * data using {@link SingularValue#randomised(int)} and then calls
+     * {@link #covariances(Factory2D, SingularValue, int)}.
+     *
+     * @param factory A factory that will produce the returned covariance matrix
+     * @param data Centered data – variables in columns and samples in rows
+     * @param complexity The number of principal components (singular values) to consider
+     */
+    public static <M extends PhysicalStore<Double>> M covariances(final Factory2D<M> factory, final MatrixStore<Double> data, final int complexity) {
+
+        SingularValue<Double> svd = SingularValue.randomised(complexity).make(data);
+
+        if (!svd.decompose(data)) {
+            throw new ProgrammingError("The decomposition failed!");
+        }
+
+        return DataProcessors.covariances(factory, svd, complexity);
+    }
+
     /**
      * @see #covariances(Factory2D, SingularValue, int)
      */
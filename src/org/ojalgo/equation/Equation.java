@@ -27,6 +27,7 @@ import org.ojalgo.array.Primitive64Array;
 import org.ojalgo.array.SparseArray;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.ElementView1D;
 import org.ojalgo.structure.Mutate1D;
 import org.ojalgo.type.NumberDefinition;
 
@@ -143,6 +144,11 @@ public final class Equation implements Comparable<Equation>, Access1D<Double>, M
         this.calculate(x, ZERO, ONE);
     }
 
+    @Override
+    public ElementView1D<Double, ?> nonzeros() {
+        return myElements.nonzeros();
+    }
+
     public void set(final long index, final Comparable<?> value) {
         this.set(index, NumberDefinition.doubleValue(value));
     }
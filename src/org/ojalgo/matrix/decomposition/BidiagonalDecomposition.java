@@ -22,6 +22,7 @@
 package org.ojalgo.matrix.decomposition;
 
 import org.ojalgo.array.Array1D;
+import org.ojalgo.array.operation.BlockedHouseholder;
 import org.ojalgo.function.constant.PrimitiveMath;
 import org.ojalgo.matrix.store.DiagonalStore;
 import org.ojalgo.matrix.store.GenericStore;
@@ -141,6 +142,51 @@ abstract class BidiagonalDecomposition<N extends Comparable<N>> extends InPlaceD
             return null;
         }
 
+        @Override
+        void transformLQ(final DecompositionStore<Double> store) {
+
+            final int rowDim = this.getRowDim();
+            final int count = this.getMinDim();
+            final int columns = (int) store.countColumns();
+
+            if ((store instanceof Primitive64Store) && BlockedHouseholder.isApplicable(count, columns)) {
+
+                final double[] reflectors = ((Primitive64Store) this.getInPlace()).data;
+                final int shift = this.isUpper() ? 0 : 1;
+
+                final double[] beta = BlockedHouseholder.beta(reflectors, 1, rowDim, shift, rowDim, count);
+
+                BlockedHouseholder.invoke(((Primitive64Store) store).data, rowDim, columns, reflectors, 1, rowDim, shift, beta, count, false, true);
+
+            } else {
+
+                super.transformLQ(store);
+            }
+        }
+
+        @Override
+        void transformRQ(final DecompositionStore<Double> store) {
+
+            final int rowDim = this.getRowDim();
+            final int colDim = this.getColDim();
+            final int count = this.getMinDim();
+            final int columns = (int) store.countColumns();
+
+            if ((store instanceof Primitive64Store) && BlockedHouseholder.isApplicable(count, columns)) {
+
+                final double[] reflectors = ((Primitive64Store) this.getInPlace()).data;
+                final int shift = this.isUpper() ? 1 : 0;
+
+                final double[] beta = BlockedHouseholder.beta(reflectors, rowDim, 1, shift, colDim, count);
+
+                BlockedHouseholder.invoke(((Primitive64Store) store).data, colDim, columns, reflectors, rowDim, 1, shift, beta, count, false, true);
+
+            } else {
+
+                super.transformRQ(store);
+            }
+        }
+
     }
 
     static final class Quat extends BidiagonalDecomposition<Quaternion> {
@@ -309,8 +355,6 @@ abstract class BidiagonalDecomposition<N extends Comparable<N>> extends InPlaceD
 
     private DecompositionStore<N> makeLQ() {
 
-        final HouseholderReference<N> tmpReference = HouseholderReference.makeColumn(this.getInPlace());
-
         final int tmpRowDim = this.getRowDim();
         final int tmpMinDim = this.getMinDim();
 
@@ -324,23 +368,13 @@ abstract class BidiagonalDecomposition<N extends Comparable<N>> extends InPlaceD
             retVal = this.makeEye(tmpRowDim, myFullSize ? tmpRowDim : tmpMinDim);
         }
 
-        final boolean tmpUpper = this.isUpper();
-        for (int ij = (tmpUpper && (tmpRowDim != tmpMinDim)) ? tmpMinDim - 1 : tmpMinDim - 2; ij >= 0; ij--) {
-
-            tmpReference.point(tmpUpper ? ij : ij + 1, ij);
-
-            if (!tmpReference.isZero()) {
-                retVal.transformLeft(tmpReference, ij);
-            }
-        }
+        this.transformLQ(retVal);
 
         return retVal;
     }
 
     private DecompositionStore<N> makeRQ() {
 
-        final HouseholderReference<N> tmpReference = HouseholderReference.makeRow(this.getInPlace());
-
         final int tmpColDim = this.getColDim();
         final int tmpMinDim = this.getMinDim();
 
@@ -354,15 +388,7 @@ abstract class BidiagonalDecomposition<N extends Comparable<N>> extends InPlaceD
             retVal = this.makeEye(tmpColDim, myFullSize ? tmpColDim : tmpMinDim);
         }
 
-        final boolean tmpUpper = this.isUpper();
-        for (int ij = tmpUpper ? tmpMinDim - 2 : tmpMinDim - 1; ij >= 0; ij--) {
-
-            tmpReference.point(ij, tmpUpper ? ij + 1 : ij);
-
-            if (!tmpReference.isZero()) {
-                retVal.transformLeft(tmpReference, ij);
-            }
-        }
+        this.transformRQ(retVal);
 
         return retVal;
     }
@@ -446,4 +472,47 @@ abstract class BidiagonalDecomposition<N extends Comparable<N>> extends InPlaceD
 
     abstract Array1D<N>[] makeReal();
 
+    /**
+     * Applies the LQ Householder transformations to the input store (that should be the identity matrix, or a
+     * diagonal matrix, when called).
+     */
+    void transformLQ(final DecompositionStore<N> store) {
+
+        final HouseholderReference<N> tmpReference = HouseholderReference.makeColumn(this.getInPlace());
+
+        final int tmpRowDim = this.getRowDim();
+        final int tmpMinDim = this.getMinDim();
+
+        final boolean tmpUpper = this.isUpper();
+        for (int ij = (tmpUpper && (tmpRowDim != tmpMinDim)) ? tmpMinDim - 1 : tmpMinDim - 2; ij >= 0; ij--) {
+
+            tmpReference.point(tmpUpper ? ij : ij + 1, ij);
+
+            if (!tmpReference.isZero()) {
+                store.transformLeft(tmpReference, ij);
+            }
+        }
+    }
+
+    /**
+     * Applies the RQ Householder transformations to the input store (that should be the identity matrix, or a
+     * diagonal matrix, when called).
+     */
+    void transformRQ(final DecompositionStore<N> store) {
+
+        final HouseholderReference<N> tmpReference = HouseholderReference.makeRow(this.getInPlace());
+
+        final int tmpMinDim = this.getMinDim();
+
+        final boolean tmpUpper = this.isUpper();
+        for (int ij = tmpUpper ? tmpMinDim - 2 : tmpMinDim - 1; ij >= 0; ij--) {
+
+            tmpReference.point(ij, tmpUpper ? ij + 1 : ij);
+
+            if (!tmpReference.isZero()) {
+                store.transformLeft(tmpReference, ij);
+            }
+        }
+    }
+
 }
@@ -26,6 +26,7 @@ import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.scalar.Quaternion;
 import org.ojalgo.scalar.RationalNumber;
+import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Access2D;
 import org.ojalgo.type.context.NumberContext;
 
@@ -53,6 +54,42 @@ public interface Cholesky<N extends Comparable<N>> extends LDU<N>, MatrixDecompo
 
     }
 
+    /**
+     * A Cholesky decomposition that can be modified, in O(n^2) time, rather than recalculated, O(n^3), when
+     * the matrix changes. Start with {@link #decompose(Access2D.Collectable)}, or with an empty (0x0)
+     * decomposition and {@link #append(Access1D)} one row/column at the time.
+     */
+    interface Updatable extends Cholesky<Double> {
+
+        /**
+         * Extend the matrix with one more row/column, last.
+         *
+         * @param column The new column (the transpose of the new row) – the existing row/column count plus 1
+         *        elements, the last one being the new diagonal element.
+         * @return false, and the decomposition is not modified, if the extended matrix would not be positive
+         *         definite
+         */
+        boolean append(Access1D<?> column);
+
+        /**
+         * A - xx<sup>T</sup>
+         *
+         * @return false, and the decomposition is not modified, if the result would not be positive definite
+         */
+        boolean downdate(Access1D<?> vector);
+
+        /**
+         * Remove a row/column. Rows/columns after the removed one move up/left one position.
+         */
+        void remove(int index);
+
+        /**
+         * A + xx<sup>T</sup>
+         */
+        boolean update(Access1D<?> vector);
+
+    }
+
     Factory<ComplexNumber> COMPLEX = typical -> new CholeskyDecomposition.Complex();
 
     Factory<Double> PRIMITIVE = typical -> {
@@ -67,6 +104,13 @@ public interface Cholesky<N extends Comparable<N>> extends LDU<N>, MatrixDecompo
 
     Factory<RationalNumber> RATIONAL = typical -> new CholeskyDecomposition.Rational();
 
+    /**
+     * Sparse supernodal Cholesky decomposition with fill reducing ordering. Note that the rows of its
+     * {@link #getL()} are permuted – it is not triangular – so it can't be used where a triangular factor is
+     * expected. That's why the {@link #PRIMITIVE} factory never returns this, not even for sparse matrices.
+     */
+    Factory<Double> SPARSE = typical -> new SparseCholesky();
+
     static <N extends Comparable<N>> boolean equals(final MatrixStore<N> matrix, final Cholesky<N> decomposition, final NumberContext context) {
 
         boolean retVal = false;
@@ -109,6 +153,13 @@ public interface Cholesky<N extends Comparable<N>> extends LDU<N>, MatrixDecompo
         return decomposition.reconstruct();
     }
 
+    /**
+     * @return An empty (0x0) {@link Cholesky.Updatable} decomposition
+     */
+    static Cholesky.Updatable updatable() {
+        return new UpdatableCholesky();
+    }
+
     /**
      * Must implement either {@link #getL()} or {@link #getR()}.
      */
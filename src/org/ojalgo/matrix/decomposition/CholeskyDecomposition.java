@@ -23,8 +23,11 @@ package org.ojalgo.matrix.decomposition;
 
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
+import java.util.Arrays;
+
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.array.BasicArray;
+import org.ojalgo.array.operation.BlockedCholesky;
 import org.ojalgo.function.UnaryFunction;
 import org.ojalgo.function.aggregator.AggregatorFunction;
 import org.ojalgo.matrix.MatrixUtils;
@@ -55,6 +58,20 @@ abstract class CholeskyDecomposition<N extends Comparable<N>> extends InPlaceDec
             super(Primitive64Store.FACTORY);
         }
 
+        @Override
+        double[] decomposeBlocked(final DecompositionStore<Double> inPlace) {
+
+            final int dim = this.getMinDim();
+
+            if (BlockedCholesky.isApplicable(dim)) {
+                final double[] diagonal = new double[dim];
+                final int factored = BlockedCholesky.invoke(((Primitive64Store) inPlace).data, dim, diagonal);
+                return factored < dim ? Arrays.copyOf(diagonal, factored + 1) : diagonal;
+            } else {
+                return null;
+            }
+        }
+
     }
 
     static final class Quat extends CholeskyDecomposition<Quaternion> {
@@ -252,6 +269,17 @@ abstract class CholeskyDecomposition<N extends Comparable<N>> extends InPlaceDec
         return mySPD && (myMinDiag > this.getRankThreshold());
     }
 
+    /**
+     * A blocked (level-3) alternative to the main loop of the decomposition.
+     *
+     * @return The diagonal elements, before the square root is taken, of the columns that were processed - all
+     *         of them unless the matrix turned out not to be positive definite. Returns null if there is no
+     *         blocked algorithm available - then the standard algorithm is used.
+     */
+    double[] decomposeBlocked(final DecompositionStore<N> inPlace) {
+        return null;
+    }
+
     final boolean compute(final Access2D.Collectable<N, ? super PhysicalStore<N>> matrix, final boolean checkHermitian) {
 
         this.reset();
@@ -274,6 +302,18 @@ abstract class CholeskyDecomposition<N extends Comparable<N>> extends InPlaceDec
             tmpPositiveDefinite &= MatrixUtils.isHermitian(tmpInPlace);
         }
 
+        if (tmpPositiveDefinite) {
+            final double[] diagonal = this.decomposeBlocked(tmpInPlace);
+            if (diagonal != null) {
+                for (int ij = 0; ij < diagonal.length; ij++) {
+                    myMaxDiag = MAX.invoke(myMaxDiag, diagonal[ij]);
+                    myMinDiag = MIN.invoke(myMinDiag, diagonal[ij]);
+                    tmpPositiveDefinite &= diagonal[ij] > ZERO;
+                }
+                return this.computed(mySPD = tmpPositiveDefinite);
+            }
+        }
+
         final UnaryFunction<N> tmpSqrtFunc = this.function().sqrt();
 
         // Main loop - along the diagonal
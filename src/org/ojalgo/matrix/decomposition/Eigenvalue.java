@@ -21,7 +21,10 @@
  */
 package org.ojalgo.matrix.decomposition;
 
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 import org.ojalgo.ProgrammingError;
 import org.ojalgo.array.Array1D;
@@ -219,6 +222,59 @@ public interface Eigenvalue<N extends Comparable<N>>
 
     }
 
+    /**
+     * Iterative, partial, eigenvalue decomposition of large symmetric (typically sparse) matrices. Only a few
+     * eigenpairs are calculated, and the matrix is only used to calculate matrix-vector products – a
+     * {@link org.ojalgo.matrix.store.SparseStore} or
+     * {@link org.ojalgo.matrix.store.CompressedSparseStore} is never densified. Alternatively the matrix
+     * need not exist at all, only an operator that calculates the products. The algorithm is (thick)
+     * restarted Lanczos with full reorthogonalisation.
+     * <p>
+     * [V] has as many columns as there are eigenvalues, and {@link #reconstruct()} returns the corresponding
+     * low rank approximation of the original matrix. The eigenvalues are always ordered (descending).
+     */
+    interface Iterative extends Eigenvalue<Double> {
+
+        /**
+         * The largest (algebraic) eigenvalues
+         */
+        static Eigenvalue.Iterative largest(final int count) {
+            return new LanczosEvD(count, LanczosEvD.Target.LARGEST, ZERO);
+        }
+
+        /**
+         * The eigenvalues closest to the shift, found using shift-invert: the iterations are done with
+         * [[A]-&sigma;[I]]<sup>-1</sup> rather than [A]. When decomposing a matrix [A]-&sigma;[I] is factorised.
+         * A dense matrix is factorised using LU, and any shift works. A sparse matrix is factorised using the
+         * sparse LDL, that does no pivoting, and then the shift must be outside the spectrum (below the
+         * smallest, or above the largest, eigenvalue) – with the shift inside the spectrum decompose returns
+         * false. When decomposing an operator it must itself calculate the products with
+         * [[A]-&sigma;[I]]<sup>-1</sup>, and then any shift works (if the operator can solve).
+         */
+        static Eigenvalue.Iterative nearest(final int count, final double shift) {
+            return new LanczosEvD(count, LanczosEvD.Target.NEAREST, shift);
+        }
+
+        /**
+         * The smallest (algebraic) eigenvalues. Converges slowly if those are clustered relative to the full
+         * spectrum, as with graph Laplacians. Then {@link #nearest(int, double)} with a shift just below the
+         * smallest eigenvalue is much faster.
+         */
+        static Eigenvalue.Iterative smallest(final int count) {
+            return new LanczosEvD(count, LanczosEvD.Target.SMALLEST, ZERO);
+        }
+
+        /**
+         * @param dimension The number of rows/columns of the (square, symmetric) matrix the operator
+         *        represents
+         * @param operator Calculates [A][x] for the given [x], or [[A]-&sigma;[I]]<sup>-1</sup>[x] when
+         *        looking for the eigenvalues nearest &sigma;.
+         * @return true if the requested eigenpairs converged
+         */
+        boolean decompose(int dimension, UnaryOperator<Access1D<Double>> operator);
+
+    }
+
     Factory<ComplexNumber> COMPLEX = new Factory<ComplexNumber>() {
 
         @Override
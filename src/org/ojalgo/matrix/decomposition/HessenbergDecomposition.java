@@ -21,6 +21,7 @@
  */
 package org.ojalgo.matrix.decomposition;
 
+import org.ojalgo.array.operation.BlockedHouseholder;
 import org.ojalgo.matrix.store.GenericStore;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
@@ -48,6 +49,32 @@ abstract class HessenbergDecomposition<N extends Comparable<N>> extends InPlaceD
             super(Primitive64Store.FACTORY);
         }
 
+        @Override
+        DecompositionStore<Double> makeQ(final DecompositionStore<Double> storeToTransform, final boolean upper, final boolean eye) {
+
+            final int dim = (int) storeToTransform.countRows();
+            final int columns = (int) storeToTransform.countColumns();
+
+            if ((storeToTransform instanceof Primitive64Store) && BlockedHouseholder.isApplicable(dim, columns)) {
+
+                final int structure = this.getRowDim();
+                final double[] reflectors = ((Primitive64Store) this.getInPlace()).data;
+                final int elementStride = upper ? 1 : structure;
+                final int vectorStride = upper ? structure : 1;
+
+                final double[] beta = BlockedHouseholder.beta(reflectors, elementStride, vectorStride, 1, dim, dim - 2);
+
+                BlockedHouseholder.invoke(((Primitive64Store) storeToTransform).data, dim, columns, reflectors, elementStride, vectorStride, 1, beta, dim - 2,
+                        false, eye);
+
+                return storeToTransform;
+
+            } else {
+
+                return super.makeQ(storeToTransform, upper, eye);
+            }
+        }
+
     }
 
     static final class Quat extends HessenbergDecomposition<Quaternion> {
@@ -143,7 +170,7 @@ abstract class HessenbergDecomposition<N extends Comparable<N>> extends InPlaceD
         myUpper = true;
     }
 
-    private final DecompositionStore<N> makeQ(final DecompositionStore<N> storeToTransform, final boolean upper, final boolean eye) {
+    DecompositionStore<N> makeQ(final DecompositionStore<N> storeToTransform, final boolean upper, final boolean eye) {
 
         final int tmpRowAndColDim = (int) storeToTransform.countRows();
 
@@ -62,6 +62,12 @@ public interface LDL<N extends Comparable<N>> extends LDU<N>, MatrixDecompositio
 
     Factory<RationalNumber> RATIONAL = typical -> new LDLDecomposition.Rational();
 
+    /**
+     * Sparse supernodal LDL decomposition with fill reducing ordering, but no numerical pivoting - intended
+     * for positive definite and quasi-definite matrices.
+     */
+    Factory<Double> SPARSE = typical -> new SparseLDL();
+
     static <N extends Comparable<N>> boolean equals(final MatrixStore<N> matrix, final LDL<N> decomposition, final NumberContext context) {
         return Access2D.equals(matrix, decomposition.reconstruct(), context);
     }
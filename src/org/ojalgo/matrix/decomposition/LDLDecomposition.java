@@ -25,6 +25,7 @@ import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.array.BasicArray;
+import org.ojalgo.array.operation.BlockedLDL;
 import org.ojalgo.function.BinaryFunction;
 import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.function.aggregator.AggregatorFunction;
@@ -59,6 +60,20 @@ abstract class LDLDecomposition<N extends Comparable<N>> extends InPlaceDecompos
             super(Primitive64Store.FACTORY);
         }
 
+        @Override
+        int[] decomposeBlocked(final DecompositionStore<Double> inPlace, final boolean pivoting) {
+
+            final int dim = this.getMinDim();
+
+            if (BlockedLDL.isApplicable(dim)) {
+                final int[] pivots = pivoting ? new int[dim] : null;
+                BlockedLDL.invoke(((Primitive64Store) inPlace).data, dim, pivots);
+                return pivoting ? pivots : new int[0];
+            } else {
+                return null;
+            }
+        }
+
     }
 
     static class Quat extends LDLDecomposition<Quaternion> {
@@ -260,6 +275,16 @@ abstract class LDLDecomposition<N extends Comparable<N>> extends InPlaceDecompos
         }
     }
 
+    /**
+     * A blocked (level-3) alternative to the main loop of the decomposition.
+     *
+     * @return The index exchanged with each index along the diagonal (empty if not pivoting), or null if there
+     *         is no blocked algorithm available - then the standard algorithm is used.
+     */
+    int[] decomposeBlocked(final DecompositionStore<N> inPlace, final boolean pivoting) {
+        return null;
+    }
+
     private boolean doDecompose(final Access2D.Collectable<N, ? super PhysicalStore<N>> matrix, final boolean pivoting) {
 
         this.reset();
@@ -270,6 +295,14 @@ abstract class LDLDecomposition<N extends Comparable<N>> extends InPlaceDecompos
 
         myPivot.reset(dim);
 
+        int[] pivots = this.decomposeBlocked(store, pivoting);
+        if (pivots != null) {
+            for (int ij = 0; ij < pivots.length; ij++) {
+                myPivot.change(pivots[ij], ij);
+            }
+            return this.computed(true);
+        }
+
         BasicArray<N> multipliers = this.makeArray(dim);
 
         // Main loop - along the diagonal
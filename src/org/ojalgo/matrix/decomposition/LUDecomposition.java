@@ -25,6 +25,7 @@ import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.array.BasicArray;
+import org.ojalgo.array.operation.BlockedLU;
 import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.function.aggregator.AggregatorFunction;
 import org.ojalgo.function.constant.PrimitiveMath;
@@ -57,6 +58,21 @@ abstract class LUDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
             super(Primitive64Store.FACTORY);
         }
 
+        @Override
+        int[] decomposeBlocked(final DecompositionStore<Double> inPlace) {
+
+            final int rows = this.getRowDim();
+            final int columns = this.getColDim();
+
+            if (BlockedLU.isApplicable(rows, columns)) {
+                final int[] pivots = new int[this.getMinDim()];
+                BlockedLU.invoke(((Primitive64Store) inPlace).data, rows, columns, pivots);
+                return pivots;
+            } else {
+                return null;
+            }
+        }
+
     }
 
     static final class Quat extends LUDecomposition<Quaternion> {
@@ -270,6 +286,16 @@ abstract class LUDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
 
         myPivot.reset(tmpRowDim);
 
+        if (pivoting) {
+            final int[] pivots = this.decomposeBlocked(tmpInPlace);
+            if (pivots != null) {
+                for (int ij = 0; ij < pivots.length; ij++) {
+                    myPivot.change(pivots[ij], ij);
+                }
+                return this.computed(true);
+            }
+        }
+
         final BasicArray<N> tmpMultipliers = this.makeArray(tmpRowDim);
 
         // Main loop - along the diagonal
@@ -313,6 +339,16 @@ abstract class LUDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
         return this.isSquare() && this.isFullRank();
     }
 
+    /**
+     * A blocked (level-3) alternative to the main loop of the (pivoting) decomposition.
+     *
+     * @return The row exchanged with each row along the diagonal, or null if there is no blocked algorithm
+     *         available - then the standard algorithm is used.
+     */
+    int[] decomposeBlocked(final DecompositionStore<N> inPlace) {
+        return null;
+    }
+
     int[] getReducedPivots() {
 
         final int[] retVal = new int[this.getRank()];
@@ -0,0 +1,570 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.array.Array1D;
+import org.ojalgo.array.operation.AXPY;
+import org.ojalgo.array.operation.DOT;
+import org.ojalgo.function.FunctionSet;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.CompressedSparseStore;
+import org.ojalgo.matrix.store.DiagonalStore;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.random.Normal;
+import org.ojalgo.scalar.ComplexNumber;
+import org.ojalgo.scalar.PrimitiveScalar;
+import org.ojalgo.scalar.Scalar;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Access2D.Collectable;
+
+/**
+ * Thick restarted Lanczos – mathematically equivalent to implicitly restarted Lanczos for symmetric
+ * matrices, but simpler. A Krylov basis of (at most) max(2k+1,k+20) vectors is built, with full
+ * reorthogonalisation, the small projected matrix is decomposed, and if the wanted Ritz pairs have not yet
+ * converged the basis is restarted from the best Ritz vectors (plus the residual direction).
+ *
+ * @author apete
+ */
+final class LanczosEvD extends AbstractDecomposition<Double> implements Eigenvalue.Iterative {
+
+    enum Target {
+
+        LARGEST(Comparator.comparingDouble(value -> -value)), NEAREST(Comparator.comparingDouble(value -> -Math.abs(value))),
+        SMALLEST(Comparator.comparingDouble(value -> value));
+
+        /**
+         * Orders the Ritz values with the most wanted first
+         */
+        final Comparator<Double> order;
+
+        Target(final Comparator<Double> order) {
+            this.order = order;
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface Operator {
+
+        /**
+         * y = [A] x
+         */
+        void multiply(double[] x, double[] y);
+
+    }
+
+    /**
+     * Relative (to the largest Ritz value) residual norm of converged eigenpairs
+     */
+    private static final double ACCURACY = 1E-10;
+    private static final int MAX_RESTARTS = 1000;
+
+    @SuppressWarnings("unchecked")
+    private static Operator makeOperator(final MatrixStore<Double> matrix) {
+
+        if (matrix instanceof CompressedSparseStore) {
+            // Symmetric, and the transposed multiplication is the one that is done in parallel
+            return ((CompressedSparseStore) matrix)::multiplyTransposed;
+        } else if (matrix instanceof SparseStore) {
+            return ((SparseStore<Double>) matrix).compress()::multiplyTransposed;
+        } else {
+            return (x, y) -> Primitive64Store.wrap(y).fillByMultiplying(matrix, Primitive64Store.wrap(x));
+        }
+    }
+
+    /**
+     * Sparse matrices are factorised using the sparse LDL, and never densified. That LDL does no pivoting, and
+     * is only stable if [A]-&sigma;[I] is definite – the shift outside the spectrum. Dense matrices are
+     * factorised using (pivoting) LU, and then any shift works.
+     *
+     * @return null if [A]-&sigma;[I] could not be factorised
+     */
+    @SuppressWarnings("unchecked")
+    private static Operator makeShiftInvertOperator(final MatrixStore<Double> matrix, final double shift) {
+
+        int dim = Math.toIntExact(matrix.countRows());
+
+        MatrixDecomposition.Solver<Double> solver;
+
+        if ((matrix instanceof CompressedSparseStore) || (matrix instanceof SparseStore)) {
+
+            CompressedSparseStore compressed = matrix instanceof SparseStore ? ((SparseStore<Double>) matrix).compress() : (CompressedSparseStore) matrix;
+
+            int[] pointers = compressed.getColPointers();
+            int[] rows = compressed.getRowIndices();
+            double[] values = compressed.getValues();
+
+            SparseStore<Double> shifted = SparseStore.PRIMITIVE64.make(dim, dim);
+            for (int j = 0; j < dim; j++) {
+                for (int p = pointers[j]; p < pointers[j + 1]; p++) {
+                    shifted.add(rows[p], j, values[p]);
+                }
+                shifted.add(j, j, -shift);
+            }
+
+            // With the shift inside the spectrum [A]-σ[I] is indefinite, pivots are regularised and the
+            // decomposition is not solvable.
+
+            LDL<Double> ldl = LDL.SPARSE.make(shifted);
+            if (!ldl.decompose(shifted) || !ldl.isSolvable()) {
+                return null;
+            }
+            solver = ldl;
+
+        } else {
+
+            Primitive64Store shifted = Primitive64Store.FACTORY.copy(matrix);
+            for (int ij = 0; ij < dim; ij++) {
+                shifted.add(ij, ij, -shift);
+            }
+
+            LU<Double> lu = LU.PRIMITIVE.make(shifted);
+            if (!lu.decompose(shifted) || !lu.isSolvable()) {
+                return null;
+            }
+            solver = lu;
+        }
+
+        return (x, y) -> {
+            MatrixStore<Double> solution = solver.getSolution(Primitive64Store.wrap(x));
+            for (int i = 0; i < y.length; i++) {
+                y[i] = solution.doubleValue(i);
+            }
+        };
+    }
+
+    private final int myCount;
+    private int myDimension;
+    private final double myShift;
+    private final Target myTarget;
+    private double[] myValues = null;
+    private Primitive64Store myVectors = null;
+
+    LanczosEvD(final int count, final Target target, final double shift) {
+
+        super();
+
+        myCount = count;
+        myTarget = target;
+        myShift = shift;
+    }
+
+    public Double calculateDeterminant(final Access2D<?> matrix) {
+        this.computeValuesOnly(matrix.asCollectable2D());
+        return this.getDeterminant();
+    }
+
+    public boolean computeValuesOnly(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        return this.decompose(matrix);
+    }
+
+    @SuppressWarnings("unchecked")
+    public boolean decompose(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+
+        MatrixStore<Double> store = matrix instanceof MatrixStore ? (MatrixStore<Double>) matrix : matrix.collect(Primitive64Store.FACTORY);
+
+        Operator operator = myTarget == Target.NEAREST ? LanczosEvD.makeShiftInvertOperator(store, myShift) : LanczosEvD.makeOperator(store);
+
+        if (operator == null) {
+            this.reset();
+            return this.computed(false);
+        }
+
+        return this.doDecompose(Math.toIntExact(store.countRows()), operator);
+    }
+
+    public boolean decompose(final int dimension, final UnaryOperator<Access1D<Double>> operator) {
+        return this.doDecompose(dimension, (x, y) -> {
+            Access1D<?> product = operator.apply(Access1D.wrap(x));
+            for (int i = 0; i < y.length; i++) {
+                y[i] = product.doubleValue(i);
+            }
+        });
+    }
+
+    public MatrixStore<Double> getD() {
+        return DiagonalStore.builder(Primitive64Store.FACTORY, Access1D.wrap(myValues)).get();
+    }
+
+    /**
+     * Only available when all eigenvalues were calculated.
+     */
+    public Double getDeterminant() {
+
+        if (myValues.length < myDimension) {
+            ProgrammingError.throwForUnsupportedOptionalOperation();
+        }
+
+        double retVal = ONE;
+        for (int i = 0; i < myValues.length; i++) {
+            retVal *= myValues[i];
+        }
+        return retVal;
+    }
+
+    public Array1D<ComplexNumber> getEigenvalues() {
+
+        Array1D<ComplexNumber> retVal = Array1D.COMPLEX.make(myValues.length);
+
+        for (int i = 0; i < myValues.length; i++) {
+            retVal.set(i, ComplexNumber.valueOf(myValues[i]));
+        }
+
+        return retVal;
+    }
+
+    @Override
+    public void getEigenvalues(final double[] realParts, final Optional<double[]> imaginaryParts) {
+
+        System.arraycopy(myValues, 0, realParts, 0, Math.min(myValues.length, realParts.length));
+
+        if (imaginaryParts.isPresent()) {
+            Arrays.fill(imaginaryParts.get(), ZERO);
+        }
+    }
+
+    /**
+     * The trace of the low rank approximation – the sum of the calculated eigenvalues.
+     */
+    public ComplexNumber getTrace() {
+
+        double retVal = ZERO;
+        for (int i = 0; i < myValues.length; i++) {
+            retVal += myValues[i];
+        }
+
+        return ComplexNumber.valueOf(retVal);
+    }
+
+    public MatrixStore<Double> getV() {
+        return myVectors;
+    }
+
+    public boolean isHermitian() {
+        return true;
+    }
+
+    public boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    public void reset() {
+
+        super.reset();
+
+        myValues = null;
+        myVectors = null;
+    }
+
+    private boolean doDecompose(final int dimension, final Operator operator) {
+
+        this.reset();
+
+        myDimension = dimension;
+
+        int wanted = Math.max(1, Math.min(myCount, dimension));
+
+        double[] values = new double[wanted];
+        double[][] vectors = new double[wanted][];
+
+        boolean converged = this.iterate(operator, wanted, new double[0][], values, vectors);
+
+        // Lanczos (with full reorthogonalisation) can miss copies of repeated eigenvalues. Look for more in
+        // the orthogonal complement of what's been found, and swap in anything better than the worst.
+
+        double[] value = new double[1];
+        double[][] vector = new double[1][];
+
+        while (converged && (wanted < dimension) && this.iterate(operator, 1, vectors, value, vector)) {
+
+            double scale = MACHINE_SMALLEST;
+            for (int i = 0; i < wanted; i++) {
+                scale = Math.max(scale, Math.abs(values[i]));
+            }
+
+            int worst = wanted - 1;
+            if ((myTarget.order.compare(value[0], values[worst]) >= 0) || (Math.abs(value[0] - values[worst]) <= (ACCURACY * scale))) {
+                break;
+            }
+
+            int index = worst;
+            while ((index > 0) && (myTarget.order.compare(value[0], values[index - 1]) < 0)) {
+                values[index] = values[index - 1];
+                vectors[index] = vectors[index - 1];
+                index--;
+            }
+            values[index] = value[0];
+            vectors[index] = vector[0];
+        }
+
+        Integer[] order = new Integer[wanted];
+        for (int i = 0; i < wanted; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i1, i2) -> Double.compare(this.toEigenvalue(values[i2]), this.toEigenvalue(values[i1])));
+
+        myValues = new double[wanted];
+        myVectors = Primitive64Store.FACTORY.make(dimension, wanted);
+
+        for (int c = 0; c < wanted; c++) {
+            myValues[c] = this.toEigenvalue(values[order[c]]);
+            System.arraycopy(vectors[order[c]], 0, myVectors.data, c * dimension, dimension);
+        }
+
+        return this.computed(converged);
+    }
+
+    /**
+     * Restarted Lanczos within the orthogonal complement of the locked vectors.
+     *
+     * @param wanted The number of Ritz pairs to find
+     * @param locked Vectors (orthonormal) to deflate
+     * @param values Output, the Ritz values with the most wanted first
+     * @param vectors Output, the corresponding Ritz vectors
+     * @return true if all wanted pairs converged
+     */
+    private boolean iterate(final Operator operator, final int wanted, final double[][] locked, final double[] values, final double[][] vectors) {
+
+        int dimension = myDimension;
+
+        int available = dimension - locked.length;
+        int size = Math.min(available, Math.max(2 * wanted + 1, wanted + 20));
+
+        double[][] basis = new double[size + 1][];
+        double[][] projected = new double[size][size];
+
+        basis[0] = this.random(locked, basis, 0);
+
+        Eigenvalue<Double> evd = Eigenvalue.PRIMITIVE.make(size, true);
+        Primitive64Store matrixT = Primitive64Store.FACTORY.make(size, size);
+        double[] ritzValues = new double[size];
+        Integer[] order = new Integer[size];
+
+        MatrixStore<Double> ritzVectors = null;
+        double beta = ZERO;
+        int converged = 0;
+
+        int kept = 0;
+        for (int restart = 0; restart < MAX_RESTARTS; restart++) {
+
+            for (int j = kept; j < size; j++) {
+
+                double[] work = basis[j + 1] != null ? basis[j + 1] : new double[dimension];
+
+                operator.multiply(basis[j], work);
+
+                double norm = SQRT.invoke(DOT.invoke(work, 0, work, 0, 0, dimension));
+
+                // Full reorthogonalisation, classical Gram-Schmidt done twice
+                Arrays.fill(projected[j], 0, j + 1, ZERO);
+                for (int pass = 0; pass < 2; pass++) {
+                    for (int i = 0; i < locked.length; i++) {
+                        AXPY.invoke(work, 0, -DOT.invoke(locked[i], 0, work, 0, 0, dimension), locked[i], 0, 0, dimension);
+                    }
+                    for (int i = 0; i <= j; i++) {
+                        double projection = DOT.invoke(basis[i], 0, work, 0, 0, dimension);
+                        projected[j][i] += projection;
+                        AXPY.invoke(work, 0, -projection, basis[i], 0, 0, dimension);
+                    }
+                }
+                for (int i = 0; i < j; i++) {
+                    projected[i][j] = projected[j][i];
+                }
+
+                beta = SQRT.invoke(DOT.invoke(work, 0, work, 0, 0, dimension));
+
+                if (beta > (MACHINE_EPSILON * size * norm)) {
+                    for (int i = 0; i < dimension; i++) {
+                        work[i] /= beta;
+                    }
+                    basis[j + 1] = work;
+                } else {
+                    // Invariant subspace found
+                    beta = ZERO;
+                    if ((j + 1) < size) {
+                        basis[j + 1] = this.random(locked, basis, j + 1);
+                    } else {
+                        basis[j + 1] = work;
+                    }
+                }
+
+                if ((j + 1) < size) {
+                    projected[j + 1][j] = beta;
+                    projected[j][j + 1] = beta;
+                }
+            }
+
+            for (int j = 0; j < size; j++) {
+                for (int i = 0; i < size; i++) {
+                    matrixT.set(i, j, projected[i][j]);
+                }
+            }
+
+            if (!evd.decompose(matrixT)) {
+                return false;
+            }
+
+            evd.getEigenvalues(ritzValues, Optional.empty());
+            ritzVectors = evd.getV();
+
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (i1, i2) -> myTarget.order.compare(ritzValues[i1], ritzValues[i2]));
+
+            double scale = MACHINE_SMALLEST;
+            for (int i = 0; i < size; i++) {
+                scale = Math.max(scale, Math.abs(ritzValues[i]));
+            }
+
+            converged = 0;
+            while ((converged < wanted) && (Math.abs(beta * ritzVectors.doubleValue(size - 1, order[converged])) <= (ACCURACY * scale))) {
+                converged++;
+            }
+
+            if ((converged >= wanted) || (size == available)) {
+                break;
+            }
+
+            // Thick restart - keep the best Ritz vectors and continue from the residual direction
+            kept = Math.min(size - 1, wanted + ((size - wanted) / 2));
+
+            double[][] restarted = this.combine(basis, ritzVectors, order, kept);
+
+            for (double[] row : projected) {
+                Arrays.fill(row, ZERO);
+            }
+            for (int r = 0; r < kept; r++) {
+                projected[r][r] = ritzValues[order[r]];
+            }
+
+            double[] residual = basis[size];
+            for (int r = 0; r < kept; r++) {
+                basis[r] = restarted[r];
+            }
+            basis[kept] = residual;
+            for (int j = kept + 1; j <= size; j++) {
+                basis[j] = null;
+            }
+        }
+
+        double[][] ritz = this.combine(basis, ritzVectors, order, wanted);
+        for (int i = 0; i < wanted; i++) {
+            values[i] = ritzValues[order[i]];
+            vectors[i] = ritz[i];
+        }
+
+        return (converged >= wanted) || (size == available);
+    }
+
+    /**
+     * Ritz vectors: the basis vectors combined using the (selected) eigenvectors of the projected matrix
+     */
+    private double[][] combine(final double[][] basis, final MatrixStore<Double> coefficients, final Integer[] order, final int count) {
+
+        int dimension = myDimension;
+        int size = Math.toIntExact(coefficients.countRows());
+
+        double[][] retVal = new double[count][dimension];
+        for (int r = 0; r < count; r++) {
+            for (int j = 0; j < size; j++) {
+                AXPY.invoke(retVal[r], 0, coefficients.doubleValue(j, order[r]), basis[j], 0, 0, dimension);
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * A random unit vector orthogonal to the locked vectors and to the first vectors in the basis
+     */
+    private double[] random(final double[][] locked, final double[][] basis, final int first) {
+
+        int dimension = myDimension;
+
+        Normal normal = new Normal();
+
+        double[] retVal = new double[dimension];
+        for (int i = 0; i < dimension; i++) {
+            retVal[i] = normal.doubleValue();
+        }
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < locked.length; i++) {
+                AXPY.invoke(retVal, 0, -DOT.invoke(locked[i], 0, retVal, 0, 0, dimension), locked[i], 0, 0, dimension);
+            }
+            for (int i = 0; i < first; i++) {
+                AXPY.invoke(retVal, 0, -DOT.invoke(basis[i], 0, retVal, 0, 0, dimension), basis[i], 0, 0, dimension);
+            }
+        }
+
+        double norm = SQRT.invoke(DOT.invoke(retVal, 0, retVal, 0, 0, dimension));
+        for (int i = 0; i < dimension; i++) {
+            retVal[i] /= norm;
+        }
+
+        return retVal;
+    }
+
+    private double toEigenvalue(final double ritzValue) {
+        return myTarget == Target.NEAREST ? myShift + (ONE / ritzValue) : ritzValue;
+    }
+
+    @Override
+    protected Primitive64Store allocate(final long numberOfRows, final long numberOfColumns) {
+        return Primitive64Store.FACTORY.make(numberOfRows, numberOfColumns);
+    }
+
+    @Override
+    protected FunctionSet<Double> function() {
+        return PrimitiveFunction.getSet();
+    }
+
+    @Override
+    protected int getColDim() {
+        return myDimension;
+    }
+
+    @Override
+    protected int getRowDim() {
+        return myDimension;
+    }
+
+    @Override
+    protected Scalar.Factory<Double> scalar() {
+        return PrimitiveScalar.FACTORY;
+    }
+
+}
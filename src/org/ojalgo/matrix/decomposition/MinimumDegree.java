@@ -0,0 +1,447 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import java.util.Arrays;
+
+/**
+ * Fill reducing ordering of a sparse symmetric matrix - approximate minimum degree on the quotient graph
+ * (eliminated nodes are represented by elements rather than by explicitly adding the fill edges).
+ * Indistinguishable nodes are merged in to supervariables, nodes that become adjacent to nothing but the
+ * current element are eliminated together with it, and elements that turn out to be subsets of the current
+ * element are absorbed. Dense nodes are ordered last.
+ *
+ * @author apete
+ */
+final class MinimumDegree {
+
+    private static final int DEAD = 3;
+    private static final int DENSE = 4;
+    private static final int ELEMENT = 2;
+    private static final int MERGED = 1;
+    private static final int VARIABLE = 0;
+
+    /**
+     * @param dim The matrix dimension
+     * @param start Compressed sparse column start indices of the (symmetric) nonzero pattern
+     * @param index Row indices of the nonzero pattern. Must be symmetric, diagonal entries are ignored.
+     * @return The elimination order - the node to eliminate at each step
+     */
+    static int[] order(final int dim, final int[] start, final int[] index) {
+        return new MinimumDegree(dim, start, index).order();
+    }
+
+    /**
+     * Variables adjacent to each variable, or the variables of each element
+     */
+    private final int[][] myAdjacent;
+    private final int[] myAdjacentSize;
+    private final int[] myDegree;
+    private final int myDim;
+    /**
+     * Elements adjacent to each variable
+     */
+    private final int[][] myElements;
+    private final int[] myElementsSize;
+    private final int[] myFlag;
+    private final int[] myHead;
+    private final int[] myNext;
+    private final int[] myPrevious;
+    private int myStamp = 0;
+    private final int[] myStatus;
+    /**
+     * The supervariable/element each variable was merged in to
+     */
+    private final int[] myParent;
+    private final int[] myWeight;
+    private final int[] myWeightOfElement;
+    private final int[] myWork;
+    private final int[] myWorkStamp;
+
+    private MinimumDegree(final int dim, final int[] start, final int[] index) {
+
+        super();
+
+        myDim = dim;
+
+        myAdjacent = new int[dim][];
+        myAdjacentSize = new int[dim];
+        myElements = new int[dim][];
+        myElementsSize = new int[dim];
+        myDegree = new int[dim];
+        myFlag = new int[dim];
+        myHead = new int[dim + 1];
+        myNext = new int[dim];
+        myPrevious = new int[dim];
+        myStatus = new int[dim];
+        myParent = new int[dim];
+        myWeight = new int[dim];
+        myWeightOfElement = new int[dim];
+        myWork = new int[dim];
+        myWorkStamp = new int[dim];
+
+        Arrays.fill(myParent, -1);
+        Arrays.fill(myWeight, 1);
+
+        final int dense = Math.max(16, (int) (10.0 * Math.sqrt(dim)));
+
+        for (int j = 0; j < dim; j++) {
+            int count = 0;
+            for (int p = start[j]; p < start[j + 1]; p++) {
+                if (index[p] != j) {
+                    count++;
+                }
+            }
+            if (count > dense) {
+                myStatus[j] = DENSE;
+            }
+        }
+
+        for (int j = 0; j < dim; j++) {
+            myElements[j] = new int[4];
+            if (myStatus[j] == DENSE) {
+                myAdjacent[j] = new int[0];
+                continue;
+            }
+            final int[] adjacent = new int[start[j + 1] - start[j]];
+            int count = 0;
+            final int stamp = ++myStamp;
+            myFlag[j] = stamp;
+            for (int p = start[j]; p < start[j + 1]; p++) {
+                final int i = index[p];
+                if ((myFlag[i] != stamp) && (myStatus[i] != DENSE)) {
+                    myFlag[i] = stamp;
+                    adjacent[count++] = i;
+                }
+            }
+            myAdjacent[j] = adjacent;
+            myAdjacentSize[j] = count;
+            myDegree[j] = count;
+        }
+    }
+
+    private void add(final int node) {
+        final int degree = myDegree[node];
+        final int first = myHead[degree];
+        myNext[node] = first;
+        myPrevious[node] = -1;
+        if (first >= 0) {
+            myPrevious[first] = node;
+        }
+        myHead[degree] = node;
+    }
+
+    private void append(final int node, final int element) {
+        int[] elements = myElements[node];
+        if (myElementsSize[node] == elements.length) {
+            myElements[node] = elements = Arrays.copyOf(elements, 2 * elements.length);
+        }
+        elements[myElementsSize[node]++] = element;
+    }
+
+    /**
+     * Compares the adjacency of two variables (that are both in the current element)
+     */
+    private boolean isIndistinguishable(final int i, final int j) {
+
+        if ((myElementsSize[i] != myElementsSize[j]) || (myAdjacentSize[i] != myAdjacentSize[j])) {
+            return false;
+        }
+
+        final int stamp = ++myStamp;
+
+        for (int q = 0; q < myElementsSize[i]; q++) {
+            myFlag[myElements[i][q]] = stamp;
+        }
+        for (int q = 0; q < myAdjacentSize[i]; q++) {
+            myFlag[myAdjacent[i][q]] = stamp;
+        }
+
+        for (int q = 0; q < myElementsSize[j]; q++) {
+            if (myFlag[myElements[j][q]] != stamp) {
+                return false;
+            }
+        }
+        for (int q = 0; q < myAdjacentSize[j]; q++) {
+            if (myFlag[myAdjacent[j][q]] != stamp) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int[] order() {
+
+        final int dim = myDim;
+
+        Arrays.fill(myHead, -1);
+
+        int remaining = 0;
+        for (int j = 0; j < dim; j++) {
+            if (myStatus[j] == VARIABLE) {
+                this.add(j);
+                remaining++;
+            }
+        }
+
+        final int[] pivots = new int[dim];
+        int countPivots = 0;
+
+        final int[] element = myWork;
+        final long[] keys = new long[dim];
+
+        int minimum = 0;
+
+        while (remaining > 0) {
+
+            while (myHead[minimum] < 0) {
+                minimum++;
+            }
+
+            final int pivot = myHead[minimum];
+            this.remove(pivot);
+            pivots[countPivots++] = pivot;
+            remaining -= myWeight[pivot];
+
+            // The new element - the union of the variables of the adjacent elements and of the adjacent variables
+
+            final int stamp = ++myStamp;
+            myFlag[pivot] = stamp;
+
+            int size = 0;
+            int weight = 0;
+
+            for (int q = 0; q < myElementsSize[pivot]; q++) {
+                final int e = myElements[pivot][q];
+                if (myStatus[e] == ELEMENT) {
+                    for (int r = 0; r < myAdjacentSize[e]; r++) {
+                        final int i = myAdjacent[e][r];
+                        if ((myStatus[i] == VARIABLE) && (myFlag[i] != stamp)) {
+                            myFlag[i] = stamp;
+                            element[size++] = i;
+                            weight += myWeight[i];
+                        }
+                    }
+                    myStatus[e] = DEAD;
+                    myParent[e] = pivot;
+                    myAdjacent[e] = null;
+                }
+            }
+            for (int q = 0; q < myAdjacentSize[pivot]; q++) {
+                final int i = myAdjacent[pivot][q];
+                if ((myStatus[i] == VARIABLE) && (myFlag[i] != stamp)) {
+                    myFlag[i] = stamp;
+                    element[size++] = i;
+                    weight += myWeight[i];
+                }
+            }
+
+            myStatus[pivot] = ELEMENT;
+            myElements[pivot] = null;
+            myElementsSize[pivot] = 0;
+
+            for (int q = 0; q < size; q++) {
+                this.remove(element[q]);
+            }
+
+            // The size of each (other) adjacent element, outside of the new element
+
+            final int pivotStamp = stamp;
+
+            for (int q = 0; q < size; q++) {
+                final int i = element[q];
+                for (int r = 0; r < myElementsSize[i]; r++) {
+                    final int e = myElements[i][r];
+                    if (myStatus[e] == ELEMENT) {
+                        if (myWorkStamp[e] != pivotStamp) {
+                            myWorkStamp[e] = pivotStamp;
+                            keys[e] = myWeightOfElement[e];
+                        }
+                        keys[e] -= myWeight[i];
+                    }
+                }
+            }
+
+            // Prune the adjacency of the variables in the new element, and update (approximate) their degrees
+
+            int countLive = 0;
+
+            for (int q = 0; q < size; q++) {
+
+                final int i = element[q];
+
+                int external = 0;
+                long hash = pivot;
+
+                final int[] elements = myElements[i];
+                int kept = 0;
+                for (int r = 0; r < myElementsSize[i]; r++) {
+                    final int e = elements[r];
+                    if (myStatus[e] == ELEMENT) {
+                        final long outside = keys[e];
+                        if (outside > 0L) {
+                            elements[kept++] = e;
+                            external += (int) outside;
+                            hash += e;
+                        } else {
+                            // Absorbed - a subset of the new element
+                            myStatus[e] = DEAD;
+                            myParent[e] = pivot;
+                            myAdjacent[e] = null;
+                        }
+                    }
+                }
+                myElementsSize[i] = kept;
+
+                final int[] adjacent = myAdjacent[i];
+                kept = 0;
+                for (int r = 0; r < myAdjacentSize[i]; r++) {
+                    final int j = adjacent[r];
+                    if ((myStatus[j] == VARIABLE) && (myFlag[j] != stamp)) {
+                        adjacent[kept++] = j;
+                        external += myWeight[j];
+                        hash += j;
+                    }
+                }
+                myAdjacentSize[i] = kept;
+
+                if ((myElementsSize[i] == 0) && (kept == 0)) {
+                    // Only adjacent to the new element - eliminate it together with the pivot
+                    myStatus[i] = MERGED;
+                    myParent[i] = pivot;
+                    remaining -= myWeight[i];
+                    weight -= myWeight[i];
+                    continue;
+                }
+
+                this.append(i, pivot);
+
+                myDegree[i] = Math.min(remaining - myWeight[i], external + weight - myWeight[i]);
+                keys[i] = hash;
+                element[countLive++] = i;
+            }
+
+            size = countLive;
+
+            // Supervariable detection - only variables with the same hash need to be compared
+
+            final long[] sorted = new long[size];
+            for (int q = 0; q < size; q++) {
+                sorted[q] = ((keys[element[q]] & 0x7FFFFFFFL) << 32) | q;
+            }
+            Arrays.sort(sorted);
+
+            for (int first = 0, last; first < size; first = last) {
+                final long hash = sorted[first] >>> 32;
+                last = first + 1;
+                while ((last < size) && ((sorted[last] >>> 32) == hash)) {
+                    last++;
+                }
+                for (int q = first; q < last; q++) {
+                    final int i = element[(int) sorted[q]];
+                    if (myStatus[i] != VARIABLE) {
+                        continue;
+                    }
+                    for (int r = q + 1; r < last; r++) {
+                        final int j = element[(int) sorted[r]];
+                        if ((myStatus[j] == VARIABLE) && this.isIndistinguishable(i, j)) {
+                            myStatus[j] = MERGED;
+                            myParent[j] = i;
+                            myWeight[i] += myWeight[j];
+                            myDegree[i] -= myWeight[j];
+                        }
+                    }
+                }
+            }
+
+            countLive = 0;
+            weight = 0;
+            for (int q = 0; q < size; q++) {
+                final int i = element[q];
+                if (myStatus[i] == VARIABLE) {
+                    element[countLive++] = i;
+                    weight += myWeight[i];
+                    myDegree[i] = Math.max(0, Math.min(myDegree[i], remaining - myWeight[i]));
+                    this.add(i);
+                    minimum = Math.min(minimum, myDegree[i]);
+                }
+            }
+
+            myAdjacent[pivot] = Arrays.copyOf(element, countLive);
+            myAdjacentSize[pivot] = countLive;
+            myWeightOfElement[pivot] = weight;
+        }
+
+        // The order - each pivot followed by the variables merged in to it (recursively), and then the dense ones
+
+        final int[] firstChild = new int[dim];
+        final int[] nextSibling = new int[dim];
+        Arrays.fill(firstChild, -1);
+        for (int j = dim - 1; j >= 0; j--) {
+            if ((myStatus[j] == MERGED) && (myParent[j] >= 0)) {
+                nextSibling[j] = firstChild[myParent[j]];
+                firstChild[myParent[j]] = j;
+            }
+        }
+
+        final int[] retVal = new int[dim];
+        int count = 0;
+
+        final int[] stack = new int[dim];
+        for (int k = 0; k < countPivots; k++) {
+            int head = 0;
+            stack[0] = pivots[k];
+            while (head >= 0) {
+                final int node = stack[head--];
+                retVal[count++] = node;
+                for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                    stack[++head] = child;
+                }
+            }
+        }
+
+        for (int j = 0; j < dim; j++) {
+            if (myStatus[j] == DENSE) {
+                retVal[count++] = j;
+            }
+        }
+
+        return retVal;
+    }
+
+    private void remove(final int node) {
+        final int previous = myPrevious[node];
+        final int next = myNext[node];
+        if (previous >= 0) {
+            myNext[previous] = next;
+        } else {
+            myHead[myDegree[node]] = next;
+        }
+        if (next >= 0) {
+            myPrevious[next] = previous;
+        }
+        myNext[node] = -1;
+        myPrevious[node] = -1;
+    }
+
+}
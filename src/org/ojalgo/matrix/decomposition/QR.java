@@ -22,6 +22,7 @@
 package org.ojalgo.matrix.decomposition;
 
 import org.ojalgo.array.DenseArray;
+import org.ojalgo.array.operation.BlockedQR;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.scalar.Quaternion;
@@ -71,7 +72,8 @@ public interface QR<N extends Comparable<N>> extends MatrixDecomposition<N>, Mat
     Factory<ComplexNumber> COMPLEX = (typical, fullSize) -> new QRDecomposition.Complex(fullSize);
 
     Factory<Double> PRIMITIVE = (typical, fullSize) -> {
-        if (fullSize || (typical.isFat() || ((256L < typical.countColumns()) && (typical.count() <= DenseArray.MAX_ARRAY_SIZE)))) {
+        if (fullSize || (typical.isFat() || (((256L < typical.countColumns()) || BlockedQR.isApplicable(typical.countRows(), typical.countColumns()))
+                && (typical.count() <= DenseArray.MAX_ARRAY_SIZE)))) {
             return new QRDecomposition.Primitive(fullSize);
         } else {
             return new RawQR();
@@ -24,6 +24,8 @@ package org.ojalgo.matrix.decomposition;
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import org.ojalgo.RecoverableCondition;
+import org.ojalgo.array.operation.BlockedHouseholder;
+import org.ojalgo.array.operation.BlockedQR;
 import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.function.aggregator.AggregatorFunction;
 import org.ojalgo.matrix.store.GenericStore;
@@ -56,6 +58,8 @@ abstract class QRDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
 
     static final class Primitive extends QRDecomposition<Double> {
 
+        private double[] myBeta = null;
+
         Primitive() {
             this(false);
         }
@@ -64,6 +68,57 @@ abstract class QRDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
             super(Primitive64Store.FACTORY, fullSize);
         }
 
+        @Override
+        public MatrixStore<Double> getQ() {
+
+            if (myBeta == null) {
+                return super.getQ();
+            }
+
+            final int rowDim = this.getRowDim();
+            final int minDim = this.getMinDim();
+            final int colDim = this.isFullSize() ? rowDim : minDim;
+
+            final Primitive64Store retVal = (Primitive64Store) this.makeEye(rowDim, colDim);
+
+            BlockedHouseholder.invoke(retVal.data, rowDim, colDim, ((Primitive64Store) this.getInPlace()).data, 1, rowDim, 0, myBeta, minDim, false, true);
+
+            return retVal;
+        }
+
+        @Override
+        public void reset() {
+
+            super.reset();
+
+            myBeta = null;
+        }
+
+        @Override
+        double[] decomposeBlocked(final DecompositionStore<Double> inPlace) {
+
+            final int rowDim = this.getRowDim();
+            final int colDim = this.getColDim();
+
+            if (BlockedQR.isApplicable(rowDim, colDim)) {
+                myBeta = new double[this.getMinDim()];
+                BlockedQR.invoke(((Primitive64Store) inPlace).data, rowDim, colDim, myBeta);
+                return myBeta;
+            } else {
+                return null;
+            }
+        }
+
+        @Override
+        void transformQT(final PhysicalStore<Double> rhs) {
+            if ((myBeta != null) && (rhs instanceof Primitive64Store)) {
+                BlockedHouseholder.invoke(((Primitive64Store) rhs).data, this.getRowDim(), (int) rhs.countColumns(),
+                        ((Primitive64Store) this.getInPlace()).data, 1, this.getRowDim(), 0, myBeta, myBeta.length, true, false);
+            } else {
+                super.transformQT(rhs);
+            }
+        }
+
     }
 
     static final class Quat extends QRDecomposition<Quaternion> {
@@ -130,6 +185,16 @@ abstract class QRDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
 
         final int tmpLimit = Math.min(tmpRowDim, tmpColDim);
 
+        final double[] tmpBeta = this.decomposeBlocked(tmpStore);
+        if (tmpBeta != null) {
+            for (int ij = 0; ij < tmpBeta.length; ij++) {
+                if (tmpBeta[ij] != ZERO) {
+                    myNumberOfHouseholderTransformations++;
+                }
+            }
+            return this.computed(true);
+        }
+
         for (int ij = 0; ij < tmpLimit; ij++) {
             if (((ij + 1) < tmpRowDim) && tmpStore.generateApplyAndCopyHouseholderColumn(ij, ij, tmpHouseholder)) {
                 tmpStore.transformLeft(tmpHouseholder, ij + 1);
@@ -217,17 +282,7 @@ abstract class QRDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
         final int tmpRowDim = this.getRowDim();
         final int tmpColDim = this.getColDim();
 
-        final HouseholderReference<N> tmpReference = HouseholderReference.makeColumn(tmpStore);
-
-        final int tmpLimit = this.getMinDim();
-        for (int j = 0; j < tmpLimit; j++) {
-
-            tmpReference.point(j, j);
-
-            if (!tmpReference.isZero()) {
-                preallocated.transformLeft(tmpReference, 0);
-            }
-        }
+        this.transformQT(preallocated);
 
         preallocated.substituteBackwards(tmpStore, false, false, false);
 
@@ -315,6 +370,16 @@ abstract class QRDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
         return this.isAspectRatioNormal() && this.isFullRank();
     }
 
+    /**
+     * A blocked (level-3) alternative to the main loop of the decomposition.
+     *
+     * @return The beta values of the Householder transformations, 0.0 for those that were not generated.
+     *         Returns null if there is no blocked algorithm available - then the standard algorithm is used.
+     */
+    double[] decomposeBlocked(final DecompositionStore<N> inPlace) {
+        return null;
+    }
+
     /**
      * @return L as in R<sup>T</sup>.
      */
@@ -335,4 +400,22 @@ abstract class QRDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
         return retVal;
     }
 
+    /**
+     * [B] is replaced by [Q]<sup>T</sup>[B]
+     */
+    void transformQT(final PhysicalStore<N> rhs) {
+
+        final HouseholderReference<N> tmpReference = HouseholderReference.makeColumn(this.getInPlace());
+
+        final int tmpLimit = this.getMinDim();
+        for (int j = 0; j < tmpLimit; j++) {
+
+            tmpReference.point(j, j);
+
+            if (!tmpReference.isZero()) {
+                rhs.transformLeft(tmpReference, 0);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,364 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.array.Array1D;
+import org.ojalgo.function.FunctionSet;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.DiagonalStore;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Normal;
+import org.ojalgo.scalar.PrimitiveScalar;
+import org.ojalgo.scalar.Scalar;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Access2D.Collectable;
+import org.ojalgo.structure.Structure2D;
+
+/**
+ * Randomised, truncated, singular value decomposition – only the (approximately) largest singular values,
+ * and the corresponding vectors, are calculated. The algorithm is the randomised range finder of Halko,
+ * Martinsson and Tropp:
+ * <ol>
+ * <li>[Y] = [A][&Omega;] where [&Omega;] is a random (Gaussian) n-by-(k+p) matrix, k being the rank and p
+ * the oversampling.</li>
+ * <li>Optionally a number of power iterations, [Y] = ([A][A]<sup>T</sup>)<sup>q</sup>[Y], with
+ * re-orthonormalisation in between, to sharpen the decay of the singular values.</li>
+ * <li>[Q] = an orthonormal basis for the range of [Y] (a QR decomposition).</li>
+ * <li>[B] = [Q]<sup>T</sup>[A], which is small, is decomposed using an ordinary SVD.</li>
+ * </ol>
+ * The work is O(mnk) rather than O(mn<sup>2</sup>), and the matrix [A] is only used in matrix
+ * multiplications (2q+2 passes over it). The number of singular values, the columns of [U] and of [V], is
+ * (at most) the specified rank. Norms, condition, rank and the (pseudo)inverse all refer to that truncated
+ * approximation of the original matrix.
+ *
+ * @author apete
+ */
+final class RandomisedSingularValue extends AbstractDecomposition<Double> implements SingularValue<Double> {
+
+    private int myColDim;
+    private final int myIterations;
+    private final int myOversampling;
+    private transient MatrixStore<Double> myPseudoinverse = null;
+    private final int myRank;
+    private int myRowDim;
+    private double[] mySingularValues = null;
+    private MatrixStore<Double> myU = null;
+    private MatrixStore<Double> myV = null;
+
+    RandomisedSingularValue(final int rank, final int oversampling, final int iterations) {
+
+        super();
+
+        myRank = rank;
+        myOversampling = oversampling;
+        myIterations = iterations;
+    }
+
+    public boolean computeValuesOnly(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        return this.doDecompose(matrix, false);
+    }
+
+    public int countSignificant(final double threshold) {
+        int significant = 0;
+        for (int i = 0; i < mySingularValues.length; i++) {
+            if (mySingularValues[i] > threshold) {
+                significant++;
+            }
+        }
+        return significant;
+    }
+
+    public boolean decompose(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        return this.doDecompose(matrix, true);
+    }
+
+    /**
+     * The ratio of the largest and the smallest of the calculated singular values – the condition of the
+     * truncated approximation, not that of the original matrix (unless the rank is the full rank).
+     */
+    public double getCondition() {
+        return mySingularValues[0] / mySingularValues[mySingularValues.length - 1];
+    }
+
+    public MatrixStore<Double> getCovariance() {
+
+        int rank = this.getRank();
+
+        MatrixStore<Double> tmp = myV.logical().limits(-1, rank).operateOnColumns(DIVIDE, this.getSingularValues()).get();
+
+        return tmp.multiply(tmp.transpose());
+    }
+
+    public MatrixStore<Double> getD() {
+        return DiagonalStore.builder(Primitive64Store.FACTORY, this.getSingularValues()).get();
+    }
+
+    /**
+     * Only the calculated singular values contribute – it's the norm of the truncated approximation, and a
+     * lower bound for that of the original matrix.
+     */
+    public double getFrobeniusNorm() {
+
+        double retVal = ZERO;
+
+        for (int i = mySingularValues.length - 1; i >= 0; i--) {
+            retVal += mySingularValues[i] * mySingularValues[i];
+        }
+
+        return SQRT.invoke(retVal);
+    }
+
+    public MatrixStore<Double> getInverse() {
+        return this.getInverse(this.allocate(myColDim, myRowDim));
+    }
+
+    public MatrixStore<Double> getInverse(final PhysicalStore<Double> preallocated) {
+
+        if (myPseudoinverse == null) {
+
+            double small = this.getRankThreshold();
+
+            double[] inverted = new double[mySingularValues.length];
+            for (int i = 0; i < inverted.length; i++) {
+                inverted[i] = mySingularValues[i] > small ? ONE / mySingularValues[i] : ZERO;
+            }
+
+            MatrixStore<Double> scaledV = myV.logical().operateOnColumns(MULTIPLY, Array1D.PRIMITIVE64.copy(inverted)).get();
+
+            preallocated.fillByMultiplying(scaledV, myU.transpose());
+            myPseudoinverse = preallocated;
+        }
+
+        return myPseudoinverse;
+    }
+
+    public double getKyFanNorm(final int k) {
+
+        double retVal = ZERO;
+
+        for (int i = Math.min(mySingularValues.length, k) - 1; i >= 0; i--) {
+            retVal += mySingularValues[i];
+        }
+
+        return retVal;
+    }
+
+    public double getOperatorNorm() {
+        return mySingularValues[0];
+    }
+
+    public double getRankThreshold() {
+        return Math.max(MACHINE_SMALLEST, mySingularValues[0]) * this.getDimensionalEpsilon();
+    }
+
+    public Array1D<Double> getSingularValues() {
+        return Array1D.PRIMITIVE64.copy(mySingularValues);
+    }
+
+    @Override
+    public void getSingularValues(final double[] values) {
+        System.arraycopy(mySingularValues, 0, values, 0, Math.min(mySingularValues.length, values.length));
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs) {
+        return this.getSolution(rhs, this.allocate(myColDim, rhs.countColumns()));
+    }
+
+    @Override
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs, final PhysicalStore<Double> preallocated) {
+        preallocated.fillByMultiplying(this.getInverse(), rhs.collect(Primitive64Store.FACTORY));
+        return preallocated;
+    }
+
+    /**
+     * The sum of the calculated singular values – the norm of the truncated approximation, and a lower bound
+     * for that of the original matrix.
+     */
+    public double getTraceNorm() {
+        return this.getKyFanNorm(mySingularValues.length);
+    }
+
+    public MatrixStore<Double> getU() {
+        return myU;
+    }
+
+    public MatrixStore<Double> getV() {
+        return myV;
+    }
+
+    public MatrixStore<Double> invert(final Access2D<?> original, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(original.asCollectable2D());
+
+        if (this.isSolvable()) {
+            return this.getInverse(preallocated);
+        } else {
+            throw RecoverableCondition.newMatrixNotInvertible();
+        }
+    }
+
+    public boolean isFullRank() {
+        return (mySingularValues.length == this.getMinDim()) && (mySingularValues[mySingularValues.length - 1] > this.getRankThreshold());
+    }
+
+    public boolean isFullSize() {
+        return false;
+    }
+
+    public boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    public boolean isSolvable() {
+        return super.isSolvable();
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D template) {
+        return this.allocate(template.countColumns(), template.countRows());
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return this.allocate(templateBody.countColumns(), templateRHS.countColumns());
+    }
+
+    @Override
+    public void reset() {
+
+        super.reset();
+
+        mySingularValues = null;
+        myU = null;
+        myV = null;
+        myPseudoinverse = null;
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(body.asCollectable2D());
+
+        if (this.isSolvable()) {
+            return this.getSolution(rhs.asCollectable2D(), preallocated);
+        } else {
+            throw RecoverableCondition.newEquationSystemNotSolvable();
+        }
+    }
+
+    /**
+     * [Q] = an orthonormal basis for the column space of [Y]
+     */
+    private Primitive64Store orthonormalise(final QR<Double> qr, final MatrixStore<Double> matrix) {
+        qr.decompose(matrix);
+        return Primitive64Store.FACTORY.copy(qr.getQ());
+    }
+
+    /**
+     * [Q]<sup>T</sup>[A] - calculated with an explicitly transposed copy of [Q] so that [A] is traversed
+     * in its natural order.
+     */
+    private Primitive64Store project(final MatrixStore<Double> basis, final MatrixStore<Double> matrix) {
+        Primitive64Store retVal = Primitive64Store.FACTORY.make(basis.countColumns(), myColDim);
+        retVal.fillByMultiplying(Primitive64Store.FACTORY.transpose(basis), matrix);
+        return retVal;
+    }
+
+    @Override
+    protected Primitive64Store allocate(final long numberOfRows, final long numberOfColumns) {
+        return Primitive64Store.FACTORY.make(numberOfRows, numberOfColumns);
+    }
+
+    @Override
+    protected boolean checkSolvability() {
+        return this.getRank() == this.getMinDim();
+    }
+
+    @Override
+    protected FunctionSet<Double> function() {
+        return PrimitiveFunction.getSet();
+    }
+
+    @Override
+    protected int getColDim() {
+        return myColDim;
+    }
+
+    @Override
+    protected int getRowDim() {
+        return myRowDim;
+    }
+
+    @Override
+    protected Scalar.Factory<Double> scalar() {
+        return PrimitiveScalar.FACTORY;
+    }
+
+    @SuppressWarnings("unchecked")
+    boolean doDecompose(final Collectable<Double, ? super PhysicalStore<Double>> matrix, final boolean factors) {
+
+        this.reset();
+
+        MatrixStore<Double> mtrxA = matrix instanceof MatrixStore ? (MatrixStore<Double>) matrix : matrix.collect(Primitive64Store.FACTORY);
+
+        myRowDim = Math.toIntExact(mtrxA.countRows());
+        myColDim = Math.toIntExact(mtrxA.countColumns());
+
+        int minDim = this.getMinDim();
+        int rank = Math.max(1, Math.min(myRank, minDim));
+        int samples = Math.min(rank + myOversampling, minDim);
+
+        QR<Double> qr = QR.PRIMITIVE.make(myRowDim, samples);
+
+        Primitive64Store sample = Primitive64Store.FACTORY.make(myRowDim, samples);
+        sample.fillByMultiplying(mtrxA, Primitive64Store.FACTORY.makeFilled(myColDim, samples, new Normal()));
+
+        Primitive64Store basis = this.orthonormalise(qr, sample);
+
+        for (int q = 0; q < myIterations; q++) {
+            MatrixStore<Double> coimage = this.orthonormalise(qr, this.project(basis, mtrxA).transpose());
+            sample.fillByMultiplying(mtrxA, coimage);
+            basis = this.orthonormalise(qr, sample);
+        }
+
+        Primitive64Store small = this.project(basis, mtrxA);
+
+        SingularValue<Double> svd = SingularValue.PRIMITIVE.make(small);
+        if (factors ? !svd.decompose(small) : !svd.computeValuesOnly(small)) {
+            return this.computed(false);
+        }
+
+        mySingularValues = new double[rank];
+        svd.getSingularValues(mySingularValues);
+
+        if (factors) {
+            myU = basis.multiply(svd.getU().logical().limits(-1, rank).get());
+            myV = Primitive64Store.FACTORY.copy(svd.getV().logical().limits(-1, rank).get());
+        }
+
+        return this.computed(true);
+    }
+
+}
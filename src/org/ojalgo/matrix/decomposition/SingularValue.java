@@ -168,6 +168,30 @@ public interface SingularValue<N extends Comparable<N>> extends MatrixDecomposit
         }
     }
 
+    /**
+     * @see #randomised(int, int, int)
+     */
+    static Factory<Double> randomised(final int rank) {
+        return SingularValue.randomised(rank, 10, 2);
+    }
+
+    /**
+     * A randomised, truncated, decomposition that only calculates (approximations of) the largest singular
+     * values and their vectors. The work is O(mnk) rather than O(mn<sup>2</sup>), which makes it suitable for
+     * large matrices with a dominant low rank structure – principal component analysis on many samples
+     * and/or variables for instance. The factors [U] and [V] have (at most) rank columns, and [D] is
+     * rank-by-rank.
+     *
+     * @param rank The (maximum) number of singular values to calculate
+     * @param oversampling The number of extra random samples used to capture the range of the matrix, 5-10 is
+     *        usually enough
+     * @param iterations The number of power iterations. Each requires 2 more passes over the matrix, but
+     *        improves the accuracy when the singular values decay slowly.
+     */
+    static Factory<Double> randomised(final int rank, final int oversampling, final int iterations) {
+        return (typical, fullSize) -> new RandomisedSingularValue(rank, oversampling, iterations);
+    }
+
     /**
      * @deprecated v48 Use {@link #reconstruct()} instead
      */
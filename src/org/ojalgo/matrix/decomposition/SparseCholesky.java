@@ -0,0 +1,49 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import org.ojalgo.matrix.store.MatrixStore;
+
+/**
+ * Sparse (supernodal) Cholesky decomposition, see {@link SparseDecomposition}. The decomposition is of the
+ * symmetrically permuted matrix, [P][A][P]<sup>T</sup> = [L][L]<sup>T</sup>. To still have
+ * [A] = [L][L]<sup>T</sup> the rows of the [L] returned by {@link #getL()} are permuted back - it is not
+ * triangular unless the ordering happens to be the natural one.
+ *
+ * @author apete
+ */
+final class SparseCholesky extends SparseDecomposition implements Cholesky<Double> {
+
+    SparseCholesky() {
+        super(true);
+    }
+
+    @Override
+    public MatrixStore<Double> getL() {
+        return this.makeL(this.getSymbolic().permutation);
+    }
+
+    public boolean isSPD() {
+        return this.isComputed();
+    }
+
+}
@@ -0,0 +1,1106 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.function.FunctionSet;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.CompressedSparseStore;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.scalar.PrimitiveScalar;
+import org.ojalgo.scalar.Scalar;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Access2D.Collectable;
+import org.ojalgo.structure.Structure2D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Common base for the sparse (symmetric) decompositions, {@link SparseCholesky} and {@link SparseLDL}. Only
+ * the lower triangle of the input matrix is used. Sparse inputs ({@link SparseStore} or
+ * {@link CompressedSparseStore}) are never densified.
+ * <p>
+ * Decomposing is done in two phases:
+ * <ol>
+ * <li>A symbolic analysis, that only depends on the nonzero pattern: A fill reducing (approximate minimum
+ * degree) ordering, the elimination tree, and a partition of the columns of [L] in to supernodes - sets of
+ * contiguous columns with (almost) the same nonzero structure, that are stored as dense blocks. The
+ * analysis is reused by later decompositions as long as the nonzero pattern stays the same (or is a subset
+ * of the original).</li>
+ * <li>A numeric factorisation, left-looking by supernode. Each supernode is assembled from the input
+ * matrix and the updates from its descendants, and then factored with dense kernels.</li>
+ * </ol>
+ *
+ * @author apete
+ */
+abstract class SparseDecomposition extends AbstractDecomposition<Double> {
+
+    /**
+     * The result of the symbolic analysis. Immutable, and only dependent on the nonzero pattern of the
+     * (lower triangle of the) matrix.
+     */
+    static final class Symbolic {
+
+        /**
+         * Merge a supernode with its parent if the result has at most this many columns
+         */
+        private static final int RELAX_ALWAYS = 4;
+        /**
+         * Merge a supernode with its parent if the result has at most this many columns, and the share of
+         * (explicitly stored) zeros does not exceed {@link #RELAX_ZEROS}
+         */
+        private static final int RELAX_SMALL = 16;
+        private static final double RELAX_ZEROS = 0.2;
+
+        static Symbolic analyse(final int dim, final int[] start, final int[] index, final boolean ordered) {
+
+            int[] order;
+
+            if (ordered) {
+
+                final int[] counts = new int[dim + 1];
+                for (int j = 0; j < dim; j++) {
+                    for (int p = start[j]; p < start[j + 1]; p++) {
+                        final int i = index[p];
+                        if (i != j) {
+                            counts[i + 1]++;
+                            counts[j + 1]++;
+                        }
+                    }
+                }
+                for (int j = 0; j < dim; j++) {
+                    counts[j + 1] += counts[j];
+                }
+                final int[] next = Arrays.copyOf(counts, dim);
+                final int[] adjacent = new int[counts[dim]];
+                for (int j = 0; j < dim; j++) {
+                    for (int p = start[j]; p < start[j + 1]; p++) {
+                        final int i = index[p];
+                        if (i != j) {
+                            adjacent[next[i]++] = j;
+                            adjacent[next[j]++] = i;
+                        }
+                    }
+                }
+
+                order = MinimumDegree.order(dim, counts, adjacent);
+
+            } else {
+
+                order = new int[dim];
+                for (int k = 0; k < dim; k++) {
+                    order[k] = k;
+                }
+            }
+
+            return new Symbolic(dim, start, index, order, ordered);
+        }
+
+        final int dim;
+        /**
+         * The (largest possible) number of rows below the diagonal block of any supernode
+         */
+        final int maxBelow;
+        /**
+         * The original pattern, compressed sparse column, lower triangle
+         */
+        final int[] patternIndex;
+        final int[] patternStart;
+        final int[] permutation;
+        final int[] inverse;
+        /**
+         * Fill reducing ordering, or the natural (given) order
+         */
+        final boolean ordered;
+        /**
+         * The row indices of each supernode, the columns of the supernode followed by the rows below
+         */
+        final int[] rowIndex;
+        final int[] rowStart;
+        final int[] superFirst;
+        final int[] superOf;
+        final int[] valueStart;
+
+        private Symbolic(final int dimension, final int[] start, final int[] index, final int[] order, final boolean fillReducing) {
+
+            super();
+
+            dim = dimension;
+            ordered = fillReducing;
+            patternStart = start;
+            patternIndex = index;
+
+            final int[] inv = new int[dim];
+            for (int k = 0; k < dim; k++) {
+                inv[order[k]] = k;
+            }
+
+            // Elimination tree, postordered
+
+            final int[] upperStart = new int[dim + 1];
+            final int[] upperIndex = new int[start[dim]];
+            Symbolic.upper(dim, start, index, inv, upperStart, upperIndex);
+
+            final int[] parent = new int[dim];
+            final int[] work = new int[dim];
+            Symbolic.etree(dim, upperStart, upperIndex, parent, work);
+
+            final int[] post = Symbolic.postorder(dim, parent, work);
+
+            permutation = new int[dim];
+            inverse = new int[dim];
+            for (int k = 0; k < dim; k++) {
+                permutation[k] = order[post[k]];
+                inverse[permutation[k]] = k;
+            }
+            Symbolic.upper(dim, start, index, inverse, upperStart, upperIndex);
+            Symbolic.etree(dim, upperStart, upperIndex, parent, work);
+
+            // The number of nonzeros below the diagonal in each column of L
+
+            final int[] count = new int[dim];
+            final int[] flag = work;
+            for (int k = 0; k < dim; k++) {
+                flag[k] = k;
+                for (int p = upperStart[k]; p < upperStart[k + 1]; p++) {
+                    for (int i = upperIndex[p]; flag[i] != k; i = parent[i]) {
+                        count[i]++;
+                        flag[i] = k;
+                    }
+                }
+            }
+
+            // Fundamental supernodes - chains in the elimination tree where each column has the structure of the previous minus one
+
+            final int[] children = new int[dim];
+            for (int j = 0; j < dim; j++) {
+                if (parent[j] >= 0) {
+                    children[parent[j]]++;
+                }
+            }
+
+            final int[] fundamental = new int[dim + 1];
+            int numberOfFundamental = 0;
+            for (int j = 0; j < dim; j++) {
+                if ((j == 0) || (parent[j - 1] != j) || (count[j - 1] != (count[j] + 1)) || (children[j] != 1)) {
+                    fundamental[numberOfFundamental++] = j;
+                }
+            }
+            fundamental[numberOfFundamental] = dim;
+
+            final int[] of = new int[dim];
+            for (int s = 0; s < numberOfFundamental; s++) {
+                for (int j = fundamental[s]; j < fundamental[s + 1]; j++) {
+                    of[j] = s;
+                }
+            }
+
+            // Relaxed amalgamation - merge small supernodes with their parent, accepting some explicitly stored zeros
+
+            final int[] first = new int[numberOfFundamental + 1];
+            final long[] zeros = new long[numberOfFundamental];
+            final int[] stack = new int[numberOfFundamental];
+            int height = 0;
+            for (int s = 0; s < numberOfFundamental; s++) {
+
+                first[s] = fundamental[s];
+                final int last = fundamental[s + 1] - 1;
+                final long below = count[last];
+
+                while (height > 0) {
+                    final int c = stack[height - 1];
+                    final int lastOfChild = fundamental[c + 1] - 1;
+                    if ((parent[lastOfChild] < 0) || (of[parent[lastOfChild]] != s) || ((lastOfChild + 1) != first[s])) {
+                        break;
+                    }
+                    final long width = last + 1 - first[s];
+                    final long widthOfChild = lastOfChild + 1 - first[c];
+                    final long merged = width + widthOfChild;
+                    final long added = zeros[c] + zeros[s] + (widthOfChild * ((width + below) - count[lastOfChild]));
+                    final long total = ((merged * (merged + 1L)) / 2L) + (merged * below);
+                    if ((merged <= RELAX_ALWAYS) || ((merged <= RELAX_SMALL) && (added <= (RELAX_ZEROS * total)))) {
+                        first[s] = first[c];
+                        zeros[s] = added;
+                        height--;
+                    } else {
+                        break;
+                    }
+                }
+
+                stack[height++] = s;
+            }
+
+            superFirst = new int[height + 1];
+            for (int s = 0; s < height; s++) {
+                superFirst[s] = first[stack[s]];
+            }
+            superFirst[height] = dim;
+
+            superOf = new int[dim];
+            for (int s = 0; s < height; s++) {
+                for (int j = superFirst[s]; j < superFirst[s + 1]; j++) {
+                    superOf[j] = s;
+                }
+            }
+
+            // The row structure of each supernode
+
+            final int[] lowerStart = new int[dim + 1];
+            final int[] lowerIndex = new int[upperIndex.length];
+            for (int k = 0; k < dim; k++) {
+                for (int p = upperStart[k]; p < upperStart[k + 1]; p++) {
+                    lowerStart[upperIndex[p] + 1]++;
+                }
+            }
+            for (int j = 0; j < dim; j++) {
+                lowerStart[j + 1] += lowerStart[j];
+            }
+            final int[] next = Arrays.copyOf(lowerStart, dim);
+            for (int k = 0; k < dim; k++) {
+                for (int p = upperStart[k]; p < upperStart[k + 1]; p++) {
+                    lowerIndex[next[upperIndex[p]]++] = k;
+                }
+            }
+
+            final int[] childHead = new int[height];
+            final int[] childNext = new int[height];
+            Arrays.fill(childHead, -1);
+            for (int s = height - 1; s >= 0; s--) {
+                final int p = parent[superFirst[s + 1] - 1];
+                if (p >= 0) {
+                    final int ps = superOf[p];
+                    childNext[s] = childHead[ps];
+                    childHead[ps] = s;
+                }
+            }
+
+            rowStart = new int[height + 1];
+            valueStart = new int[height + 1];
+            Arrays.fill(flag, -1);
+            int[] rows = new int[Math.max(16, 2 * start[dim])];
+            int size = 0;
+            long values = 0L;
+            int largest = 0;
+            for (int s = 0; s < height; s++) {
+
+                final int f = superFirst[s];
+                final int limit = superFirst[s + 1];
+                final int width = limit - f;
+
+                rowStart[s] = size;
+                if ((size + dim) > rows.length) {
+                    rows = Arrays.copyOf(rows, Math.max(size + dim, 2 * rows.length));
+                }
+                for (int j = f; j < limit; j++) {
+                    rows[size++] = j;
+                    flag[j] = s;
+                }
+                final int below = size;
+                for (int j = f; j < limit; j++) {
+                    for (int p = lowerStart[j]; p < lowerStart[j + 1]; p++) {
+                        final int i = lowerIndex[p];
+                        if (flag[i] != s) {
+                            flag[i] = s;
+                            rows[size++] = i;
+                        }
+                    }
+                }
+                for (int c = childHead[s]; c >= 0; c = childNext[c]) {
+                    for (int p = rowStart[c] + (superFirst[c + 1] - superFirst[c]); p < rowStart[c + 1]; p++) {
+                        final int i = rows[p];
+                        if (flag[i] != s) {
+                            flag[i] = s;
+                            rows[size++] = i;
+                        }
+                    }
+                }
+                Arrays.sort(rows, below, size);
+
+                largest = Math.max(largest, size - below);
+                valueStart[s] = Math.toIntExact(values);
+                values += (long) (size - rowStart[s]) * width;
+                rowStart[s + 1] = size;
+            }
+            rowStart[height] = size;
+            valueStart[height] = Math.toIntExact(values);
+
+            rowIndex = Arrays.copyOf(rows, size);
+            maxBelow = largest;
+        }
+
+        private static void etree(final int dim, final int[] upperStart, final int[] upperIndex, final int[] parent, final int[] ancestor) {
+            for (int k = 0; k < dim; k++) {
+                parent[k] = -1;
+                ancestor[k] = -1;
+                for (int p = upperStart[k]; p < upperStart[k + 1]; p++) {
+                    int i = upperIndex[p];
+                    while ((i >= 0) && (i < k)) {
+                        final int nextAncestor = ancestor[i];
+                        ancestor[i] = k;
+                        if (nextAncestor < 0) {
+                            parent[i] = k;
+                        }
+                        i = nextAncestor;
+                    }
+                }
+            }
+        }
+
+        private static int[] postorder(final int dim, final int[] parent, final int[] work) {
+
+            final int[] head = new int[dim];
+            final int[] next = new int[dim];
+            Arrays.fill(head, -1);
+            for (int j = dim - 1; j >= 0; j--) {
+                if (parent[j] >= 0) {
+                    next[j] = head[parent[j]];
+                    head[parent[j]] = j;
+                }
+            }
+
+            final int[] retVal = new int[dim];
+            final int[] stack = work;
+            int k = 0;
+            for (int root = 0; root < dim; root++) {
+                if (parent[root] >= 0) {
+                    continue;
+                }
+                int height = 0;
+                stack[height++] = root;
+                while (height > 0) {
+                    final int top = stack[height - 1];
+                    final int child = head[top];
+                    if (child < 0) {
+                        height--;
+                        retVal[k++] = top;
+                    } else {
+                        head[top] = next[child];
+                        stack[height++] = child;
+                    }
+                }
+            }
+
+            return retVal;
+        }
+
+        /**
+         * The strictly upper triangle of the permuted matrix, compressed sparse column - for each column the
+         * (unsorted) rows above the diagonal.
+         */
+        private static void upper(final int dim, final int[] start, final int[] index, final int[] inverse, final int[] upperStart, final int[] upperIndex) {
+            Arrays.fill(upperStart, 0);
+            for (int j = 0; j < dim; j++) {
+                for (int p = start[j]; p < start[j + 1]; p++) {
+                    final int i = index[p];
+                    if (i != j) {
+                        upperStart[Math.max(inverse[i], inverse[j]) + 1]++;
+                    }
+                }
+            }
+            for (int k = 0; k < dim; k++) {
+                upperStart[k + 1] += upperStart[k];
+            }
+            final int[] next = Arrays.copyOf(upperStart, dim);
+            for (int j = 0; j < dim; j++) {
+                for (int p = start[j]; p < start[j + 1]; p++) {
+                    final int i = index[p];
+                    if (i != j) {
+                        final int a = inverse[i];
+                        final int b = inverse[j];
+                        upperIndex[next[Math.max(a, b)]++] = Math.min(a, b);
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return The number of nonzeros in [L], including the diagonal and any explicitly stored zeros
+         */
+        long countNonzeros() {
+            long retVal = 0L;
+            for (int s = 0, limit = superFirst.length - 1; s < limit; s++) {
+                final long width = superFirst[s + 1] - superFirst[s];
+                final long height = rowStart[s + 1] - rowStart[s];
+                retVal += (width * height) - ((width * (width - 1L)) / 2L);
+            }
+            return retVal;
+        }
+
+        int countSupernodes() {
+            return superFirst.length - 1;
+        }
+
+        /**
+         * @return true if the nonzero pattern is the same as, or a subset of, the pattern this analysis was
+         *         done for.
+         */
+        boolean isApplicable(final int dimension, final int[] start, final int[] index) {
+            if ((dimension != dim) || (start[dim] > patternStart[dim])) {
+                return false;
+            }
+            for (int j = 0; j < dim; j++) {
+                int p = patternStart[j];
+                final int limit = patternStart[j + 1];
+                for (int q = start[j]; q < start[j + 1]; q++) {
+                    final int i = index[q];
+                    while ((p < limit) && (patternIndex[p] < i)) {
+                        p++;
+                    }
+                    if ((p == limit) || (patternIndex[p] != i)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+    }
+
+    private static final double PIVOT_MINIMUM = 1E-12;
+    private static final double PIVOT_REPLACEMENT = 1E-8;
+
+    /**
+     * [target] -= [L][D][L]<sub>0</sub><sup>T</sup> where [L] is a (column major) block, and [L]<sub>0</sub>
+     * its first row. That's how a column of a supernode is updated by the columns of a descendant, or by the
+     * previous columns of the same supernode. Done 4 columns at the time.
+     *
+     * @param scale The diagonal, [D], or null if there is none (Cholesky)
+     */
+    private static void update(final double[] target, final int targetOffset, final int length, final double[] data, final int offset, final int stride,
+            final int count, final double[] scale, final int scaleOffset) {
+
+        int c = 0;
+
+        for (; (c + 3) < count; c += 4) {
+
+            final int o0 = offset + (c * stride);
+            final int o1 = o0 + stride;
+            final int o2 = o1 + stride;
+            final int o3 = o2 + stride;
+
+            double f0 = data[o0];
+            double f1 = data[o1];
+            double f2 = data[o2];
+            double f3 = data[o3];
+            if (scale != null) {
+                f0 *= scale[scaleOffset + c];
+                f1 *= scale[scaleOffset + c + 1];
+                f2 *= scale[scaleOffset + c + 2];
+                f3 *= scale[scaleOffset + c + 3];
+            }
+
+            for (int r = 0; r < length; r++) {
+                target[targetOffset + r] -= (data[o0 + r] * f0) + (data[o1 + r] * f1) + (data[o2 + r] * f2) + (data[o3 + r] * f3);
+            }
+        }
+
+        for (; c < count; c++) {
+
+            final int o0 = offset + (c * stride);
+
+            double f0 = data[o0];
+            if (f0 != ZERO) {
+                if (scale != null) {
+                    f0 *= scale[scaleOffset + c];
+                }
+                for (int r = 0; r < length; r++) {
+                    target[targetOffset + r] -= data[o0 + r] * f0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Cholesky or LDL
+     */
+    private final boolean myCholesky;
+    /**
+     * The diagonal of [D] for LDL, or the squared diagonal of [L] for Cholesky
+     */
+    private double[] myD = null;
+    private int myDim = 0;
+    private int[] myInputIndex;
+    private int[] myInputStart;
+    private double[] myInputValue;
+    private double[] myL = null;
+    private int myRegularised = 0;
+    private Symbolic mySymbolic = null;
+    private double[] myWork = null;
+
+    SparseDecomposition(final boolean cholesky) {
+        super();
+        myCholesky = cholesky;
+    }
+
+    public Double calculateDeterminant(final Access2D<?> matrix) {
+        this.decompose(this.wrap(matrix));
+        return this.getDeterminant();
+    }
+
+    /**
+     * Checks that the matrix is symmetric, without densifying it, and then decomposes it.
+     */
+    public boolean checkAndDecompose(final MatrixStore<Double> matrix) {
+
+        this.reset();
+
+        if (matrix.countRows() != matrix.countColumns()) {
+            return false;
+        }
+
+        final CompressedSparseStore compressed = this.collect(matrix);
+        final int[] pointers = compressed.getColPointers();
+        final int[] rows = compressed.getRowIndices();
+        final double[] values = compressed.getValues();
+
+        for (int j = 0; j < myDim; j++) {
+            for (int p = pointers[j]; p < pointers[j + 1]; p++) {
+                final int i = rows[p];
+                if (i != j) {
+                    final int q = Arrays.binarySearch(rows, pointers[i], pointers[i + 1], j);
+                    if ((q < 0) || (NumberContext.compare(values[p], values[q]) != 0)) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return this.factorise(true);
+    }
+
+    public int countSignificant(final double threshold) {
+        int significant = 0;
+        for (int j = 0; j < myDim; j++) {
+            if (Math.abs(myD[j]) > threshold) {
+                significant++;
+            }
+        }
+        return significant;
+    }
+
+    public boolean decompose(final Access2D.Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        this.reset();
+        this.collect(matrix);
+        return this.factorise(true);
+    }
+
+    public Double getDeterminant() {
+        double retVal = ONE;
+        for (int j = 0; j < myDim; j++) {
+            retVal *= myD[j];
+        }
+        return retVal;
+    }
+
+    public MatrixStore<Double> getInverse() {
+        return this.getInverse(this.allocate(myDim, myDim));
+    }
+
+    public MatrixStore<Double> getInverse(final PhysicalStore<Double> preallocated) {
+        preallocated.fillAll(ZERO);
+        preallocated.fillDiagonal(ONE);
+        return this.doSolve(preallocated);
+    }
+
+    public double getRankThreshold() {
+        double largest = MACHINE_SMALLEST;
+        for (int j = 0; j < myDim; j++) {
+            largest = Math.max(largest, Math.abs(myD[j]));
+        }
+        return TEN * largest * this.getDimensionalEpsilon();
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs) {
+        return this.getSolution(rhs, this.allocate(rhs.countRows(), rhs.countColumns()));
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs, final PhysicalStore<Double> preallocated) {
+        if (rhs != preallocated) {
+            rhs.supplyTo(preallocated);
+        }
+        return this.doSolve(preallocated);
+    }
+
+    public MatrixStore<Double> invert(final Access2D<?> original, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(this.wrap(original));
+
+        if (this.isSolvable()) {
+            return this.getInverse(preallocated);
+        } else {
+            throw RecoverableCondition.newMatrixNotInvertible();
+        }
+    }
+
+    @Override
+    public boolean isSolvable() {
+        return super.isSolvable();
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D template) {
+        return this.allocate(template.countRows(), template.countRows());
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return this.allocate(templateBody.countRows(), templateRHS.countColumns());
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        myRegularised = 0;
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(this.wrap(body));
+
+        if (this.isSolvable()) {
+            preallocated.fillMatching(rhs);
+            return this.doSolve(preallocated);
+        } else {
+            throw RecoverableCondition.newEquationSystemNotSolvable();
+        }
+    }
+
+    /**
+     * Extracts the lower triangle of the input matrix, compressed sparse column
+     *
+     * @return The (entire) input matrix, compressed
+     */
+    private CompressedSparseStore collect(final Access2D.Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+
+        CompressedSparseStore compressed;
+        if (matrix instanceof CompressedSparseStore) {
+            compressed = (CompressedSparseStore) matrix;
+        } else if (matrix instanceof SparseStore) {
+            @SuppressWarnings("unchecked")
+            final SparseStore<Double> sparse = (SparseStore<Double>) matrix;
+            compressed = sparse.compress();
+        } else {
+            final Primitive64Store dense = Primitive64Store.FACTORY.make(matrix.countRows(), matrix.countColumns());
+            matrix.supplyTo(dense);
+            final SparseStore<Double> sparse = SparseStore.PRIMITIVE64.make(dense.countRows(), dense.countColumns());
+            for (int j = 0, limit = (int) dense.countColumns(); j < limit; j++) {
+                for (int i = j, rows = (int) dense.countRows(); i < rows; i++) {
+                    final double value = dense.doubleValue(i, j);
+                    if (value != ZERO) {
+                        sparse.set(i, j, value);
+                    }
+                }
+            }
+            compressed = sparse.compress();
+        }
+
+        final int dim = (int) compressed.countColumns();
+        final int[] pointers = compressed.getColPointers();
+        final int[] rows = compressed.getRowIndices();
+        final double[] values = compressed.getValues();
+
+        final int[] start = new int[dim + 1];
+        for (int j = 0; j < dim; j++) {
+            int count = 0;
+            for (int p = pointers[j]; p < pointers[j + 1]; p++) {
+                if (rows[p] >= j) {
+                    count++;
+                }
+            }
+            start[j + 1] = start[j] + count;
+        }
+        final int[] index = new int[start[dim]];
+        final double[] value = new double[start[dim]];
+        for (int j = 0, k = 0; j < dim; j++) {
+            for (int p = pointers[j]; p < pointers[j + 1]; p++) {
+                if (rows[p] >= j) {
+                    index[k] = rows[p];
+                    value[k++] = values[p];
+                }
+            }
+        }
+
+        myDim = dim;
+        myInputStart = start;
+        myInputIndex = index;
+        myInputValue = value;
+
+        return compressed;
+    }
+
+    private MatrixStore<Double> doSolve(final PhysicalStore<Double> preallocated) {
+
+        final int dim = myDim;
+        final int[] permutation = mySymbolic.permutation;
+        final double[] x = myWork;
+
+        if (preallocated instanceof Primitive64Store) {
+            final double[] data = ((Primitive64Store) preallocated).data;
+            for (int j = 0, limit = (int) preallocated.countColumns(); j < limit; j++) {
+                final int offset = j * dim;
+                for (int k = 0; k < dim; k++) {
+                    x[k] = data[offset + permutation[k]];
+                }
+                this.solve(x);
+                for (int k = 0; k < dim; k++) {
+                    data[offset + permutation[k]] = x[k];
+                }
+            }
+        } else {
+            for (int j = 0, limit = (int) preallocated.countColumns(); j < limit; j++) {
+                for (int k = 0; k < dim; k++) {
+                    x[k] = preallocated.doubleValue(permutation[k], j);
+                }
+                this.solve(x);
+                for (int k = 0; k < dim; k++) {
+                    preallocated.set(permutation[k], j, x[k]);
+                }
+            }
+        }
+
+        return preallocated;
+    }
+
+    /**
+     * Numeric factorisation, left-looking by supernode.
+     */
+    private boolean factorise(final boolean ordered) {
+
+        final int dim = myDim;
+
+        if ((mySymbolic == null) || (mySymbolic.ordered != ordered) || !mySymbolic.isApplicable(dim, myInputStart, myInputIndex)) {
+            mySymbolic = Symbolic.analyse(dim, myInputStart, myInputIndex, ordered);
+            myL = new double[mySymbolic.valueStart[mySymbolic.countSupernodes()]];
+            myD = new double[dim];
+            myWork = new double[Math.max(dim, mySymbolic.maxBelow)];
+        }
+
+        final Symbolic symbolic = mySymbolic;
+        final int[] inverse = symbolic.inverse;
+        final int[] superFirst = symbolic.superFirst;
+        final int[] superOf = symbolic.superOf;
+        final int[] rowStart = symbolic.rowStart;
+        final int[] rowIndex = symbolic.rowIndex;
+        final int[] valueStart = symbolic.valueStart;
+        final int numberOfSupernodes = symbolic.countSupernodes();
+        final double[] data = myL;
+        final double[] d = myD;
+        final double[] buffer = myWork;
+
+        // The input in permuted order, lower triangle, compressed sparse column
+
+        final int[] start = new int[dim + 1];
+        final int[] input = myInputIndex;
+        for (int j = 0; j < dim; j++) {
+            for (int p = myInputStart[j]; p < myInputStart[j + 1]; p++) {
+                start[Math.min(inverse[input[p]], inverse[j]) + 1]++;
+            }
+        }
+        for (int k = 0; k < dim; k++) {
+            start[k + 1] += start[k];
+        }
+        final int[] next = Arrays.copyOf(start, dim);
+        final int[] index = new int[input.length];
+        final double[] value = new double[input.length];
+        final double[] diagonal = new double[dim];
+        for (int j = 0; j < dim; j++) {
+            for (int p = myInputStart[j]; p < myInputStart[j + 1]; p++) {
+                final int a = inverse[input[p]];
+                final int b = inverse[j];
+                final int k = next[Math.min(a, b)]++;
+                index[k] = Math.max(a, b);
+                value[k] = myInputValue[p];
+                if (a == b) {
+                    diagonal[a] += myInputValue[p];
+                }
+            }
+        }
+
+        final int[] relative = new int[dim];
+        final int[] head = new int[numberOfSupernodes];
+        final int[] link = new int[numberOfSupernodes];
+        final int[] position = new int[numberOfSupernodes];
+        Arrays.fill(head, -1);
+        Arrays.fill(data, ZERO);
+        myRegularised = 0;
+
+        for (int s = 0; s < numberOfSupernodes; s++) {
+
+            final int first = superFirst[s];
+            final int width = superFirst[s + 1] - first;
+            final int rows = rowStart[s + 1] - rowStart[s];
+            final int base = valueStart[s];
+
+            for (int t = 0; t < rows; t++) {
+                relative[rowIndex[rowStart[s] + t]] = t;
+            }
+
+            // Assemble the input matrix
+
+            for (int c = 0; c < width; c++) {
+                final int offset = base + (c * rows);
+                for (int p = start[first + c]; p < start[first + c + 1]; p++) {
+                    data[offset + relative[index[p]]] += value[p];
+                }
+            }
+
+            // Updates from the descendants that have nonzeros in the rows of this supernode
+
+            int descendant = head[s];
+            while (descendant >= 0) {
+
+                final int following = link[descendant];
+
+                final int dFirst = superFirst[descendant];
+                final int dWidth = superFirst[descendant + 1] - dFirst;
+                final int dRowStart = rowStart[descendant];
+                final int dRows = rowStart[descendant + 1] - dRowStart;
+                final int dBase = valueStart[descendant];
+
+                final int from = position[descendant];
+                int to = from;
+                while ((to < dRows) && (rowIndex[dRowStart + to] < (first + width))) {
+                    to++;
+                }
+
+                for (int cc = from; cc < to; cc++) {
+
+                    final int length = dRows - cc;
+                    Arrays.fill(buffer, 0, length, ZERO);
+                    SparseDecomposition.update(buffer, 0, length, data, dBase + cc, dRows, dWidth, myCholesky ? null : d, dFirst);
+
+                    final int offset = base + ((rowIndex[dRowStart + cc] - first) * rows);
+                    for (int r = 0; r < length; r++) {
+                        data[offset + relative[rowIndex[dRowStart + cc + r]]] += buffer[r];
+                    }
+                }
+
+                position[descendant] = to;
+                if (to < dRows) {
+                    final int target = superOf[rowIndex[dRowStart + to]];
+                    link[descendant] = head[target];
+                    head[target] = descendant;
+                }
+
+                descendant = following;
+            }
+
+            // Dense factorisation of the supernode
+
+            for (int c = 0; c < width; c++) {
+
+                final int column = base + (c * rows);
+
+                SparseDecomposition.update(data, column + c, rows - c, data, base + c, rows, c, myCholesky ? null : d, first);
+
+                double pivot = data[column + c];
+
+                if (myCholesky) {
+
+                    if (!(pivot > ZERO)) {
+                        return this.computed(false);
+                    }
+                    d[first + c] = pivot;
+                    pivot = Math.sqrt(pivot);
+
+                } else {
+
+                    final double sign = diagonal[first + c] < ZERO ? NEG : ONE;
+                    if (!((sign * pivot) >= PIVOT_MINIMUM)) {
+                        pivot = sign * Math.max(Math.abs(pivot), PIVOT_REPLACEMENT);
+                        myRegularised++;
+                    }
+                    d[first + c] = pivot;
+                }
+
+                data[column + c] = myCholesky ? pivot : ONE;
+                for (int t = c + 1; t < rows; t++) {
+                    data[column + t] /= pivot;
+                }
+            }
+
+            if (rows > width) {
+                position[s] = width;
+                final int target = superOf[rowIndex[rowStart[s] + width]];
+                link[s] = head[target];
+                head[target] = s;
+            }
+        }
+
+        return this.computed(true);
+    }
+
+    /**
+     * Solve in place, the vector already permuted.
+     */
+    private void solve(final double[] x) {
+
+        final Symbolic symbolic = mySymbolic;
+        final int[] superFirst = symbolic.superFirst;
+        final int[] rowStart = symbolic.rowStart;
+        final int[] rowIndex = symbolic.rowIndex;
+        final int[] valueStart = symbolic.valueStart;
+        final int numberOfSupernodes = symbolic.countSupernodes();
+        final double[] data = myL;
+
+        for (int s = 0; s < numberOfSupernodes; s++) {
+            final int first = superFirst[s];
+            final int width = superFirst[s + 1] - first;
+            final int rowsStart = rowStart[s];
+            final int rows = rowStart[s + 1] - rowsStart;
+            for (int c = 0; c < width; c++) {
+                final int column = valueStart[s] + (c * rows);
+                double xj = x[first + c];
+                if (myCholesky) {
+                    xj /= data[column + c];
+                    x[first + c] = xj;
+                }
+                if (xj != ZERO) {
+                    for (int t = c + 1; t < rows; t++) {
+                        x[rowIndex[rowsStart + t]] -= data[column + t] * xj;
+                    }
+                }
+            }
+        }
+
+        if (!myCholesky) {
+            for (int j = 0; j < myDim; j++) {
+                x[j] /= myD[j];
+            }
+        }
+
+        for (int s = numberOfSupernodes - 1; s >= 0; s--) {
+            final int first = superFirst[s];
+            final int width = superFirst[s + 1] - first;
+            final int rowsStart = rowStart[s];
+            final int rows = rowStart[s + 1] - rowsStart;
+            for (int c = width - 1; c >= 0; c--) {
+                final int column = valueStart[s] + (c * rows);
+                double xj = x[first + c];
+                for (int t = c + 1; t < rows; t++) {
+                    xj -= data[column + t] * x[rowIndex[rowsStart + t]];
+                }
+                if (myCholesky) {
+                    xj /= data[column + c];
+                }
+                x[first + c] = xj;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Access2D.Collectable<Double, ? super PhysicalStore<Double>> wrap(final Access2D<?> matrix) {
+        if (matrix instanceof Access2D.Collectable) {
+            return (Access2D.Collectable<Double, ? super PhysicalStore<Double>>) matrix;
+        } else {
+            return Primitive64Store.FACTORY.builder().makeWrapper(matrix).get();
+        }
+    }
+
+    @Override
+    protected Primitive64Store allocate(final long numberOfRows, final long numberOfColumns) {
+        return Primitive64Store.FACTORY.make(numberOfRows, numberOfColumns);
+    }
+
+    @Override
+    protected boolean checkSolvability() {
+        return (myRegularised == 0) && (this.countSignificant(this.getRankThreshold()) == myDim);
+    }
+
+    protected boolean decomposeWithNaturalOrdering(final Access2D.Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        this.reset();
+        this.collect(matrix);
+        return this.factorise(false);
+    }
+
+    @Override
+    protected final FunctionSet<Double> function() {
+        return PrimitiveFunction.getSet();
+    }
+
+    @Override
+    protected final int getColDim() {
+        return myDim;
+    }
+
+    /**
+     * @return [D] for LDL, or the squared diagonal of [L] for Cholesky
+     */
+    final double[] getDiagonal() {
+        return myD;
+    }
+
+    @Override
+    protected final int getRowDim() {
+        return myDim;
+    }
+
+    final Symbolic getSymbolic() {
+        return mySymbolic;
+    }
+
+    /**
+     * @return The number of pivots that had to be replaced in the latest factorisation (LDL only)
+     */
+    final int countRegularised() {
+        return myRegularised;
+    }
+
+    /**
+     * [L] as a sparse matrix, in the permuted order
+     *
+     * @param rowsOf Where to put each (permuted) row, or null to keep the permuted order
+     */
+    final SparseStore<Double> makeL(final int[] rowsOf) {
+
+        final Symbolic symbolic = mySymbolic;
+        final SparseStore<Double> retVal = SparseStore.PRIMITIVE64.make(myDim, myDim);
+
+        for (int s = 0, limit = symbolic.countSupernodes(); s < limit; s++) {
+            final int first = symbolic.superFirst[s];
+            final int width = symbolic.superFirst[s + 1] - first;
+            final int rows = symbolic.rowStart[s + 1] - symbolic.rowStart[s];
+            for (int c = 0; c < width; c++) {
+                final int column = symbolic.valueStart[s] + (c * rows);
+                for (int t = c; t < rows; t++) {
+                    final double value = myL[column + t];
+                    if (value != ZERO) {
+                        final int row = symbolic.rowIndex[symbolic.rowStart[s] + t];
+                        retVal.set(rowsOf != null ? rowsOf[row] : row, first + c, value);
+                    }
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    @Override
+    protected final Scalar.Factory<Double> scalar() {
+        return PrimitiveScalar.FACTORY;
+    }
+
+}
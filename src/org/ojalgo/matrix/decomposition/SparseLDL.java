@@ -0,0 +1,80 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import java.util.Arrays;
+
+import org.ojalgo.matrix.store.DiagonalStore;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.structure.Access2D;
+
+/**
+ * Sparse (supernodal) LDL decomposition, see {@link SparseDecomposition}.
+ * <p>
+ * The only pivoting is the fill reducing symmetric permutation, decided before the numeric factorisation.
+ * That is stable for positive definite and for quasi-definite matrices (the kind of regularised KKT systems
+ * interior point methods solve) but not for symmetric indefinite matrices in general. The sign of each pivot
+ * is expected to match that of the corresponding diagonal element. A pivot that does not, or that is too
+ * small, is replaced with a small value of the expected sign. The decomposition is then not considered
+ * solvable, but the (regularised) factors can still be used to solve.
+ *
+ * @author apete
+ */
+final class SparseLDL extends SparseDecomposition implements LDL<Double> {
+
+    SparseLDL() {
+        super(false);
+    }
+
+    /**
+     * Uses the natural (given) order rather than a fill reducing ordering.
+     */
+    @Override
+    public boolean decomposeWithoutPivoting(final Access2D.Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        return this.decomposeWithNaturalOrdering(matrix);
+    }
+
+    public MatrixStore<Double> getD() {
+        final double[] diagonal = this.getDiagonal();
+        return DiagonalStore.builder(Primitive64Store.FACTORY, Primitive64Store.wrap(Arrays.copyOf(diagonal, diagonal.length))).get();
+    }
+
+    @Override
+    public MatrixStore<Double> getL() {
+        return this.makeL(null);
+    }
+
+    /**
+     * Where each row/column of the original matrix ended up in the permuted one - what {@link #reconstruct()}
+     * needs to undo the permutation of [L][D][L]<sup>T</sup>.
+     */
+    public int[] getPivotOrder() {
+        return this.getSymbolic().inverse.clone();
+    }
+
+    public boolean isPivoted() {
+        return this.getSymbolic().ordered;
+    }
+
+}
@@ -0,0 +1,476 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.array.operation.AXPY;
+import org.ojalgo.array.operation.DOT;
+import org.ojalgo.function.FunctionSet;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.scalar.PrimitiveScalar;
+import org.ojalgo.scalar.Scalar;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Access2D.Collectable;
+import org.ojalgo.structure.Structure2D;
+
+/**
+ * The lower triangular factor is stored by rows, row i in an array of (at least) length i+1. Appending a
+ * row/column only allocates that new row, and all the modifications work row by row – contiguous memory
+ * access.
+ *
+ * @author apete
+ */
+final class UpdatableCholesky extends AbstractDecomposition<Double> implements Cholesky.Updatable {
+
+    private int myDimension = 0;
+    private double[][] myRows = new double[16][];
+    private boolean mySPD = false;
+
+    UpdatableCholesky() {
+        super();
+    }
+
+    public boolean append(final Access1D<?> column) {
+
+        int dim = myDimension;
+
+        if (column.count() != (dim + 1L)) {
+            throw new IllegalArgumentException("The column must have " + (dim + 1) + " elements!");
+        }
+
+        double[] row = new double[dim + 1];
+        for (int j = 0; j < dim; j++) {
+            row[j] = column.doubleValue(j);
+        }
+
+        this.substituteForwards(row, dim);
+
+        double diagonal = column.doubleValue(dim) - DOT.invoke(row, 0, row, 0, 0, dim);
+
+        if (!(diagonal > ZERO)) {
+            return false;
+        }
+
+        row[dim] = SQRT.invoke(diagonal);
+
+        if (dim >= myRows.length) {
+            myRows = Arrays.copyOf(myRows, Math.max(16, 2 * myRows.length));
+        }
+        myRows[dim] = row;
+        myDimension = dim + 1;
+
+        return this.modified();
+    }
+
+    public Double calculateDeterminant(final Access2D<?> matrix) {
+        this.doDecompose(matrix);
+        return this.getDeterminant();
+    }
+
+    public int countSignificant(final double threshold) {
+
+        double minimum = SQRT.invoke(threshold);
+
+        int significant = 0;
+        for (int ij = 0; ij < myDimension; ij++) {
+            if (myRows[ij][ij] > minimum) {
+                significant++;
+            }
+        }
+
+        return significant;
+    }
+
+    public boolean decompose(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+
+        Primitive64Store input = Primitive64Store.FACTORY.make(matrix.countRows(), matrix.countColumns());
+        matrix.supplyTo(input);
+
+        return this.doDecompose(input);
+    }
+
+    public boolean downdate(final Access1D<?> vector) {
+
+        int dim = myDimension;
+
+        double[] work = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            work[i] = vector.doubleValue(i);
+        }
+
+        // A - xx' = L (I - pp') L' where Lp = x, positive definite only if |p| < 1
+        double[] projected = work.clone();
+        this.substituteForwards(projected, dim);
+        if (DOT.invoke(projected, 0, projected, 0, 0, dim) >= (ONE - (dim * MACHINE_EPSILON))) {
+            return false;
+        }
+
+        double[] cosines = new double[dim];
+        double[] sines = new double[dim];
+
+        for (int i = 0; i < dim; i++) {
+
+            double[] row = myRows[i];
+
+            double x = work[i];
+            for (int j = 0; j < i; j++) {
+                double value = (row[j] - (sines[j] * x)) / cosines[j];
+                x = (cosines[j] * x) - (sines[j] * value);
+                row[j] = value;
+            }
+
+            double diagonal = row[i];
+            double difference = (diagonal - x) * (diagonal + x);
+            if (!(difference > ZERO)) {
+                // Should have been caught by the check above
+                mySPD = false;
+                return this.computed(false);
+            }
+            double radius = SQRT.invoke(difference);
+
+            cosines[i] = radius / diagonal;
+            sines[i] = x / diagonal;
+            row[i] = radius;
+        }
+
+        return this.modified();
+    }
+
+    public Double getDeterminant() {
+
+        double retVal = ONE;
+        for (int ij = 0; ij < myDimension; ij++) {
+            double diagonal = myRows[ij][ij];
+            retVal *= diagonal * diagonal;
+        }
+
+        return retVal;
+    }
+
+    public MatrixStore<Double> getInverse() {
+        return this.getInverse(this.allocate(myDimension, myDimension));
+    }
+
+    public MatrixStore<Double> getInverse(final PhysicalStore<Double> preallocated) {
+
+        preallocated.fillAll(ZERO);
+        preallocated.fillDiagonal(ONE);
+
+        return this.doSolve(preallocated);
+    }
+
+    public MatrixStore<Double> getL() {
+
+        int dim = myDimension;
+
+        Primitive64Store retVal = Primitive64Store.FACTORY.make(dim, dim);
+        for (int i = 0; i < dim; i++) {
+            double[] row = myRows[i];
+            for (int j = 0; j <= i; j++) {
+                retVal.set(i, j, row[j]);
+            }
+        }
+
+        return retVal.logical().triangular(false, false).get();
+    }
+
+    public double getRankThreshold() {
+
+        double largest = MACHINE_SMALLEST;
+        for (int ij = 0; ij < myDimension; ij++) {
+            double diagonal = myRows[ij][ij];
+            largest = MAX.invoke(largest, diagonal * diagonal);
+        }
+
+        return TEN * largest * this.getDimensionalEpsilon();
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs) {
+        return this.getSolution(rhs, this.allocate(rhs.countRows(), rhs.countColumns()));
+    }
+
+    @Override
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs, final PhysicalStore<Double> preallocated) {
+
+        rhs.supplyTo(preallocated);
+
+        return this.doSolve(preallocated);
+    }
+
+    @Override
+    public MatrixStore<Double> invert(final Access2D<?> original, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.doDecompose(original);
+
+        if (this.isSolvable()) {
+            return this.getInverse(preallocated);
+        } else {
+            throw RecoverableCondition.newMatrixNotInvertible();
+        }
+    }
+
+    @Override
+    public boolean isSolvable() {
+        return super.isSolvable();
+    }
+
+    public boolean isSPD() {
+        return mySPD;
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D template) {
+        return this.allocate(template.countRows(), template.countRows());
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return this.allocate(templateBody.countRows(), templateRHS.countColumns());
+    }
+
+    public void remove(final int index) {
+
+        int dim = myDimension;
+
+        if ((index < 0) || (index >= dim)) {
+            throw new IllegalArgumentException("Index " + index + " out of range [0," + dim + ")!");
+        }
+
+        // The removed column, below the diagonal, becomes a rank-one update of the trailing block
+        double[] work = new double[dim - 1];
+
+        for (int i = index + 1; i < dim; i++) {
+            double[] row = myRows[i];
+            work[i - 1] = row[index];
+            System.arraycopy(row, index + 1, row, index, i - index);
+        }
+
+        System.arraycopy(myRows, index + 1, myRows, index, dim - index - 1);
+        myRows[dim - 1] = null;
+        myDimension = dim - 1;
+
+        this.update(index, work);
+
+        this.modified();
+    }
+
+    @Override
+    public void reset() {
+
+        super.reset();
+
+        myDimension = 0;
+        myRows = new double[16][];
+        mySPD = false;
+    }
+
+    @Override
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.doDecompose(body);
+
+        if (this.isSolvable()) {
+
+            preallocated.fillMatching(rhs);
+
+            return this.doSolve(preallocated);
+
+        } else {
+            throw RecoverableCondition.newEquationSystemNotSolvable();
+        }
+    }
+
+    public boolean update(final Access1D<?> vector) {
+
+        int dim = myDimension;
+
+        double[] work = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            work[i] = vector.doubleValue(i);
+        }
+
+        this.update(0, work);
+
+        return this.modified();
+    }
+
+    private boolean doDecompose(final Access2D<?> matrix) {
+
+        this.reset();
+
+        int dim = (int) matrix.countRows();
+
+        if (matrix.countColumns() != dim) {
+            return this.computed(false);
+        }
+
+        myRows = new double[Math.max(16, dim)][];
+
+        for (int i = 0; i < dim; i++) {
+
+            double[] row = myRows[i] = new double[i + 1];
+
+            for (int j = 0; j <= i; j++) {
+                double[] rowJ = myRows[j];
+                double value = matrix.doubleValue(i, j) - DOT.invoke(row, 0, rowJ, 0, 0, j);
+                if (j < i) {
+                    row[j] = value / rowJ[j];
+                } else if (value > ZERO) {
+                    row[i] = SQRT.invoke(value);
+                } else {
+                    return this.computed(false);
+                }
+            }
+        }
+
+        myDimension = dim;
+
+        return this.modified();
+    }
+
+    private MatrixStore<Double> doSolve(final PhysicalStore<Double> preallocated) {
+
+        int dim = myDimension;
+
+        double[] work = new double[dim];
+
+        for (int c = 0, limit = (int) preallocated.countColumns(); c < limit; c++) {
+
+            for (int i = 0; i < dim; i++) {
+                work[i] = preallocated.doubleValue(i, c);
+            }
+
+            this.substituteForwards(work, dim);
+
+            // Backwards with L transposed, column by column of L' is row by row of L
+            for (int i = dim - 1; i >= 0; i--) {
+                double[] row = myRows[i];
+                work[i] /= row[i];
+                AXPY.invoke(work, 0, -work[i], row, 0, 0, i);
+            }
+
+            for (int i = 0; i < dim; i++) {
+                preallocated.set(i, c, work[i]);
+            }
+        }
+
+        return preallocated;
+    }
+
+    /**
+     * Reset the (cached) solvability state, and mark as computed.
+     */
+    private boolean modified() {
+        super.reset();
+        mySPD = true;
+        return this.computed(true);
+    }
+
+    /**
+     * Solve Ly = b, in place, using the first dim rows.
+     */
+    private void substituteForwards(final double[] vector, final int dim) {
+        for (int i = 0; i < dim; i++) {
+            double[] row = myRows[i];
+            vector[i] = (vector[i] - DOT.invoke(row, 0, vector, 0, 0, i)) / row[i];
+        }
+    }
+
+    /**
+     * Rank-one update of the trailing block, rows/columns from first, using Givens rotations. The vector
+     * elements are indexed the same way as the rows, those before first are ignored.
+     */
+    private void update(final int first, final double[] vector) {
+
+        int dim = myDimension;
+
+        double[] cosines = new double[dim];
+        double[] sines = new double[dim];
+
+        for (int i = first; i < dim; i++) {
+
+            double[] row = myRows[i];
+
+            double x = vector[i];
+            for (int j = first; j < i; j++) {
+                double value = (row[j] + (sines[j] * x)) / cosines[j];
+                x = (cosines[j] * x) - (sines[j] * value);
+                row[j] = value;
+            }
+
+            double diagonal = row[i];
+            double radius = HYPOT.invoke(diagonal, x);
+
+            cosines[i] = radius / diagonal;
+            sines[i] = x / diagonal;
+            row[i] = radius;
+        }
+    }
+
+    @Override
+    protected PhysicalStore<Double> allocate(final long numberOfRows, final long numberOfColumns) {
+        return Primitive64Store.FACTORY.make(numberOfRows, numberOfColumns);
+    }
+
+    @Override
+    protected boolean checkSolvability() {
+
+        if (!mySPD || (myDimension == 0)) {
+            return mySPD;
+        }
+
+        double smallest = MACHINE_LARGEST;
+        for (int ij = 0; ij < myDimension; ij++) {
+            double diagonal = myRows[ij][ij];
+            smallest = MIN.invoke(smallest, diagonal * diagonal);
+        }
+
+        return smallest > this.getRankThreshold();
+    }
+
+    @Override
+    protected FunctionSet<Double> function() {
+        return PrimitiveFunction.getSet();
+    }
+
+    @Override
+    protected int getColDim() {
+        return myDimension;
+    }
+
+    @Override
+    protected int getRowDim() {
+        return myDimension;
+    }
+
+    @Override
+    protected Scalar.Factory<Double> scalar() {
+        return PrimitiveScalar.FACTORY;
+    }
+
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import java.util.Arrays;
+
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * An immutable (frozen) sparse matrix in Compressed Sparse Column (CSC) format - column pointers, row indices
+ * and values in 3 plain arrays. Create instances using {@link SparseStore#compress()}.
+ * <p>
+ * The CSC representation of a matrix is the same as the Compressed Sparse Row (CSR) representation of its
+ * transpose. {@link #transpose()} returns a new instance that is the CSC representation of the transpose, and
+ * thus effectively the CSR representation of this matrix.
+ * <p>
+ * Compared to {@link SparseStore} there's no binary searching of long linearised indices when iterating
+ * through the nonzero elements, and the multiplication kernels work directly on the arrays:
+ * <ul>
+ * <li>{@link #multiply(double[], double[])} - sparse matrix times dense vector (SpMV)</li>
+ * <li>{@link #multiplyTransposed(double[], double[])} - transposed sparse matrix times dense vector</li>
+ * <li>{@link #multiply(MatrixStore)} - sparse matrix times dense matrix (SpMM)</li>
+ * </ul>
+ *
+ * @author apete
+ */
+public final class CompressedSparseStore extends FactoryStore<Double> {
+
+    /**
+     * The minimum number of nonzeros per thread when the kernels are executed in parallel.
+     */
+    public static int THRESHOLD = 8192;
+
+    static CompressedSparseStore make(final int numberOfRows, final int numberOfColumns, final long[] indices, final double[] values, final int count) {
+
+        final int[] pointers = new int[numberOfColumns + 1];
+        final int[] rows = new int[count];
+        final double[] elements = new double[count];
+
+        int nnz = 0;
+        for (int k = 0; k < count; k++) {
+            final double value = values[k];
+            if (value != PrimitiveMath.ZERO) {
+                final long index = indices[k];
+                final int col = Math.toIntExact(index / numberOfRows);
+                pointers[col + 1]++;
+                rows[nnz] = (int) (index % numberOfRows);
+                elements[nnz] = value;
+                nnz++;
+            }
+        }
+
+        for (int j = 0; j < numberOfColumns; j++) {
+            pointers[j + 1] += pointers[j];
+        }
+
+        if (nnz < count) {
+            return new CompressedSparseStore(numberOfRows, numberOfColumns, pointers, Arrays.copyOf(rows, nnz), Arrays.copyOf(elements, nnz));
+        } else {
+            return new CompressedSparseStore(numberOfRows, numberOfColumns, pointers, rows, elements);
+        }
+    }
+
+    /**
+     * Splits the columns in (at most) the specified number of contiguous ranges with (about) the same number of
+     * nonzeros in each – part p is the columns [boundaries[p], boundaries[p+1]). A single very dense column
+     * can't be split, and then some parts will be empty.
+     */
+    static int[] partition(final int[] pointers, final int parts) {
+
+        final int numberOfColumns = pointers.length - 1;
+        final long nnz = pointers[numberOfColumns];
+
+        final int[] boundaries = new int[parts + 1];
+
+        for (int p = 1; p < parts; p++) {
+            final int target = (int) ((nnz * p) / parts);
+            int column = Arrays.binarySearch(pointers, target);
+            if (column < 0) {
+                column = -(column + 1);
+                if (column > 0 && (target - pointers[column - 1]) < (pointers[Math.min(column, numberOfColumns)] - target)) {
+                    column--; // Closer
+                }
+            }
+            boundaries[p] = Math.max(boundaries[p - 1], Math.min(column, numberOfColumns));
+        }
+        boundaries[parts] = numberOfColumns;
+
+        return boundaries;
+    }
+
+    private final int[] myColPointers;
+    private final int[] myRowIndices;
+    private final double[] myValues;
+
+    CompressedSparseStore(final int numberOfRows, final int numberOfColumns, final int[] colPointers, final int[] rowIndices, final double[] values) {
+
+        super(Primitive64Store.FACTORY, numberOfRows, numberOfColumns);
+
+        myColPointers = colPointers;
+        myRowIndices = rowIndices;
+        myValues = values;
+    }
+
+    /**
+     * @return The number of stored (nonzero) elements
+     */
+    public int countNonzeros() {
+        return myValues.length;
+    }
+
+    public double doubleValue(final long row, final long col) {
+        final int index = this.indexOf((int) row, (int) col);
+        return index >= 0 ? myValues[index] : PrimitiveMath.ZERO;
+    }
+
+    @Override
+    public int firstInColumn(final int col) {
+        final int first = myColPointers[col];
+        return first < myColPointers[col + 1] ? myRowIndices[first] : this.getRowDim();
+    }
+
+    public Double get(final long row, final long col) {
+        return Double.valueOf(this.doubleValue(row, col));
+    }
+
+    /**
+     * Column j has its nonzero elements stored at [colPointers[j], colPointers[j+1]) in the row indices and
+     * values arrays. The returned array must not be modified.
+     */
+    public int[] getColPointers() {
+        return myColPointers;
+    }
+
+    /**
+     * The returned array must not be modified.
+     */
+    public int[] getRowIndices() {
+        return myRowIndices;
+    }
+
+    /**
+     * The returned array must not be modified.
+     */
+    public double[] getValues() {
+        return myValues;
+    }
+
+    @Override
+    public int limitOfColumn(final int col) {
+        final int limit = myColPointers[col + 1];
+        return myColPointers[col] < limit ? myRowIndices[limit - 1] + 1 : 0;
+    }
+
+    @Override
+    public void multiply(final Access1D<Double> right, final TransformableRegion<Double> target) {
+
+        final int numberOfRows = this.getRowDim();
+        final int complexity = this.getColDim();
+        final int numberOfColumns = Math.toIntExact(target.countColumns());
+
+        final double[] x = new double[complexity];
+        final double[] y = new double[numberOfRows];
+
+        for (int j = 0; j < numberOfColumns; j++) {
+            for (int c = 0; c < complexity; c++) {
+                x[c] = right.doubleValue(c + (j * (long) complexity));
+            }
+            this.multiply(x, y);
+            for (int i = 0; i < numberOfRows; i++) {
+                target.set(i, j, y[i]);
+            }
+        }
+    }
+
+    /**
+     * Sparse matrix - dense vector multiplication (SpMV): y = A x
+     *
+     * @param x Input, of length equal to the number of columns
+     * @param y Output, of length equal to the number of rows - overwritten
+     */
+    public void multiply(final double[] x, final double[] y) {
+        this.multiply(x, 0, y, 0);
+    }
+
+    public MatrixStore<Double> multiply(final double scalar) {
+
+        final double[] values = new double[myValues.length];
+        for (int k = 0; k < values.length; k++) {
+            values[k] = scalar * myValues[k];
+        }
+
+        return new CompressedSparseStore(this.getRowDim(), this.getColDim(), myColPointers, myRowIndices, values);
+    }
+
+    public MatrixStore<Double> multiply(final Double scalar) {
+        return this.multiply(scalar.doubleValue());
+    }
+
+    /**
+     * Sparse matrix - dense matrix multiplication (SpMM). Each column of the product is calculated as an SpMV
+     * and the columns are (if there are enough of them) calculated in parallel.
+     */
+    @Override
+    public MatrixStore<Double> multiply(final MatrixStore<Double> right) {
+
+        final int numberOfRows = this.getRowDim();
+        final int complexity = this.getColDim();
+        final int numberOfColumns = Math.toIntExact(right.countColumns());
+
+        final Primitive64Store retVal = Primitive64Store.FACTORY.make(numberOfRows, numberOfColumns);
+
+        final double[] dense = right instanceof Primitive64Store ? ((Primitive64Store) right).data : Primitive64Store.FACTORY.copy(right).data;
+        final double[] product = retVal.data;
+
+        final int threshold = Math.max(1, THRESHOLD / Math.max(1, myValues.length));
+
+        if (numberOfColumns > threshold) {
+
+            final DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    for (int j = first; j < limit; j++) {
+                        CompressedSparseStore.this.multiply(dense, j * complexity, product, j * numberOfRows);
+                    }
+                }
+
+            };
+
+            conquerer.invoke(0, numberOfColumns, threshold);
+
+        } else {
+
+            for (int j = 0; j < numberOfColumns; j++) {
+                this.multiply(dense, j * complexity, product, j * numberOfRows);
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Transposed sparse matrix - dense vector multiplication: y = A<sup>T</sup> x. With the CSC format each
+     * element of y is a sparse dot product with a column of A, and so the elements are independent of each other
+     * - large instances are calculated in parallel, with the columns partitioned so that each thread gets the
+     * same number of nonzeros.
+     *
+     * @param x Input, of length equal to the number of rows
+     * @param y Output, of length equal to the number of columns - overwritten
+     */
+    public void multiplyTransposed(final double[] x, final double[] y) {
+
+        final int numberOfColumns = this.getColDim();
+
+        final int parts = Math.min(myValues.length / THRESHOLD, Math.min(OjAlgoUtils.ENVIRONMENT.threads, numberOfColumns));
+
+        if (parts > 1) {
+
+            final int[] boundaries = CompressedSparseStore.partition(myColPointers, parts);
+
+            final DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    CompressedSparseStore.this.multiplyTransposed(x, y, boundaries[first], boundaries[limit]);
+                }
+
+            };
+
+            conquerer.invoke(0, parts, 1);
+
+        } else {
+
+            this.multiplyTransposed(x, y, 0, numberOfColumns);
+        }
+    }
+
+    public ElementsSupplier<Double> premultiply(final Access1D<Double> left) {
+
+        final int numberOfRows = this.getRowDim();
+        final int numberOfColumns = this.getColDim();
+        final int numberOfLeftRows = Math.toIntExact(left.count() / numberOfRows);
+
+        final Primitive64Store retVal = Primitive64Store.FACTORY.make(numberOfLeftRows, numberOfColumns);
+
+        final double[] x = new double[numberOfRows];
+        final double[] y = new double[numberOfColumns];
+
+        for (int i = 0; i < numberOfLeftRows; i++) {
+            for (int c = 0; c < numberOfRows; c++) {
+                x[c] = left.doubleValue(i + (c * (long) numberOfLeftRows));
+            }
+            this.multiplyTransposed(x, y);
+            for (int j = 0; j < numberOfColumns; j++) {
+                retVal.set(i, j, y[j]);
+            }
+        }
+
+        return retVal;
+    }
+
+    @Override
+    public void supplyTo(final TransformableRegion<Double> receiver) {
+
+        receiver.reset();
+
+        for (int j = 0, numberOfColumns = this.getColDim(); j < numberOfColumns; j++) {
+            for (int k = myColPointers[j], limit = myColPointers[j + 1]; k < limit; k++) {
+                receiver.set(myRowIndices[k], j, myValues[k]);
+            }
+        }
+    }
+
+    /**
+     * @return A new instance that is the CSC representation of the transpose (equivalently the CSR
+     *         representation of this matrix).
+     */
+    @Override
+    public CompressedSparseStore transpose() {
+
+        final int numberOfRows = this.getRowDim();
+        final int numberOfColumns = this.getColDim();
+        final int nnz = myValues.length;
+
+        final int[] pointers = new int[numberOfRows + 1];
+        final int[] indices = new int[nnz];
+        final double[] values = new double[nnz];
+
+        for (int k = 0; k < nnz; k++) {
+            pointers[myRowIndices[k] + 1]++;
+        }
+        for (int i = 0; i < numberOfRows; i++) {
+            pointers[i + 1] += pointers[i];
+        }
+
+        final int[] next = Arrays.copyOf(pointers, numberOfRows);
+        for (int j = 0; j < numberOfColumns; j++) {
+            for (int k = myColPointers[j], limit = myColPointers[j + 1]; k < limit; k++) {
+                final int position = next[myRowIndices[k]]++;
+                indices[position] = j;
+                values[position] = myValues[k];
+            }
+        }
+
+        return new CompressedSparseStore(numberOfColumns, numberOfRows, pointers, indices, values);
+    }
+
+    private int indexOf(final int row, final int col) {
+        return Arrays.binarySearch(myRowIndices, myColPointers[col], myColPointers[col + 1], row);
+    }
+
+    private void multiply(final double[] x, final int xOffset, final double[] y, final int yOffset) {
+
+        Arrays.fill(y, yOffset, yOffset + this.getRowDim(), PrimitiveMath.ZERO);
+
+        final int[] pointers = myColPointers;
+        final int[] rows = myRowIndices;
+        final double[] values = myValues;
+
+        for (int j = 0, numberOfColumns = this.getColDim(); j < numberOfColumns; j++) {
+            final double xj = x[xOffset + j];
+            if (xj != PrimitiveMath.ZERO) {
+                for (int k = pointers[j], limit = pointers[j + 1]; k < limit; k++) {
+                    y[yOffset + rows[k]] += values[k] * xj;
+                }
+            }
+        }
+    }
+
+    private void multiplyTransposed(final double[] x, final double[] y, final int first, final int limit) {
+
+        final int[] pointers = myColPointers;
+        final int[] rows = myRowIndices;
+        final double[] values = myValues;
+
+        for (int j = first; j < limit; j++) {
+            double sum = PrimitiveMath.ZERO;
+            for (int k = pointers[j], kLimit = pointers[j + 1]; k < kLimit; k++) {
+                sum += values[k] * x[rows[k]];
+            }
+            y[j] = sum;
+        }
+    }
+
+}
@@ -0,0 +1,1032 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.array.operation.HouseholderLeft;
+import org.ojalgo.array.operation.MultiplyBoth;
+import org.ojalgo.array.operation.SubstituteBackwards;
+import org.ojalgo.array.operation.SubstituteForwards;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.function.NullaryFunction;
+import org.ojalgo.function.UnaryFunction;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.matrix.transformation.Householder;
+import org.ojalgo.matrix.transformation.Rotation;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Structure2D;
+import org.ojalgo.type.NumberDefinition;
+
+/**
+ * An off-heap, out-of-core, {@link PhysicalStore} backed by a memory-mapped file. The matrix is split in
+ * square tiles, each stored column-major in its own contiguous part of the file, so that the operating
+ * system only needs to page in the tiles actually being worked on. The total number of elements is not
+ * limited by the {@code int} index of a Java array – the file (and the mapped address space) is the limit.
+ * <p>
+ * Element access is possible, and works as with any other {@link PhysicalStore}, but the operations that
+ * scale to matrices larger than RAM are the ones that work tile by tile:
+ * {@link #fillByMultiplying(Access1D, Access1D)} (and thus {@link #multiply(MatrixStore)}) and
+ * {@link #decomposeCholesky()}. Multiplying with another {@link MemoryMappedStore}, or with the transpose
+ * of one, using the same tile size, reads whole tiles at a time. Calculating a Gram matrix is done like
+ * this:
+ *
+ * <pre>
+ * MemoryMappedStore data = MemoryMappedStore.make(file, 100_000, 100_000);
+ * ...
+ * MatrixStore&lt;Double&gt; gram = data.transpose().multiply(data);
+ * </pre>
+ *
+ * The mapped segments are released when the store is garbage collected.
+ *
+ * @author apete
+ */
+public final class MemoryMappedStore implements PhysicalStore<Double> {
+
+    public static final PhysicalStore.Factory<Double, MemoryMappedStore> FACTORY = new PrimitiveFactory<MemoryMappedStore>() {
+
+        public MemoryMappedStore columns(final Access1D<?>... source) {
+
+            MemoryMappedStore retVal = this.make(source[0].count(), source.length);
+
+            for (int j = 0; j < source.length; j++) {
+                Access1D<?> column = source[j];
+                for (int i = 0; i < retVal.myRowDim; i++) {
+                    retVal.set(i, j, column.doubleValue(i));
+                }
+            }
+
+            return retVal;
+        }
+
+        public MemoryMappedStore columns(final Comparable<?>[]... source) {
+
+            MemoryMappedStore retVal = this.make(source[0].length, source.length);
+
+            for (int j = 0; j < source.length; j++) {
+                Comparable<?>[] column = source[j];
+                for (int i = 0; i < retVal.myRowDim; i++) {
+                    retVal.set(i, j, NumberDefinition.doubleValue(column[i]));
+                }
+            }
+
+            return retVal;
+        }
+
+        public MemoryMappedStore columns(final double[]... source) {
+
+            MemoryMappedStore retVal = this.make(source[0].length, source.length);
+
+            for (int j = 0; j < source.length; j++) {
+                double[] column = source[j];
+                for (int i = 0; i < retVal.myRowDim; i++) {
+                    retVal.set(i, j, column[i]);
+                }
+            }
+
+            return retVal;
+        }
+
+        public MemoryMappedStore columns(final List<? extends Comparable<?>>... source) {
+
+            MemoryMappedStore retVal = this.make(source[0].size(), source.length);
+
+            for (int j = 0; j < source.length; j++) {
+                List<? extends Comparable<?>> column = source[j];
+                for (int i = 0; i < retVal.myRowDim; i++) {
+                    retVal.set(i, j, NumberDefinition.doubleValue(column.get(i)));
+                }
+            }
+
+            return retVal;
+        }
+
+        public MemoryMappedStore copy(final Access2D<?> source) {
+
+            MemoryMappedStore retVal = this.make(source.countRows(), source.countColumns());
+
+            for (int j = 0; j < retVal.myColDim; j++) {
+                for (int i = 0; i < retVal.myRowDim; i++) {
+                    retVal.set(i, j, source.doubleValue(i, j));
+                }
+            }
+
+            return retVal;
+        }
+
+        public MemoryMappedStore make(final long rows, final long columns) {
+            try {
+                File file = File.createTempFile("ojAlgo", ".mms");
+                file.deleteOnExit();
+                return MemoryMappedStore.make(file, rows, columns);
+            } catch (IOException cause) {
+                throw new RuntimeException(cause);
+            }
+        }
+
+        public MemoryMappedStore makeEye(final long rows, final long columns) {
+
+            MemoryMappedStore retVal = this.make(rows, columns);
+
+            int limit = Math.min(retVal.myRowDim, retVal.myColDim);
+            for (int ij = 0; ij < limit; ij++) {
+                retVal.set(ij, ij, ONE);
+            }
+
+            return retVal;
+        }
+
+        public MemoryMappedStore rows(final Access1D<?>... source) {
+
+            MemoryMappedStore retVal = this.make(source.length, source[0].count());
+
+            for (int i = 0; i < source.length; i++) {
+                Access1D<?> row = source[i];
+                for (int j = 0; j < retVal.myColDim; j++) {
+                    retVal.set(i, j, row.doubleValue(j));
+                }
+            }
+
+            return retVal;
+        }
+
+        public MemoryMappedStore rows(final Comparable<?>[]... source) {
+
+            MemoryMappedStore retVal = this.make(source.length, source[0].length);
+
+            for (int i = 0; i < source.length; i++) {
+                Comparable<?>[] row = source[i];
+                for (int j = 0; j < retVal.myColDim; j++) {
+                    retVal.set(i, j, NumberDefinition.doubleValue(row[j]));
+                }
+            }
+
+            return retVal;
+        }
+
+        public MemoryMappedStore rows(final double[]... source) {
+
+            MemoryMappedStore retVal = this.make(source.length, source[0].length);
+
+            for (int i = 0; i < source.length; i++) {
+                double[] row = source[i];
+                for (int j = 0; j < retVal.myColDim; j++) {
+                    retVal.set(i, j, row[j]);
+                }
+            }
+
+            return retVal;
+        }
+
+        public MemoryMappedStore rows(final List<? extends Comparable<?>>... source) {
+
+            MemoryMappedStore retVal = this.make(source.length, source[0].size());
+
+            for (int i = 0; i < source.length; i++) {
+                List<? extends Comparable<?>> row = source[i];
+                for (int j = 0; j < retVal.myColDim; j++) {
+                    retVal.set(i, j, NumberDefinition.doubleValue(row.get(j)));
+                }
+            }
+
+            return retVal;
+        }
+
+        public MemoryMappedStore transpose(final Access2D<?> source) {
+
+            MemoryMappedStore retVal = this.make(source.countColumns(), source.countRows());
+
+            for (int j = 0; j < retVal.myColDim; j++) {
+                for (int i = 0; i < retVal.myRowDim; i++) {
+                    retVal.set(i, j, source.doubleValue(j, i));
+                }
+            }
+
+            return retVal;
+        }
+
+    };
+
+    /**
+     * The (maximum) number of rows/columns in each tile. Used when a store is created – changing it does
+     * not affect existing stores. Three tiles per thread are kept in memory when multiplying.
+     */
+    public static int TILE_SIZE = 512;
+
+    private static final long DOUBLE_SIZE = 8L;
+
+    /**
+     * Each mapped segment covers a whole number of tiles and at most this many bytes.
+     */
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * Creates a store backed by the specified file. The file is created, or extended, as needed. If it
+     * already exists, and has been written by a store with the same dimensions and tile size, the previous
+     * contents are retained; otherwise the elements are initialised to zero.
+     */
+    public static MemoryMappedStore make(final File file, final long rows, final long columns) {
+
+        int rowDim = Math.toIntExact(rows);
+        int colDim = Math.toIntExact(columns);
+
+        int tileDim = Math.max(1, Math.min(TILE_SIZE, Math.max(rowDim, colDim)));
+        tileDim = Math.min(tileDim, (int) Math.sqrt(SEGMENT_SIZE / DOUBLE_SIZE));
+
+        int tileRows = (rowDim + tileDim - 1) / tileDim;
+        int tileCols = (colDim + tileDim - 1) / tileDim;
+        int nbTiles = Math.max(1, tileRows * tileCols);
+
+        long tileBytes = DOUBLE_SIZE * tileDim * tileDim;
+        int tilesPerSegment = (int) (SEGMENT_SIZE / tileBytes);
+
+        DoubleBuffer[] tiles = new DoubleBuffer[nbTiles];
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+
+            if (raf.length() < nbTiles * tileBytes) {
+                raf.setLength(nbTiles * tileBytes);
+            }
+
+            FileChannel channel = raf.getChannel();
+
+            for (int first = 0; first < nbTiles; first += tilesPerSegment) {
+
+                int limit = Math.min(first + tilesPerSegment, nbTiles);
+
+                MappedByteBuffer segment = channel.map(MapMode.READ_WRITE, first * tileBytes, (limit - first) * tileBytes);
+
+                for (int t = first; t < limit; t++) {
+                    ByteBuffer view = segment.duplicate();
+                    view.position((int) ((t - first) * tileBytes));
+                    view.limit((int) ((t - first + 1) * tileBytes));
+                    tiles[t] = view.slice().order(ByteOrder.nativeOrder()).asDoubleBuffer();
+                }
+            }
+
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+
+        return new MemoryMappedStore(file, rowDim, colDim, tileDim, tiles);
+    }
+
+    /**
+     * product += left * right, all tileDim x tileDim and column-major
+     */
+    private static void multiply(final double[] product, final double[] left, final double[] right, final int tileDim) {
+        for (int j = 0; j < tileDim; j++) {
+            int base = j * tileDim;
+            for (int c = 0; c < tileDim; c++) {
+                double value = right[c + base];
+                if (value != ZERO) {
+                    int offset = c * tileDim;
+                    for (int i = 0; i < tileDim; i++) {
+                        product[i + base] += left[i + offset] * value;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * target -= left * right<sup>T</sup>, all tileDim x tileDim and column-major
+     */
+    private static void subtractTransposed(final double[] target, final double[] left, final double[] right, final int tileDim) {
+        for (int c = 0; c < tileDim; c++) {
+            int offset = c * tileDim;
+            for (int j = 0; j < tileDim; j++) {
+                double value = right[j + offset];
+                if (value != ZERO) {
+                    int base = j * tileDim;
+                    for (int i = 0; i < tileDim; i++) {
+                        target[i + base] -= left[i + offset] * value;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void transpose(final double[] tile, final int tileDim) {
+        for (int j = 1; j < tileDim; j++) {
+            for (int i = 0; i < j; i++) {
+                int upper = i + j * tileDim;
+                int lower = j + i * tileDim;
+                double tmp = tile[upper];
+                tile[upper] = tile[lower];
+                tile[lower] = tmp;
+            }
+        }
+    }
+
+    private final int myColDim;
+    private final File myFile;
+    private final int myRowDim;
+    private final int myTileArea;
+    private final int myTileCols;
+    private final int myTileDim;
+    private final int myTileRows;
+    private final DoubleBuffer[] myTiles;
+
+    private MemoryMappedStore(final File file, final int rows, final int columns, final int tileDim, final DoubleBuffer[] tiles) {
+
+        super();
+
+        myFile = file;
+        myRowDim = rows;
+        myColDim = columns;
+        myTileDim = tileDim;
+        myTileArea = tileDim * tileDim;
+        myTileRows = (rows + tileDim - 1) / tileDim;
+        myTileCols = (columns + tileDim - 1) / tileDim;
+        myTiles = tiles;
+    }
+
+    public void add(final long row, final long col, final Comparable<?> addend) {
+        this.add(row, col, NumberDefinition.doubleValue(addend));
+    }
+
+    public void add(final long row, final long col, final double addend) {
+        int i = Math.toIntExact(row);
+        int j = Math.toIntExact(col);
+        DoubleBuffer tile = this.tile(i, j);
+        int index = this.offset(i, j);
+        tile.put(index, tile.get(index) + addend);
+    }
+
+    public List<Double> asList() {
+
+        long structure = myRowDim;
+
+        return new AbstractList<Double>() {
+
+            @Override
+            public Double get(final int index) {
+                return MemoryMappedStore.this.get(index);
+            }
+
+            @Override
+            public Double set(final int index, final Double value) {
+                long row = Structure2D.row(index, structure);
+                long column = Structure2D.column(index, structure);
+                Double retVal = MemoryMappedStore.this.get(row, column);
+                MemoryMappedStore.this.set(row, column, value);
+                return retVal;
+            }
+
+            @Override
+            public int size() {
+                return Math.toIntExact(MemoryMappedStore.this.count());
+            }
+        };
+    }
+
+    public MatrixStore<Double> conjugate() {
+        return this.transpose();
+    }
+
+    public long countColumns() {
+        return myColDim;
+    }
+
+    public long countRows() {
+        return myRowDim;
+    }
+
+    /**
+     * In-place, tile-wise, Cholesky decomposition. Assumes this is a symmetric positive definite matrix, and
+     * only reads the lower triangular part. On successful return this store contains the lower triangular
+     * factor L, with zeros above the diagonal, so that [this]<sub>before</sub> = [L][L]<sup>T</sup>. The
+     * tiles of one column of L are calculated in parallel, and only a few tiles per thread are ever held in
+     * memory.
+     *
+     * @return false if the matrix was found not to be positive definite – then the contents of this store is
+     *         undefined
+     */
+    public boolean decomposeCholesky() {
+
+        if (myRowDim != myColDim) {
+            throw new ProgrammingError("Cholesky requires a square matrix!");
+        }
+
+        double[] diagonal = new double[myTileArea];
+        double[] work = new double[myTileArea];
+
+        for (int tj = 0; tj < myTileCols; tj++) {
+
+            int tileCol = tj;
+
+            this.readTile(tileCol, tileCol, diagonal);
+            for (int tk = 0; tk < tileCol; tk++) {
+                this.readTile(tileCol, tk, work);
+                MemoryMappedStore.subtractTransposed(diagonal, work, work, myTileDim);
+            }
+
+            if (!this.decomposeTile(diagonal, Math.min(myTileDim, myRowDim - (tileCol * myTileDim)))) {
+                return false;
+            }
+
+            this.writeTile(tileCol, tileCol, diagonal);
+
+            Arrays.fill(work, ZERO);
+            for (int ti = 0; ti < tileCol; ti++) {
+                this.writeTile(ti, tileCol, work);
+            }
+
+            DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+
+                    double[] below = new double[myTileArea];
+                    double[] left = new double[myTileArea];
+                    double[] right = new double[myTileArea];
+
+                    for (int ti = first; ti < limit; ti++) {
+
+                        MemoryMappedStore.this.readTile(ti, tileCol, below);
+                        for (int tk = 0; tk < tileCol; tk++) {
+                            MemoryMappedStore.this.readTile(ti, tk, left);
+                            MemoryMappedStore.this.readTile(tileCol, tk, right);
+                            MemoryMappedStore.subtractTransposed(below, left, right, myTileDim);
+                        }
+
+                        MemoryMappedStore.this.solveTile(below, diagonal, Math.min(myTileDim, myRowDim - (tileCol * myTileDim)));
+
+                        MemoryMappedStore.this.writeTile(ti, tileCol, below);
+                    }
+                }
+
+            };
+
+            conquerer.invoke(tileCol + 1, myTileRows, 1);
+        }
+
+        return true;
+    }
+
+    @Override
+    public double doubleValue(final long index) {
+        return this.doubleValue(Structure2D.row(index, myRowDim), Structure2D.column(index, myRowDim));
+    }
+
+    public double doubleValue(final long row, final long col) {
+        int i = Math.toIntExact(row);
+        int j = Math.toIntExact(col);
+        return this.tile(i, j).get(this.offset(i, j));
+    }
+
+    /**
+     * Multiplies tile by tile, with the output tiles calculated in parallel. If left and/or right are
+     * {@link MemoryMappedStore} instances (or transposes of such) with the same tile size as this, whole
+     * tiles are copied from the mapped buffers. Other arguments are read element by element.
+     */
+    public void fillByMultiplying(final Access1D<Double> left, final Access1D<Double> right) {
+
+        int complexity = Math.toIntExact(left.count() / myRowDim);
+        if (complexity != Math.toIntExact(right.count() / myColDim)) {
+            ProgrammingError.throwForMultiplicationNotPossible();
+        }
+
+        int tilesK = (complexity + myTileDim - 1) / myTileDim;
+
+        DivideAndConquer conquerer = new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+
+                double[] product = new double[myTileArea];
+                double[] leftTile = new double[myTileArea];
+                double[] rightTile = new double[myTileArea];
+
+                for (int t = first; t < limit; t++) {
+
+                    int ti = t % myTileRows;
+                    int tj = t / myTileRows;
+
+                    Arrays.fill(product, ZERO);
+
+                    for (int tk = 0; tk < tilesK; tk++) {
+                        MemoryMappedStore.this.load(left, myRowDim, complexity, ti, tk, leftTile);
+                        MemoryMappedStore.this.load(right, complexity, myColDim, tk, tj, rightTile);
+                        MemoryMappedStore.multiply(product, leftTile, rightTile, myTileDim);
+                    }
+
+                    MemoryMappedStore.this.writeTile(ti, tj, product);
+                }
+            }
+
+        };
+
+        conquerer.invoke(0, myTileRows * myTileCols, 1);
+    }
+
+    public void fillOne(final long row, final long col, final Access1D<?> values, final long valueIndex) {
+        this.set(row, col, values.doubleValue(valueIndex));
+    }
+
+    public void fillOne(final long row, final long col, final Double value) {
+        this.set(row, col, value.doubleValue());
+    }
+
+    public void fillOne(final long row, final long col, final NullaryFunction<?> supplier) {
+        this.set(row, col, supplier.doubleValue());
+    }
+
+    public Double get(final long row, final long col) {
+        return this.doubleValue(row, col);
+    }
+
+    /**
+     * @return The backing file
+     */
+    public File getFile() {
+        return myFile;
+    }
+
+    public long indexOfLargestInColumn(final long row, final long col) {
+
+        long retVal = row;
+        double largest = ZERO;
+        double value;
+
+        for (long i = row; i < myRowDim; i++) {
+            value = PrimitiveMath.ABS.invoke(this.doubleValue(i, col));
+            if (value > largest) {
+                largest = value;
+                retVal = i;
+            }
+        }
+
+        return retVal;
+    }
+
+    public long indexOfLargestInRange(final long first, final long limit) {
+
+        long retVal = first;
+        double largest = ZERO;
+        double value;
+
+        for (long index = first; index < limit; index++) {
+            value = PrimitiveMath.ABS.invoke(this.doubleValue(index));
+            if (value > largest) {
+                largest = value;
+                retVal = index;
+            }
+        }
+
+        return retVal;
+    }
+
+    public long indexOfLargestInRow(final long row, final long col) {
+
+        long retVal = col;
+        double largest = ZERO;
+        double value;
+
+        for (long j = col; j < myColDim; j++) {
+            value = PrimitiveMath.ABS.invoke(this.doubleValue(row, j));
+            if (value > largest) {
+                largest = value;
+                retVal = j;
+            }
+        }
+
+        return retVal;
+    }
+
+    public long indexOfLargestOnDiagonal(final long first) {
+
+        long retVal = first;
+        double largest = ZERO;
+        double value;
+
+        for (long ij = first, limit = Math.min(myRowDim, myColDim); ij < limit; ij++) {
+            value = PrimitiveMath.ABS.invoke(this.doubleValue(ij, ij));
+            if (value > largest) {
+                largest = value;
+                retVal = ij;
+            }
+        }
+
+        return retVal;
+    }
+
+    public void modifyOne(final long row, final long col, final UnaryFunction<Double> modifier) {
+        int i = Math.toIntExact(row);
+        int j = Math.toIntExact(col);
+        DoubleBuffer tile = this.tile(i, j);
+        int index = this.offset(i, j);
+        tile.put(index, modifier.invoke(tile.get(index)));
+    }
+
+    public PhysicalStore.Factory<Double, MemoryMappedStore> physical() {
+        return FACTORY;
+    }
+
+    public TransformableRegion<Double> regionByColumns(final int... columns) {
+        return new TransformableRegion.ColumnsRegion<>(this, MultiplyBoth.newPrimitive64(myRowDim, myColDim), columns);
+    }
+
+    public TransformableRegion<Double> regionByLimits(final int rowLimit, final int columnLimit) {
+        return new TransformableRegion.LimitRegion<>(this, MultiplyBoth.newPrimitive64(myRowDim, myColDim), rowLimit, columnLimit);
+    }
+
+    public TransformableRegion<Double> regionByOffsets(final int rowOffset, final int columnOffset) {
+        return new TransformableRegion.OffsetRegion<>(this, MultiplyBoth.newPrimitive64(myRowDim, myColDim), rowOffset, columnOffset);
+    }
+
+    public TransformableRegion<Double> regionByRows(final int... rows) {
+        return new TransformableRegion.RowsRegion<>(this, MultiplyBoth.newPrimitive64(myRowDim, myColDim), rows);
+    }
+
+    public TransformableRegion<Double> regionByTransposing() {
+        return new TransformableRegion.TransposedRegion<>(this, MultiplyBoth.newPrimitive64(myRowDim, myColDim));
+    }
+
+    public void set(final long row, final long col, final Comparable<?> value) {
+        this.set(row, col, NumberDefinition.doubleValue(value));
+    }
+
+    public void set(final long row, final long col, final double value) {
+        int i = Math.toIntExact(row);
+        int j = Math.toIntExact(col);
+        this.tile(i, j).put(this.offset(i, j), value);
+    }
+
+    /**
+     * Solves one block of (tile size) columns at the time, in memory.
+     */
+    public void substituteBackwards(final Access2D<Double> body, final boolean unitDiagonal, final boolean conjugated, final boolean hermitian) {
+
+        double[] block = new double[myRowDim * myTileDim];
+
+        for (int first = 0; first < myColDim; first += myTileDim) {
+
+            int width = Math.min(myTileDim, myColDim - first);
+
+            for (int s = 0; s < width; s++) {
+                this.readColumn(first + s, block, s * myRowDim);
+            }
+
+            SubstituteBackwards.invoke(block, myRowDim, 0, width, body, unitDiagonal, conjugated, false);
+
+            for (int s = 0; s < width; s++) {
+                this.writeColumn(first + s, block, s * myRowDim);
+            }
+        }
+    }
+
+    /**
+     * Solves one block of (tile size) columns at the time, in memory.
+     */
+    public void substituteForwards(final Access2D<Double> body, final boolean unitDiagonal, final boolean conjugated, final boolean identity) {
+
+        double[] block = new double[myRowDim * myTileDim];
+
+        for (int first = 0; first < myColDim; first += myTileDim) {
+
+            int width = Math.min(myTileDim, myColDim - first);
+
+            if (identity) {
+                Arrays.fill(block, ZERO);
+                for (int s = 0; s < width && first + s < myRowDim; s++) {
+                    block[first + s + s * myRowDim] = ONE;
+                }
+            } else {
+                for (int s = 0; s < width; s++) {
+                    this.readColumn(first + s, block, s * myRowDim);
+                }
+            }
+
+            SubstituteForwards.invoke(block, myRowDim, 0, width, body, unitDiagonal, conjugated, false);
+
+            for (int s = 0; s < width; s++) {
+                this.writeColumn(first + s, block, s * myRowDim);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Access2D.toString(this);
+    }
+
+    public void transformLeft(final Householder<Double> transformation, final int firstColumn) {
+
+        Householder.Primitive64 householder = Primitive64Store.cast(transformation);
+
+        DivideAndConquer conquerer = new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+
+                double[] column = new double[myRowDim];
+
+                for (int j = first; j < limit; j++) {
+                    MemoryMappedStore.this.readColumn(j, column, 0);
+                    HouseholderLeft.invoke(column, myRowDim, 0, 1, householder);
+                    MemoryMappedStore.this.writeColumn(j, column, 0);
+                }
+            }
+
+        };
+
+        conquerer.invoke(firstColumn, myColDim, HouseholderLeft.THRESHOLD);
+    }
+
+    public void transformLeft(final Rotation<Double> transformation) {
+
+        Rotation.Primitive rotation = Primitive64Store.cast(transformation);
+
+        int low = rotation.low;
+        int high = rotation.high;
+
+        if (low != high) {
+            if (!Double.isNaN(rotation.cos) && !Double.isNaN(rotation.sin)) {
+
+                double oldLow;
+                double oldHigh;
+
+                for (int j = 0; j < myColDim; j++) {
+
+                    oldLow = this.doubleValue(low, j);
+                    oldHigh = this.doubleValue(high, j);
+
+                    this.set(low, j, (rotation.cos * oldLow) + (rotation.sin * oldHigh));
+                    this.set(high, j, (rotation.cos * oldHigh) - (rotation.sin * oldLow));
+                }
+            } else {
+                this.exchangeRows(low, high);
+            }
+        } else {
+            if (!Double.isNaN(rotation.cos)) {
+                this.modifyRow(low, 0, PrimitiveMath.MULTIPLY.second(rotation.cos));
+            } else if (!Double.isNaN(rotation.sin)) {
+                this.modifyRow(low, 0, PrimitiveMath.DIVIDE.second(rotation.sin));
+            } else {
+                this.modifyRow(low, 0, PrimitiveMath.NEGATE);
+            }
+        }
+    }
+
+    /**
+     * Two passes over the columns: first [w] = [this][v], then [this] -= beta [w][v]<sup>T</sup>.
+     */
+    public void transformRight(final Householder<Double> transformation, final int firstRow) {
+
+        Householder.Primitive64 householder = Primitive64Store.cast(transformation);
+
+        double[] vector = householder.vector;
+        double beta = householder.beta;
+
+        double[] column = new double[myRowDim];
+        double[] product = new double[myRowDim];
+
+        for (int j = householder.first; j < myColDim; j++) {
+            double value = vector[j];
+            if (value != ZERO) {
+                this.readColumn(j, column, 0);
+                for (int i = firstRow; i < myRowDim; i++) {
+                    product[i] += column[i] * value;
+                }
+            }
+        }
+
+        for (int j = householder.first; j < myColDim; j++) {
+            double value = beta * vector[j];
+            if (value != ZERO) {
+                this.readColumn(j, column, 0);
+                for (int i = firstRow; i < myRowDim; i++) {
+                    column[i] -= product[i] * value;
+                }
+                this.writeColumn(j, column, 0);
+            }
+        }
+    }
+
+    public void transformRight(final Rotation<Double> transformation) {
+
+        Rotation.Primitive rotation = Primitive64Store.cast(transformation);
+
+        int low = rotation.low;
+        int high = rotation.high;
+
+        if (low != high) {
+            if (!Double.isNaN(rotation.cos) && !Double.isNaN(rotation.sin)) {
+
+                double[] columnLow = new double[myRowDim];
+                double[] columnHigh = new double[myRowDim];
+
+                this.readColumn(low, columnLow, 0);
+                this.readColumn(high, columnHigh, 0);
+
+                double oldLow;
+                double oldHigh;
+
+                for (int i = 0; i < myRowDim; i++) {
+
+                    oldLow = columnLow[i];
+                    oldHigh = columnHigh[i];
+
+                    columnLow[i] = (rotation.cos * oldLow) - (rotation.sin * oldHigh);
+                    columnHigh[i] = (rotation.cos * oldHigh) + (rotation.sin * oldLow);
+                }
+
+                this.writeColumn(low, columnLow, 0);
+                this.writeColumn(high, columnHigh, 0);
+
+            } else {
+                this.exchangeColumns(low, high);
+            }
+        } else {
+            if (!Double.isNaN(rotation.cos)) {
+                this.modifyColumn(0, high, PrimitiveMath.MULTIPLY.second(rotation.cos));
+            } else if (!Double.isNaN(rotation.sin)) {
+                this.modifyColumn(0, high, PrimitiveMath.DIVIDE.second(rotation.sin));
+            } else {
+                this.modifyColumn(0, high, PrimitiveMath.NEGATE);
+            }
+        }
+    }
+
+    public MatrixStore<Double> transpose() {
+        return new TransposedStore<>(this);
+    }
+
+    /**
+     * Dense, in memory, Cholesky of the leading dim x dim part of a (column-major) tile. The part above the
+     * diagonal is set to zero.
+     */
+    private boolean decomposeTile(final double[] tile, final int dim) {
+
+        int tileDim = myTileDim;
+
+        for (int j = 0; j < dim; j++) {
+
+            int base = j * tileDim;
+
+            double diagonal = tile[j + base];
+            if (!(diagonal > ZERO)) {
+                return false;
+            }
+            diagonal = PrimitiveMath.SQRT.invoke(diagonal);
+            tile[j + base] = diagonal;
+
+            for (int i = j + 1; i < dim; i++) {
+                tile[i + base] /= diagonal;
+            }
+
+            for (int k = j + 1; k < dim; k++) {
+                double value = tile[k + base];
+                int offset = k * tileDim;
+                for (int i = k; i < dim; i++) {
+                    tile[i + offset] -= tile[i + base] * value;
+                }
+            }
+
+            for (int i = 0; i < j; i++) {
+                tile[i + base] = ZERO;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads one tile of an arbitrary (rows x columns) source – zero padded at the edges.
+     */
+    private void load(final Access1D<Double> source, final int rows, final int columns, final int tileRow, final int tileCol, final double[] tile) {
+
+        if (source instanceof MemoryMappedStore && ((MemoryMappedStore) source).myTileDim == myTileDim) {
+
+            ((MemoryMappedStore) source).readTile(tileRow, tileCol, tile);
+
+        } else if (source instanceof TransposedStore<?> && ((TransposedStore<?>) source).getOriginal() instanceof MemoryMappedStore
+                && ((MemoryMappedStore) ((TransposedStore<?>) source).getOriginal()).myTileDim == myTileDim) {
+
+            ((MemoryMappedStore) ((TransposedStore<?>) source).getOriginal()).readTile(tileCol, tileRow, tile);
+            MemoryMappedStore.transpose(tile, myTileDim);
+
+        } else {
+
+            Arrays.fill(tile, ZERO);
+
+            int firstRow = tileRow * myTileDim;
+            int firstCol = tileCol * myTileDim;
+            int limitRow = Math.min(firstRow + myTileDim, rows);
+            int limitCol = Math.min(firstCol + myTileDim, columns);
+
+            for (int j = firstCol; j < limitCol; j++) {
+                int base = (j - firstCol) * myTileDim - firstRow;
+                for (int i = firstRow; i < limitRow; i++) {
+                    tile[i + base] = source.doubleValue(Structure2D.index(rows, i, j));
+                }
+            }
+        }
+    }
+
+    private int offset(final int row, final int col) {
+        return (row % myTileDim) + ((col % myTileDim) * myTileDim);
+    }
+
+    private void readColumn(final int col, final double[] destination, final int offset) {
+        int tileCol = col / myTileDim;
+        int position = (col % myTileDim) * myTileDim;
+        for (int tileRow = 0; tileRow < myTileRows; tileRow++) {
+            DoubleBuffer buffer = myTiles[tileRow + tileCol * myTileRows].duplicate();
+            buffer.position(position);
+            buffer.get(destination, offset + tileRow * myTileDim, Math.min(myTileDim, myRowDim - tileRow * myTileDim));
+        }
+    }
+
+    private void readTile(final int tileRow, final int tileCol, final double[] destination) {
+        DoubleBuffer buffer = myTiles[tileRow + tileCol * myTileRows].duplicate();
+        buffer.rewind();
+        buffer.get(destination, 0, myTileArea);
+    }
+
+    /**
+     * Solves [X][L]<sup>T</sup> = [B] in place – B is a tile below the diagonal, and L the (already
+     * decomposed) diagonal tile of the same tile column.
+     */
+    private void solveTile(final double[] tile, final double[] diagonal, final int dim) {
+
+        int tileDim = myTileDim;
+
+        for (int c = 0; c < dim; c++) {
+
+            int base = c * tileDim;
+
+            for (int k = 0; k < c; k++) {
+                double value = diagonal[c + k * tileDim];
+                if (value != ZERO) {
+                    int offset = k * tileDim;
+                    for (int i = 0; i < tileDim; i++) {
+                        tile[i + base] -= tile[i + offset] * value;
+                    }
+                }
+            }
+
+            double value = diagonal[c + base];
+            for (int i = 0; i < tileDim; i++) {
+                tile[i + base] /= value;
+            }
+        }
+    }
+
+    private DoubleBuffer tile(final int row, final int col) {
+        return myTiles[(row / myTileDim) + ((col / myTileDim) * myTileRows)];
+    }
+
+    private void writeColumn(final int col, final double[] source, final int offset) {
+        int tileCol = col / myTileDim;
+        int position = (col % myTileDim) * myTileDim;
+        for (int tileRow = 0; tileRow < myTileRows; tileRow++) {
+            DoubleBuffer buffer = myTiles[tileRow + tileCol * myTileRows].duplicate();
+            buffer.position(position);
+            buffer.put(source, offset + tileRow * myTileDim, Math.min(myTileDim, myRowDim - tileRow * myTileDim));
+        }
+    }
+
+    private void writeTile(final int tileRow, final int tileCol, final double[] source) {
+        DoubleBuffer buffer = myTiles[tileRow + tileCol * myTileRows].duplicate();
+        buffer.rewind();
+        buffer.put(source, 0, myTileArea);
+    }
+
+}
@@ -154,6 +154,33 @@ public final class SparseStore<N extends Comparable<N>> extends FactoryStore<N>
         this.updateNonZeros(row, col);
     }
 
+    /**
+     * Creates an immutable Compressed Sparse Column (CSC) copy of this matrix - the nonzero elements are
+     * converted to double. Further changes to this store are not reflected in the returned instance.
+     */
+    public CompressedSparseStore compress() {
+
+        final int numberOfRows = this.getRowDim();
+        final int numberOfColumns = this.getColDim();
+
+        synchronized (myElements) {
+
+            final int count = Math.toIntExact(myElements.countNonzeros());
+
+            final long[] indices = new long[count];
+            final double[] values = new double[count];
+
+            int k = 0;
+            for (final NonzeroView<N> nonzero : myElements.nonzeros()) {
+                indices[k] = nonzero.index();
+                values[k] = nonzero.doubleValue();
+                k++;
+            }
+
+            return CompressedSparseStore.make(numberOfRows, numberOfColumns, indices, values, k);
+        }
+    }
+
     public double doubleValue(final long row, final long col) {
         return myElements.doubleValue(Structure2D.index(myFirsts.length, row, col));
     }
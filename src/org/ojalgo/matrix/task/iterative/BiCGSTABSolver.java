@@ -0,0 +1,141 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import org.ojalgo.matrix.store.CompressedSparseStore;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * A (right) preconditioned biconjugate gradient stabilized solver. For general, non-symmetric, square
+ * systems. Typically used with {@link IterativeSolverTask.Preconditioner#newIncompleteLU()}.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Biconjugate_gradient_stabilized_method">Biconjugate gradient
+ *      stabilized method</a>
+ * @author apete
+ */
+public final class BiCGSTABSolver extends KrylovSubspaceSolver {
+
+    public BiCGSTABSolver() {
+        this(null);
+    }
+
+    public BiCGSTABSolver(final IterativeSolverTask.Preconditioner preconditioner) {
+        super(preconditioner);
+    }
+
+    @Override
+    double iterate(final CompressedSparseStore transposed, final double[] rhs, final double[] solution, final IterativeSolverTask.Preconditioner preconditioner) {
+
+        int dim = solution.length;
+
+        double[] residual = this.work(0, dim);
+        double[] shadow = this.work(1, dim);
+        double[] direction = this.work(2, dim);
+        double[] preconditionedD = this.work(3, dim);
+        double[] vectorV = this.work(4, dim);
+        double[] preconditionedS = this.work(5, dim);
+        double[] vectorT = this.work(6, dim);
+
+        double normRHS = KrylovSubspaceSolver.norm(rhs);
+        if (normRHS == ZERO) {
+            normRHS = ONE;
+        }
+
+        KrylovSubspaceSolver.residual(transposed, rhs, solution, residual);
+        System.arraycopy(residual, 0, shadow, 0, dim);
+        System.arraycopy(residual, 0, direction, 0, dim);
+
+        double normErr = KrylovSubspaceSolver.norm(residual);
+
+        int iterations = 0;
+        int limit = this.getIterationsLimit();
+        NumberContext accuracy = this.getAccuracyContext();
+
+        double rho = KrylovSubspaceSolver.dot(shadow, residual);
+
+        while ((iterations < limit) && !Double.isNaN(normErr) && !accuracy.isSmall(normRHS, normErr)) {
+
+            if (rho == ZERO) {
+                // Breakdown – restart with the current residual as the shadow residual
+                System.arraycopy(residual, 0, shadow, 0, dim);
+                System.arraycopy(residual, 0, direction, 0, dim);
+                rho = KrylovSubspaceSolver.dot(shadow, residual);
+            }
+
+            preconditioner.apply(direction, preconditionedD);
+            transposed.multiplyTransposed(preconditionedD, vectorV);
+
+            double denominator = KrylovSubspaceSolver.dot(shadow, vectorV);
+            if (denominator == ZERO || Double.isNaN(denominator)) {
+                break;
+            }
+
+            double alpha = rho / denominator;
+
+            // s = r - alpha v (stored in residual)
+            for (int i = 0; i < dim; i++) {
+                solution[i] += alpha * preconditionedD[i];
+                residual[i] -= alpha * vectorV[i];
+            }
+
+            normErr = KrylovSubspaceSolver.norm(residual);
+
+            if (!accuracy.isSmall(normRHS, normErr)) {
+
+                preconditioner.apply(residual, preconditionedS);
+                transposed.multiplyTransposed(preconditionedS, vectorT);
+
+                double omega = KrylovSubspaceSolver.dot(vectorT, residual) / KrylovSubspaceSolver.dot(vectorT, vectorT);
+
+                for (int i = 0; i < dim; i++) {
+                    solution[i] += omega * preconditionedS[i];
+                    residual[i] -= omega * vectorT[i];
+                }
+
+                normErr = KrylovSubspaceSolver.norm(residual);
+
+                double rhoNext = KrylovSubspaceSolver.dot(shadow, residual);
+                double beta = (rhoNext / rho) * (alpha / omega);
+                rho = rhoNext;
+
+                if (omega == ZERO || Double.isNaN(beta)) {
+                    rho = ZERO;
+                } else {
+                    for (int i = 0; i < dim; i++) {
+                        direction[i] = residual[i] + beta * (direction[i] - omega * vectorV[i]);
+                    }
+                }
+            }
+
+            iterations++;
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(iterations, normErr / normRHS, solution);
+            }
+        }
+
+        return normErr / normRHS;
+    }
+
+}
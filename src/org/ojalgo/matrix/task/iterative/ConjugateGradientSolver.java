@@ -23,44 +23,39 @@ package org.ojalgo.matrix.task.iterative;
 
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
-import java.util.List;
-
-import org.ojalgo.RecoverableCondition;
-import org.ojalgo.equation.Equation;
-import org.ojalgo.matrix.store.MatrixStore;
-import org.ojalgo.matrix.store.PhysicalStore;
-import org.ojalgo.matrix.store.Primitive64Store;
-import org.ojalgo.structure.Access2D;
-import org.ojalgo.structure.Structure1D;
+import org.ojalgo.matrix.store.CompressedSparseStore;
 import org.ojalgo.type.context.NumberContext;
 
 /**
- * A (Jacobi) preconditioned conjugate gradient solver.
+ * A preconditioned conjugate gradient solver. Requires the body to be symmetric positive definite, and so
+ * should the preconditioner be – {@link IterativeSolverTask.Preconditioner#newJacobi()} (the default) or
+ * {@link IterativeSolverTask.Preconditioner#newIncompleteCholesky()}.
  *
+ * @see <a href="https://en.wikipedia.org/wiki/Conjugate_gradient_method">Conjugate gradient method</a>
  * @author apete
  */
 public final class ConjugateGradientSolver extends KrylovSubspaceSolver implements IterativeSolverTask.SparseDelegate {
 
-    private transient Primitive64Store myDirection = null;
-    private transient Primitive64Store myPreconditioned = null;
-    private transient Primitive64Store myResidual = null;
-    private transient Primitive64Store myVector = null;
-
     public ConjugateGradientSolver() {
-        super();
+        this(null);
     }
 
-    public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+    public ConjugateGradientSolver(final IterativeSolverTask.Preconditioner preconditioner) {
+        super(preconditioner);
+    }
 
-        int numbEquations = equations.size();
+    @Override
+    double iterate(final CompressedSparseStore transposed, final double[] rhs, final double[] solution, final IterativeSolverTask.Preconditioner preconditioner) {
 
-        double normErr = POSITIVE_INFINITY;
-        double normRHS = ONE;
+        int dim = solution.length;
 
-        Primitive64Store residual = this.residual(solution);
-        Primitive64Store direction = this.direction(solution);
-        Primitive64Store preconditioned = this.preconditioned(solution);
-        Primitive64Store vector = this.vector(solution);
+        double[] residual = this.work(0, dim);
+        double[] direction = this.work(1, dim);
+        double[] preconditioned = this.work(2, dim);
+        double[] vector = this.work(3, dim);
+
+        double normErr = POSITIVE_INFINITY;
+        double normRHS = HYPOT.invoke(ONE, KrylovSubspaceSolver.norm(rhs));
 
         double stepLength;
         double gradientCorrectionFactor;
@@ -69,57 +64,44 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
         double zr1 = 1;
         double pAp0 = 0;
 
-        for (int r = 0; r < numbEquations; r++) {
-            Equation row = equations.get(r);
-            double tmpVal = row.getRHS();
-            normRHS = HYPOT.invoke(normRHS, tmpVal);
-            tmpVal -= row.dot(solution);
-            residual.set(row.index, tmpVal);
-            preconditioned.set(row.index, tmpVal / row.getPivot()); // precondition
-        }
+        KrylovSubspaceSolver.residual(transposed, rhs, solution, residual);
+        preconditioner.apply(residual, preconditioned);
 
-        direction.fillMatching(preconditioned);
+        System.arraycopy(preconditioned, 0, direction, 0, dim);
 
         int iterations = 0;
         int limit = this.getIterationsLimit();
         NumberContext accuracy = this.getAccuracyContext();
 
-        zr1 = preconditioned.dot(residual);
+        zr1 = KrylovSubspaceSolver.dot(preconditioned, residual);
 
         do {
 
             zr0 = zr1;
 
-            for (int i = 0; i < numbEquations; i++) {
-                Equation row = equations.get(i);
-                vector.set(row.index, row.dot(direction));
-            }
+            transposed.multiplyTransposed(direction, vector);
 
-            pAp0 = direction.dot(vector);
+            pAp0 = KrylovSubspaceSolver.dot(direction, vector);
 
             stepLength = zr0 / pAp0;
 
             if (!Double.isNaN(stepLength)) {
-
-                direction.axpy(stepLength, solution);
-
-                vector.axpy(-stepLength, residual);
+                for (int i = 0; i < dim; i++) {
+                    solution[i] += stepLength * direction[i];
+                    residual[i] -= stepLength * vector[i];
+                }
             }
 
-            normErr = ZERO;
+            normErr = KrylovSubspaceSolver.norm(residual);
 
-            for (int r = 0; r < numbEquations; r++) {
-                Equation row = equations.get(r);
-                double tmpVal = residual.doubleValue(row.index);
-                normErr = HYPOT.invoke(normErr, tmpVal);
-                preconditioned.set(row.index, tmpVal / row.getPivot());
-            }
+            preconditioner.apply(residual, preconditioned);
 
-            zr1 = preconditioned.dot(residual);
+            zr1 = KrylovSubspaceSolver.dot(preconditioned, residual);
             gradientCorrectionFactor = zr1 / zr0;
 
-            direction.modifyAll(MULTIPLY.second(gradientCorrectionFactor));
-            direction.modifyMatching(ADD, preconditioned);
+            for (int i = 0; i < dim; i++) {
+                direction[i] = preconditioned[i] + gradientCorrectionFactor * direction[i];
+            }
 
             iterations++;
 
@@ -129,54 +111,7 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
 
         } while ((iterations < limit) && !Double.isNaN(normErr) && !accuracy.isSmall(normRHS, normErr));
 
-        // BasicLogger.debug("Done in {} iterations on problem size {}", iterations, solution.count());
-
         return normErr / normRHS;
     }
 
-    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
-
-        List<Equation> equations = IterativeSolverTask.toListOfRows(body, rhs);
-
-        this.resolve(equations, preallocated);
-
-        return preallocated;
-    }
-
-    private Primitive64Store direction(final Structure1D structure) {
-        if ((myDirection == null) || (myDirection.count() != structure.count())) {
-            myDirection = Primitive64Store.FACTORY.make(structure.count(), 1L);
-        } else {
-            myDirection.fillAll(ZERO);
-        }
-        return myDirection;
-    }
-
-    private Primitive64Store preconditioned(final Structure1D structure) {
-        if ((myPreconditioned == null) || (myPreconditioned.count() != structure.count())) {
-            myPreconditioned = Primitive64Store.FACTORY.make(structure.count(), 1L);
-        } else {
-            myPreconditioned.fillAll(ZERO);
-        }
-        return myPreconditioned;
-    }
-
-    private Primitive64Store residual(final Structure1D structure) {
-        if ((myResidual == null) || (myResidual.count() != structure.count())) {
-            myResidual = Primitive64Store.FACTORY.make(structure.count(), 1L);
-        } else {
-            myResidual.fillAll(ZERO);
-        }
-        return myResidual;
-    }
-
-    private Primitive64Store vector(final Structure1D structure) {
-        if ((myVector == null) || (myVector.count() != structure.count())) {
-            myVector = Primitive64Store.FACTORY.make(structure.count(), 1L);
-        } else {
-            myVector.fillAll(ZERO);
-        }
-        return myVector;
-    }
-
 }
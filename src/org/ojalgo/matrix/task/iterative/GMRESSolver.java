@@ -0,0 +1,207 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import org.ojalgo.matrix.store.CompressedSparseStore;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * A (right) preconditioned, restarted, generalized minimal residual solver – GMRES(m). For general,
+ * non-symmetric, square systems. Typically used with {@link IterativeSolverTask.Preconditioner#newIncompleteLU()}.
+ * The Arnoldi basis is orthogonalised using modified Gram-Schmidt, and the least squares problem solved
+ * incrementally using Givens rotations. Each Arnoldi step counts as 1 iteration.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Generalized_minimal_residual_method">Generalized minimal
+ *      residual method</a>
+ * @author apete
+ */
+public final class GMRESSolver extends KrylovSubspaceSolver {
+
+    /**
+     * The default restart parameter (m)
+     */
+    public static int RESTART = 30;
+
+    private final int myRestart;
+
+    public GMRESSolver() {
+        this(RESTART, null);
+    }
+
+    public GMRESSolver(final int restart, final IterativeSolverTask.Preconditioner preconditioner) {
+        super(preconditioner);
+        if (restart < 1) {
+            throw new IllegalArgumentException("The restart parameter must be positive!");
+        }
+        myRestart = restart;
+    }
+
+    public GMRESSolver(final IterativeSolverTask.Preconditioner preconditioner) {
+        this(RESTART, preconditioner);
+    }
+
+    @Override
+    double iterate(final CompressedSparseStore transposed, final double[] rhs, final double[] solution, final IterativeSolverTask.Preconditioner preconditioner) {
+
+        int dim = solution.length;
+        int restart = Math.min(myRestart, Math.max(dim, 1));
+
+        double[][] basis = new double[restart + 1][];
+        for (int j = 0; j <= restart; j++) {
+            basis[j] = this.work(j, dim);
+        }
+        double[] preconditioned = this.work(restart + 1, dim);
+        double[] correction = this.work(restart + 2, dim);
+
+        double[][] hessenberg = new double[restart + 1][restart];
+        double[] cosines = new double[restart];
+        double[] sines = new double[restart];
+        double[] projected = new double[restart + 1];
+        double[] coefficients = new double[restart];
+
+        double normRHS = KrylovSubspaceSolver.norm(rhs);
+        if (normRHS == ZERO) {
+            normRHS = ONE;
+        }
+
+        int iterations = 0;
+        int limit = this.getIterationsLimit();
+        NumberContext accuracy = this.getAccuracyContext();
+
+        KrylovSubspaceSolver.residual(transposed, rhs, solution, basis[0]);
+        double normErr = KrylovSubspaceSolver.norm(basis[0]);
+
+        while ((iterations < limit) && !Double.isNaN(normErr) && !accuracy.isSmall(normRHS, normErr)) {
+
+            double beta = normErr;
+            for (int i = 0; i < dim; i++) {
+                basis[0][i] /= beta;
+            }
+            projected[0] = beta;
+            for (int i = 1; i <= restart; i++) {
+                projected[i] = ZERO;
+            }
+
+            int size = 0;
+            boolean lucky = false;
+
+            while ((size < restart) && (iterations < limit) && !lucky && !accuracy.isSmall(normRHS, normErr)) {
+
+                int j = size;
+                double[] next = basis[j + 1];
+
+                preconditioner.apply(basis[j], preconditioned);
+                transposed.multiplyTransposed(preconditioned, next);
+
+                for (int i = 0; i <= j; i++) {
+                    double[] vector = basis[i];
+                    double h = KrylovSubspaceSolver.dot(next, vector);
+                    hessenberg[i][j] = h;
+                    for (int k = 0; k < dim; k++) {
+                        next[k] -= h * vector[k];
+                    }
+                }
+
+                double h = KrylovSubspaceSolver.norm(next);
+                hessenberg[j + 1][j] = h;
+                if (h > ZERO) {
+                    for (int k = 0; k < dim; k++) {
+                        next[k] /= h;
+                    }
+                } else {
+                    lucky = true;
+                }
+
+                for (int i = 0; i < j; i++) {
+                    double h0 = hessenberg[i][j];
+                    double h1 = hessenberg[i + 1][j];
+                    hessenberg[i][j] = cosines[i] * h0 + sines[i] * h1;
+                    hessenberg[i + 1][j] = -sines[i] * h0 + cosines[i] * h1;
+                }
+
+                double h0 = hessenberg[j][j];
+                double h1 = hessenberg[j + 1][j];
+                double r = HYPOT.invoke(h0, h1);
+                if (r != ZERO) {
+                    cosines[j] = h0 / r;
+                    sines[j] = h1 / r;
+                } else {
+                    cosines[j] = ONE;
+                    sines[j] = ZERO;
+                }
+                hessenberg[j][j] = r;
+                hessenberg[j + 1][j] = ZERO;
+
+                projected[j + 1] = -sines[j] * projected[j];
+                projected[j] = cosines[j] * projected[j];
+
+                normErr = Math.abs(projected[j + 1]);
+
+                size++;
+                iterations++;
+
+                if (this.isDebugPrinterSet()) {
+                    this.debug(iterations, normErr / normRHS, solution);
+                }
+            }
+
+            // Solve the (size x size) upper triangular system, and update the solution
+            for (int i = size - 1; i >= 0; i--) {
+                double sum = projected[i];
+                for (int k = i + 1; k < size; k++) {
+                    sum -= hessenberg[i][k] * coefficients[k];
+                }
+                double diagonal = hessenberg[i][i];
+                coefficients[i] = diagonal != ZERO ? sum / diagonal : ZERO;
+            }
+
+            for (int k = 0; k < dim; k++) {
+                correction[k] = ZERO;
+            }
+            for (int i = 0; i < size; i++) {
+                double coefficient = coefficients[i];
+                double[] vector = basis[i];
+                for (int k = 0; k < dim; k++) {
+                    correction[k] += coefficient * vector[k];
+                }
+            }
+            preconditioner.apply(correction, preconditioned);
+            for (int k = 0; k < dim; k++) {
+                solution[k] += preconditioned[k];
+            }
+
+            // The true residual – the estimate may drift (a little)
+            KrylovSubspaceSolver.residual(transposed, rhs, solution, basis[0]);
+            normErr = KrylovSubspaceSolver.norm(basis[0]);
+
+            if (lucky || !(normErr < beta)) {
+                // Exact, or no progress, in this Krylov subspace – restarting would not help
+                break;
+            }
+        }
+
+        return normErr / normRHS;
+    }
+
+}
@@ -23,23 +23,143 @@ package org.ojalgo.matrix.task.iterative;
 
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.ojalgo.RecoverableCondition;
+import org.ojalgo.concurrent.DivideAndConquer;
 import org.ojalgo.equation.Equation;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.ElementView1D;
 import org.ojalgo.type.context.NumberContext;
 
+/**
+ * Gauss-Seidel (with relaxation, SOR) iterative solver. By default the equations are swept sequentially in
+ * the given order. In multicolour mode the equations are first coloured so that no 2 equations of the same
+ * colour reference each other's variables. The equations of each colour can then be updated in parallel, one
+ * colour at the time. (For the usual 5-point stencil that is red-black ordering.) The ordering is different,
+ * so the iterates are different, but they do not depend on the number of threads.
+ *
+ * @author apete
+ */
 public final class GaussSeidelSolver extends StationaryIterativeSolver implements IterativeSolverTask.SparseDelegate {
 
+    /**
+     * The minimum number of equations (of one colour) per thread when doing multicolour sweeps in parallel.
+     */
+    public static int THRESHOLD = 256;
+
+    /**
+     * Greedy colouring of the equations, in the order they are given.
+     *
+     * @return For each colour, the positions (in the list) of the equations with that colour
+     */
+    static int[][] colour(final List<Equation> equations, final int dim) {
+
+        int nbEquations = equations.size();
+
+        int[] position = new int[dim];
+        Arrays.fill(position, -1);
+        for (int p = 0; p < nbEquations; p++) {
+            position[equations.get(p).index] = p;
+        }
+
+        // Which (other) equations each equation references, and is referenced by
+        int[] pointers = new int[nbEquations + 1];
+        int[] reversePointers = new int[nbEquations + 1];
+        for (int p = 0; p < nbEquations; p++) {
+            Equation row = equations.get(p);
+            ElementView1D<Double, ?> nonzeros = row.nonzeros();
+            while (nonzeros.hasNext()) {
+                nonzeros.next();
+                long j = nonzeros.index();
+                if (j != row.index && j < dim && position[(int) j] >= 0) {
+                    pointers[p + 1]++;
+                    reversePointers[position[(int) j] + 1]++;
+                }
+            }
+        }
+        for (int p = 0; p < nbEquations; p++) {
+            pointers[p + 1] += pointers[p];
+            reversePointers[p + 1] += reversePointers[p];
+        }
+
+        int[] neighbours = new int[pointers[nbEquations]];
+        int[] reverseNeighbours = new int[reversePointers[nbEquations]];
+        int[] next = Arrays.copyOf(reversePointers, nbEquations);
+        for (int p = 0, k = 0; p < nbEquations; p++) {
+            Equation row = equations.get(p);
+            ElementView1D<Double, ?> nonzeros = row.nonzeros();
+            while (nonzeros.hasNext()) {
+                nonzeros.next();
+                long j = nonzeros.index();
+                if (j != row.index && j < dim && position[(int) j] >= 0) {
+                    int q = position[(int) j];
+                    neighbours[k++] = q;
+                    reverseNeighbours[next[q]++] = p;
+                }
+            }
+        }
+
+        int[] colours = new int[nbEquations];
+        int[] counts = new int[nbEquations + 1];
+        int[] taken = new int[nbEquations + 1];
+        Arrays.fill(taken, -1);
+        int nbColours = 0;
+
+        for (int p = 0; p < nbEquations; p++) {
+            for (int k = pointers[p]; k < pointers[p + 1]; k++) {
+                int q = neighbours[k];
+                if (q < p) {
+                    taken[colours[q]] = p;
+                }
+            }
+            for (int k = reversePointers[p]; k < reversePointers[p + 1]; k++) {
+                int q = reverseNeighbours[k];
+                if (q < p) {
+                    taken[colours[q]] = p;
+                }
+            }
+            int c = 0;
+            while (taken[c] == p) {
+                c++;
+            }
+            colours[p] = c;
+            counts[c]++;
+            nbColours = Math.max(nbColours, c + 1);
+        }
+
+        int[][] retVal = new int[nbColours][];
+        for (int c = 0; c < nbColours; c++) {
+            retVal[c] = new int[counts[c]];
+            counts[c] = 0;
+        }
+        for (int p = 0; p < nbEquations; p++) {
+            int c = colours[p];
+            retVal[c][counts[c]++] = p;
+        }
+
+        return retVal;
+    }
+
+    private boolean myMulticolour = false;
+
     public GaussSeidelSolver() {
         super();
     }
 
+    public boolean isMulticolour() {
+        return myMulticolour;
+    }
+
     public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
 
+        if (myMulticolour) {
+            return this.resolveMulticolour(equations, solution);
+        }
+
         double tmpNormErr = POSITIVE_INFINITY;
         double tmpNormRHS = ZERO;
 
@@ -72,6 +192,13 @@ public final class GaussSeidelSolver extends StationaryIterativeSolver implement
         return tmpNormErr / tmpNormRHS;
     }
 
+    /**
+     * Switch multicolour (parallel) mode on/off.
+     */
+    public void setMulticolour(final boolean multicolour) {
+        myMulticolour = multicolour;
+    }
+
     public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> current) throws RecoverableCondition {
 
         final List<Equation> equations = IterativeSolverTask.toListOfRows(body, rhs);
@@ -81,4 +208,69 @@ public final class GaussSeidelSolver extends StationaryIterativeSolver implement
         return current;
     }
 
+    private double resolveMulticolour(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        double tmpNormErr = POSITIVE_INFINITY;
+        double tmpNormRHS = ZERO;
+
+        final int tmpCountRows = equations.size();
+        for (int r = 0; r < tmpCountRows; r++) {
+            tmpNormRHS = HYPOT.invoke(tmpNormRHS, equations.get(r).getRHS());
+        }
+
+        final int[][] tmpColours = GaussSeidelSolver.colour(equations, Math.toIntExact(solution.count()));
+        final double[] tmpErrors = new double[tmpCountRows];
+
+        int tmpIterations = 0;
+        final int tmpLimit = this.getIterationsLimit();
+        final NumberContext tmpCntxt = this.getAccuracyContext();
+        final double tmpRelaxationFactor = this.getRelaxationFactor();
+
+        do {
+
+            for (int c = 0; c < tmpColours.length; c++) {
+
+                final int[] tmpPositions = tmpColours[c];
+
+                if (tmpPositions.length > THRESHOLD) {
+
+                    final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                        @Override
+                        protected void conquer(final int first, final int limit) {
+                            for (int i = first; i < limit; i++) {
+                                final int p = tmpPositions[i];
+                                tmpErrors[p] = equations.get(p).adjust(solution, tmpRelaxationFactor);
+                            }
+                        }
+
+                    };
+
+                    tmpConquerer.invoke(0, tmpPositions.length, THRESHOLD);
+
+                } else {
+
+                    for (int i = 0; i < tmpPositions.length; i++) {
+                        final int p = tmpPositions[i];
+                        tmpErrors[p] = equations.get(p).adjust(solution, tmpRelaxationFactor);
+                    }
+                }
+            }
+
+            tmpNormErr = ZERO;
+            for (int r = 0; r < tmpCountRows; r++) {
+                tmpNormErr = HYPOT.invoke(tmpNormErr, tmpErrors[r]);
+            }
+
+            tmpIterations++;
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(tmpIterations, tmpNormErr / tmpNormRHS, solution);
+            }
+
+        } while ((tmpIterations < tmpLimit) && !tmpCntxt.isSmall(tmpNormRHS, tmpNormErr));
+
+        return tmpNormErr / tmpNormRHS;
+    }
+
 }
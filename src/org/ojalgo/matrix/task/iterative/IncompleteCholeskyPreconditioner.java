@@ -0,0 +1,185 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import org.ojalgo.matrix.store.CompressedSparseStore;
+
+/**
+ * IC(0) – M = L L<sup>T</sup> where L has the same sparsity pattern as the lower triangular part of A. A is
+ * assumed to be symmetric – only its upper triangular part (by columns) is read. L is stored row-wise with
+ * the diagonal element last in each row.
+ * <p>
+ * Should the factorisation break down (non-positive pivot) it is restarted with the diagonal of A scaled by
+ * (1 + shift) and an increasing shift.
+ *
+ * @author apete
+ */
+final class IncompleteCholeskyPreconditioner implements IterativeSolverTask.Preconditioner {
+
+    private static final int MAX_ATTEMPTS = 16;
+    private static final double SHIFT = 0.001;
+
+    private int[] myIndices = null;
+    private int[] myPointers = null;
+    private double[] myValues = null;
+
+    IncompleteCholeskyPreconditioner() {
+        super();
+    }
+
+    public void apply(final double[] residual, final double[] preconditioned) {
+
+        int[] pointers = myPointers;
+        int[] indices = myIndices;
+        double[] values = myValues;
+        int dim = pointers.length - 1;
+
+        // L y = r
+        for (int i = 0; i < dim; i++) {
+            int diag = pointers[i + 1] - 1;
+            double sum = residual[i];
+            for (int k = pointers[i]; k < diag; k++) {
+                sum -= values[k] * preconditioned[indices[k]];
+            }
+            preconditioned[i] = sum / values[diag];
+        }
+
+        // LT z = y
+        for (int i = dim - 1; i >= 0; i--) {
+            int diag = pointers[i + 1] - 1;
+            double zi = preconditioned[i] / values[diag];
+            preconditioned[i] = zi;
+            for (int k = pointers[i]; k < diag; k++) {
+                preconditioned[indices[k]] -= values[k] * zi;
+            }
+        }
+    }
+
+    public void prepare(final CompressedSparseStore body) {
+
+        int dim = Math.toIntExact(body.countColumns());
+
+        // Symmetric, so the (sorted) column j also holds row j
+        int[] colPointers = body.getColPointers();
+        int[] rowIndices = body.getRowIndices();
+        double[] colValues = body.getValues();
+
+        int[] pointers = new int[dim + 1];
+        for (int j = 0; j < dim; j++) {
+            int count = 1; // Always a diagonal element
+            for (int k = colPointers[j], limit = colPointers[j + 1]; k < limit && rowIndices[k] < j; k++) {
+                count++;
+            }
+            pointers[j + 1] = pointers[j] + count;
+        }
+
+        int[] indices = new int[pointers[dim]];
+        double[] original = new double[pointers[dim]];
+
+        for (int j = 0; j < dim; j++) {
+            int p = pointers[j];
+            int k = colPointers[j];
+            for (int limit = colPointers[j + 1]; k < limit && rowIndices[k] < j; k++) {
+                indices[p] = rowIndices[k];
+                original[p] = colValues[k];
+                p++;
+            }
+            double diagonal = k < colPointers[j + 1] && rowIndices[k] == j ? colValues[k] : ZERO;
+            indices[p] = j;
+            // Rows without a (positive) diagonal element are not preconditioned
+            original[p] = diagonal > ZERO ? diagonal : ONE;
+        }
+
+        myPointers = pointers;
+        myIndices = indices;
+        myValues = new double[original.length];
+
+        double shift = ZERO;
+        for (int a = 1; !this.factorise(original, shift, a == MAX_ATTEMPTS); a++) {
+            shift = shift == ZERO ? SHIFT : TWO * shift;
+        }
+    }
+
+    private boolean factorise(final double[] original, final double shift, final boolean force) {
+
+        int[] pointers = myPointers;
+        int[] indices = myIndices;
+        double[] values = myValues;
+        int dim = pointers.length - 1;
+
+        System.arraycopy(original, 0, values, 0, original.length);
+
+        for (int i = 0; i < dim; i++) {
+
+            int first = pointers[i];
+            int diag = pointers[i + 1] - 1;
+
+            double sumOfSquares = ZERO;
+
+            for (int p = first; p < diag; p++) {
+
+                int j = indices[p];
+                int diagJ = pointers[j + 1] - 1;
+
+                // L[i,j] = (A[i,j] - L[i,0:j] . L[j,0:j]) / L[j,j]
+                double sum = values[p];
+                int pi = first;
+                int pj = pointers[j];
+                while (pi < p && pj < diagJ) {
+                    int ci = indices[pi];
+                    int cj = indices[pj];
+                    if (ci < cj) {
+                        pi++;
+                    } else if (ci > cj) {
+                        pj++;
+                    } else {
+                        sum -= values[pi++] * values[pj++];
+                    }
+                }
+
+                double value = sum / values[diagJ];
+                values[p] = value;
+                sumOfSquares += value * value;
+            }
+
+            double pivot = values[diag] * (ONE + shift) - sumOfSquares;
+
+            if (!(pivot > ZERO) || Double.isInfinite(pivot)) {
+                if (!force) {
+                    return false;
+                }
+                // Give up and fall back to (scaled) diagonal preconditioning for this row
+                for (int p = first; p < diag; p++) {
+                    values[p] = ZERO;
+                }
+                pivot = values[diag];
+            }
+
+            values[diag] = SQRT.invoke(pivot);
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.matrix.store.CompressedSparseStore;
+
+/**
+ * ILU(0) – M = L U where L (unit lower triangular) and U (upper triangular) together have the same sparsity
+ * pattern as A. Both are stored, overwriting a copy of A, row-wise with the columns in increasing order.
+ * Missing diagonal elements are added, and (near) zero pivots replaced by something small but nonzero.
+ *
+ * @author apete
+ */
+final class IncompleteLUPreconditioner implements IterativeSolverTask.Preconditioner {
+
+    private int[] myDiagonal = null;
+    private int[] myIndices = null;
+    private int[] myPointers = null;
+    private double[] myValues = null;
+
+    IncompleteLUPreconditioner() {
+        super();
+    }
+
+    public void apply(final double[] residual, final double[] preconditioned) {
+
+        int[] pointers = myPointers;
+        int[] indices = myIndices;
+        double[] values = myValues;
+        int[] diagonal = myDiagonal;
+        int dim = diagonal.length;
+
+        // L y = r
+        for (int i = 0; i < dim; i++) {
+            double sum = residual[i];
+            for (int k = pointers[i], limit = diagonal[i]; k < limit; k++) {
+                sum -= values[k] * preconditioned[indices[k]];
+            }
+            preconditioned[i] = sum;
+        }
+
+        // U z = y
+        for (int i = dim - 1; i >= 0; i--) {
+            int diag = diagonal[i];
+            double sum = preconditioned[i];
+            for (int k = diag + 1, limit = pointers[i + 1]; k < limit; k++) {
+                sum -= values[k] * preconditioned[indices[k]];
+            }
+            preconditioned[i] = sum / values[diag];
+        }
+    }
+
+    public void prepare(final CompressedSparseStore body) {
+
+        int dim = Math.toIntExact(body.countRows());
+
+        // The columns of the transpose are the (sorted) rows of the body
+        CompressedSparseStore transposed = body.transpose();
+        int[] rowPointers = transposed.getColPointers();
+        int[] colIndices = transposed.getRowIndices();
+        double[] rowValues = transposed.getValues();
+
+        int[] pointers = new int[dim + 1];
+        for (int i = 0; i < dim; i++) {
+            int count = rowPointers[i + 1] - rowPointers[i];
+            if (transposed.doubleValue(i, i) == ZERO) {
+                count++; // Structural zeros are not stored, so the diagonal element must be added
+            }
+            pointers[i + 1] = pointers[i] + count;
+        }
+
+        int[] indices = new int[pointers[dim]];
+        double[] values = new double[pointers[dim]];
+        int[] diagonal = new int[dim];
+
+        for (int i = 0; i < dim; i++) {
+            int p = pointers[i];
+            boolean added = false;
+            for (int k = rowPointers[i], limit = rowPointers[i + 1]; k < limit; k++) {
+                int j = colIndices[k];
+                if (!added && j > i) {
+                    diagonal[i] = p;
+                    indices[p++] = i;
+                    added = true;
+                }
+                if (j == i) {
+                    diagonal[i] = p;
+                    added = true;
+                }
+                indices[p] = j;
+                values[p] = rowValues[k];
+                p++;
+            }
+            if (!added) {
+                diagonal[i] = p;
+                indices[p] = i;
+            }
+        }
+
+        int[] position = new int[dim];
+        Arrays.fill(position, -1);
+
+        for (int i = 0; i < dim; i++) {
+
+            int first = pointers[i];
+            int limit = pointers[i + 1];
+            int diag = diagonal[i];
+
+            double largest = ZERO;
+            for (int k = first; k < limit; k++) {
+                position[indices[k]] = k;
+                largest = Math.max(largest, Math.abs(values[k]));
+            }
+
+            for (int p = first; p < diag; p++) {
+
+                int j = indices[p];
+
+                double factor = values[p] / values[diagonal[j]];
+                values[p] = factor;
+
+                for (int q = diagonal[j] + 1, limitJ = pointers[j + 1]; q < limitJ; q++) {
+                    int pos = position[indices[q]];
+                    if (pos >= 0) {
+                        values[pos] -= factor * values[q];
+                    }
+                }
+            }
+
+            double pivot = values[diag];
+            double small = largest > ZERO ? largest * RELATIVELY_SMALL : ONE;
+            if (Math.abs(pivot) < small) {
+                values[diag] = pivot < ZERO ? -small : small;
+            }
+
+            for (int k = first; k < limit; k++) {
+                position[indices[k]] = -1;
+            }
+        }
+
+        myPointers = pointers;
+        myIndices = indices;
+        myValues = values;
+        myDiagonal = diagonal;
+    }
+
+}
@@ -31,6 +31,7 @@ import java.util.Optional;
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.array.Array1D;
 import org.ojalgo.equation.Equation;
+import org.ojalgo.matrix.store.CompressedSparseStore;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.Primitive64Store;
@@ -87,6 +88,57 @@ public abstract class IterativeSolverTask implements SolverTask<Double> {
             return this;
         }
 
+        /**
+         * Only used by the Krylov subspace solvers ({@link ConjugateGradientSolver}, {@link GMRESSolver} and
+         * {@link BiCGSTABSolver}) – ignored by the others.
+         */
+        public Configurator preconditioner(final Preconditioner preconditioner) {
+            if (mySolver instanceof KrylovSubspaceSolver) {
+                ((KrylovSubspaceSolver) mySolver).setPreconditioner(preconditioner);
+            }
+            return this;
+        }
+
+    }
+
+    /**
+     * Approximates the inverse of the body matrix, M<sup>-1</sup> ≈ A<sup>-1</sup>. A preconditioner is
+     * stateful – {@link #prepare(CompressedSparseStore)} is called once per solve and then
+     * {@link #apply(double[], double[])} once or twice per iteration – so don't share instances between
+     * solvers that may be used concurrently.
+     */
+    public interface Preconditioner {
+
+        /**
+         * Incomplete Cholesky factorisation with no fill-in, IC(0). Only for symmetric positive definite
+         * bodies. If the factorisation breaks down the diagonal is shifted (increasingly) until it doesn't.
+         */
+        static Preconditioner newIncompleteCholesky() {
+            return new IncompleteCholeskyPreconditioner();
+        }
+
+        /**
+         * Incomplete LU factorisation with no fill-in, ILU(0). Works for any square body with a (mostly)
+         * nonzero diagonal.
+         */
+        static Preconditioner newIncompleteLU() {
+            return new IncompleteLUPreconditioner();
+        }
+
+        /**
+         * Diagonal scaling – cheap and always applicable, but the least effective.
+         */
+        static Preconditioner newJacobi() {
+            return new JacobiPreconditioner();
+        }
+
+        /**
+         * preconditioned = M<sup>-1</sup> residual
+         */
+        void apply(double[] residual, double[] preconditioned);
+
+        void prepare(CompressedSparseStore body);
+
     }
 
     public interface SparseDelegate {
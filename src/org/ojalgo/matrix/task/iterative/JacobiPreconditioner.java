@@ -0,0 +1,58 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import org.ojalgo.matrix.store.CompressedSparseStore;
+
+/**
+ * M = diag(A)
+ *
+ * @author apete
+ */
+final class JacobiPreconditioner implements IterativeSolverTask.Preconditioner {
+
+    private double[] myDiagonal = null;
+
+    JacobiPreconditioner() {
+        super();
+    }
+
+    public void apply(final double[] residual, final double[] preconditioned) {
+        for (int i = 0; i < myDiagonal.length; i++) {
+            preconditioned[i] = residual[i] / myDiagonal[i];
+        }
+    }
+
+    public void prepare(final CompressedSparseStore body) {
+
+        myDiagonal = new double[Math.toIntExact(Math.min(body.countRows(), body.countColumns()))];
+
+        for (int i = 0; i < myDiagonal.length; i++) {
+            double diagonal = body.doubleValue(i, i);
+            // Rows without a diagonal element are left as they are
+            myDiagonal[i] = diagonal != ZERO ? diagonal : ONE;
+        }
+    }
+
+}
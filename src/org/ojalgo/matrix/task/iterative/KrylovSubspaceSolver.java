@@ -21,10 +21,197 @@
  */
 package org.ojalgo.matrix.task.iterative;
 
-abstract class KrylovSubspaceSolver extends IterativeSolverTask {
+import static org.ojalgo.function.constant.PrimitiveMath.*;
 
-    protected KrylovSubspaceSolver() {
+import java.util.List;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.equation.Equation;
+import org.ojalgo.matrix.store.CompressedSparseStore;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.scalar.PrimitiveScalar;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+
+/**
+ * The Krylov subspace solvers all work on a {@link CompressedSparseStore} body (anything else is converted), and are preconditioned by a
+ * {@link IterativeSolverTask.Preconditioner} (Jacobi by default).
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Krylov_subspace">Krylov subspace</a>
+ * @author apete
+ */
+public abstract class KrylovSubspaceSolver extends IterativeSolverTask implements IterativeSolverTask.SparseDelegate {
+
+    static CompressedSparseStore compress(final Access2D<?> body, final int dim) {
+
+        if ((body instanceof CompressedSparseStore) && (body.countRows() == dim) && (body.countColumns() == dim)) {
+            return (CompressedSparseStore) body;
+        }
+
+        if ((body instanceof SparseStore) && (body.countRows() == dim) && (body.countColumns() == dim)) {
+            return ((SparseStore<?>) body).compress();
+        }
+
+        if ((body.countRows() > dim) || (body.countColumns() != dim)) {
+            throw new IllegalArgumentException("Over-determined systems are not supported!");
+        }
+
+        // Fat bodies are padded with empty rows
+        SparseStore<Double> sparse = SparseStore.PRIMITIVE64.make(dim, dim);
+
+        if (body instanceof SparseStore) {
+            ((SparseStore<?>) body).nonzeros().forEach(element -> sparse.set(element.row(), element.column(), element.doubleValue()));
+        } else {
+            for (int j = 0; j < dim; j++) {
+                for (int i = 0, limit = Math.toIntExact(body.countRows()); i < limit; i++) {
+                    double value = body.doubleValue(i, j);
+                    if (!PrimitiveScalar.isSmall(ONE, value)) {
+                        sparse.set(i, j, value);
+                    }
+                }
+            }
+        }
+
+        return sparse.compress();
+    }
+
+    static CompressedSparseStore compress(final List<Equation> equations, final int dim) {
+
+        SparseStore<Double> sparse = SparseStore.PRIMITIVE64.make(dim, dim);
+
+        for (Equation row : equations) {
+            row.nonzeros().forEach(element -> sparse.set(row.index, element.index(), element.doubleValue()));
+        }
+
+        return sparse.compress();
+    }
+
+    static double dot(final double[] vector1, final double[] vector2) {
+        double retVal = ZERO;
+        for (int i = 0; i < vector1.length; i++) {
+            retVal += vector1[i] * vector2[i];
+        }
+        return retVal;
+    }
+
+    static double norm(final double[] vector) {
+        return SQRT.invoke(KrylovSubspaceSolver.dot(vector, vector));
+    }
+
+    /**
+     * residual = rhs - body * solution
+     *
+     * @param transposed The transpose of the body
+     */
+    static void residual(final CompressedSparseStore transposed, final double[] rhs, final double[] solution, final double[] residual) {
+        transposed.multiplyTransposed(solution, residual);
+        for (int i = 0; i < residual.length; i++) {
+            residual[i] = rhs[i] - residual[i];
+        }
+    }
+
+    private IterativeSolverTask.Preconditioner myPreconditioner;
+    private transient double[][] myWork = new double[0][];
+
+    KrylovSubspaceSolver(final IterativeSolverTask.Preconditioner preconditioner) {
         super();
+        myPreconditioner = preconditioner != null ? preconditioner : IterativeSolverTask.Preconditioner.newJacobi();
+    }
+
+    public final IterativeSolverTask.Preconditioner getPreconditioner() {
+        return myPreconditioner;
+    }
+
+    /**
+     * Solve [body][solution] = [rhs] using the current contents of solution as the starting point.
+     *
+     * @return The relative error, |[rhs] - [body][solution]| / |[rhs]|
+     */
+    public final double resolve(final CompressedSparseStore body, final double[] rhs, final PhysicalStore<Double> solution) {
+
+        int dim = Math.toIntExact(solution.count());
+
+        if (body.countRows() != dim || body.countColumns() != dim) {
+            throw new IllegalArgumentException("The body must be square and match the solution!");
+        }
+
+        double[] current = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            current[i] = solution.doubleValue(i);
+        }
+
+        myPreconditioner.prepare(body);
+
+        // The columns of the transpose are the rows of the body – the matrix-vector multiplications are then
+        // independent sparse dot products, done in parallel for large systems.
+        double retVal = this.iterate(body.transpose(), rhs, current, myPreconditioner);
+
+        for (int i = 0; i < dim; i++) {
+            solution.set(i, current[i]);
+        }
+
+        return retVal;
+    }
+
+    public final double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        int dim = Math.toIntExact(solution.count());
+
+        double[] rhs = new double[dim];
+        for (Equation row : equations) {
+            rhs[row.index] = row.getRHS();
+        }
+
+        return this.resolve(KrylovSubspaceSolver.compress(equations, dim), rhs, solution);
+    }
+
+    public final void setPreconditioner(final IterativeSolverTask.Preconditioner preconditioner) {
+        myPreconditioner = preconditioner != null ? preconditioner : IterativeSolverTask.Preconditioner.newJacobi();
+    }
+
+    public final MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated)
+            throws RecoverableCondition {
+
+        int dim = Math.toIntExact(preallocated.count());
+
+        CompressedSparseStore tmpBody = KrylovSubspaceSolver.compress(body, dim);
+
+        double[] tmpRHS = new double[dim];
+        for (int i = 0, limit = Math.toIntExact(body.countRows()); i < limit; i++) {
+            tmpRHS[i] = rhs.doubleValue(i);
+        }
+
+        this.resolve(tmpBody, tmpRHS, preallocated);
+
+        return preallocated;
+    }
+
+    final void debug(final int iteration, final double error, final double[] current) {
+        this.debug(iteration, error, Access1D.wrap(current));
+    }
+
+    /**
+     * @param transposed The transpose of the body (multiply using
+     *        {@link CompressedSparseStore#multiplyTransposed(double[], double[])})
+     * @return The relative error
+     */
+    abstract double iterate(CompressedSparseStore transposed, double[] rhs, double[] solution, IterativeSolverTask.Preconditioner preconditioner);
+
+    /**
+     * Reusable work vector – each index a different vector, the contents are undefined.
+     */
+    final double[] work(final int index, final int dim) {
+        if (myWork.length <= index) {
+            double[][] tmpWork = new double[index + 1][];
+            System.arraycopy(myWork, 0, tmpWork, 0, myWork.length);
+            myWork = tmpWork;
+        }
+        if (myWork[index] == null || myWork[index].length != dim) {
+            myWork[index] = new double[dim];
+        }
+        return myWork[index];
     }
 
 }
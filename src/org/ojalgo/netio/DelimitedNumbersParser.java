@@ -0,0 +1,597 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.concurrent.Parallelism;
+import org.ojalgo.matrix.store.Primitive64Store;
+
+/**
+ * Parses delimited (CSV) numeric data straight in to a {@link Primitive64Store} – each line is a row and each
+ * delimited value a column. The numbers are parsed directly from the character data, no {@link String} is
+ * created per value. Files and {@link ByteBuffer}:s are split in to chunks, at line boundaries, that are
+ * parsed in parallel. A {@link Reader} is parsed sequentially.
+ * <p>
+ * Empty lines and lines starting with '#' are skipped. Missing or empty values are NaN, and any values
+ * beyond the specified number of columns are ignored. Values may be quoted, but a quoted value can not
+ * contain the delimiter. Bytes are interpreted as ASCII (ISO-8859-1).
+ *
+ * @author apete
+ */
+public final class DelimitedNumbersParser {
+
+    public static final class Builder implements Supplier<DelimitedNumbersParser> {
+
+        private int myChunkSize = CHUNK_SIZE;
+        private char myDelimiter = ',';
+        private final int myNumberOfColumns;
+        private IntSupplier myParallelism = Parallelism.LOWER;
+        private boolean mySkipHeader = false;
+
+        Builder(final int numberOfColumns) {
+
+            super();
+
+            myNumberOfColumns = numberOfColumns;
+        }
+
+        public Builder delimiter(final char delimiter) {
+            myDelimiter = delimiter;
+            return this;
+        }
+
+        public DelimitedNumbersParser get() {
+            return new DelimitedNumbersParser(myNumberOfColumns, myDelimiter, mySkipHeader, myParallelism, myChunkSize);
+        }
+
+        public Builder parallelism(final IntSupplier parallelism) {
+            myParallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Skip the first line
+         */
+        public Builder skipHeader() {
+            mySkipHeader = true;
+            return this;
+        }
+
+        Builder chunk(final int size) {
+            myChunkSize = size;
+            return this;
+        }
+
+    }
+
+    /**
+     * The rows parsed from one chunk, stored row-major as they're parsed.
+     */
+    static final class Rows {
+
+        private final int myColumns;
+        private int myRows = 0;
+        private double[] myValues;
+
+        Rows(final int columns, final int expectedRows) {
+
+            super();
+
+            myColumns = columns;
+            myValues = new double[Math.max(1, expectedRows) * columns];
+        }
+
+        void copyTo(final Primitive64Store destination, final int firstRow) {
+            double[] data = destination.data;
+            int structure = Math.toIntExact(destination.countRows());
+            for (int j = 0; j < myColumns; j++) {
+                int base = firstRow + (j * structure);
+                for (int i = 0; i < myRows; i++) {
+                    data[base + i] = myValues[(i * myColumns) + j];
+                }
+            }
+        }
+
+        int count() {
+            return myRows;
+        }
+
+        /**
+         * @return The offset (index) of the new row – initialised to all NaN
+         */
+        int newRow() {
+            int offset = myRows * myColumns;
+            if ((offset + myColumns) > myValues.length) {
+                myValues = Arrays.copyOf(myValues, Math.max(myValues.length * 2, offset + myColumns));
+            }
+            Arrays.fill(myValues, offset, offset + myColumns, Double.NaN);
+            myRows++;
+            return offset;
+        }
+
+        void set(final int index, final double value) {
+            myValues[index] = value;
+        }
+
+    }
+
+    static final int CHUNK_SIZE = 1 << 24;
+
+    private static final char COMMENT = '#';
+    private static final char LF = '\n';
+    private static final int MAX_DIGITS = 15;
+    private static final int MAX_EXACT_POWER = 22;
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER + 1];
+    private static final char QUOTE = '"';
+    private static final int READER_BUFFER = 1 << 16;
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int p = 1; p < POWERS_OF_TEN.length; p++) {
+            POWERS_OF_TEN[p] = POWERS_OF_TEN[p - 1] * 10.0;
+        }
+    }
+
+    public static DelimitedNumbersParser.Builder make(final int numberOfColumns) {
+        return new DelimitedNumbersParser.Builder(numberOfColumns);
+    }
+
+    /**
+     * Parses a number from the characters in [first, limit). Surrounding white space and quotes are ignored.
+     * Numbers with at most 15 significant digits and a (decimal) exponent within ±22 are calculated
+     * directly, and exactly, from the digits. Anything else (more digits, larger exponents, "NaN",
+     * "Infinity"...) is delegated to {@link Double#parseDouble(String)}.
+     *
+     * @return The parsed value, or NaN if there's nothing there
+     */
+    public static double parseDouble(final char[] chars, final int first, final int limit) {
+
+        int from = first;
+        int to = limit;
+
+        while ((from < to) && DelimitedNumbersParser.isPadding(chars[from])) {
+            from++;
+        }
+        while ((to > from) && DelimitedNumbersParser.isPadding(chars[to - 1])) {
+            to--;
+        }
+        if (from == to) {
+            return Double.NaN;
+        }
+
+        int i = from;
+
+        boolean negative = false;
+        if (chars[i] == '-') {
+            negative = true;
+            i++;
+        } else if (chars[i] == '+') {
+            i++;
+        }
+
+        long mantissa = 0L;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+
+        char c;
+        while ((i < to) && ((c = chars[i]) >= '0') && (c <= '9')) {
+            if (digits < MAX_DIGITS) {
+                mantissa = (10L * mantissa) + (c - '0');
+                if (mantissa != 0L) {
+                    digits++;
+                }
+            } else {
+                digits++;
+                exponent++;
+            }
+            any = true;
+            i++;
+        }
+
+        if ((i < to) && (chars[i] == '.')) {
+            i++;
+            while ((i < to) && ((c = chars[i]) >= '0') && (c <= '9')) {
+                if (digits < MAX_DIGITS) {
+                    mantissa = (10L * mantissa) + (c - '0');
+                    if (mantissa != 0L) {
+                        digits++;
+                    }
+                    exponent--;
+                } else if (c != '0') {
+                    digits++;
+                }
+                any = true;
+                i++;
+            }
+        }
+
+        if (any && (i < to) && ((chars[i] == 'e') || (chars[i] == 'E'))) {
+            i++;
+            boolean negativeExponent = false;
+            if ((i < to) && (chars[i] == '-')) {
+                negativeExponent = true;
+                i++;
+            } else if ((i < to) && (chars[i] == '+')) {
+                i++;
+            }
+            int value = 0;
+            boolean anyExponent = false;
+            while ((i < to) && ((c = chars[i]) >= '0') && (c <= '9')) {
+                if (value < 100_000) {
+                    value = (10 * value) + (c - '0');
+                }
+                anyExponent = true;
+                i++;
+            }
+            any = anyExponent;
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (any && (i == to) && (digits <= MAX_DIGITS) && (-MAX_EXACT_POWER <= exponent) && (exponent <= MAX_EXACT_POWER)) {
+            // Both the mantissa and the power of 10 are exact – the result is correctly rounded
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        } else {
+            try {
+                return Double.parseDouble(new String(chars, from, to - from));
+            } catch (NumberFormatException cause) {
+                return Double.NaN;
+            }
+        }
+    }
+
+    private static int after(final ByteBuffer data, final int position, final int limit) {
+        for (int i = position; i < limit; i++) {
+            if (data.get(i) == LF) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    private static long after(final FileChannel channel, final long position, final long limit) {
+        ByteBuffer window = ByteBuffer.allocate(1024);
+        long offset = position;
+        try {
+            while (offset < limit) {
+                window.clear();
+                int read = channel.read(window, offset);
+                if (read <= 0) {
+                    return limit;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (window.get(i) == LF) {
+                        return Math.min(offset + i + 1, limit);
+                    }
+                }
+                offset += read;
+            }
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+        return limit;
+    }
+
+    private static boolean isPadding(final char c) {
+        return (c == ' ') || (c == '\t') || (c == QUOTE);
+    }
+
+    private static char[] toChars(final ByteBuffer data, final int first, final int limit) {
+        char[] retVal = new char[limit - first];
+        for (int i = 0; i < retVal.length; i++) {
+            retVal[i] = (char) (data.get(first + i) & 0xFF);
+        }
+        return retVal;
+    }
+
+    private final int myChunkSize;
+    private final char myDelimiter;
+    private final int myNumberOfColumns;
+    private final IntSupplier myParallelism;
+    private final boolean mySkipHeader;
+
+    DelimitedNumbersParser(final int numberOfColumns, final char delimiter, final boolean skipHeader, final IntSupplier parallelism,
+            final int chunkSize) {
+
+        super();
+
+        myNumberOfColumns = numberOfColumns;
+        myDelimiter = delimiter;
+        mySkipHeader = skipHeader;
+        myParallelism = parallelism;
+        myChunkSize = chunkSize;
+    }
+
+    /**
+     * Parses the bytes from the buffer's position to its limit. The buffer's position is not changed.
+     */
+    public Primitive64Store parse(final ByteBuffer data) {
+
+        int first = data.position();
+        int limit = data.limit();
+
+        int[] boundaries = this.boundaries(first, limit, (position, end) -> DelimitedNumbersParser.after(data, (int) position, (int) end));
+
+        Rows[] chunks = this.parse(boundaries.length - 1, c -> {
+            char[] chars = DelimitedNumbersParser.toChars(data, boundaries[c], boundaries[c + 1]);
+            return this.parse(chars, c == 0);
+        });
+
+        return this.combine(chunks);
+    }
+
+    /**
+     * Memory maps the file, chunk by chunk, and parses the chunks in parallel. There is no limit on the file
+     * size (other than that the resulting matrix must fit in memory).
+     */
+    public Primitive64Store parse(final File file) {
+
+        try (RandomAccessFile source = new RandomAccessFile(file, "r"); FileChannel channel = source.getChannel()) {
+
+            long size = channel.size();
+
+            long[] boundaries = this.boundaries(size, position -> DelimitedNumbersParser.after(channel, position, size));
+
+            Rows[] chunks = this.parse(boundaries.length - 1, c -> {
+                try {
+                    ByteBuffer mapped = channel.map(MapMode.READ_ONLY, boundaries[c], boundaries[c + 1] - boundaries[c]);
+                    char[] chars = DelimitedNumbersParser.toChars(mapped, 0, mapped.limit());
+                    return this.parse(chars, c == 0);
+                } catch (IOException cause) {
+                    throw new RuntimeException(cause);
+                }
+            });
+
+            return this.combine(chunks);
+
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Reads and parses sequentially, using a (reused) character buffer. The reader is not closed.
+     */
+    public Primitive64Store parse(final Reader reader) {
+
+        Rows rows = new Rows(myNumberOfColumns, READER_BUFFER / (4 * myNumberOfColumns));
+
+        char[] buffer = new char[READER_BUFFER];
+        int filled = 0;
+        boolean header = mySkipHeader;
+
+        try {
+
+            int read;
+            while ((read = reader.read(buffer, filled, buffer.length - filled)) >= 0) {
+
+                filled += read;
+
+                int consumed = 0;
+                if (header) {
+                    int eol = this.indexOfLF(buffer, 0, filled);
+                    if (eol >= 0) {
+                        consumed = eol + 1;
+                        header = false;
+                    }
+                }
+                if (!header) {
+                    consumed = this.parse(buffer, consumed, filled, false, rows);
+                }
+
+                if (consumed == 0) {
+                    if (filled == buffer.length) {
+                        // A single line longer than the buffer
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                } else {
+                    System.arraycopy(buffer, consumed, buffer, 0, filled - consumed);
+                    filled -= consumed;
+                }
+            }
+
+            if (!header) {
+                this.parse(buffer, 0, filled, true, rows);
+            }
+
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+
+        return this.combine(new Rows[] { rows });
+    }
+
+    private long[] boundaries(final long size, final LongUnaryOperator after) {
+
+        long chunk = this.chunkSize(size);
+        int numberOfChunks = Math.toIntExact(Math.max(1L, (size + chunk - 1L) / chunk));
+
+        long[] retVal = new long[numberOfChunks + 1];
+        for (int c = 1; c < numberOfChunks; c++) {
+            retVal[c] = Math.max(retVal[c - 1], after.applyAsLong(c * chunk));
+        }
+        retVal[numberOfChunks] = size;
+
+        return retVal;
+    }
+
+    private int[] boundaries(final int first, final int limit, final LongBinaryOperator after) {
+
+        long[] relative = this.boundaries(limit - first, position -> after.applyAsLong(first + position, limit) - first);
+
+        int[] retVal = new int[relative.length];
+        for (int c = 0; c < retVal.length; c++) {
+            retVal[c] = first + (int) relative[c];
+        }
+
+        return retVal;
+    }
+
+    private long chunkSize(final long size) {
+        int parallelism = Math.max(1, myParallelism.getAsInt());
+        return Math.max(Math.min(myChunkSize, (size + parallelism - 1L) / parallelism), 1L);
+    }
+
+    private Primitive64Store combine(final Rows[] chunks) {
+
+        int[] offsets = new int[chunks.length + 1];
+        for (int c = 0; c < chunks.length; c++) {
+            offsets[c + 1] = offsets[c] + chunks[c].count();
+        }
+
+        Primitive64Store retVal = Primitive64Store.FACTORY.make(offsets[chunks.length], myNumberOfColumns);
+
+        if (chunks.length == 1) {
+            chunks[0].copyTo(retVal, 0);
+        } else {
+            DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    for (int c = first; c < limit; c++) {
+                        chunks[c].copyTo(retVal, offsets[c]);
+                    }
+                }
+
+            };
+            conquerer.invoke(0, chunks.length, 1);
+        }
+
+        return retVal;
+    }
+
+    private int indexOfLF(final char[] chars, final int first, final int limit) {
+        for (int i = first; i < limit; i++) {
+            if (chars[i] == LF) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses all complete (terminated) lines in [first, limit). If last is true the final line doesn't need to
+     * be terminated.
+     *
+     * @return The index after the last parsed line
+     */
+    private int parse(final char[] chars, final int first, final int limit, final boolean last, final Rows destination) {
+
+        int position = first;
+
+        while (position < limit) {
+
+            int eol = this.indexOfLF(chars, position, limit);
+            if (eol < 0) {
+                if (!last) {
+                    return position;
+                }
+                eol = limit;
+            }
+
+            int end = eol;
+            if ((end > position) && (chars[end - 1] == '\r')) {
+                end--;
+            }
+
+            if ((end > position) && (chars[position] != COMMENT)) {
+                this.parseLine(chars, position, end, destination);
+            }
+
+            position = eol + 1;
+        }
+
+        return Math.min(position, limit);
+    }
+
+    private Rows parse(final char[] chars, final boolean first) {
+
+        Rows retVal = new Rows(myNumberOfColumns, chars.length / (4 * myNumberOfColumns));
+
+        int start = 0;
+        if (first && mySkipHeader) {
+            int eol = this.indexOfLF(chars, 0, chars.length);
+            start = eol >= 0 ? eol + 1 : chars.length;
+        }
+
+        this.parse(chars, start, chars.length, true, retVal);
+
+        return retVal;
+    }
+
+    private Rows[] parse(final int numberOfChunks, final IntFunction<Rows> parser) {
+
+        Rows[] retVal = new Rows[numberOfChunks];
+
+        if (numberOfChunks == 1) {
+            retVal[0] = parser.apply(0);
+        } else {
+            DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    for (int c = first; c < limit; c++) {
+                        retVal[c] = parser.apply(c);
+                    }
+                }
+
+            };
+            conquerer.invoke(0, numberOfChunks, 1);
+        }
+
+        return retVal;
+    }
+
+    private void parseLine(final char[] chars, final int first, final int limit, final Rows destination) {
+
+        int offset = destination.newRow();
+
+        int column = 0;
+        int start = first;
+        for (int i = first; (i < limit) && (column < myNumberOfColumns); i++) {
+            if (chars[i] == myDelimiter) {
+                destination.set(offset + column, DelimitedNumbersParser.parseDouble(chars, start, i));
+                column++;
+                start = i + 1;
+            }
+        }
+        if (column < myNumberOfColumns) {
+            destination.set(offset + column, DelimitedNumbersParser.parseDouble(chars, start, limit));
+        }
+    }
+
+}
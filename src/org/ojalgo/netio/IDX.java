@@ -26,9 +26,11 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteOrder;
 
 import org.ojalgo.array.ArrayAnyD;
 import org.ojalgo.array.DenseArray;
+import org.ojalgo.array.MappedArray;
 import org.ojalgo.array.Primitive32Array;
 import org.ojalgo.structure.Access2D;
 
@@ -39,6 +41,36 @@ import org.ojalgo.structure.Access2D;
  */
 public abstract class IDX {
 
+    /**
+     * Memory maps the file rather than reading/parsing it – nothing is read or copied until accessed. This is
+     * an O(1) operation regardless of file size. The elements are converted to double as they are accessed.
+     * The structure (indexing order) is the same as with {@link #parse(String)}.
+     */
+    public static MappedArray map(final String filePath) {
+
+        File file = new File(filePath);
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+            input.read();
+            input.read();
+            int type = input.read();
+            int rank = input.read();
+
+            long[] structure = new long[rank];
+            for (int i = 0; i < rank; i++) {
+                structure[rank - 1 - i] = input.readInt();
+            }
+
+            long position = 4L + (4L * rank);
+
+            return MappedArray.map(file, position, IDX.toElementType(type), ByteOrder.BIG_ENDIAN, structure);
+
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+    }
+
     public static ArrayAnyD<Double> parse(final String filePath) {
         return IDX.parse(filePath, Primitive32Array.FACTORY);
     }
@@ -70,7 +102,7 @@ public abstract class IDX {
                 case 0x0B:
                     data.set(i, input.readShort());
                     break;
-                case 0x0C8:
+                case 0x0C:
                     data.set(i, input.readInt());
                     break;
                 case 0x0D:
@@ -131,6 +163,25 @@ public abstract class IDX {
         }
     }
 
+    private static MappedArray.ElementType toElementType(final int type) {
+        switch (type) {
+        case 0x08:
+            return MappedArray.ElementType.UNSIGNED_BYTE;
+        case 0x09:
+            return MappedArray.ElementType.BYTE;
+        case 0x0B:
+            return MappedArray.ElementType.SHORT;
+        case 0x0C:
+            return MappedArray.ElementType.INT;
+        case 0x0D:
+            return MappedArray.ElementType.FLOAT;
+        case 0x0E:
+            return MappedArray.ElementType.DOUBLE;
+        default:
+            throw new IllegalArgumentException("Unknown element type!");
+        }
+    }
+
     private static void printPixel(final double gray, final BasicLogger.Printer printer, final double oneThird, final double twoThirds) {
         if (gray < oneThird) {
             printer.print(" ");
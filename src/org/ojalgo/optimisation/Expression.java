@@ -38,6 +38,7 @@ import org.ojalgo.function.UnaryFunction;
 import org.ojalgo.function.aggregator.AggregatorFunction;
 import org.ojalgo.function.aggregator.AggregatorSet;
 import org.ojalgo.function.aggregator.BigAggregator;
+import org.ojalgo.function.aggregator.PrimitiveAggregator;
 import org.ojalgo.function.constant.BigMath;
 import org.ojalgo.function.constant.PrimitiveMath;
 import org.ojalgo.function.multiary.ConstantFunction;
@@ -76,7 +77,7 @@ import org.ojalgo.structure.Structure2D.IntRowColumn;
 public final class Expression extends ModelEntity<Expression> {
 
     private transient boolean myInfeasible = false;
-    private final HashMap<IntIndex, BigDecimal> myLinear;
+    private final IndexedFactors myLinear;
     private final ExpressionsBasedModel myModel;
     private final HashMap<IntRowColumn, BigDecimal> myQuadratic;
     private transient boolean myRedundant = false;
@@ -100,8 +101,7 @@ public final class Expression extends ModelEntity<Expression> {
 
             myShallowCopy = false;
 
-            myLinear = new HashMap<>();
-            myLinear.putAll(expressionToCopy.getLinear());
+            myLinear = new IndexedFactors(expressionToCopy.getLinear());
 
             myQuadratic = new HashMap<>();
             myQuadratic.putAll(expressionToCopy.getQuadratic());
@@ -123,7 +123,7 @@ public final class Expression extends ModelEntity<Expression> {
 
         myShallowCopy = false;
 
-        myLinear = new HashMap<>();
+        myLinear = new IndexedFactors(model.options.exact);
         myQuadratic = new HashMap<>();
 
         ProgrammingError.throwIfNull(myModel, myLinear, myQuadratic);
@@ -181,22 +181,26 @@ public final class Expression extends ModelEntity<Expression> {
 
             BigDecimal tmpFixedValue = BigMath.ZERO;
 
-            for (final Entry<IntIndex, BigDecimal> tmpEntry : myLinear.entrySet()) {
+            for (int p = 0, limit = myLinear.size(); p < limit; p++) {
 
-                final IntIndex tmpKey = tmpEntry.getKey();
-                final BigDecimal tmpFactor = tmpEntry.getValue();
+                final IntIndex tmpKey = myLinear.key(p);
 
                 if (fixedVariables.contains(tmpKey)) {
                     // Fixed
 
                     final BigDecimal tmpValue = tmpModel.getVariable(tmpKey.index).getValue();
 
-                    tmpFixedValue = tmpFixedValue.add(tmpFactor.multiply(tmpValue));
+                    tmpFixedValue = tmpFixedValue.add(myLinear.get(p).multiply(tmpValue));
+
+                } else if (myLinear.isExact()) {
+                    // Not fixed
+
+                    retVal.set(tmpKey, myLinear.get(p));
 
                 } else {
                     // Not fixed
 
-                    retVal.set(tmpKey, tmpFactor);
+                    retVal.set(tmpKey, myLinear.doubleValue(p));
                 }
             }
 
@@ -339,7 +343,12 @@ public final class Expression extends ModelEntity<Expression> {
     }
 
     public double getAdjustedLinearFactor(final IntIndex key) {
-        return this.getLinearFactor(key, true).doubleValue();
+        if (myLinear.isExact()) {
+            return this.getLinearFactor(key, true).doubleValue();
+        } else {
+            int position = myLinear.position(key.index);
+            return position >= 0 ? myLinear.doubleValue(position) * this.getAdjustmentFactor() : PrimitiveMath.ZERO;
+        }
     }
 
     public double getAdjustedLinearFactor(final Variable aVar) {
@@ -358,6 +367,14 @@ public final class Expression extends ModelEntity<Expression> {
         return this.getAdjustedQuadraticFactor(myModel.indexOf(aVar1), myModel.indexOf(aVar2));
     }
 
+    /**
+     * The linear factors as parallel int/double arrays – variable indices and (unadjusted) factors. To get
+     * the adjusted factors multiply with {@link #getAdjustmentFactor()}.
+     */
+    public IndexedFactors getLinearFactors() {
+        return myLinear;
+    }
+
     public Set<Entry<IntIndex, BigDecimal>> getLinearEntrySet() {
         return myLinear.entrySet();
     }
@@ -438,10 +455,21 @@ public final class Expression extends ModelEntity<Expression> {
 
         if (key != null) {
 
+            if (!myLinear.isExact() && ModelEntity.isPrimitive(value)) {
+
+                final double tmpValue = ((Number) value).doubleValue();
+
+                if (ModelEntity.isUnchanged(tmpValue)) {
+                    myLinear.set(key, tmpValue, null);
+                    myModel.addReference(key);
+                    return this;
+                }
+            }
+
             final BigDecimal tmpValue = ModelEntity.toBigDecimal(value);
 
             if (tmpValue.signum() != 0) {
-                myLinear.put(key, tmpValue);
+                myLinear.set(key, tmpValue.doubleValue(), tmpValue);
                 myModel.addReference(key);
             } else {
                 myLinear.remove(key);
@@ -609,8 +637,8 @@ public final class Expression extends ModelEntity<Expression> {
         final LinearFunction<Double> retVal = LinearFunction.makePrimitive(myModel.countVariables());
 
         if (this.isAnyLinearFactorNonZero()) {
-            for (Entry<IntIndex, BigDecimal> entry : myLinear.entrySet()) {
-                retVal.linear().set(entry.getKey().index, entry.getValue().doubleValue());
+            for (int p = 0, limit = myLinear.size(); p < limit; p++) {
+                retVal.linear().set(myLinear.index(p), myLinear.doubleValue(p));
             }
         }
 
@@ -641,14 +669,18 @@ public final class Expression extends ModelEntity<Expression> {
         }
 
         if (this.isAnyLinearFactorNonZero()) {
-            for (Entry<IntIndex, BigDecimal> entry : myLinear.entrySet()) {
-                retVal.linear().set(entry.getKey().index, entry.getValue().doubleValue());
+            for (int p = 0, limit = myLinear.size(); p < limit; p++) {
+                retVal.linear().set(myLinear.index(p), myLinear.doubleValue(p));
             }
         }
 
         return retVal;
     }
 
+    private int signum(final int position) {
+        return myLinear.isExact() ? myLinear.get(position).signum() : (int) Math.signum(myLinear.doubleValue(position));
+    }
+
     private BigDecimal toPositiveFraction(final BigDecimal noninteger) {
         BigDecimal intPart = noninteger.setScale(0, RoundingMode.FLOOR);
         return noninteger.subtract(intPart);
@@ -735,11 +767,21 @@ public final class Expression extends ModelEntity<Expression> {
 
         if (subset.size() > 0) {
 
-            for (final IntIndex linKey : myLinear.keySet()) {
-                if (subset.contains(linKey)) {
-                    final BigDecimal coefficient = this.get(linKey);
-                    final BigDecimal value = myModel.getVariable(linKey.index).getValue();
-                    retVal = retVal.add(coefficient.multiply(value));
+            if (subset.size() < myLinear.size()) {
+                for (final IntIndex linKey : subset) {
+                    final int position = myLinear.position(linKey.index);
+                    if (position >= 0) {
+                        final BigDecimal value = myModel.getVariable(linKey.index).getValue();
+                        retVal = retVal.add(myLinear.get(position).multiply(value));
+                    }
+                }
+            } else {
+                for (int p = 0, limit = myLinear.size(); p < limit; p++) {
+                    final IntIndex linKey = myLinear.key(p);
+                    if (subset.contains(linKey)) {
+                        final BigDecimal value = myModel.getVariable(linKey.index).getValue();
+                        retVal = retVal.add(myLinear.get(p).multiply(value));
+                    }
                 }
             }
 
@@ -793,12 +835,15 @@ public final class Expression extends ModelEntity<Expression> {
 
         } else if (this.isAnyLinearFactorNonZero()) {
 
-            for (BigDecimal linearFactor : myLinear.values()) {
-                largest.invoke(linearFactor);
-                smallest.invoke(linearFactor);
+            AggregatorFunction<Double> largestPrimitive = PrimitiveAggregator.getSet().largest();
+            AggregatorFunction<Double> smallestPrimitive = PrimitiveAggregator.getSet().smallest();
+
+            for (int p = 0, limit = myLinear.size(); p < limit; p++) {
+                largestPrimitive.invoke(myLinear.doubleValue(p));
+                smallestPrimitive.invoke(myLinear.doubleValue(p));
             }
 
-            return ModelEntity.deriveAdjustmentExponent(largest, smallest, 16);
+            return ModelEntity.deriveAdjustmentExponent(largestPrimitive, smallestPrimitive, 16);
 
         } else {
 
@@ -870,7 +915,7 @@ public final class Expression extends ModelEntity<Expression> {
         return retVal;
     }
 
-    HashMap<IntIndex, BigDecimal> getLinear() {
+    IndexedFactors getLinear() {
         return myLinear;
     }
 
@@ -911,7 +956,7 @@ public final class Expression extends ModelEntity<Expression> {
         if (!this.isAnyQuadraticFactorNonZero()) {
             for (IntIndex index : subset) {
                 final Variable setVar = myModel.getVariable(index);
-                int signum = myLinear.get(index).signum();
+                int signum = this.signum(myLinear.position(index.index));
                 if ((signum < 0) && setVar.isLowerLimitSet() && (setVar.getLowerLimit().signum() >= 0)) {
 
                 } else if ((signum > 0) && setVar.isUpperLimitSet() && (setVar.getUpperLimit().signum() <= 0)) {
@@ -935,7 +980,7 @@ public final class Expression extends ModelEntity<Expression> {
         if (!this.isAnyQuadraticFactorNonZero()) {
             for (IntIndex index : subset) {
                 final Variable setVar = myModel.getVariable(index);
-                int signum = myLinear.get(index).signum();
+                int signum = this.signum(myLinear.position(index.index));
                 if ((signum > 0) && setVar.isLowerLimitSet() && (setVar.getLowerLimit().signum() >= 0)) {
 
                 } else if ((signum < 0) && setVar.isUpperLimitSet() && (setVar.getUpperLimit().signum() <= 0)) {
@@ -24,8 +24,6 @@ package org.ojalgo.optimisation;
 import static org.ojalgo.function.constant.BigMath.*;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.*;
@@ -475,25 +473,32 @@ public final class ExpressionsBasedModel extends AbstractModel {
         PRESOLVERS.clear();
     }
 
+    /**
+     * Parses MPS files (*.mps or *.sif), optionally gzip compressed (*.mps.gz or *.sif.gz). Uncompressed files
+     * are memory mapped and the COLUMNS section parsed in parallel, compressed files are parsed sequentially
+     * while streaming.
+     */
     public static ExpressionsBasedModel parse(final File file) {
 
         String lowerCasePath = file.getPath().toLowerCase();
+        if (lowerCasePath.endsWith(".gz")) {
+            lowerCasePath = lowerCasePath.substring(0, lowerCasePath.length() - 3);
+        }
 
         if (lowerCasePath.endsWith("mps") || lowerCasePath.endsWith("sif")) {
-            try (FileInputStream input = new FileInputStream(file)) {
-                return ExpressionsBasedModel.parse(input, FileFormat.MPS);
-            } catch (IOException cause) {
-                throw new RuntimeException(cause);
-            }
+            return MathProgSysParser.parse(file);
         } else {
             throw new IllegalArgumentException();
         }
     }
 
+    /**
+     * Parses sequentially, streaming, from the input. The input is not closed.
+     */
     public static ExpressionsBasedModel parse(final InputStream input, final FileFormat format) {
         switch (format) {
         case MPS:
-            return MathProgSysModel.parse(input).getExpressionsBasedModel();
+            return MathProgSysParser.parse(input);
         default:
             throw new IllegalArgumentException();
         }
@@ -518,7 +523,7 @@ public final class ExpressionsBasedModel extends AbstractModel {
     private final List<Variable> myNegativeVariables = new ArrayList<>();
     private transient int[] myPositiveIndices = null;
     private final List<Variable> myPositiveVariables = new ArrayList<>();
-    private final Set<IntIndex> myReferences = new HashSet<>();
+    private final BitSet myReferences = new BitSet();
     private boolean myRelaxed;
     /**
      * Temporary storage for some expresssion specific subset of variables
@@ -1379,7 +1384,7 @@ public final class ExpressionsBasedModel extends AbstractModel {
     }
 
     void addReference(final IntIndex index) {
-        myReferences.add(index);
+        myReferences.set(index.index);
     }
 
     int deriveAdjustmentRange(final Expression expression) {
@@ -1465,7 +1470,7 @@ public final class ExpressionsBasedModel extends AbstractModel {
     }
 
     boolean isReferenced(final Variable variable) {
-        return myReferences.contains(variable.getIndex());
+        return myReferences.get(variable.getIndex().index);
     }
 
     boolean isUnbounded() {
@@ -1512,7 +1517,7 @@ public final class ExpressionsBasedModel extends AbstractModel {
             needToRepeat = false;
 
             for (final Expression expr : this.getExpressions()) {
-                if (!needToRepeat && expr.isConstraint() && !expr.isInfeasible() && !expr.isRedundant() && (expr.countQuadraticFactors() == 0)) {
+                if (expr.isConstraint() && !expr.isInfeasible() && !expr.isRedundant() && (expr.countQuadraticFactors() == 0)) {
 
                     BigDecimal calculateSetValue = expr.calculateSetValue(fixedVariables);
 
@@ -1520,13 +1525,32 @@ public final class ExpressionsBasedModel extends AbstractModel {
                     compensatedUpperLimit = expr.getCompensatedUpperLimit(calculateSetValue);
 
                     myTemporary.clear();
-                    myTemporary.addAll(expr.getLinearKeySet());
-                    myTemporary.removeAll(fixedVariables);
+                    IndexedFactors linear = expr.getLinear();
+                    for (int p = 0, limit = linear.size(); p < limit; p++) {
+                        IntIndex key = linear.key(p);
+                        if (!fixedVariables.contains(key)) {
+                            myTemporary.add(key);
+                        }
+                    }
 
+                    boolean didFixVariable = false;
                     for (final Presolver presolver : PRESOLVERS) {
-                        if (!needToRepeat) {
-                            needToRepeat |= presolver.simplify(expr, myTemporary, compensatedLowerLimit, compensatedUpperLimit, options.feasibility);
+                        if (!didFixVariable) {
+                            didFixVariable |= presolver.simplify(expr, myTemporary, compensatedLowerLimit, compensatedUpperLimit, options.feasibility);
+                        }
+                    }
+
+                    if (didFixVariable) {
+                        /*
+                         * Rather than restarting the pass, register the newly fixed variables (presolvers only
+                         * fix variables among the remaining ones) and continue with the next expression.
+                         */
+                        for (IntIndex key : myTemporary) {
+                            if (myVariables.get(key.index).isFixed()) {
+                                myFixedVariables.add(key);
+                            }
                         }
+                        needToRepeat = true;
                     }
                 }
             }
@@ -0,0 +1,492 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.ojalgo.structure.Structure1D.IntIndex;
+
+/**
+ * The linear factors of an {@link Expression} stored as variable indices in an int[] and factors in a
+ * double[], with a small open addressing hash table to find the position of a variable index. Viewed as a
+ * {@link Map} the factors are {@link BigDecimal}, but, unless created in exact mode, they are stored as
+ * double and converted at that API boundary (converted values are cached until the factor is changed).
+ * <p>
+ * The positions are 0 to {@link #size()}-1 and are not stable – removing a factor moves the last one into
+ * its place.
+ *
+ * @author apete
+ */
+public final class IndexedFactors extends AbstractMap<IntIndex, BigDecimal> {
+
+    final class FactorEntry implements Map.Entry<IntIndex, BigDecimal> {
+
+        private final IntIndex myKey;
+        private final int myPosition;
+
+        FactorEntry(final int position) {
+            super();
+            myPosition = position;
+            myKey = myKeys[position];
+        }
+
+        public IntIndex getKey() {
+            return myKey;
+        }
+
+        public BigDecimal getValue() {
+            return IndexedFactors.this.get(myPosition);
+        }
+
+        public BigDecimal setValue(final BigDecimal value) {
+            BigDecimal retVal = IndexedFactors.this.get(myPosition);
+            IndexedFactors.this.set(myPosition, value);
+            return retVal;
+        }
+
+        @Override
+        public String toString() {
+            return this.getKey() + "=" + this.getValue();
+        }
+
+    }
+
+    abstract class PositionIterator<T> implements Iterator<T> {
+
+        private int myCursor = 0;
+        private int myLastReturned = -1;
+
+        public boolean hasNext() {
+            return myCursor < mySize;
+        }
+
+        public T next() {
+            if (myCursor >= mySize) {
+                throw new NoSuchElementException();
+            }
+            myLastReturned = myCursor++;
+            return this.element(myLastReturned);
+        }
+
+        public void remove() {
+            if (myLastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            IndexedFactors.this.removeAt(myLastReturned);
+            // The last factor was moved into the removed position
+            myCursor = myLastReturned;
+            myLastReturned = -1;
+        }
+
+        abstract T element(int position);
+
+    }
+
+    /**
+     * Up to this many factors the position of an index is found by linear search, beyond that a hash table
+     * is used.
+     */
+    private static final int LINEAR_SEARCH = 8;
+
+    private static int hash(final int index) {
+        int h = index * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * In exact mode these are the values as set, otherwise lazily converted (cached) copies of the double
+     * values.
+     */
+    private BigDecimal[] myBigDecimals;
+    private final boolean myExact;
+    private int[] myIndices;
+    private IntIndex[] myKeys;
+    private int mySize = 0;
+    /**
+     * position + 1, 0 means empty
+     */
+    private int[] myTable = null;
+    private double[] myValues;
+
+    IndexedFactors(final boolean exact) {
+
+        super();
+
+        myIndices = new int[4];
+        myKeys = new IntIndex[4];
+        myValues = new double[4];
+        myExact = exact;
+        myBigDecimals = exact ? new BigDecimal[4] : null;
+    }
+
+    IndexedFactors(final IndexedFactors factorsToCopy) {
+
+        super();
+
+        mySize = factorsToCopy.size();
+
+        myIndices = Arrays.copyOf(factorsToCopy.myIndices, Math.max(mySize, 4));
+        myKeys = Arrays.copyOf(factorsToCopy.myKeys, myIndices.length);
+        myValues = Arrays.copyOf(factorsToCopy.myValues, myIndices.length);
+        myExact = factorsToCopy.isExact();
+        myBigDecimals = factorsToCopy.myBigDecimals != null ? Arrays.copyOf(factorsToCopy.myBigDecimals, myIndices.length) : null;
+
+        myTable = factorsToCopy.myTable != null ? factorsToCopy.myTable.clone() : null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(myKeys, 0, mySize, null);
+        if (myBigDecimals != null) {
+            Arrays.fill(myBigDecimals, 0, mySize, null);
+        }
+        mySize = 0;
+        myTable = null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return (key instanceof IntIndex) && (this.position(((IntIndex) key).index) >= 0);
+    }
+
+    /**
+     * @param position A position in the range [0,{@link #size()})
+     * @return The factor at that position
+     */
+    public double doubleValue(final int position) {
+        return myValues[position];
+    }
+
+    @Override
+    public Set<Map.Entry<IntIndex, BigDecimal>> entrySet() {
+        return new AbstractSet<Map.Entry<IntIndex, BigDecimal>>() {
+
+            @Override
+            public void clear() {
+                IndexedFactors.this.clear();
+            }
+
+            @Override
+            public Iterator<Map.Entry<IntIndex, BigDecimal>> iterator() {
+                return new PositionIterator<Map.Entry<IntIndex, BigDecimal>>() {
+
+                    @Override
+                    Map.Entry<IntIndex, BigDecimal> element(final int position) {
+                        return new FactorEntry(position);
+                    }
+
+                };
+            }
+
+            @Override
+            public int size() {
+                return mySize;
+            }
+
+        };
+    }
+
+    @Override
+    public BigDecimal get(final Object key) {
+        if (key instanceof IntIndex) {
+            int position = this.position(((IntIndex) key).index);
+            if (position >= 0) {
+                return this.get(position);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param position A position in the range [0,{@link #size()})
+     * @return The variable index at that position
+     */
+    public int index(final int position) {
+        return myIndices[position];
+    }
+
+    /**
+     * @return true if the factors are kept as the exact {@link BigDecimal} values they were set to
+     */
+    public boolean isExact() {
+        return myExact;
+    }
+
+    /**
+     * @param index A variable index
+     * @return The position of that variable's factor, or -1 if there is no such factor
+     */
+    public int position(final int index) {
+
+        if (myTable != null) {
+
+            int mask = myTable.length - 1;
+            int slot = IndexedFactors.hash(index) & mask;
+            int entry;
+            while ((entry = myTable[slot]) != 0) {
+                if (myIndices[entry - 1] == index) {
+                    return entry - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+        } else {
+
+            for (int p = 0; p < mySize; p++) {
+                if (myIndices[p] == index) {
+                    return p;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public BigDecimal put(final IntIndex key, final BigDecimal value) {
+
+        int position = this.position(key.index);
+
+        BigDecimal retVal = position >= 0 ? this.get(position) : null;
+
+        this.set(key, value.doubleValue(), value);
+
+        return retVal;
+    }
+
+    @Override
+    public BigDecimal remove(final Object key) {
+
+        if (key instanceof IntIndex) {
+
+            int position = this.position(((IntIndex) key).index);
+
+            if (position >= 0) {
+                BigDecimal retVal = this.get(position);
+                this.removeAt(position);
+                return retVal;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Set<IntIndex> keySet() {
+        return new AbstractSet<IntIndex>() {
+
+            @Override
+            public void clear() {
+                IndexedFactors.this.clear();
+            }
+
+            @Override
+            public boolean contains(final Object key) {
+                return IndexedFactors.this.containsKey(key);
+            }
+
+            @Override
+            public Iterator<IntIndex> iterator() {
+                return new PositionIterator<IntIndex>() {
+
+                    @Override
+                    IntIndex element(final int position) {
+                        return myKeys[position];
+                    }
+
+                };
+            }
+
+            @Override
+            public boolean remove(final Object key) {
+                return IndexedFactors.this.remove(key) != null;
+            }
+
+            @Override
+            public int size() {
+                return mySize;
+            }
+
+        };
+    }
+
+    @Override
+    public int size() {
+        return mySize;
+    }
+
+    private void rehash() {
+
+        int length = Integer.highestOneBit(Math.max(mySize, LINEAR_SEARCH) * 4 - 1);
+
+        if ((myTable == null) || (myTable.length != length)) {
+            myTable = new int[length];
+        } else {
+            Arrays.fill(myTable, 0);
+        }
+
+        int mask = length - 1;
+        for (int p = 0; p < mySize; p++) {
+            int slot = IndexedFactors.hash(myIndices[p]) & mask;
+            while (myTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            myTable[slot] = p + 1;
+        }
+    }
+
+    private int slot(final int index) {
+        int mask = myTable.length - 1;
+        int slot = IndexedFactors.hash(index) & mask;
+        while (myIndices[myTable[slot] - 1] != index) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Backward shift deletion – keeps the probe sequences intact without tombstones.
+     */
+    private void unlink(final int index) {
+
+        int mask = myTable.length - 1;
+        int hole = this.slot(index);
+
+        for (int j = (hole + 1) & mask, entry; (entry = myTable[j]) != 0; j = (j + 1) & mask) {
+            int home = IndexedFactors.hash(myIndices[entry - 1]) & mask;
+            boolean stays = hole <= j ? ((hole < home) && (home <= j)) : ((hole < home) || (home <= j));
+            if (!stays) {
+                myTable[hole] = entry;
+                hole = j;
+            }
+        }
+
+        myTable[hole] = 0;
+    }
+
+    BigDecimal get(final int position) {
+        if (myBigDecimals == null) {
+            myBigDecimals = new BigDecimal[myValues.length];
+        }
+        BigDecimal retVal = myBigDecimals[position];
+        if (retVal == null) {
+            retVal = BigDecimal.valueOf(myValues[position]);
+            myBigDecimals[position] = retVal;
+        }
+        return retVal;
+    }
+
+    IntIndex key(final int position) {
+        return myKeys[position];
+    }
+
+    void removeAt(final int position) {
+
+        if (myTable != null) {
+            this.unlink(myIndices[position]);
+        }
+
+        int last = mySize - 1;
+
+        if (position != last) {
+            myIndices[position] = myIndices[last];
+            myKeys[position] = myKeys[last];
+            myValues[position] = myValues[last];
+            if (myBigDecimals != null) {
+                myBigDecimals[position] = myBigDecimals[last];
+            }
+            if (myTable != null) {
+                myTable[this.slot(myIndices[position])] = position + 1;
+            }
+        }
+
+        myKeys[last] = null;
+        if (myBigDecimals != null) {
+            myBigDecimals[last] = null;
+        }
+        mySize = last;
+    }
+
+    void set(final int position, final BigDecimal value) {
+        myValues[position] = value.doubleValue();
+        if (myBigDecimals != null) {
+            myBigDecimals[position] = myExact ? value : null;
+        }
+    }
+
+    /**
+     * @param key The variable index
+     * @param value The factor (must not be zero)
+     * @param exact The exact value, only used in exact mode (and then must not be null)
+     */
+    void set(final IntIndex key, final double value, final BigDecimal exact) {
+
+        int position = this.position(key.index);
+
+        if (position < 0) {
+
+            position = mySize;
+
+            if (position == myIndices.length) {
+                int capacity = position * 2;
+                myIndices = Arrays.copyOf(myIndices, capacity);
+                myKeys = Arrays.copyOf(myKeys, capacity);
+                myValues = Arrays.copyOf(myValues, capacity);
+                if (myBigDecimals != null) {
+                    myBigDecimals = Arrays.copyOf(myBigDecimals, capacity);
+                }
+            }
+
+            myIndices[position] = key.index;
+            myKeys[position] = key;
+            mySize++;
+
+            if (myTable != null) {
+                if ((mySize * 2) > myTable.length) {
+                    this.rehash();
+                } else {
+                    int mask = myTable.length - 1;
+                    int slot = IndexedFactors.hash(key.index) & mask;
+                    while (myTable[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    myTable[slot] = mySize;
+                }
+            } else if (mySize > LINEAR_SEARCH) {
+                this.rehash();
+            }
+        }
+
+        myValues[position] = value;
+        if (myBigDecimals != null) {
+            myBigDecimals[position] = myExact ? exact : null;
+        }
+    }
+
+}
@@ -21,8 +21,6 @@
  */
 package org.ojalgo.optimisation;
 
-import static org.ojalgo.function.constant.BigMath.*;
-
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
@@ -35,6 +33,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.ojalgo.netio.ASCII;
+import org.ojalgo.optimisation.MathProgSysParser.BoundType;
+import org.ojalgo.optimisation.MathProgSysParser.FileSection;
+import org.ojalgo.optimisation.MathProgSysParser.RowType;
 import org.ojalgo.structure.Access1D;
 import org.ojalgo.type.context.NumberContext;
 
@@ -47,33 +48,6 @@ import org.ojalgo.type.context.NumberContext;
 @Deprecated
 public final class MathProgSysModel {
 
-    /**
-     * BoundType used with the BOUNDS section.
-     *
-     * <pre>
-     *  type            meaning
-     * ---------------------------------------------------
-     *   LO    lower bound        b <= x (< +inf)
-     *   UP    upper bound        (0 <=) x <= b
-     *   FX    fixed variable     x = b
-     *   FR    free variable      -inf < x < +inf
-     *   MI    lower bound -inf   -inf < x (<= 0)
-     *   PL    upper bound +inf   (0 <=) x < +inf
-     *   BV    binary variable    x = 0 or 1
-     *   LI    integer variable   b <= x (< +inf)
-     *   UI    integer variable   (0 <=) x <= b
-     *   SC    semi-cont variable x = 0 or l <= x <= b
-     *         l is the lower bound on the variable
-     *         If none set then defaults to 1
-     * </pre>
-     *
-     * @author apete
-     */
-    enum BoundType {
-
-        BV(), FR(), FX(), LI(), LO(), MI(), PL(), SC(), UI(), UP();
-
-    }
     final class Column {
 
         private boolean mySemicontinuous = false;
@@ -91,93 +65,10 @@ public final class MathProgSysModel {
 
         public Column bound(final BoundType type, final BigDecimal value) {
 
-            switch (type) {
-
-            case LO:
-
-                myVariable.lower(value);
-
-                break;
-
-            case UP:
-
-                myVariable.upper(value);
-
-                if (!myVariable.isLowerLimitSet()) {
-                    myVariable.lower(ZERO);
-                }
-
-                break;
-
-            case FX:
-
-                myVariable.level(value);
-
-                break;
-
-            case FR:
-
-                myVariable.level(null);
-
-                break;
-
-            case MI:
-
-                myVariable.lower(null);
-
-                if (!myVariable.isUpperLimitSet()) {
-                    myVariable.upper(ZERO);
-                }
-
-                break;
-
-            case PL:
-
-                myVariable.upper(null);
-
-                if (!myVariable.isLowerLimitSet()) {
-                    myVariable.lower(ZERO);
-                }
-
-                break;
-
-            case BV:
-
-                myVariable.lower(ZERO).upper(ONE).integer(true);
-
-                break;
-
-            case LI:
-
-                myVariable.lower(value).upper(null).integer(true);
-
-                break;
-
-            case UI:
-
-                myVariable.upper(value).integer(true);
-
-                if (!myVariable.isLowerLimitSet()) {
-                    myVariable.lower(ZERO);
-                }
-
-                break;
-
-            case SC:
+            type.bound(myVariable, value);
 
+            if (type == BoundType.SC) {
                 mySemicontinuous = true;
-
-                myVariable.upper(value);
-
-                if (!myVariable.isLowerLimitSet()) {
-                    myVariable.lower(ONE);
-                }
-
-                break;
-
-            default:
-
-                break;
             }
 
             return this;
@@ -215,12 +106,6 @@ public final class MathProgSysModel {
 
     }
 
-    enum FileSection {
-
-        BOUNDS(), COLUMNS(), ENDATA(), NAME(), OBJNAME(), OBJSENSE(), RANGES(), RHS(), ROWS(), SOS();
-
-    }
-
     final class Row {
 
         private final Expression myExpression;
@@ -235,92 +120,16 @@ public final class MathProgSysModel {
 
             myType = rowType;
 
-            if (myType == RowType.N) {
-                myExpression.weight(ONE);
-            } else {
-                myExpression.weight(null);
-            }
-
-            // 0.0 is the default RHS value
-            this.rhs(ZERO);
+            myType.initialise(myExpression);
         }
 
         public Row range(final BigDecimal value) {
-
-            switch (myType) {
-
-            case E:
-
-                final int tmpSignum = value.signum();
-                if (tmpSignum == 1) {
-                    myExpression.upper(myExpression.getLowerLimit().add(value));
-                } else if (tmpSignum == -1) {
-                    myExpression.lower(myExpression.getUpperLimit().add(value));
-                }
-
-                break;
-
-            case L:
-
-                myExpression.lower(myExpression.getUpperLimit().subtract(value.abs()));
-
-                break;
-
-            case G:
-
-                myExpression.upper(myExpression.getLowerLimit().add(value.abs()));
-
-                break;
-
-            case N:
-
-                myExpression.level(null);
-                myExpression.weight(ONE);
-
-                break;
-
-            default:
-
-                break;
-            }
-
+            myType.range(myExpression, value);
             return this;
         }
 
         public Row rhs(final BigDecimal value) {
-
-            switch (myType) {
-
-            case E:
-
-                myExpression.level(value);
-
-                break;
-
-            case L:
-
-                myExpression.upper(value);
-
-                break;
-
-            case G:
-
-                myExpression.lower(value);
-
-                break;
-
-            case N:
-
-                myExpression.level(null);
-                myExpression.weight(ONE);
-
-                break;
-
-            default:
-
-                break;
-            }
-
+            myType.rhs(myExpression, value);
             return this;
         }
 
@@ -344,34 +153,6 @@ public final class MathProgSysModel {
 
     }
 
-    /**
-     * RowType used with the ROWS and RANGES sections.
-     *
-     * <pre>
-     * type      meaning
-     * ---------------------------
-     *  E    equality
-     *  L    less than or equal
-     *  G    greater than or equal
-     *  N    objective
-     *  N    no restriction
-     *
-     * row type       sign of r       h          u
-     * ----------------------------------------------
-     *    G            + or -         b        b + |r|
-     *    L            + or -       b - |r|      b
-     *    E              +            b        b + |r|
-     *    E              -          b - |r|      b
-     * </pre>
-     *
-     * @author apete
-     */
-    enum RowType {
-
-        E(), G(), L(), N();
-
-    }
-
     private static final String COMMENT = "*";
     /**
      * Seems to be used in problem headers/comment to mark references to authors and such
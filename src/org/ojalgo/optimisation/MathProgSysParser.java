@@ -0,0 +1,1300 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import static org.ojalgo.function.constant.BigMath.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.zip.GZIPInputStream;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.concurrent.Parallelism;
+import org.ojalgo.netio.ASCII;
+import org.ojalgo.netio.DelimitedNumbersParser;
+import org.ojalgo.structure.Structure1D.IntIndex;
+
+/**
+ * Parses MPS files straight in to an {@link ExpressionsBasedModel} – there are no intermediate row/column
+ * objects. Row and column names are interned to dense int ids, looked up directly from the char buffer
+ * without creating a String per token, and the COLUMNS section (the bulk of any MPS file) is tokenised to
+ * column-major sparse form: runs of (row id, value) entries per column.
+ * <p>
+ * When parsing an (uncompressed) file the COLUMNS section is memory mapped, split in to chunks at line
+ * boundaries, and the chunks are tokenised in parallel. Everything else, including gzip compressed files,
+ * is parsed sequentially while streaming. The entries are transferred to the model's expressions row by
+ * row, once all columns are known.
+ * <p>
+ * Both fixed and free format is accepted. Names containing spaces are only supported where fixed format
+ * field positions or matching with already known (row/column) names resolve them. The semantics are the
+ * same as with {@link MathProgSysModel}.
+ *
+ * @author apete
+ */
+final class MathProgSysParser {
+
+    /**
+     * BoundType used with the BOUNDS section.
+     *
+     * <pre>
+     *  type            meaning
+     * ---------------------------------------------------
+     *   LO    lower bound        b <= x (< +inf)
+     *   UP    upper bound        (0 <=) x <= b
+     *   FX    fixed variable     x = b
+     *   FR    free variable      -inf < x < +inf
+     *   MI    lower bound -inf   -inf < x (<= 0)
+     *   PL    upper bound +inf   (0 <=) x < +inf
+     *   BV    binary variable    x = 0 or 1
+     *   LI    integer variable   b <= x (< +inf)
+     *   UI    integer variable   (0 <=) x <= b
+     *   SC    semi-cont variable x = 0 or l <= x <= b
+     *         l is the lower bound on the variable
+     *         If none set then defaults to 1
+     * </pre>
+     *
+     * @author apete
+     */
+    enum BoundType {
+
+        BV(), FR(), FX(), LI(), LO(), MI(), PL(), SC(), UI(), UP();
+
+        void bound(final Variable variable, final BigDecimal value) {
+
+            switch (this) {
+
+            case LO:
+
+                variable.lower(value);
+
+                break;
+
+            case UP:
+
+                variable.upper(value);
+
+                if (!variable.isLowerLimitSet()) {
+                    variable.lower(ZERO);
+                }
+
+                break;
+
+            case FX:
+
+                variable.level(value);
+
+                break;
+
+            case FR:
+
+                variable.level(null);
+
+                break;
+
+            case MI:
+
+                variable.lower(null);
+
+                if (!variable.isUpperLimitSet()) {
+                    variable.upper(ZERO);
+                }
+
+                break;
+
+            case PL:
+
+                variable.upper(null);
+
+                if (!variable.isLowerLimitSet()) {
+                    variable.lower(ZERO);
+                }
+
+                break;
+
+            case BV:
+
+                variable.lower(ZERO).upper(ONE).integer(true);
+
+                break;
+
+            case LI:
+
+                variable.lower(value).upper(null).integer(true);
+
+                break;
+
+            case UI:
+
+                variable.upper(value).integer(true);
+
+                if (!variable.isLowerLimitSet()) {
+                    variable.lower(ZERO);
+                }
+
+                break;
+
+            case SC:
+
+                variable.upper(value);
+
+                if (!variable.isLowerLimitSet()) {
+                    variable.lower(ONE);
+                }
+
+                break;
+
+            default:
+
+                break;
+            }
+        }
+
+    }
+
+    /**
+     * Part of the COLUMNS section in column-major sparse form. Consecutive lines with the same column name are
+     * one run. The run names are kept as (copied) char slices until the chunks are merged, in order, and the
+     * names interned. Whether a run is within INTORG/INTEND markers may depend on the previous chunk.
+     */
+    static final class Columns {
+
+        private static final int CONTINUOUS = 2;
+        private static final int INTEGER = 1;
+        private static final int UNKNOWN = 0;
+
+        /**
+         * The column ids of the runs, set when merged
+         */
+        private int[] myColumns = null;
+        private int myEntries = 0;
+        private int[] myFirsts = new int[65];
+        private boolean[] myInherited = new boolean[64];
+        private boolean[] myIntegers = new boolean[64];
+        private int myMarker = UNKNOWN;
+        private char[] myNames = new char[512];
+        private int[] myNameLimits = new int[65];
+        private int[] myRows = new int[256];
+        private int myRuns = 0;
+        private final Tokens myTokens = new Tokens();
+        private double[] myValues = new double[256];
+
+        void line(final char[] chars, final int first, final int limit, final Names rows) {
+
+            if (MathProgSysParser.isSkipped(chars, first, limit)) {
+                return;
+            }
+
+            Tokens tokens = myTokens;
+            int count = tokens.split(chars, first, limit);
+            if (count == 0) {
+                return;
+            }
+
+            if ((count >= 3) && tokens.contains(chars, 1, MARKER)) {
+                if (tokens.contains(chars, 2, INTORG)) {
+                    myMarker = INTEGER;
+                } else if (tokens.contains(chars, 2, INTEND)) {
+                    myMarker = CONTINUOUS;
+                }
+                return;
+            }
+
+            int nameFirst = tokens.first(0);
+            int nameLimit = tokens.limit(0);
+            int pairs = tokens.findPairs(chars, 1, count, rows);
+
+            if ((pairs < 0) && ((limit - first) > FIXED_LIMIT)) {
+                // Fixed format with a column name containing spaces
+                nameFirst = first + FIXED_FIRST;
+                nameLimit = first + FIXED_LIMIT;
+                while ((nameFirst < nameLimit) && ASCII.isSpace(chars[nameFirst])) {
+                    nameFirst++;
+                }
+                while ((nameLimit > nameFirst) && ASCII.isSpace(chars[nameLimit - 1])) {
+                    nameLimit--;
+                }
+                pairs = tokens.findPairs(chars, 0, tokens.split(chars, first + FIXED_LIMIT, limit), rows);
+            }
+
+            if (pairs < 0) {
+                throw new IllegalArgumentException("Unknown row(s): " + String.valueOf(chars, first, limit - first));
+            }
+
+            if ((myRuns == 0) || !this.isCurrent(chars, nameFirst, nameLimit)) {
+                this.newRun(chars, nameFirst, nameLimit);
+            }
+
+            int run = myRuns - 1;
+            if (myMarker == UNKNOWN) {
+                myInherited[run] = true;
+            } else if (myMarker == INTEGER) {
+                myIntegers[run] = true;
+            }
+
+            for (int p = 0; p < pairs; p++) {
+                this.add(tokens.getPairRow(p), tokens.parseDouble(chars, tokens.getPairValue(p)));
+            }
+        }
+
+        private void add(final int row, final double value) {
+            if (myEntries == myRows.length) {
+                myRows = Arrays.copyOf(myRows, 2 * myEntries);
+                myValues = Arrays.copyOf(myValues, 2 * myEntries);
+            }
+            myRows[myEntries] = row;
+            myValues[myEntries] = value;
+            myEntries++;
+            myFirsts[myRuns] = myEntries;
+        }
+
+        private boolean isCurrent(final char[] chars, final int first, final int limit) {
+            int offset = myNameLimits[myRuns - 1];
+            int length = myNameLimits[myRuns] - offset;
+            if ((limit - first) != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (myNames[offset + i] != chars[first + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void newRun(final char[] chars, final int first, final int limit) {
+
+            if ((myRuns + 1) == myIntegers.length) {
+                int capacity = 2 * myIntegers.length;
+                myFirsts = Arrays.copyOf(myFirsts, capacity + 1);
+                myNameLimits = Arrays.copyOf(myNameLimits, capacity + 1);
+                myIntegers = Arrays.copyOf(myIntegers, capacity);
+                myInherited = Arrays.copyOf(myInherited, capacity);
+            }
+
+            int offset = myNameLimits[myRuns];
+            int length = limit - first;
+            if ((offset + length) > myNames.length) {
+                myNames = Arrays.copyOf(myNames, Math.max(2 * myNames.length, offset + length));
+            }
+            System.arraycopy(chars, first, myNames, offset, length);
+
+            myRuns++;
+            myNameLimits[myRuns] = offset + length;
+            myFirsts[myRuns] = myEntries;
+        }
+
+    }
+
+    enum FileSection {
+
+        BOUNDS(), COLUMNS(), ENDATA(), NAME(), OBJNAME(), OBJSENSE(), RANGES(), RHS(), ROWS(), SOS();
+
+    }
+
+    /**
+     * Interns names to dense int ids. Lookups are done directly from char slices, and may be done concurrently
+     * (but not while adding names).
+     */
+    static final class Names {
+
+        private static int hash(final char[] chars, final int first, final int limit) {
+            int retVal = 0;
+            for (int i = first; i < limit; i++) {
+                retVal = (31 * retVal) + chars[i];
+            }
+            retVal *= 0x9E3779B9;
+            return retVal ^ (retVal >>> 16);
+        }
+
+        private char[] myChars = new char[1024];
+        private int[] myLimits = new int[65];
+        private int mySize = 0;
+        /**
+         * (hash << 32) | (id + 1), 0 means empty
+         */
+        private long[] myTable = new long[128];
+
+        /**
+         * @return The id of the name – a new id (the current size) if it was not already there
+         */
+        int add(final char[] chars, final int first, final int limit) {
+
+            int hash = Names.hash(chars, first, limit);
+
+            int mask = myTable.length - 1;
+            int slot = hash & mask;
+            long entry;
+            while ((entry = myTable[slot]) != 0L) {
+                if (this.matches(entry, hash, chars, first, limit)) {
+                    return (int) entry - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int id = mySize;
+
+            if ((id + 1) == myLimits.length) {
+                myLimits = Arrays.copyOf(myLimits, (2 * id) + 1);
+            }
+
+            int offset = myLimits[id];
+            int length = limit - first;
+            if ((offset + length) > myChars.length) {
+                myChars = Arrays.copyOf(myChars, Math.max(2 * myChars.length, offset + length));
+            }
+            System.arraycopy(chars, first, myChars, offset, length);
+
+            myLimits[id + 1] = offset + length;
+            myTable[slot] = ((long) hash << 32) | (id + 1);
+            mySize++;
+
+            if ((2 * mySize) > myTable.length) {
+                this.rehash();
+            }
+
+            return id;
+        }
+
+        /**
+         * @return The id of the name, or -1 if it's not there
+         */
+        int get(final char[] chars, final int first, final int limit) {
+
+            int hash = Names.hash(chars, first, limit);
+
+            int mask = myTable.length - 1;
+            int slot = hash & mask;
+            long entry;
+            while ((entry = myTable[slot]) != 0L) {
+                if (this.matches(entry, hash, chars, first, limit)) {
+                    return (int) entry - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            return -1;
+        }
+
+        String name(final int id) {
+            return String.valueOf(myChars, myLimits[id], myLimits[id + 1] - myLimits[id]);
+        }
+
+        private boolean matches(final long entry, final int hash, final char[] chars, final int first, final int limit) {
+            if ((int) (entry >>> 32) != hash) {
+                return false;
+            }
+            int id = (int) entry - 1;
+            int offset = myLimits[id];
+            int length = limit - first;
+            if ((myLimits[id + 1] - offset) != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (myChars[offset + i] != chars[first + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rehash() {
+            long[] entries = myTable;
+            myTable = new long[2 * entries.length];
+            int mask = myTable.length - 1;
+            for (long entry : entries) {
+                if (entry != 0L) {
+                    int slot = (int) (entry >>> 32) & mask;
+                    while (myTable[slot] != 0L) {
+                        slot = (slot + 1) & mask;
+                    }
+                    myTable[slot] = entry;
+                }
+            }
+        }
+
+    }
+
+    /**
+     * RowType used with the ROWS and RANGES sections.
+     *
+     * <pre>
+     * type      meaning
+     * ---------------------------
+     *  E    equality
+     *  L    less than or equal
+     *  G    greater than or equal
+     *  N    objective
+     *  N    no restriction
+     *
+     * row type       sign of r       h          u
+     * ----------------------------------------------
+     *    G            + or -         b        b + |r|
+     *    L            + or -       b - |r|      b
+     *    E              +            b        b + |r|
+     *    E              -          b - |r|      b
+     * </pre>
+     *
+     * @author apete
+     */
+    enum RowType {
+
+        E(), G(), L(), N();
+
+        void initialise(final Expression expression) {
+
+            if (this == N) {
+                expression.weight(ONE);
+            } else {
+                expression.weight(null);
+            }
+
+            // 0.0 is the default RHS value
+            this.rhs(expression, ZERO);
+        }
+
+        void range(final Expression expression, final BigDecimal value) {
+
+            switch (this) {
+
+            case E:
+
+                final int tmpSignum = value.signum();
+                if (tmpSignum == 1) {
+                    expression.upper(expression.getLowerLimit().add(value));
+                } else if (tmpSignum == -1) {
+                    expression.lower(expression.getUpperLimit().add(value));
+                }
+
+                break;
+
+            case L:
+
+                expression.lower(expression.getUpperLimit().subtract(value.abs()));
+
+                break;
+
+            case G:
+
+                expression.upper(expression.getLowerLimit().add(value.abs()));
+
+                break;
+
+            case N:
+
+                expression.level(null);
+                expression.weight(ONE);
+
+                break;
+
+            default:
+
+                break;
+            }
+        }
+
+        void rhs(final Expression expression, final BigDecimal value) {
+
+            switch (this) {
+
+            case E:
+
+                expression.level(value);
+
+                break;
+
+            case L:
+
+                expression.upper(value);
+
+                break;
+
+            case G:
+
+                expression.lower(value);
+
+                break;
+
+            case N:
+
+                expression.level(null);
+                expression.weight(ONE);
+
+                break;
+
+            default:
+
+                break;
+            }
+        }
+
+    }
+
+    /**
+     * The (white space separated) tokens of a line, as [first, limit) positions in the char buffer
+     */
+    static final class Tokens {
+
+        private int myCount = 0;
+        private int[] myFirsts = new int[8];
+        private int[] myLimits = new int[8];
+        private int[] myPairRows = new int[2];
+        private int[] myPairValues = new int[2];
+
+        boolean contains(final char[] chars, final int token, final String text) {
+            int length = text.length();
+            for (int i = myFirsts[token], last = myLimits[token] - length; i <= last; i++) {
+                int j = 0;
+                while ((j < length) && (chars[i + j] == text.charAt(j))) {
+                    j++;
+                }
+                if (j == length) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int count() {
+            return myCount;
+        }
+
+        /**
+         * Matches (row name, value) pairs, starting with token "from", with the known row names. The names may
+         * contain spaces (span several tokens).
+         *
+         * @return The number of pairs, or -1 if they can't be matched with rows
+         */
+        int findPairs(final char[] chars, final int from, final int count, final Names rows) {
+
+            int retVal = 0;
+
+            for (int t = from; t < count;) {
+
+                int u = t;
+                int row;
+                while ((row = rows.get(chars, myFirsts[t], myLimits[u])) < 0) {
+                    if (++u >= (count - 1)) {
+                        return -1;
+                    }
+                }
+                if ((u + 1) >= count) {
+                    return -1;
+                }
+
+                if (retVal == myPairRows.length) {
+                    myPairRows = Arrays.copyOf(myPairRows, 2 * retVal);
+                    myPairValues = Arrays.copyOf(myPairValues, 2 * retVal);
+                }
+                myPairRows[retVal] = row;
+                myPairValues[retVal] = u + 1;
+                retVal++;
+
+                t = u + 2;
+            }
+
+            return retVal;
+        }
+
+        int first(final int token) {
+            return myFirsts[token];
+        }
+
+        /**
+         * @return The row id of a pair found by {@link #findPairs(char[], int, int, Names)}
+         */
+        int getPairRow(final int pair) {
+            return myPairRows[pair];
+        }
+
+        /**
+         * @return The value token index of a pair found by {@link #findPairs(char[], int, int, Names)}
+         */
+        int getPairValue(final int pair) {
+            return myPairValues[pair];
+        }
+
+        int limit(final int token) {
+            return myLimits[token];
+        }
+
+        BigDecimal parseBigDecimal(final char[] chars, final int token) {
+            return new BigDecimal(chars, myFirsts[token], myLimits[token] - myFirsts[token]);
+        }
+
+        double parseDouble(final char[] chars, final int token) {
+            double retVal = DelimitedNumbersParser.parseDouble(chars, myFirsts[token], myLimits[token]);
+            if (Double.isNaN(retVal)) {
+                throw new NumberFormatException(this.toString(chars, token, token));
+            }
+            return retVal;
+        }
+
+        int split(final char[] chars, final int first, final int limit) {
+
+            myCount = 0;
+
+            int i = first;
+            while (i < limit) {
+                while ((i < limit) && ASCII.isSpace(chars[i])) {
+                    i++;
+                }
+                if (i < limit) {
+                    if (myCount == myFirsts.length) {
+                        myFirsts = Arrays.copyOf(myFirsts, 2 * myCount);
+                        myLimits = Arrays.copyOf(myLimits, 2 * myCount);
+                    }
+                    myFirsts[myCount] = i;
+                    while ((i < limit) && !ASCII.isSpace(chars[i])) {
+                        i++;
+                    }
+                    myLimits[myCount] = i;
+                    myCount++;
+                }
+            }
+
+            return myCount;
+        }
+
+        /**
+         * @return The tokens from first to last (inclusive), including any white space in between
+         */
+        String toString(final char[] chars, final int first, final int last) {
+            return String.valueOf(chars, myFirsts[first], myLimits[last] - myFirsts[first]);
+        }
+
+    }
+
+    /**
+     * COLUMNS sections smaller than this (number of bytes) are not split in to chunks for parallel parsing.
+     */
+    static int THRESHOLD = 1 << 16;
+
+    private static final int BUFFER = 1 << 16;
+    private static final int CHUNK_SIZE = 1 << 24;
+    /**
+     * Fixed format field 2 (the column name in the COLUMNS section) is in columns 5-12
+     */
+    private static final int FIXED_FIRST = 4;
+    private static final int FIXED_LIMIT = 14;
+    private static final String INTEND = "INTEND";
+    private static final String INTORG = "INTORG";
+    private static final char LF = '\n';
+    private static final String MARKER = "MARKER";
+    private static final String MAX = "MAX";
+
+    static ExpressionsBasedModel parse(final File file) {
+
+        if (file.getPath().toLowerCase().endsWith(".gz")) {
+            try (InputStream input = new GZIPInputStream(new FileInputStream(file), BUFFER)) {
+                return MathProgSysParser.parse(input);
+            } catch (IOException cause) {
+                throw new RuntimeException(cause);
+            }
+        }
+
+        try (RandomAccessFile source = new RandomAccessFile(file, "r"); FileChannel channel = source.getChannel()) {
+
+            MathProgSysParser parser = new MathProgSysParser();
+
+            long size = channel.size();
+            long columns = parser.read(Channels.newInputStream(channel.position(0L)), true);
+
+            if (columns < size) {
+
+                long end = MathProgSysParser.findNextSection(channel, columns, size);
+
+                parser.parseColumns(channel, columns, end, Parallelism.LOWER);
+
+                if (end < size) {
+                    parser.read(Channels.newInputStream(channel.position(end)), false);
+                }
+            }
+
+            return parser.getModel();
+
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+    }
+
+    static ExpressionsBasedModel parse(final InputStream input) {
+
+        MathProgSysParser parser = new MathProgSysParser();
+
+        parser.read(input, false);
+
+        return parser.getModel();
+    }
+
+    /**
+     * @return The start of the first line that starts after position
+     */
+    private static long findLineStart(final FileChannel channel, final long position, final long limit) throws IOException {
+
+        ByteBuffer window = ByteBuffer.allocate(1024);
+
+        long offset = position;
+        while (offset < limit) {
+            window.clear();
+            int read = channel.read(window, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == LF) {
+                    return Math.min(offset + i + 1, limit);
+                }
+            }
+            offset += read;
+        }
+
+        return limit;
+    }
+
+    /**
+     * @return The position of the first line, at or after position, that is not part of the current section
+     *         – the start of the next section header.
+     */
+    private static long findNextSection(final FileChannel channel, final long position, final long limit) throws IOException {
+
+        byte[] bytes = new byte[BUFFER];
+        ByteBuffer window = ByteBuffer.wrap(bytes);
+
+        long offset = position;
+        boolean start = true;
+
+        while (offset < limit) {
+
+            window.clear();
+            int read = channel.read(window, offset);
+            if (read <= 0) {
+                break;
+            }
+
+            if (start && MathProgSysParser.isHeader((char) (bytes[0] & 0xFF))) {
+                return offset;
+            }
+            for (int i = 1; i < read; i++) {
+                if ((bytes[i - 1] == LF) && MathProgSysParser.isHeader((char) (bytes[i] & 0xFF))) {
+                    return offset + i;
+                }
+            }
+            start = bytes[read - 1] == LF;
+
+            offset += read;
+        }
+
+        return limit;
+    }
+
+    private static int indexOfLF(final char[] chars, final int first, final int limit) {
+        for (int i = first; i < limit; i++) {
+            if (chars[i] == LF) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isHeader(final char first) {
+        return !ASCII.isSpace(first) && (first != '*') && (first != '&');
+    }
+
+    private static boolean isSkipped(final char[] chars, final int first, final int limit) {
+        return (first == limit) || (chars[first] == '*') || (chars[first] == '&');
+    }
+
+    private static char[] toChars(final ByteBuffer data) {
+        char[] retVal = new char[data.limit()];
+        for (int i = 0; i < retVal.length; i++) {
+            retVal[i] = (char) (data.get(i) & 0xFF);
+        }
+        return retVal;
+    }
+
+    /**
+     * @return Fixed format field 2 (trimmed)
+     */
+    private static String toFixedField(final char[] chars, final int first, final int limit) {
+        return String.valueOf(chars, first + FIXED_FIRST, Math.min(FIXED_LIMIT, limit - first) - FIXED_FIRST).trim();
+    }
+
+    /**
+     * @return The line limit excluding any trailing carriage return
+     */
+    private static int trimCR(final char[] chars, final int first, final int limit) {
+        return (limit > first) && (chars[limit - 1] == '\r') ? limit - 1 : limit;
+    }
+
+    private String myBoundsSet = null;
+    private final List<Expression> myExpressions = new ArrayList<>();
+    private boolean myIntegerMarker = false;
+    private int myLast = -1;
+    private final List<Columns> myMerged = new ArrayList<>();
+    private final ExpressionsBasedModel myModel = new ExpressionsBasedModel();
+    private Columns myPending = null;
+    private String myRangesSet = null;
+    private String myRhsSet = null;
+    private final Names myRowNames = new Names();
+    private final List<RowType> myRowTypes = new ArrayList<>();
+    private FileSection mySection = null;
+    private final Tokens myTokens = new Tokens();
+    private final Names myVariableNames = new Names();
+    private final List<Variable> myVariables = new ArrayList<>();
+
+    MathProgSysParser() {
+        super();
+    }
+
+    private void bound(final char[] chars, final int first, final int limit, final int count) {
+
+        BoundType type = BoundType.valueOf(myTokens.toString(chars, 0, 0));
+
+        // With a bound set name (the normal case), or without
+        String set = count > 1 ? myTokens.toString(chars, 1, 1) : null;
+        int column = this.findColumn(chars, 2, count);
+        if (column < 0) {
+            set = null;
+            column = this.findColumn(chars, 1, count);
+        }
+        if ((column < 0) && ((limit - first) > FIXED_LIMIT)) {
+            // Fixed format with a set name containing spaces
+            set = MathProgSysParser.toFixedField(chars, first, limit);
+            column = this.findColumn(chars, 0, myTokens.split(chars, first + FIXED_LIMIT, limit));
+        }
+        if (column < 0) {
+            throw new IllegalArgumentException("Unknown column: " + String.valueOf(chars, first, limit - first));
+        }
+
+        if (myBoundsSet == null) {
+            myBoundsSet = set != null ? set : "";
+        } else if (!myBoundsSet.equals(set != null ? set : "")) {
+            return;
+        }
+
+        BigDecimal value = (myLast + 2) == myTokens.count() ? myTokens.parseBigDecimal(chars, myLast + 1) : null;
+
+        type.bound(myVariables.get(column), value);
+    }
+
+    /**
+     * A column name starting with token "from", that may contain spaces, followed by at most 1 more token
+     * (the value). Sets {@link #myLast} to the last token of the name.
+     *
+     * @return The column id, or -1 if there is no such column
+     */
+    private int findColumn(final char[] chars, final int from, final int count) {
+        for (int u = from; u < count; u++) {
+            int column = myVariableNames.get(chars, myTokens.first(from), myTokens.limit(u));
+            if ((column >= 0) && ((count - u) <= 2)) {
+                myLast = u;
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    private ExpressionsBasedModel getModel() {
+        this.merge();
+        this.transfer();
+        return myModel;
+    }
+
+    private void header(final char[] chars, final int count) {
+
+        this.merge();
+
+        mySection = FileSection.valueOf(myTokens.toString(chars, 0, 0));
+
+        if ((mySection == FileSection.OBJSENSE) && (count > 1)) {
+            this.objectiveSense(chars, 1, count);
+        }
+    }
+
+    private void line(final char[] chars, final int first, final int limit) {
+
+        if (MathProgSysParser.isSkipped(chars, first, limit)) {
+            return;
+        }
+
+        if ((mySection == FileSection.COLUMNS) && ASCII.isSpace(chars[first])) {
+            if (myPending == null) {
+                myPending = new Columns();
+            }
+            myPending.line(chars, first, limit, myRowNames);
+            return;
+        }
+
+        int count = myTokens.split(chars, first, limit);
+        if (count == 0) {
+            return;
+        }
+
+        if (!ASCII.isSpace(chars[first])) {
+            this.header(chars, count);
+            return;
+        }
+
+        if (mySection == null) {
+            throw new IllegalArgumentException("No section: " + String.valueOf(chars, first, limit - first));
+        }
+
+        switch (mySection) {
+
+        case OBJSENSE:
+
+            this.objectiveSense(chars, 0, count);
+
+            break;
+
+        case ROWS:
+
+            this.row(chars, count);
+
+            break;
+
+        case RHS:
+
+            this.rhs(chars, first, limit, count, false);
+
+            break;
+
+        case RANGES:
+
+            this.rhs(chars, first, limit, count, true);
+
+            break;
+
+        case BOUNDS:
+
+            this.bound(chars, first, limit, count);
+
+            break;
+
+        default:
+
+            break;
+        }
+    }
+
+    /**
+     * Interns the column names of the (COLUMNS section) chunk, creating new variables as needed. Chunks must
+     * be merged in order. The entries are transferred to the model later, when all chunks are merged.
+     */
+    private void merge(final Columns chunk) {
+
+        int[] columns = new int[chunk.myRuns];
+
+        for (int r = 0; r < chunk.myRuns; r++) {
+
+            int column = myVariableNames.add(chunk.myNames, chunk.myNameLimits[r], chunk.myNameLimits[r + 1]);
+
+            Variable variable;
+            if (column == myVariables.size()) {
+                variable = new Variable(myVariableNames.name(column));
+                myModel.addVariable(variable);
+                BoundType.PL.bound(variable, null);
+                myVariables.add(variable);
+            } else {
+                variable = myVariables.get(column);
+            }
+
+            if (chunk.myIntegers[r] || (chunk.myInherited[r] && myIntegerMarker)) {
+                variable.integer(true);
+            }
+
+            columns[r] = column;
+        }
+
+        if (chunk.myMarker != Columns.UNKNOWN) {
+            myIntegerMarker = chunk.myMarker == Columns.INTEGER;
+        }
+
+        chunk.myColumns = columns;
+        myMerged.add(chunk);
+    }
+
+    private void merge() {
+        if (myPending != null) {
+            this.merge(myPending);
+            myPending = null;
+        }
+    }
+
+    private void objectiveSense(final char[] chars, final int from, final int count) {
+        if (myTokens.contains(chars, from, MAX)) {
+            myModel.setMaximisation();
+        } else {
+            myModel.setMinimisation();
+        }
+    }
+
+    /**
+     * Memory maps [first, limit) chunk by chunk, and tokenises the chunks in parallel. The chunks are then
+     * merged sequentially.
+     */
+    private void parseColumns(final FileChannel channel, final long first, final long limit, final IntSupplier parallelism) throws IOException {
+
+        long size = limit - first;
+        long chunk = Math.max(Math.min(CHUNK_SIZE, (size + parallelism.getAsInt() - 1L) / parallelism.getAsInt()), THRESHOLD);
+        int numberOfChunks = Math.toIntExact(Math.max(1L, (size + chunk - 1L) / chunk));
+
+        long[] boundaries = new long[numberOfChunks + 1];
+        boundaries[0] = first;
+        for (int c = 1; c < numberOfChunks; c++) {
+            boundaries[c] = Math.max(boundaries[c - 1], MathProgSysParser.findLineStart(channel, first + (c * chunk), limit));
+        }
+        boundaries[numberOfChunks] = limit;
+
+        Columns[] chunks = new Columns[numberOfChunks];
+
+        if (numberOfChunks == 1) {
+            chunks[0] = this.tokenise(channel, first, limit);
+        } else {
+            DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int from, final int to) {
+                    for (int c = from; c < to; c++) {
+                        chunks[c] = MathProgSysParser.this.tokenise(channel, boundaries[c], boundaries[c + 1]);
+                    }
+                }
+
+            };
+            conquerer.invoke(0, numberOfChunks, 1);
+        }
+
+        for (int c = 0; c < numberOfChunks; c++) {
+            this.merge(chunks[c]);
+        }
+    }
+
+    /**
+     * Reads and parses line by line, sequentially.
+     *
+     * @param stopAtColumns Stop after the COLUMNS section header line
+     * @return The number of bytes parsed (this requires a single byte character encoding)
+     */
+    private long read(final InputStream input, final boolean stopAtColumns) {
+
+        char[] buffer = new char[BUFFER];
+        int filled = 0;
+        long parsed = 0L;
+
+        try {
+
+            Reader reader = new InputStreamReader(input, StandardCharsets.ISO_8859_1);
+
+            int read;
+            while ((read = reader.read(buffer, filled, buffer.length - filled)) >= 0) {
+
+                filled += read;
+
+                int consumed = 0;
+                int eol;
+                while ((eol = MathProgSysParser.indexOfLF(buffer, consumed, filled)) >= 0) {
+
+                    this.line(buffer, consumed, MathProgSysParser.trimCR(buffer, consumed, eol));
+
+                    parsed += (eol + 1) - consumed;
+                    consumed = eol + 1;
+
+                    if (stopAtColumns && (mySection == FileSection.COLUMNS)) {
+                        return parsed;
+                    }
+                }
+
+                if (consumed == 0) {
+                    if (filled == buffer.length) {
+                        // A single line longer than the buffer
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                } else {
+                    System.arraycopy(buffer, consumed, buffer, 0, filled - consumed);
+                    filled -= consumed;
+                }
+            }
+
+            if (filled > 0) {
+                this.line(buffer, 0, MathProgSysParser.trimCR(buffer, 0, filled));
+                parsed += filled;
+            }
+
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+
+        return stopAtColumns && (mySection != FileSection.COLUMNS) ? Long.MAX_VALUE : parsed;
+    }
+
+    /**
+     * The RHS and RANGES sections have the same format. Only the first set (in each section) is used – lines
+     * with other set names are ignored.
+     */
+    private void rhs(final char[] chars, final int first, final int limit, final int count, final boolean range) {
+
+        // With or without a set name – the number of tokens suggests which, if that doesn't work try the other
+        boolean named = (count % 2) == 1;
+        int pairs = myTokens.findPairs(chars, named ? 1 : 0, count, myRowNames);
+        if (pairs < 0) {
+            named = !named;
+            pairs = myTokens.findPairs(chars, named ? 1 : 0, count, myRowNames);
+        }
+        String set = named ? myTokens.toString(chars, 0, 0) : "";
+        if ((pairs < 0) && ((limit - first) > FIXED_LIMIT)) {
+            // Fixed format with a set name containing spaces
+            set = MathProgSysParser.toFixedField(chars, first, limit);
+            pairs = myTokens.findPairs(chars, 0, myTokens.split(chars, first + FIXED_LIMIT, limit), myRowNames);
+        }
+        if (pairs < 0) {
+            throw new IllegalArgumentException("Unknown row(s): " + String.valueOf(chars, first, limit - first));
+        }
+
+        String selected = range ? myRangesSet : myRhsSet;
+        if (selected == null) {
+            if (range) {
+                myRangesSet = set;
+            } else {
+                myRhsSet = set;
+            }
+        } else if (!selected.equals(set)) {
+            return;
+        }
+
+        for (int p = 0; p < pairs; p++) {
+            RowType type = myRowTypes.get(myTokens.getPairRow(p));
+            Expression expression = myExpressions.get(myTokens.getPairRow(p));
+            BigDecimal value = myTokens.parseBigDecimal(chars, myTokens.getPairValue(p));
+            if (range) {
+                type.range(expression, value);
+            } else {
+                type.rhs(expression, value);
+            }
+        }
+    }
+
+    private void row(final char[] chars, final int count) {
+
+        RowType type = RowType.valueOf(myTokens.toString(chars, 0, 0));
+        String name = myTokens.toString(chars, 1, count - 1);
+
+        Expression expression = myModel.addExpression(name);
+        type.initialise(expression);
+
+        int id = myRowNames.add(name.toCharArray(), 0, name.length());
+        if (id == myExpressions.size()) {
+            myExpressions.add(expression);
+            myRowTypes.add(type);
+        } else {
+            myExpressions.set(id, expression);
+            myRowTypes.set(id, type);
+        }
+    }
+
+    /**
+     * Transfers the (column-major) entries of the merged chunks to the expressions, row by row – each
+     * expression is then built in one go rather than touched once per column.
+     */
+    private void transfer() {
+
+        int numberOfRows = myExpressions.size();
+
+        int[] starts = new int[numberOfRows + 1];
+        for (Columns chunk : myMerged) {
+            for (int e = 0; e < chunk.myEntries; e++) {
+                starts[chunk.myRows[e] + 1]++;
+            }
+        }
+        for (int i = 0; i < numberOfRows; i++) {
+            starts[i + 1] += starts[i];
+        }
+
+        int[] columns = new int[starts[numberOfRows]];
+        double[] values = new double[starts[numberOfRows]];
+
+        int[] positions = Arrays.copyOf(starts, numberOfRows);
+        for (Columns chunk : myMerged) {
+            for (int r = 0; r < chunk.myRuns; r++) {
+                int column = chunk.myColumns[r];
+                for (int e = chunk.myFirsts[r], limit = chunk.myFirsts[r + 1]; e < limit; e++) {
+                    int position = positions[chunk.myRows[e]]++;
+                    columns[position] = column;
+                    values[position] = chunk.myValues[e];
+                }
+            }
+        }
+        myMerged.clear();
+
+        for (int i = 0; i < numberOfRows; i++) {
+            Expression expression = myExpressions.get(i);
+            for (int p = starts[i]; p < starts[i + 1]; p++) {
+                IntIndex key = myVariables.get(columns[p]).getIndex();
+                double value = values[p];
+                if (ModelEntity.isUnchanged(value)) {
+                    expression.set(key, value);
+                } else {
+                    expression.set(key, new BigDecimal(value));
+                }
+            }
+        }
+    }
+
+    private Columns tokenise(final FileChannel channel, final long first, final long limit) {
+
+        char[] chars;
+        try {
+            chars = MathProgSysParser.toChars(channel.map(MapMode.READ_ONLY, first, limit - first));
+        } catch (IOException cause) {
+            throw new RuntimeException(cause);
+        }
+
+        Columns retVal = new Columns();
+
+        int position = 0;
+        int eol;
+        while ((eol = MathProgSysParser.indexOfLF(chars, position, chars.length)) >= 0) {
+            retVal.line(chars, position, MathProgSysParser.trimCR(chars, position, eol), myRowNames);
+            position = eol + 1;
+        }
+        if (position < chars.length) {
+            retVal.line(chars, position, MathProgSysParser.trimCR(chars, position, chars.length), myRowNames);
+        }
+
+        return retVal;
+    }
+
+}
@@ -45,9 +45,16 @@ public abstract class ModelEntity<ME extends ModelEntity<ME>> implements Optimis
     private static final BigDecimal LARGEST = new BigDecimal(Double.toString(PrimitiveMath.MACHINE_LARGEST), new MathContext(8, RoundingMode.DOWN));
     private static final BigDecimal SMALLEST = new BigDecimal(Double.toString(PrimitiveMath.MACHINE_SMALLEST), new MathContext(8, RoundingMode.UP));
 
+    /**
+     * Strictly within these magnitudes {@link #toBigDecimal(Comparable)} does not change the (double) value
+     * of a primitive number.
+     */
+    private static final double PRIMITIVE_LARGEST = LARGEST.doubleValue() / 2.0;
+    private static final double PRIMITIVE_SMALLEST = SMALLEST.doubleValue() * 2.0;
+
     static final NumberContext DISPLAY = NumberContext.getGeneral(6);
 
-    static int deriveAdjustmentExponent(final AggregatorFunction<BigDecimal> largest, final AggregatorFunction<BigDecimal> smallest, final int range) {
+    static int deriveAdjustmentExponent(final AggregatorFunction<?> largest, final AggregatorFunction<?> smallest, final int range) {
 
         double expL = MissingMath.log10(largest.doubleValue(), PrimitiveMath.ZERO);
 
@@ -67,6 +74,23 @@ public abstract class ModelEntity<ME extends ModelEntity<ME>> implements Optimis
         }
     }
 
+    /**
+     * Types for which the double value is exactly what {@link #toBigDecimal(Comparable)} would return.
+     * Float is not one of them – its string representation is not that of the widened double.
+     */
+    static boolean isPrimitive(final Comparable<?> number) {
+        return (number instanceof Double) || (number instanceof Integer) || (number instanceof Long);
+    }
+
+    /**
+     * @return true if {@link #toBigDecimal(Comparable)} would neither treat this value as "no limit" nor
+     *         as zero.
+     */
+    static boolean isUnchanged(final double value) {
+        double magnitude = Math.abs(value);
+        return (PRIMITIVE_SMALLEST < magnitude) && (magnitude < PRIMITIVE_LARGEST);
+    }
+
     static BigDecimal toBigDecimal(final Comparable<?> number) {
 
         if (number == null) {
@@ -88,6 +112,7 @@ public abstract class ModelEntity<ME extends ModelEntity<ME>> implements Optimis
     }
 
     private transient int myAdjustmentExponent = Integer.MIN_VALUE;
+    private transient double myAdjustmentFactor = Double.NaN;
     private BigDecimal myContributionWeight = null;
     private BigDecimal myLowerLimit = null;
     private final String myName;
@@ -150,7 +175,10 @@ public abstract class ModelEntity<ME extends ModelEntity<ME>> implements Optimis
      * @return Adjusted "1"
      */
     public final double getAdjustmentFactor() {
-        return BigDecimal.ONE.movePointRight(this.getAdjustmentExponent()).doubleValue(); // 10^exponent
+        if (Double.isNaN(myAdjustmentFactor)) {
+            myAdjustmentFactor = BigDecimal.ONE.movePointRight(this.getAdjustmentExponent()).doubleValue(); // 10^exponent
+        }
+        return myAdjustmentFactor;
     }
 
     public final BigDecimal getContributionWeight() {
@@ -29,6 +29,7 @@ import org.ojalgo.ProgrammingError;
 import org.ojalgo.array.BigArray;
 import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.optimisation.integer.IntegerSolver;
+import org.ojalgo.optimisation.integer.NodeSelection;
 import org.ojalgo.structure.Access1D;
 import org.ojalgo.type.CalendarDateDuration;
 import org.ojalgo.type.CalendarDateUnit;
@@ -154,6 +155,14 @@ public interface Optimisation {
 
     public static final class Options implements Optimisation {
 
+        /**
+         * If true the linear factors of {@link ExpressionsBasedModel} expressions are kept as the exact
+         * {@link java.math.BigDecimal} values they're set to. By default they're stored as double, and only
+         * converted to/from {@link java.math.BigDecimal} at the API boundary. Must be set before any
+         * expressions are added to the model.
+         */
+        public boolean exact = false;
+
         /**
          * Used to determine/validate feasibility. Are the constraints violated or not? Are the variable
          * values integer or not?
@@ -211,6 +220,13 @@ public interface Optimisation {
          */
         public double mip_gap = 1.0E-4;
 
+        /**
+         * The branch-and-bound node selection strategy - controls in which order queued (deferred) nodes are
+         * evaluated, and whether or not the solver dives depth-first. The default is
+         * {@link NodeSelection#HYBRID}.
+         */
+        public NodeSelection mip_selection = NodeSelection.HYBRID;
+
         /**
          * For display only!
          */
@@ -30,6 +30,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.ojalgo.function.constant.BigMath;
+import org.ojalgo.function.constant.PrimitiveMath;
 import org.ojalgo.structure.Structure1D.IntIndex;
 import org.ojalgo.type.context.NumberContext;
 
@@ -129,7 +130,7 @@ public abstract class Presolvers {
         public boolean simplify(final Expression expression, final Set<IntIndex> remaining, final BigDecimal lower, final BigDecimal upper,
                 final NumberContext precision) {
 
-            if (expression.isFunctionLinear()) {
+            if (expression.isFunctionLinear() && !Presolvers.doRedundantPrimitive(expression, remaining, lower, upper)) {
 
                 BigDecimal min = BigMath.ZERO;
                 BigDecimal max = BigMath.ZERO;
@@ -538,6 +539,134 @@ public abstract class Presolvers {
         return variableA.isFixed() || variableB.isFixed();
     }
 
+    /**
+     * A floating-point filter for {@link #REDUNDANT_CONSTRAINT}. Calculates the min and max values in double,
+     * together with a bound on the rounding errors. If all the comparisons with the limits are decided with a
+     * margin larger than that bound the outcome is the same as with the exact ({@link BigDecimal})
+     * calculations, and those can be skipped.
+     *
+     * @return true if decided (and the expression marked accordingly), false if the exact calculations are
+     *         needed
+     */
+    static boolean doRedundantPrimitive(final Expression expression, final Set<IntIndex> remaining, final BigDecimal lower, final BigDecimal upper) {
+
+        IndexedFactors factors = expression.getLinear();
+
+        double min = 0.0, max = 0.0;
+        double minMagnitude = 0.0, maxMagnitude = 0.0;
+        boolean minSet = true, maxSet = true;
+
+        for (IntIndex index : remaining) {
+
+            int position = factors.position(index.index);
+            if (position < 0) {
+                return false;
+            }
+            double coefficient = factors.doubleValue(position);
+            if (coefficient == 0.0) {
+                return false;
+            }
+
+            Variable variable = expression.resolve(index);
+            boolean negative = coefficient < 0.0;
+
+            if (minSet) {
+                if (negative ? variable.isUpperLimitSet() : variable.isLowerLimitSet()) {
+                    double term = coefficient * (negative ? variable.getUnadjustedUpperLimit() : variable.getUnadjustedLowerLimit());
+                    min += term;
+                    minMagnitude += Math.abs(term);
+                } else {
+                    minSet = false;
+                }
+            }
+
+            if (maxSet) {
+                if (negative ? variable.isLowerLimitSet() : variable.isUpperLimitSet()) {
+                    double term = coefficient * (negative ? variable.getUnadjustedLowerLimit() : variable.getUnadjustedUpperLimit());
+                    max += term;
+                    maxMagnitude += Math.abs(term);
+                } else {
+                    maxSet = false;
+                }
+            }
+        }
+
+        if (!Double.isFinite(minMagnitude) || !Double.isFinite(maxMagnitude)) {
+            return false;
+        }
+
+        double factor = (remaining.size() + 4) * PrimitiveMath.MACHINE_EPSILON;
+        double minError = factor * minMagnitude;
+        double maxError = factor * maxMagnitude;
+
+        boolean infeasible = false;
+
+        boolean upperRedundant = true;
+        if (upper != null) {
+            int minVsUpper = minSet ? Presolvers.compare(min, minError, upper) : -1;
+            if (minVsUpper == 0) {
+                return false;
+            } else if (minVsUpper > 0) {
+                infeasible = true;
+                upperRedundant = false;
+            } else {
+                int maxVsUpper = maxSet ? Presolvers.compare(max, maxError, upper) : 1;
+                if (maxVsUpper == 0) {
+                    return false;
+                }
+                upperRedundant = maxVsUpper < 0;
+            }
+        }
+
+        boolean lowerRedundant = true;
+        if (lower != null) {
+            int maxVsLower = maxSet ? Presolvers.compare(max, maxError, lower) : 1;
+            if (maxVsLower == 0) {
+                return false;
+            } else if (maxVsLower < 0) {
+                infeasible = true;
+                lowerRedundant = false;
+            } else {
+                int minVsLower = minSet ? Presolvers.compare(min, minError, lower) : -1;
+                if (minVsLower == 0) {
+                    return false;
+                }
+                lowerRedundant = minVsLower > 0;
+            }
+        }
+
+        if (infeasible) {
+            expression.setInfeasible();
+        }
+        if (lowerRedundant & upperRedundant) {
+            expression.setRedundant();
+        }
+
+        return true;
+    }
+
+    /**
+     * @return -1 or 1 if value is certainly less or greater than the limit, 0 if that can't be decided
+     */
+    private static int compare(final double value, final double error, final BigDecimal limit) {
+
+        double primitive = limit.doubleValue();
+        if (!Double.isFinite(primitive)) {
+            return 0;
+        }
+
+        double margin = error + (Math.abs(primitive) * PrimitiveMath.MACHINE_EPSILON) + PrimitiveMath.MACHINE_SMALLEST;
+        double difference = value - primitive;
+
+        if (difference > margin) {
+            return 1;
+        } else if (difference < -margin) {
+            return -1;
+        } else {
+            return 0;
+        }
+    }
+
     /**
      * Checks the sign of the limits and the sign of the expression parameters to deduce variables that in
      * fact can only be zero.
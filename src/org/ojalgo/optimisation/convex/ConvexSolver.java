@@ -45,6 +45,7 @@ import org.ojalgo.matrix.store.RowsSupplier;
 import org.ojalgo.matrix.store.SparseStore;
 import org.ojalgo.optimisation.Expression;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.IndexedFactors;
 import org.ojalgo.optimisation.GenericSolver;
 import org.ojalgo.optimisation.Optimisation;
 import org.ojalgo.optimisation.UpdatableSolver;
@@ -305,10 +306,12 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
 
                 final Expression tmpExpression = tmpEqExpr.get(i).compensate(fixedVariables);
 
-                for (final IntIndex tmpKey : tmpExpression.getLinearKeySet()) {
-                    final int tmpIndex = sourceModel.indexOfFreeVariable(tmpKey.index);
+                final IndexedFactors tmpFactors = tmpExpression.getLinearFactors();
+                final double tmpAdjustment = tmpExpression.getAdjustmentFactor();
+                for (int p = 0, limit = tmpFactors.size(); p < limit; p++) {
+                    final int tmpIndex = sourceModel.indexOfFreeVariable(tmpFactors.index(p));
                     if (tmpIndex >= 0) {
-                        mtrxAE.set(i, tmpIndex, tmpExpression.getAdjustedLinearFactor(tmpKey));
+                        mtrxAE.set(i, tmpIndex, tmpFactors.doubleValue(p) * tmpAdjustment);
                     }
                 }
                 mtrxBE.set(i, 0, tmpExpression.getAdjustedUpperLimit());
@@ -342,17 +345,21 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
         if (tmpObjExpr.isAnyLinearFactorNonZero()) {
             mtrxC = Primitive64Store.FACTORY.make(numbVars, 1);
             if (sourceModel.isMinimisation()) {
-                for (final IntIndex tmpKey : tmpObjExpr.getLinearKeySet()) {
-                    final int tmpIndex = sourceModel.indexOfFreeVariable(tmpKey.index);
+                final IndexedFactors tmpFactors = tmpObjExpr.getLinearFactors();
+                final double tmpAdjustment = tmpObjExpr.getAdjustmentFactor();
+                for (int p = 0, limit = tmpFactors.size(); p < limit; p++) {
+                    final int tmpIndex = sourceModel.indexOfFreeVariable(tmpFactors.index(p));
                     if (tmpIndex >= 0) {
-                        mtrxC.set(tmpIndex, 0, -tmpObjExpr.getAdjustedLinearFactor(tmpKey));
+                        mtrxC.set(tmpIndex, 0, -tmpFactors.doubleValue(p) * tmpAdjustment);
                     }
                 }
             } else {
-                for (final IntIndex tmpKey : tmpObjExpr.getLinearKeySet()) {
-                    final int tmpIndex = sourceModel.indexOfFreeVariable(tmpKey.index);
+                final IndexedFactors tmpFactors = tmpObjExpr.getLinearFactors();
+                final double tmpAdjustment = tmpObjExpr.getAdjustmentFactor();
+                for (int p = 0, limit = tmpFactors.size(); p < limit; p++) {
+                    final int tmpIndex = sourceModel.indexOfFreeVariable(tmpFactors.index(p));
                     if (tmpIndex >= 0) {
-                        mtrxC.set(tmpIndex, 0, tmpObjExpr.getAdjustedLinearFactor(tmpKey));
+                        mtrxC.set(tmpIndex, 0, tmpFactors.doubleValue(p) * tmpAdjustment);
                     }
                 }
             }
@@ -385,10 +392,12 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
                 for (int i = 0; i < numbUpExpr; i++) {
                     final SparseArray<Double> rowAI = mtrxAI.addRow();
                     final Expression tmpExpression = tmpUpExpr.get(i).compensate(fixedVariables);
-                    for (final IntIndex tmpKey : tmpExpression.getLinearKeySet()) {
-                        final int tmpIndex = sourceModel.indexOfFreeVariable(tmpKey.index);
+                    final IndexedFactors tmpFactors = tmpExpression.getLinearFactors();
+                    final double tmpAdjustment = tmpExpression.getAdjustmentFactor();
+                    for (int p = 0, limit = tmpFactors.size(); p < limit; p++) {
+                        final int tmpIndex = sourceModel.indexOfFreeVariable(tmpFactors.index(p));
                         if (tmpIndex >= 0) {
-                            rowAI.set(tmpIndex, tmpExpression.getAdjustedLinearFactor(tmpKey));
+                            rowAI.set(tmpIndex, tmpFactors.doubleValue(p) * tmpAdjustment);
                         }
                     }
                     mtrxBI.set(i, 0, tmpExpression.getAdjustedUpperLimit());
@@ -408,10 +417,12 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
                 for (int i = 0; i < numbLoExpr; i++) {
                     final SparseArray<Double> rowAI = mtrxAI.addRow();
                     final Expression tmpExpression = tmpLoExpr.get(i).compensate(fixedVariables);
-                    for (final IntIndex tmpKey : tmpExpression.getLinearKeySet()) {
-                        final int tmpIndex = sourceModel.indexOfFreeVariable(tmpKey.index);
+                    final IndexedFactors tmpFactors = tmpExpression.getLinearFactors();
+                    final double tmpAdjustment = tmpExpression.getAdjustmentFactor();
+                    for (int p = 0, limit = tmpFactors.size(); p < limit; p++) {
+                        final int tmpIndex = sourceModel.indexOfFreeVariable(tmpFactors.index(p));
                         if (tmpIndex >= 0) {
-                            rowAI.set(tmpIndex, -tmpExpression.getAdjustedLinearFactor(tmpKey));
+                            rowAI.set(tmpIndex, -tmpFactors.doubleValue(p) * tmpAdjustment);
                         }
                     }
                     mtrxBI.set(numbUpExpr + numbUpVar + i, 0, -tmpExpression.getAdjustedLowerLimit());
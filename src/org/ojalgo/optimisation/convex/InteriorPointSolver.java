@@ -0,0 +1,981 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.convex;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.matrix.decomposition.LDL;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.GenericSolver;
+import org.ojalgo.optimisation.IndexedFactors;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.ElementView2D;
+import org.ojalgo.structure.Structure1D.IntIndex;
+import org.ojalgo.structure.Structure2D.IntRowColumn;
+
+/**
+ * Primal-dual interior point solver (Mehrotra predictor-corrector) for large sparse LP and convex QP
+ * problems of the form:
+ * <p>
+ * min 1/2 [X]<sup>T</sup>[Q][X] + [C]<sup>T</sup>[X]<br>
+ * when [L] &lt;= [A][X] &lt;= [U]<br>
+ * and [l] &lt;= [X] &lt;= [u]
+ * </p>
+ * <p>
+ * Inequality constraints get a slack variable, and variable bounds are handled directly by the barrier
+ * rather than as constraints. Each iteration solves the (regularised, quasi-definite) augmented system
+ * </p>
+ * <p>
+ * [ Q + D &nbsp; A<sup>T</sup> ]<br>
+ * [ A &nbsp; &nbsp; &nbsp; &nbsp; -&delta; ]
+ * </p>
+ * <p>
+ * using a sparse [L][D][L]<sup>T</sup> factorisation. The fill reducing ordering and the symbolic analysis
+ * are done once, since the pattern doesn't change, and each factorisation is used twice - for the
+ * predictor and the corrector steps. The number of iterations is (in practice) almost independent of the
+ * problem size and of the number of active constraints, typically 10 - 50.
+ * </p>
+ * <p>
+ * This solver is not used by default. To have {@link ExpressionsBasedModel} use it, for the models it can
+ * handle (continuous variables and linear constraints), register its integration:
+ * {@code ExpressionsBasedModel.addPreferredSolver(new InteriorPointSolver.ModelIntegration())}
+ * </p>
+ *
+ * @author apete
+ */
+public final class InteriorPointSolver extends GenericSolver {
+
+    public static final class ModelIntegration extends ExpressionsBasedModel.Integration<InteriorPointSolver> {
+
+        public InteriorPointSolver build(final ExpressionsBasedModel model) {
+
+            final List<Variable> freeVariables = model.getFreeVariables();
+            final Set<IntIndex> fixedVariables = model.getFixedVariables();
+
+            final int numbVars = freeVariables.size();
+
+            // Q & C
+
+            final Expression objective = model.objective().compensate(fixedVariables);
+            final double sign = model.isMaximisation() ? NEG : ONE;
+
+            final SparseStore<Double> mtrxQ = SparseStore.PRIMITIVE64.make(numbVars, numbVars);
+            for (final IntRowColumn key : objective.getQuadraticKeySet()) {
+                final int row = model.indexOfFreeVariable(key.row);
+                final int column = model.indexOfFreeVariable(key.column);
+                if ((row >= 0) && (column >= 0)) {
+                    final double factor = sign * objective.getAdjustedQuadraticFactor(key);
+                    mtrxQ.add(row, column, factor);
+                    mtrxQ.add(column, row, factor);
+                }
+            }
+
+            final double[] mtrxC = new double[numbVars];
+            final IndexedFactors linear = objective.getLinearFactors();
+            final double adjustment = objective.getAdjustmentFactor();
+            for (int p = 0, limit = linear.size(); p < limit; p++) {
+                final int index = model.indexOfFreeVariable(linear.index(p));
+                if (index >= 0) {
+                    mtrxC[index] = sign * linear.doubleValue(p) * adjustment;
+                }
+            }
+
+            // A
+
+            final List<Expression> constraints = model.constraints().collect(Collectors.toList());
+            final int numbRows = constraints.size();
+
+            final SparseStore<Double> mtrxA = SparseStore.PRIMITIVE64.make(numbRows, numbVars);
+            final double[] rowLower = new double[numbRows];
+            final double[] rowUpper = new double[numbRows];
+
+            for (int i = 0; i < numbRows; i++) {
+                final Expression constraint = constraints.get(i).compensate(fixedVariables);
+                final IndexedFactors factors = constraint.getLinearFactors();
+                final double rowAdjustment = constraint.getAdjustmentFactor();
+                for (int p = 0, limit = factors.size(); p < limit; p++) {
+                    final int index = model.indexOfFreeVariable(factors.index(p));
+                    if (index >= 0) {
+                        mtrxA.set(i, index, factors.doubleValue(p) * rowAdjustment);
+                    }
+                }
+                rowLower[i] = constraint.getAdjustedLowerLimit();
+                rowUpper[i] = constraint.getAdjustedUpperLimit();
+            }
+
+            // Bounds
+
+            final double[] lower = new double[numbVars];
+            final double[] upper = new double[numbVars];
+            for (int j = 0; j < numbVars; j++) {
+                final Variable variable = freeVariables.get(j);
+                lower[j] = variable.getUnadjustedLowerLimit();
+                upper[j] = variable.getUnadjustedUpperLimit();
+            }
+
+            return new InteriorPointSolver(mtrxQ, mtrxC, mtrxA, rowLower, rowUpper, lower, upper, model.options);
+        }
+
+        public boolean isCapable(final ExpressionsBasedModel model) {
+            return !model.isAnyVariableInteger() && !model.isAnyConstraintQuadratic();
+        }
+
+        @Override
+        protected boolean isSolutionMapped() {
+            return true;
+        }
+
+    }
+
+    /**
+     * Max number of iterations
+     */
+    static int ITERATIONS = 200;
+
+    private static final double DIVERGENCE = 1E12;
+    private static final double DUAL_REGULARISATION = 1E-9;
+    private static final double PRIMAL_REGULARISATION = 1E-9;
+    private static final int REFINEMENTS = 2;
+    private static final double STEP_FACTOR = 0.995;
+    private static final double TOLERANCE = 1E-8;
+
+    /**
+     * The entries are given for one triangle only (and may be repeated). Sorted, column by column, before
+     * being set so that each one is appended at the end of the sparse store.
+     */
+    private static SparseStore<Double> makeSymmetric(final int dim, final int[] rows, final int[] columns, final double[] values) {
+
+        final int count = rows.length;
+
+        final int[] row = new int[2 * count];
+        final int[] column = new int[2 * count];
+        final double[] value = new double[2 * count];
+        int size = 0;
+        for (int e = 0; e < count; e++) {
+            row[size] = rows[e];
+            column[size] = columns[e];
+            value[size++] = values[e];
+            if (rows[e] != columns[e]) {
+                row[size] = columns[e];
+                column[size] = rows[e];
+                value[size++] = values[e];
+            }
+        }
+
+        final int[] byRow = InteriorPointSolver.sort(dim, row, null, size);
+        final int[] byColumn = InteriorPointSolver.sort(dim, column, byRow, size);
+
+        final SparseStore<Double> retVal = SparseStore.PRIMITIVE64.make(dim, dim);
+
+        for (int k = 0; k < size;) {
+            final int e = byColumn[k];
+            double sum = ZERO;
+            for (; (k < size) && (row[byColumn[k]] == row[e]) && (column[byColumn[k]] == column[e]); k++) {
+                sum += value[byColumn[k]];
+            }
+            retVal.set(row[e], column[e], sum);
+        }
+
+        return retVal;
+    }
+
+    private static double norm(final double[] vector) {
+        double retVal = ZERO;
+        for (int i = 0; i < vector.length; i++) {
+            retVal = Math.max(retVal, Math.abs(vector[i]));
+        }
+        return retVal;
+    }
+
+    /**
+     * Stable counting sort
+     *
+     * @param order The order to start from, or null for the natural order
+     */
+    private static int[] sort(final int dim, final int[] keys, final int[] order, final int size) {
+
+        final int[] start = new int[dim + 1];
+        for (int k = 0; k < size; k++) {
+            start[keys[k] + 1]++;
+        }
+        for (int i = 0; i < dim; i++) {
+            start[i + 1] += start[i];
+        }
+
+        final int[] retVal = new int[size];
+        for (int k = 0; k < size; k++) {
+            final int e = order != null ? order[k] : k;
+            retVal[start[keys[e]]++] = e;
+        }
+
+        return retVal;
+    }
+
+    private final int[] myAIndex;
+    private final int[] myAStart;
+    private final double[] myAValue;
+    private final double[] myB;
+    private final double[] myC;
+    private final double[] myDeltaX;
+    private final double[] myDeltaY;
+    private final double[] myDeltaZL;
+    private final double[] myDeltaZU;
+    private final int myDim;
+    private final LDL<Double> myFactorisation;
+    private final SparseStore<Double> myKKT;
+    private final int[] myKKTColumn;
+    private final int[] myKKTRow;
+    private final double[] myKKTValue;
+    private final double[] myLower;
+    private final int myNumberOfBoundsSet;
+    private final int myNumberOfModelVariables;
+    private final int myNumberOfRows;
+    private final int myNumberOfVariables;
+    private final int[] myQColumn;
+    private final int[] myQRow;
+    private final double[] myQDiagonal;
+    private final double[] myQValue;
+    private final double[] myResidual;
+    private final double[] myResidualDual;
+    private final double[] myResidualPrimal;
+    private final double[] myRHS;
+    private final double[] myRL;
+    private final double[] myRU;
+    private final double[] myUpper;
+    private final double[] myWork;
+    private final double[] myX;
+    private final double[] myY;
+    private final double[] myZL;
+    private final double[] myZU;
+
+    InteriorPointSolver(final SparseStore<Double> mtrxQ, final double[] mtrxC, final SparseStore<Double> mtrxA, final double[] rowLower,
+            final double[] rowUpper, final double[] lower, final double[] upper, final Optimisation.Options solverOptions) {
+
+        super(solverOptions);
+
+        final int n = mtrxC.length;
+        final int m = rowLower.length;
+
+        myNumberOfModelVariables = n;
+        myNumberOfRows = m;
+
+        // Inequality constraints get a slack variable: [a][x] - s == 0 and [L] <= s <= [U]
+
+        int numbSlacks = 0;
+        for (int i = 0; i < m; i++) {
+            if (rowLower[i] != rowUpper[i]) {
+                numbSlacks++;
+            }
+        }
+
+        final int numbVars = n + numbSlacks;
+        myNumberOfVariables = numbVars;
+        myDim = numbVars + m;
+
+        myC = Arrays.copyOf(mtrxC, numbVars);
+        myLower = Arrays.copyOf(lower, numbVars);
+        myUpper = Arrays.copyOf(upper, numbVars);
+        myB = new double[m];
+
+        // A as compressed sparse columns, with the slack columns last
+
+        myAStart = new int[numbVars + 1];
+        final ElementView2D<Double, ?> nonzerosA = mtrxA.nonzeros();
+        int countA = 0;
+        while (nonzerosA.hasNext()) {
+            nonzerosA.next();
+            myAStart[(int) nonzerosA.column() + 1]++;
+            countA++;
+        }
+        for (int i = 0, s = n; i < m; i++) {
+            if (rowLower[i] != rowUpper[i]) {
+                myAStart[++s]++;
+                countA++;
+                myLower[s - 1] = rowLower[i];
+                myUpper[s - 1] = rowUpper[i];
+            } else {
+                myB[i] = rowUpper[i];
+            }
+        }
+        for (int j = 0; j < numbVars; j++) {
+            myAStart[j + 1] += myAStart[j];
+        }
+        myAIndex = new int[countA];
+        myAValue = new double[countA];
+        final int[] next = Arrays.copyOf(myAStart, numbVars);
+        for (final ElementView2D<Double, ?> nonzero : mtrxA.nonzeros()) {
+            final int p = next[(int) nonzero.column()]++;
+            myAIndex[p] = (int) nonzero.row();
+            myAValue[p] = nonzero.doubleValue();
+        }
+        for (int i = 0, s = n; i < m; i++) {
+            if (rowLower[i] != rowUpper[i]) {
+                final int p = next[s++]++;
+                myAIndex[p] = i;
+                myAValue[p] = NEG;
+            }
+        }
+
+        // Q, upper triangle
+
+        int countQ = 0;
+        for (final ElementView2D<Double, ?> nonzero : mtrxQ.nonzeros()) {
+            if ((nonzero.row() <= nonzero.column()) && (nonzero.doubleValue() != ZERO)) {
+                countQ++;
+            }
+        }
+        myQRow = new int[countQ];
+        myQColumn = new int[countQ];
+        myQValue = new double[countQ];
+        countQ = 0;
+        for (final ElementView2D<Double, ?> nonzero : mtrxQ.nonzeros()) {
+            if ((nonzero.row() <= nonzero.column()) && (nonzero.doubleValue() != ZERO)) {
+                myQRow[countQ] = (int) nonzero.row();
+                myQColumn[countQ] = (int) nonzero.column();
+                myQValue[countQ++] = nonzero.doubleValue();
+            }
+        }
+
+        // The KKT system: diagonal of the variables block, Q, A and the diagonal of the constraints block
+
+        final int countKKT = numbVars + countQ + countA + m;
+        myKKTRow = new int[countKKT];
+        myKKTColumn = new int[countKKT];
+        myKKTValue = new double[countKKT];
+
+        int e = 0;
+        for (int j = 0; j < numbVars; j++, e++) {
+            myKKTRow[e] = j;
+            myKKTColumn[e] = j;
+            myKKTValue[e] = ONE; // Anything nonzero, so that it's part of the sparse structure
+        }
+        for (int p = 0; p < countQ; p++, e++) {
+            myKKTRow[e] = myQRow[p];
+            myKKTColumn[e] = myQColumn[p];
+            myKKTValue[e] = myQValue[p];
+        }
+        for (int j = 0; j < numbVars; j++) {
+            for (int p = myAStart[j]; p < myAStart[j + 1]; p++, e++) {
+                myKKTRow[e] = j;
+                myKKTColumn[e] = numbVars + myAIndex[p];
+                myKKTValue[e] = myAValue[p];
+            }
+        }
+        for (int i = 0; i < m; i++, e++) {
+            myKKTRow[e] = numbVars + i;
+            myKKTColumn[e] = numbVars + i;
+            myKKTValue[e] = -DUAL_REGULARISATION;
+        }
+
+        myKKT = InteriorPointSolver.makeSymmetric(myDim, myKKTRow, myKKTColumn, myKKTValue);
+        myQDiagonal = new double[numbVars];
+        for (int p = 0; p < countQ; p++) {
+            if (myQRow[p] == myQColumn[p]) {
+                myQDiagonal[myQRow[p]] += myQValue[p];
+            }
+        }
+
+        myFactorisation = LDL.SPARSE.make(myKKT);
+
+        int numbBounds = 0;
+        for (int j = 0; j < numbVars; j++) {
+            if (Double.isFinite(myLower[j])) {
+                numbBounds++;
+            }
+            if (Double.isFinite(myUpper[j])) {
+                numbBounds++;
+            }
+        }
+        myNumberOfBoundsSet = numbBounds;
+
+        myX = new double[numbVars];
+        myY = new double[m];
+        myZL = new double[numbVars];
+        myZU = new double[numbVars];
+
+        myDeltaX = new double[numbVars];
+        myDeltaY = new double[m];
+        myDeltaZL = new double[numbVars];
+        myDeltaZU = new double[numbVars];
+
+        myResidualDual = new double[numbVars];
+        myResidualPrimal = new double[m];
+        myRL = new double[numbVars];
+        myRU = new double[numbVars];
+        myRHS = new double[myDim];
+        myResidual = new double[myDim];
+        myWork = new double[myDim];
+    }
+
+    public Optimisation.Result solve(final Optimisation.Result kickStarter) {
+
+        this.resetIterationsCount();
+        this.initialise();
+
+        final int numbVars = myNumberOfVariables;
+        final int m = myNumberOfRows;
+
+        final double[] x = myX;
+        final double[] y = myY;
+        final double[] zl = myZL;
+        final double[] zu = myZU;
+        final double[] l = myLower;
+        final double[] u = myUpper;
+
+        final double normB = norm(myB);
+        final double normC = norm(myC);
+
+        this.setState(State.APPROXIMATE);
+
+        double primalInfeasibility = POSITIVE_INFINITY;
+        double dualInfeasibility = POSITIVE_INFINITY;
+        double gap = POSITIVE_INFINITY;
+
+        while (this.isIterationAllowed() && (this.countIterations() < ITERATIONS)) {
+
+            // Residuals and convergence
+
+            this.calculateResiduals();
+
+            final double mu = this.getComplementarity() / Math.max(1, myNumberOfBoundsSet);
+
+            final double primalObjective = this.evaluatePrimal();
+            final double dualObjective = this.evaluateDual();
+
+            primalInfeasibility = norm(myResidualPrimal) / (ONE + normB);
+            dualInfeasibility = norm(myResidualDual) / (ONE + normC);
+            gap = Math.abs(primalObjective - dualObjective) / (ONE + Math.abs(primalObjective));
+
+            if (this.isLogProgress()) {
+                this.log("{}: pobj={} dobj={} pinf={} dinf={} mu={}", this.countIterations(), primalObjective, dualObjective, primalInfeasibility,
+                        dualInfeasibility, mu);
+            }
+
+            if ((primalInfeasibility <= TOLERANCE) && (dualInfeasibility <= TOLERANCE) && (gap <= TOLERANCE)) {
+                this.setState(State.OPTIMAL);
+                break;
+            }
+
+            if ((norm(x) > DIVERGENCE) || (norm(y) > DIVERGENCE) || (norm(zl) > DIVERGENCE) || (norm(zu) > DIVERGENCE)) {
+                break;
+            }
+
+            this.factorise();
+
+            // Predictor (affine scaling) direction
+
+            for (int j = 0; j < numbVars; j++) {
+                myRL[j] = Double.isFinite(l[j]) ? -(x[j] - l[j]) * zl[j] : ZERO;
+                myRU[j] = Double.isFinite(u[j]) ? -(u[j] - x[j]) * zu[j] : ZERO;
+            }
+
+            this.solveNewtonSystem();
+
+            final double primalStepAffine = this.getPrimalStep();
+            final double dualStepAffine = this.getDualStep();
+
+            double complementarityAffine = ZERO;
+            for (int j = 0; j < numbVars; j++) {
+                if (Double.isFinite(l[j])) {
+                    complementarityAffine += ((x[j] - l[j]) + (primalStepAffine * myDeltaX[j])) * (zl[j] + (dualStepAffine * myDeltaZL[j]));
+                }
+                if (Double.isFinite(u[j])) {
+                    complementarityAffine += ((u[j] - x[j]) - (primalStepAffine * myDeltaX[j])) * (zu[j] + (dualStepAffine * myDeltaZU[j]));
+                }
+            }
+            final double muAffine = complementarityAffine / Math.max(1, myNumberOfBoundsSet);
+
+            final double sigma = mu > ZERO ? Math.pow(Math.min(ONE, muAffine / mu), 3) : ZERO;
+
+            // Corrector (centering and second order) direction
+
+            for (int j = 0; j < numbVars; j++) {
+                myRL[j] = Double.isFinite(l[j]) ? (sigma * mu) - ((x[j] - l[j]) * zl[j]) - (myDeltaX[j] * myDeltaZL[j]) : ZERO;
+                myRU[j] = Double.isFinite(u[j]) ? ((sigma * mu) - ((u[j] - x[j]) * zu[j])) + (myDeltaX[j] * myDeltaZU[j]) : ZERO;
+            }
+
+            this.solveNewtonSystem();
+
+            double primalStep = Math.min(ONE, STEP_FACTOR * this.getPrimalStep());
+            double dualStep = Math.min(ONE, STEP_FACTOR * this.getDualStep());
+            if (myQValue.length > 0) {
+                primalStep = dualStep = Math.min(primalStep, dualStep);
+            }
+
+            for (int j = 0; j < numbVars; j++) {
+                x[j] += primalStep * myDeltaX[j];
+                zl[j] += dualStep * myDeltaZL[j];
+                zu[j] += dualStep * myDeltaZU[j];
+            }
+            for (int i = 0; i < m; i++) {
+                y[i] += dualStep * myDeltaY[i];
+            }
+
+            this.incrementIterationsCount();
+        }
+
+        if (!this.getState().isOptimal()) {
+            if ((primalInfeasibility > TOLERANCE) && ((norm(y) > DIVERGENCE) || (norm(zl) > DIVERGENCE) || (norm(zu) > DIVERGENCE))) {
+                this.setState(State.INFEASIBLE);
+            } else if ((dualInfeasibility > TOLERANCE) && (norm(x) > DIVERGENCE)) {
+                this.setState(State.UNBOUNDED);
+            } else if ((primalInfeasibility <= Math.sqrt(TOLERANCE)) && (dualInfeasibility <= Math.sqrt(TOLERANCE))
+                    && (gap <= Math.sqrt(TOLERANCE))) {
+                this.setState(State.APPROXIMATE);
+            } else {
+                this.setState(State.FAILED);
+            }
+        }
+
+        if (this.getState().isOptimal() || (this.getState() == State.APPROXIMATE)) {
+            this.reducePrimalInfeasibility();
+        }
+
+        final Optimisation.Result result = this.buildResult();
+
+        return result.multipliers(Primitive64Array.wrap(Arrays.copyOf(y, m)));
+    }
+
+    @Override
+    protected double evaluateFunction(final Access1D<?> solution) {
+
+        final int n = myNumberOfModelVariables;
+
+        double retVal = ZERO;
+
+        for (int j = 0; j < n; j++) {
+            retVal += myC[j] * solution.doubleValue(j);
+        }
+        for (int p = 0; p < myQValue.length; p++) {
+            final int i = myQRow[p];
+            final int j = myQColumn[p];
+            final double term = myQValue[p] * solution.doubleValue(i) * solution.doubleValue(j);
+            retVal += i == j ? HALF * term : term;
+        }
+
+        return retVal;
+    }
+
+    @Override
+    protected Access1D<?> extractSolution() {
+        return Primitive64Array.wrap(Arrays.copyOf(myX, myNumberOfModelVariables));
+    }
+
+    /**
+     * [rp] = [b] - [A][x] and [rd] = [c] + [Q][x] - [A]<sup>T</sup>[y] - [zl] + [zu]
+     */
+    private void calculateResiduals() {
+
+        final double[] rp = myResidualPrimal;
+        final double[] rd = myResidualDual;
+
+        System.arraycopy(myB, 0, rp, 0, myNumberOfRows);
+
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            final double xj = myX[j];
+            double sum = myC[j] - myZL[j] + myZU[j];
+            for (int p = myAStart[j]; p < myAStart[j + 1]; p++) {
+                final int i = myAIndex[p];
+                rp[i] -= myAValue[p] * xj;
+                sum -= myAValue[p] * myY[i];
+            }
+            rd[j] = sum;
+        }
+
+        this.multiplyQ(myX, rd);
+    }
+
+    private double evaluateDual() {
+
+        double retVal = ZERO;
+
+        for (int i = 0; i < myNumberOfRows; i++) {
+            retVal += myB[i] * myY[i];
+        }
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            if (Double.isFinite(myLower[j])) {
+                retVal += myLower[j] * myZL[j];
+            }
+            if (Double.isFinite(myUpper[j])) {
+                retVal -= myUpper[j] * myZU[j];
+            }
+        }
+
+        return retVal - this.evaluateQuadratic();
+    }
+
+    private double evaluatePrimal() {
+
+        double retVal = ZERO;
+
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            retVal += myC[j] * myX[j];
+        }
+
+        return retVal + this.evaluateQuadratic();
+    }
+
+    /**
+     * 1/2 [x]<sup>T</sup>[Q][x]
+     */
+    private double evaluateQuadratic() {
+        double retVal = ZERO;
+        for (int p = 0; p < myQValue.length; p++) {
+            final int i = myQRow[p];
+            final int j = myQColumn[p];
+            final double term = myQValue[p] * myX[i] * myX[j];
+            retVal += i == j ? HALF * term : term;
+        }
+        return retVal;
+    }
+
+    /**
+     * Factorise the augmented system at the current point
+     */
+    private void factorise() {
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            double d = PRIMAL_REGULARISATION;
+            if (Double.isFinite(myLower[j])) {
+                d += myZL[j] / (myX[j] - myLower[j]);
+            }
+            if (Double.isFinite(myUpper[j])) {
+                d += myZU[j] / (myUpper[j] - myX[j]);
+            }
+            myKKTValue[j] = d;
+        }
+        this.factorise(myKKTValue);
+    }
+
+    private void factorise(final double[] values) {
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            myKKT.set(j, j, values[j] + myQDiagonal[j]);
+        }
+        myFactorisation.decompose(myKKT);
+    }
+
+    private double getComplementarity() {
+        double retVal = ZERO;
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            if (Double.isFinite(myLower[j])) {
+                retVal += (myX[j] - myLower[j]) * myZL[j];
+            }
+            if (Double.isFinite(myUpper[j])) {
+                retVal += (myUpper[j] - myX[j]) * myZU[j];
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * The max step length keeping the bound duals nonnegative
+     */
+    private double getDualStep() {
+        double retVal = ONE / MACHINE_EPSILON;
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            if (myDeltaZL[j] < ZERO) {
+                retVal = Math.min(retVal, -myZL[j] / myDeltaZL[j]);
+            }
+            if (myDeltaZU[j] < ZERO) {
+                retVal = Math.min(retVal, -myZU[j] / myDeltaZU[j]);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * The max step length keeping the variables within their bounds
+     */
+    private double getPrimalStep() {
+        double retVal = ONE / MACHINE_EPSILON;
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            final double dx = myDeltaX[j];
+            if ((dx < ZERO) && Double.isFinite(myLower[j])) {
+                retVal = Math.min(retVal, (myLower[j] - myX[j]) / dx);
+            } else if ((dx > ZERO) && Double.isFinite(myUpper[j])) {
+                retVal = Math.min(retVal, (myUpper[j] - myX[j]) / dx);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Mehrotra's starting point heuristic, adapted to bounds rather than nonnegativity constraints. Least
+     * squares estimates of the primal and dual variables are shifted in to the interior, far enough to not
+     * be too close to the boundary and to balance the complementarity products.
+     */
+    private void initialise() {
+
+        final int numbVars = myNumberOfVariables;
+        final int m = myNumberOfRows;
+
+        final double[] l = myLower;
+        final double[] u = myUpper;
+        final double[] x = myX;
+        final double[] zl = myZL;
+        final double[] zu = myZU;
+
+        for (int j = 0; j < numbVars; j++) {
+            if (Double.isFinite(l[j]) && Double.isFinite(u[j]) && (u[j] <= l[j])) {
+                // Fixed, give it some room
+                final double room = Math.max(ONE, Math.abs(l[j])) * TOLERANCE;
+                l[j] -= room;
+                u[j] += room;
+            }
+        }
+
+        // Least squares estimates: min ||x|| st [A][x] == [b], and min ||z|| st [A]<sup>T</sup>[y] + [z] == [c]
+
+        Arrays.fill(myKKTValue, 0, numbVars, ONE);
+        this.factorise(myKKTValue);
+
+        final double[] sol = myWork;
+
+        Arrays.fill(sol, 0, numbVars, ZERO);
+        System.arraycopy(myB, 0, sol, numbVars, m);
+        this.solve(sol);
+        System.arraycopy(sol, 0, x, 0, numbVars);
+
+        System.arraycopy(myC, 0, sol, 0, numbVars);
+        Arrays.fill(sol, numbVars, myDim, ZERO);
+        this.solve(sol);
+        // sol[0:n] is now the dual slack estimate, [c] - [A]<sup>T</sup>[y]
+        for (int i = 0; i < m; i++) {
+            myY[i] = -sol[numbVars + i];
+        }
+
+        double primalShift = ZERO;
+        double dualShift = ZERO;
+        for (int j = 0; j < numbVars; j++) {
+            final double z = sol[j];
+            if (Double.isFinite(l[j]) && Double.isFinite(u[j])) {
+                zl[j] = Math.max(z, ZERO);
+                zu[j] = Math.max(-z, ZERO);
+                primalShift = Math.max(primalShift, -Math.min(x[j] - l[j], u[j] - x[j]));
+            } else if (Double.isFinite(l[j])) {
+                zl[j] = z;
+                zu[j] = ZERO;
+                primalShift = Math.max(primalShift, l[j] - x[j]);
+                dualShift = Math.max(dualShift, -z);
+            } else if (Double.isFinite(u[j])) {
+                zl[j] = ZERO;
+                zu[j] = -z;
+                primalShift = Math.max(primalShift, x[j] - u[j]);
+                dualShift = Math.max(dualShift, z);
+            } else {
+                zl[j] = ZERO;
+                zu[j] = ZERO;
+            }
+        }
+
+        primalShift = Math.max(1.5 * primalShift, ONE);
+        dualShift = Math.max(1.5 * dualShift, ONE);
+
+        double product = ZERO;
+        double sumPrimal = ZERO;
+        double sumDual = ZERO;
+        for (int j = 0; j < numbVars; j++) {
+            if (Double.isFinite(l[j])) {
+                final double slack = (x[j] - l[j]) + primalShift;
+                final double dual = zl[j] + dualShift;
+                product += slack * dual;
+                sumPrimal += slack;
+                sumDual += dual;
+            }
+            if (Double.isFinite(u[j])) {
+                final double slack = (u[j] - x[j]) + primalShift;
+                final double dual = zu[j] + dualShift;
+                product += slack * dual;
+                sumPrimal += slack;
+                sumDual += dual;
+            }
+        }
+        if (sumDual > ZERO) {
+            primalShift += (HALF * product) / sumDual;
+        }
+        if (sumPrimal > ZERO) {
+            dualShift += (HALF * product) / sumPrimal;
+        }
+
+        for (int j = 0; j < numbVars; j++) {
+            if (Double.isFinite(l[j]) && Double.isFinite(u[j])) {
+                final double margin = Math.min(primalShift, HALF * (u[j] - l[j]));
+                x[j] = Math.min(Math.max(x[j], l[j] + margin), u[j] - margin);
+            } else if (Double.isFinite(l[j])) {
+                x[j] = Math.max(x[j], l[j]) + primalShift;
+            } else if (Double.isFinite(u[j])) {
+                x[j] = Math.min(x[j], u[j]) - primalShift;
+            }
+            if (Double.isFinite(l[j])) {
+                zl[j] += dualShift;
+            }
+            if (Double.isFinite(u[j])) {
+                zu[j] += dualShift;
+            }
+        }
+    }
+
+    /**
+     * [y] += [Q][x]
+     */
+    private void multiplyQ(final double[] x, final double[] y) {
+        for (int p = 0; p < myQValue.length; p++) {
+            final int i = myQRow[p];
+            final int j = myQColumn[p];
+            y[i] += myQValue[p] * x[j];
+            if (i != j) {
+                y[j] += myQValue[p] * x[i];
+            }
+        }
+    }
+
+    /**
+     * The iterations stop when the (relative) residuals are small enough, but the remaining primal
+     * infeasibility may still be significant in absolute terms. Project on to [A][x] == [b] - a least squares
+     * correction weighted by the barrier terms, so that variables close to their bounds hardly move. A
+     * correction is only kept if it actually reduces the infeasibility.
+     */
+    private void reducePrimalInfeasibility() {
+
+        final int numbVars = myNumberOfVariables;
+        final double[] rhs = myRHS;
+        final double[] sol = myWork;
+        final double[] previous = Arrays.copyOf(myX, numbVars);
+
+        this.factorise();
+        this.calculateResiduals();
+
+        double infeasibility = norm(myResidualPrimal);
+
+        for (int r = 0; (r < REFINEMENTS) && (infeasibility > ZERO); r++) {
+
+            Arrays.fill(rhs, 0, numbVars, ZERO);
+            System.arraycopy(myResidualPrimal, 0, rhs, numbVars, myNumberOfRows);
+            this.solveAugmentedSystem();
+
+            System.arraycopy(myX, 0, previous, 0, numbVars);
+            for (int j = 0; j < numbVars; j++) {
+                myX[j] = Math.min(Math.max(myX[j] + sol[j], myLower[j]), myUpper[j]);
+            }
+
+            this.calculateResiduals();
+            final double reduced = norm(myResidualPrimal);
+            if (reduced < infeasibility) {
+                infeasibility = reduced;
+            } else {
+                System.arraycopy(previous, 0, myX, 0, numbVars);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Solve in place, using the latest factorisation
+     */
+    private void solve(final double[] vector) {
+        final Primitive64Store wrapper = Primitive64Store.wrap(vector);
+        myFactorisation.getSolution(wrapper, wrapper);
+    }
+
+    /**
+     * Solves the augmented system, with right hand side {@link #myRHS} and solution in {@link #myWork}, using
+     * the latest factorisation followed by a few steps of iterative refinement (against the unregularised
+     * matrix).
+     */
+    private void solveAugmentedSystem() {
+
+        final int numbVars = myNumberOfVariables;
+        final double[] rhs = myRHS;
+        final double[] sol = myWork;
+        final double[] residual = myResidual;
+
+        System.arraycopy(rhs, 0, sol, 0, myDim);
+        this.solve(sol);
+
+        for (int r = 0; r < REFINEMENTS; r++) {
+            System.arraycopy(rhs, 0, residual, 0, myDim);
+            for (int e = 0; e < myKKTValue.length; e++) {
+                final int i = myKKTRow[e];
+                final int j = myKKTColumn[e];
+                double value = myKKTValue[e];
+                if (i == j) {
+                    value += i < numbVars ? -PRIMAL_REGULARISATION : DUAL_REGULARISATION;
+                }
+                residual[i] -= value * sol[j];
+                if (i != j) {
+                    residual[j] -= value * sol[i];
+                }
+            }
+            this.solve(residual);
+            for (int k = 0; k < myDim; k++) {
+                sol[k] += residual[k];
+            }
+        }
+    }
+
+    /**
+     * Solves the Newton system, for the current residuals and right hand sides of the complementarity
+     * equations ({@link #myRL} and {@link #myRU}).
+     */
+    private void solveNewtonSystem() {
+
+        final int numbVars = myNumberOfVariables;
+        final int m = myNumberOfRows;
+        final double[] rhs = myRHS;
+        final double[] sol = myWork;
+
+        for (int j = 0; j < numbVars; j++) {
+            double r = -myResidualDual[j];
+            if (Double.isFinite(myLower[j])) {
+                r += myRL[j] / (myX[j] - myLower[j]);
+            }
+            if (Double.isFinite(myUpper[j])) {
+                r -= myRU[j] / (myUpper[j] - myX[j]);
+            }
+            rhs[j] = r;
+        }
+        System.arraycopy(myResidualPrimal, 0, rhs, numbVars, m);
+
+        this.solveAugmentedSystem();
+
+        for (int j = 0; j < numbVars; j++) {
+            final double dx = sol[j];
+            myDeltaX[j] = dx;
+            myDeltaZL[j] = Double.isFinite(myLower[j]) ? (myRL[j] - (myZL[j] * dx)) / (myX[j] - myLower[j]) : ZERO;
+            myDeltaZU[j] = Double.isFinite(myUpper[j]) ? (myRU[j] + (myZU[j] * dx)) / (myUpper[j] - myX[j]) : ZERO;
+        }
+        for (int i = 0; i < m; i++) {
+            myDeltaY[i] = -sol[numbVars + i];
+        }
+    }
+
+}
@@ -29,16 +29,21 @@ import java.lang.reflect.InvocationTargetException;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
 import java.util.function.Predicate;
 
 import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.array.Primitive64Array;
 import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.function.constant.PrimitiveMath;
 import org.ojalgo.function.multiary.MultiaryFunction;
@@ -143,6 +148,36 @@ public final class IntegerSolver extends GenericSolver {
 
     }
 
+    /**
+     * Evaluates the best node in the queue at the time it is executed (not necessarily the node that caused
+     * this task to be created). There is always exactly one task per queued node.
+     */
+    final class DeferredNodeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        DeferredNodeTask() {
+            super();
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                IntegerSolver.this.evaluateDeferred();
+            } catch (final RuntimeException | Error cause) {
+                myNormalExit = false;
+                throw cause;
+            } finally {
+                if (myPendingNodes.decrementAndGet() == 0) {
+                    synchronized (myPendingNodes) {
+                        myPendingNodes.notifyAll();
+                    }
+                }
+            }
+        }
+
+    }
+
     static final class NodeStatistics {
 
         private final AtomicInteger myAbandoned = new AtomicInteger();
@@ -346,8 +381,8 @@ public final class IntegerSolver extends GenericSolver {
         }
     }
 
-    private volatile Optimisation.Result myBestResultSoFar = null;
-    private final Queue<NodeKey> myDeferredNodes = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Optimisation.Result> myBestResultSoFar = new AtomicReference<>();
+    private final PriorityBlockingQueue<NodeKey> myDeferredNodes;
     private final MultiaryFunction.TwiceDifferentiable<Double> myFunction;
     /**
      * One entry per integer variable, the entry is the global index of that integer variable
@@ -358,6 +393,15 @@ public final class IntegerSolver extends GenericSolver {
     private final AtomicInteger myIntegerSolutionsCount = new AtomicInteger();
     private final boolean myMinimisation;
     private final NodeStatistics myNodeStatistics = new NodeStatistics();
+    private volatile boolean myNormalExit = true;
+    private final boolean myParallelDeferred;
+    /**
+     * Number of queued (deferred) nodes, and nodes currently being evaluated, that were taken from the queue
+     */
+    private final AtomicInteger myPendingNodes = new AtomicInteger();
+    private final AtomicIntegerArray myPseudoCostCounts;
+    private final DoubleAdder[] myPseudoCostSums;
+    private final NodeSelection mySelection;
 
     protected IntegerSolver(final ExpressionsBasedModel model, final Options solverOptions) {
 
@@ -368,12 +412,22 @@ public final class IntegerSolver extends GenericSolver {
 
         myMinimisation = myIntegerModel.isMinimisation();
 
+        mySelection = solverOptions.mip_selection != null ? solverOptions.mip_selection : NodeSelection.HYBRID;
+        myDeferredNodes = new PriorityBlockingQueue<>(64, mySelection.comparator(myMinimisation));
+        myParallelDeferred = solverOptions.mip_defer > HALF;
+
         final List<Variable> integerVariables = myIntegerModel.getIntegerVariables();
         myIntegerIndices = new int[integerVariables.size()];
         for (int i = 0, limit = myIntegerIndices.length; i < limit; i++) {
             myIntegerIndices[i] = myIntegerModel.indexOf(integerVariables.get(i));
         }
 
+        myPseudoCostCounts = new AtomicIntegerArray(myIntegerIndices.length);
+        myPseudoCostSums = new DoubleAdder[myIntegerIndices.length];
+        for (int i = 0; i < myPseudoCostSums.length; i++) {
+            myPseudoCostSums[i] = new DoubleAdder();
+        }
+
         myIntegerSignificances = new double[myIntegerIndices.length];
         Arrays.fill(myIntegerSignificances, ONE);
         final MatrixStore<Double> gradient = this.getGradient(Access1D.asPrimitive1D(model.getVariableValues()));
@@ -396,17 +450,41 @@ public final class IntegerSolver extends GenericSolver {
 
         this.resetIterationsCount();
 
+        myNormalExit = true;
+
         final BranchAndBoundNodeTask rootNodeTask = new BranchAndBoundNodeTask();
 
-        boolean normalExit = IntegerSolver.executor().invoke(rootNodeTask).booleanValue();
-        while (normalExit && (myDeferredNodes.size() > 0)) {
-            NodeKey nodeKey = myDeferredNodes.poll();
-            if (this.isGoodEnoughToContinueBranching(nodeKey.objective)) {
-                normalExit &= IntegerSolver.executor().invoke(new BranchAndBoundNodeTask(nodeKey)).booleanValue();
+        if (!IntegerSolver.executor().invoke(rootNodeTask).booleanValue()) {
+            myNormalExit = false;
+        }
+
+        if (myParallelDeferred) {
+            // Wait for the deferred nodes, evaluated by the pool's workers, to be done
+            synchronized (myPendingNodes) {
+                while (myPendingNodes.get() > 0) {
+                    try {
+                        myPendingNodes.wait();
+                    } catch (final InterruptedException exception) {
+                        myNormalExit = false;
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+        } else {
+            // Evaluate the deferred nodes one at the time, in this thread
+            while (myPendingNodes.get() > 0) {
+                try {
+                    this.evaluateDeferred();
+                } finally {
+                    myPendingNodes.decrementAndGet();
+                }
             }
         }
         myDeferredNodes.clear();
 
+        final boolean normalExit = myNormalExit;
+
         final Optimisation.Result bestSolutionFound = this.getBestResultSoFar();
 
         if (bestSolutionFound.getState().isFeasible()) {
@@ -480,12 +558,17 @@ public final class IntegerSolver extends GenericSolver {
             final int branchIntegerIndex = this.identifyNonIntegerVariable(nodeResult, nodeKey);
             final double tmpSolutionValue = this.evaluateFunction(nodeResult);
 
+            if (nodeKey.index >= 0) {
+                this.updatePseudoCost(nodeKey.index, nodeKey.displacement, tmpSolutionValue - nodeKey.objective);
+            }
+
             if (branchIntegerIndex == -1) {
                 if (this.isLogDebug()) {
                     nodePrinter.println("Integer solution! Store it among the others, and stop this branch!");
                 }
 
-                final Optimisation.Result tmpIntegerSolutionResult = new Optimisation.Result(Optimisation.State.FEASIBLE, tmpSolutionValue, nodeResult);
+                final Optimisation.Result tmpIntegerSolutionResult = new Optimisation.Result(Optimisation.State.FEASIBLE, tmpSolutionValue,
+                        this.roundIntegers(nodeResult));
 
                 this.markInteger(nodeKey, null, tmpIntegerSolutionResult);
 
@@ -517,8 +600,19 @@ public final class IntegerSolver extends GenericSolver {
 
                     // this.generateCuts(nodeModel);
 
-                    final NodeKey lowerBranch = nodeKey.createLowerBranch(branchIntegerIndex, variableValue, tmpSolutionValue);
-                    final NodeKey upperBranch = nodeKey.createUpperBranch(branchIntegerIndex, variableValue, tmpSolutionValue);
+                    final double pseudoCost = this.getPseudoCost(branchIntegerIndex);
+
+                    final NodeKey lowerBranch = nodeKey.createLowerBranch(branchIntegerIndex, variableValue, tmpSolutionValue, pseudoCost);
+                    final NodeKey upperBranch = nodeKey.createUpperBranch(branchIntegerIndex, variableValue, tmpSolutionValue, pseudoCost);
+
+                    if (!mySelection.isDiving()) {
+
+                        this.defer(lowerBranch);
+                        this.defer(upperBranch);
+
+                        nodeModel.dispose();
+                        return true;
+                    }
 
                     final NodeKey nextTask;
                     final BranchAndBoundNodeTask forkedTask;
@@ -529,7 +623,7 @@ public final class IntegerSolver extends GenericSolver {
                             forkedTask = new BranchAndBoundNodeTask(lowerBranch);
                         } else {
                             forkedTask = null;
-                            myDeferredNodes.offer(lowerBranch);
+                            this.defer(lowerBranch);
                         }
                     } else {
                         nextTask = lowerBranch;
@@ -537,7 +631,7 @@ public final class IntegerSolver extends GenericSolver {
                             forkedTask = new BranchAndBoundNodeTask(upperBranch);
                         } else {
                             forkedTask = null;
-                            myDeferredNodes.offer(upperBranch);
+                            this.defer(upperBranch);
                         }
                     }
 
@@ -599,7 +693,7 @@ public final class IntegerSolver extends GenericSolver {
 
     protected Optimisation.Result getBestResultSoFar() {
 
-        final Result currentlyTheBest = myBestResultSoFar;
+        final Result currentlyTheBest = myBestResultSoFar.get();
 
         if (currentlyTheBest != null) {
 
@@ -633,7 +727,7 @@ public final class IntegerSolver extends GenericSolver {
 
     protected boolean isGoodEnoughToContinueBranching(final double relaxedNodeValue) {
 
-        final Result bestResultSoFar = myBestResultSoFar;
+        final Result bestResultSoFar = myBestResultSoFar.get();
 
         if ((bestResultSoFar == null) || Double.isNaN(relaxedNodeValue)) {
 
@@ -655,12 +749,12 @@ public final class IntegerSolver extends GenericSolver {
     }
 
     protected boolean isIntegerSolutionFound() {
-        return myBestResultSoFar != null;
+        return myBestResultSoFar.get() != null;
     }
 
     protected boolean isIterationNecessary() {
 
-        if (myBestResultSoFar == null) {
+        if (myBestResultSoFar.get() == null) {
 
             return true;
 
@@ -670,29 +764,30 @@ public final class IntegerSolver extends GenericSolver {
         }
     }
 
-    protected synchronized void markInteger(final NodeKey key, final ExpressionsBasedModel model, final Optimisation.Result result) {
+    protected void markInteger(final NodeKey key, final ExpressionsBasedModel model, final Optimisation.Result result) {
 
         if (this.isLogProgress()) {
             this.log("New integer solution {}", result);
             this.log("\t@ node {}", key);
         }
 
-        final Optimisation.Result currentlyTheBest = myBestResultSoFar;
+        Optimisation.Result currentlyTheBest;
+        boolean improved;
+
+        do {
+            currentlyTheBest = myBestResultSoFar.get();
+            improved = (currentlyTheBest == null) || (myMinimisation && (result.getValue() < currentlyTheBest.getValue()))
+                    || (!myMinimisation && (result.getValue() > currentlyTheBest.getValue()));
+        } while (improved && !myBestResultSoFar.compareAndSet(currentlyTheBest, result));
 
         if (currentlyTheBest == null) {
 
-            myBestResultSoFar = result;
             this.setState(Optimisation.State.FEASIBLE);
 
-        } else if ((myMinimisation && (result.getValue() < currentlyTheBest.getValue()))
-                || (!myMinimisation && (result.getValue() > currentlyTheBest.getValue()))) {
-
-            myBestResultSoFar = result;
-
-        } else {
+        } else if (!improved) {
 
             if (this.isLogDebug()) {
-                this.log("Previously best {}", myBestResultSoFar);
+                this.log("Previously best {}", currentlyTheBest);
             }
         }
 
@@ -742,7 +837,9 @@ public final class IntegerSolver extends GenericSolver {
     }
 
     void addIntegerSignificance(final int index, final double significance) {
-        myIntegerSignificances[index] = PrimitiveMath.HYPOT.invoke(myIntegerSignificances[index], significance);
+        synchronized (myIntegerSignificances) {
+            myIntegerSignificances[index] = PrimitiveMath.HYPOT.invoke(myIntegerSignificances[index], significance);
+        }
     }
 
     int countExploredNodes() {
@@ -750,6 +847,31 @@ public final class IntegerSolver extends GenericSolver {
         return 0;
     }
 
+    /**
+     * Queue a node to be evaluated later. The node is ordered according to the {@link NodeSelection} strategy.
+     */
+    void defer(final NodeKey nodeKey) {
+        myPendingNodes.incrementAndGet();
+        myDeferredNodes.offer(nodeKey);
+        if (myParallelDeferred) {
+            IntegerSolver.executor().execute(new DeferredNodeTask());
+        }
+    }
+
+    /**
+     * Take the best node from the queue and evaluate it (if it's still good enough).
+     */
+    void evaluateDeferred() {
+        final NodeKey nodeKey = myDeferredNodes.poll();
+        if ((nodeKey != null) && myNormalExit && this.isGoodEnoughToContinueBranching(nodeKey.objective)) {
+            final BranchAndBoundNodeTask nodeTask = new BranchAndBoundNodeTask(nodeKey);
+            final Boolean normalExit = ForkJoinTask.inForkJoinPool() ? nodeTask.compute() : IntegerSolver.executor().invoke(nodeTask);
+            if (!normalExit.booleanValue()) {
+                myNormalExit = false;
+            }
+        }
+    }
+
     int getGlobalIndex(final int integerIndex) {
         return myIntegerIndices[integerIndex];
     }
@@ -758,10 +880,62 @@ public final class IntegerSolver extends GenericSolver {
         return myIntegerIndices;
     }
 
+    /**
+     * The average observed objective function degradation per unit displacement when branching on this
+     * variable. If there are no observations for this variable the average over all variables is used.
+     * Negative when maximising.
+     */
+    double getPseudoCost(final int index) {
+
+        double sum = ZERO;
+        int count = myPseudoCostCounts.get(index);
+
+        if (count > 0) {
+            sum = myPseudoCostSums[index].sum();
+        } else {
+            for (int i = 0; i < myPseudoCostSums.length; i++) {
+                count += myPseudoCostCounts.get(i);
+                sum += myPseudoCostSums[i].sum();
+            }
+        }
+
+        final double average = count > 0 ? sum / count : ZERO;
+
+        return myMinimisation ? average : -average;
+    }
+
     double getIntegerSignificance(final int index) {
         return myIntegerSignificances[index];
     }
 
+    /**
+     * Node solutions are only integer within the feasibility tolerance, and node solvers that are updated
+     * in-place (rather than re-built) accumulate some rounding errors. When an integer solution is found the
+     * integer variables are rounded to exact integer values.
+     */
+    Access1D<?> roundIntegers(final Access1D<?> nodeSolution) {
+
+        final int length = (int) nodeSolution.count();
+        final Primitive64Array retVal = Primitive64Array.make(length);
+
+        for (int i = 0; i < length; i++) {
+            retVal.set(i, nodeSolution.doubleValue(i));
+        }
+        for (int i = 0; i < myIntegerIndices.length; i++) {
+            final int globalIndex = myIntegerIndices[i];
+            retVal.set(globalIndex, PrimitiveMath.RINT.invoke(retVal.doubleValue(globalIndex)));
+        }
+
+        return retVal;
+    }
+
+    void updatePseudoCost(final int index, final double displacement, final double degradation) {
+        if ((displacement > ZERO) && Double.isFinite(degradation)) {
+            myPseudoCostSums[index].add(PrimitiveMath.ABS.invoke(degradation) / displacement);
+            myPseudoCostCounts.incrementAndGet(index);
+        }
+    }
+
     /**
      * Should return the index of the (best) integer variable to branch on. Returning a negative index means
      * an integer solution has been found (no further branching). Does NOT return a global variable index -
@@ -52,6 +52,11 @@ final class NodeKey implements Comparable<NodeKey> {
      * node (each node introduces precisely 1 new upper or lower bound).
      */
     final double displacement;
+    /**
+     * The estimated objective function value of the best integer solution in this node's subtree. It is the
+     * parent's objective function value adjusted for the displacement using pseudo-costs.
+     */
+    final double estimate;
     /**
      * The index of the branched on variable.
      */
@@ -70,7 +75,8 @@ final class NodeKey implements Comparable<NodeKey> {
     final long sequence = GENERATOR.getAndIncrement();
 
     private NodeKey(final int[] lowerBounds, final int[] upperBounds, final long parentSequenceNumber, final int integerIndexBranchedOn,
-            final double branchVariableDisplacement, final double parentObjectiveFunctionValue, final boolean signChanged) {
+            final double branchVariableDisplacement, final double parentObjectiveFunctionValue, final double estimatedObjectiveFunctionValue,
+            final boolean signChanged) {
 
         super();
 
@@ -81,6 +87,7 @@ final class NodeKey implements Comparable<NodeKey> {
         index = integerIndexBranchedOn;
         displacement = branchVariableDisplacement;
         objective = parentObjectiveFunctionValue;
+        estimate = estimatedObjectiveFunctionValue;
 
         mySignChanged = signChanged;
     }
@@ -117,6 +124,7 @@ final class NodeKey implements Comparable<NodeKey> {
         index = -1;
         displacement = PrimitiveMath.NaN;
         objective = PrimitiveMath.NaN;
+        estimate = PrimitiveMath.NaN;
 
         mySignChanged = false;
     }
@@ -244,7 +252,11 @@ final class NodeKey implements Comparable<NodeKey> {
         return retVal;
     }
 
-    NodeKey createLowerBranch(final int branchIntegerIndex, final double value, final double objective) {
+    /**
+     * @param pseudoCost Estimated objective function degradation per unit displacement - negative when
+     *        maximising
+     */
+    NodeKey createLowerBranch(final int branchIntegerIndex, final double value, final double objective, final double pseudoCost) {
 
         final int[] tmpLBs = this.getLowerBounds();
         final int[] tmpUBs = this.getUpperBounds();
@@ -265,10 +277,16 @@ final class NodeKey implements Comparable<NodeKey> {
 
         final boolean changed = (oldVal > 0) && (newVal <= 0);
 
-        return new NodeKey(tmpLBs, tmpUBs, sequence, branchIntegerIndex, value - tmpFloor, objective, changed);
+        final double displacement = value - tmpFloor;
+
+        return new NodeKey(tmpLBs, tmpUBs, sequence, branchIntegerIndex, displacement, objective, objective + (pseudoCost * displacement), changed);
     }
 
-    NodeKey createUpperBranch(final int branchIntegerIndex, final double value, final double objective) {
+    /**
+     * @param pseudoCost Estimated objective function degradation per unit displacement - negative when
+     *        maximising
+     */
+    NodeKey createUpperBranch(final int branchIntegerIndex, final double value, final double objective, final double pseudoCost) {
 
         final int[] tmpLBs = this.getLowerBounds();
         final int[] tmpUBs = this.getUpperBounds();
@@ -289,7 +307,9 @@ final class NodeKey implements Comparable<NodeKey> {
 
         final boolean changed = (oldVal < 0) && (newVal >= 0);
 
-        return new NodeKey(tmpLBs, tmpUBs, sequence, branchIntegerIndex, tmpCeil - value, objective, changed);
+        final double displacement = tmpCeil - value;
+
+        return new NodeKey(tmpLBs, tmpUBs, sequence, branchIntegerIndex, displacement, objective, objective + (pseudoCost * displacement), changed);
     }
 
     void enforceBounds(final ExpressionsBasedModel model, final int integerIndex, final int[] integerToGlobalTranslator) {
@@ -0,0 +1,89 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import java.util.Comparator;
+
+/**
+ * The branch-and-bound node selection strategy - in which order nodes waiting in the queue are evaluated, and
+ * whether or not the solver dives (depth-first) before a node is put on the queue.
+ *
+ * @see org.ojalgo.optimisation.Optimisation.Options#mip_selection
+ * @author apete
+ */
+public enum NodeSelection {
+
+    /**
+     * Always evaluate the node with the best bound (parent's objective function value) next. Minimises the
+     * number of nodes evaluated to prove optimality, but does not dive and can be slow to find (any) integer
+     * solution.
+     */
+    BEST_BOUND(false, Comparator.comparingDouble((final NodeKey key) -> key.objective)),
+
+    /**
+     * Always evaluate the node with the best estimated integer solution next. The estimate is the bound
+     * adjusted with pseudo-costs (the observed objective function degradation per unit change of the
+     * branched on variable). Does not dive.
+     */
+    BEST_ESTIMATE(false, Comparator.comparingDouble((final NodeKey key) -> key.estimate)),
+
+    /**
+     * Dive depth-first, always continuing with the child node with the smallest displacement. The siblings
+     * are either forked (to be evaluated by another worker) or put on the queue depending on
+     * {@link org.ojalgo.optimisation.Optimisation.Options#mip_defer}. When a dive ends, workers pick up the
+     * queued node with the best estimate and start a new dive from there. This is the default.
+     */
+    HYBRID(true, Comparator.comparingDouble((final NodeKey key) -> key.estimate));
+
+    private final Comparator<NodeKey> myComparator;
+    private final boolean myDiving;
+
+    NodeSelection(final boolean diving, final Comparator<NodeKey> comparator) {
+        myDiving = diving;
+        myComparator = comparator.thenComparing(Comparator.comparingDouble((final NodeKey key) -> key.displacement))
+                .thenComparing(Comparator.comparingLong((final NodeKey key) -> key.sequence).reversed());
+    }
+
+    /**
+     * @return A comparator that orders the best node first
+     */
+    Comparator<NodeKey> comparator(final boolean minimisation) {
+        if (minimisation) {
+            return myComparator;
+        } else {
+            // Maximisation - larger bound/estimate is better, but the tie-breakers are the same
+            return (first, second) -> {
+                final int primary = Double.compare(this.primary(second), this.primary(first));
+                return primary != 0 ? primary : myComparator.compare(first, second);
+            };
+        }
+    }
+
+    boolean isDiving() {
+        return myDiving;
+    }
+
+    private double primary(final NodeKey key) {
+        return this == BEST_BOUND ? key.objective : key.estimate;
+    }
+
+}
@@ -0,0 +1,973 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+/**
+ * Sparse LU factorisation of a simplex basis, with product form (eta) updates between refactorisations.
+ * <p>
+ * The basis columns are taken from the constraints body, stored as compressed sparse columns. Columns with
+ * an index beyond the body are artificial (unit) columns - index {@code n + i} is the unit column of row
+ * {@code i}.
+ * <p>
+ * The factorisation is left-looking (Gilbert-Peierls) with threshold partial pivoting. Columns are processed
+ * in order of increasing nonzero count, and among the acceptable pivot candidates the one in the sparsest
+ * row is chosen. That way the (typically many) slack and artificial columns of an LP basis are factored
+ * without any fill-in at all. Columns found to be (numerically) singular are replaced by artificials of the
+ * rows left without a pivot.
+ * <p>
+ * The factors are stored (both column- and row-wise) in "step space" - indexed by the elimination step
+ * rather than by row or basis position. The solves, {@link #ftran(double[], int[], int)} and
+ * {@link #btran(double[], int[], int)}, exploit sparsity in the right hand side: when it has few nonzeros
+ * the triangular solves only visit the nodes reachable from those nonzeros (found by depth-first search),
+ * and the cost is proportional to the number of operations actually performed rather than to the size of
+ * the basis. This is what makes it possible to iterate on very large but very sparse (network like)
+ * problems.
+ * <p>
+ * {@link #update(int, double[], int[], int)} appends an eta matrix when a column is replaced. When
+ * {@link #isRefactorisationDue()} the basis should be factorised again.
+ *
+ * @author apete
+ */
+final class BasisFactorisation {
+
+    /**
+     * Max number of eta matrices before a refactorisation is due
+     */
+    static final int ETA_LIMIT = 100;
+
+    /**
+     * Right hand sides with more nonzeros than this (fraction of the size) are solved as dense.
+     */
+    private static final double DENSE = 0.1;
+    private static final double PIVOT_MINIMUM = 1E-11;
+    private static final double PIVOT_THRESHOLD = 0.1;
+
+    private final int[] myActive;
+    private int[] myBasisRowPosition = new int[16];
+    private final int[] myBasisRowStart;
+    private final int[] myBodyColumnStart;
+    private final int[] myColCount;
+    private final int[] myBodyRowIndex;
+    private final double[] myBodyValue;
+    private final double[] myDiagonal;
+    private int myEtaCount = 0;
+    private int[] myEtaIndex = new int[16];
+    private double[] myEtaPivot = new double[16];
+    private int[] myEtaPosition = new int[16];
+    private int myEtaSize = 0;
+    private int[] myEtaStart = new int[17];
+    private double[] myEtaValue = new double[16];
+    private int myFactorSize = 0;
+    /**
+     * Pivot row found by the row singleton pass, for each basis position (or -1)
+     */
+    private final int[] myForced;
+    private final int[] myList;
+    private int[] myLIndex = new int[16];
+    private int[] myLRowIndex = new int[16];
+    private final int[] myLRowStart;
+    private double[] myLRowValue = new double[16];
+    private final int[] myLStart;
+    private double[] myLValue = new double[16];
+    private final int[] myMarked;
+    private final int[] myNodes;
+    private final int myNumberOfBodyColumns;
+    private final int myNumberOfRows;
+    private final int[] myOrder;
+    /**
+     * Basis position factored at each step
+     */
+    private final int[] myPosition;
+    private final int[] myResume;
+    /**
+     * Nonzero count of each row of the basis
+     */
+    private final int[] myRowCount;
+    /**
+     * Row pivoted at each step
+     */
+    private final int[] myRow;
+    private final int[] myStack;
+    private int myStamp = 0;
+    /**
+     * Step at which each row was pivoted (or -1)
+     */
+    private final int[] myStep;
+    /**
+     * Step at which each basis position was factored
+     */
+    private final int[] myStepOfPosition;
+    private int[] myUIndex = new int[16];
+    private int[] myURowIndex = new int[16];
+    private final int[] myURowStart;
+    private double[] myURowValue = new double[16];
+    private final int[] myUStart;
+    private double[] myUValue = new double[16];
+    /**
+     * Work vector in step space - always all zeros between calls
+     */
+    private final double[] myWork;
+
+    BasisFactorisation(final int numberOfRows, final int[] columnStart, final int[] rowIndex, final double[] value) {
+
+        super();
+
+        myNumberOfRows = numberOfRows;
+        myNumberOfBodyColumns = columnStart.length - 1;
+
+        myBodyColumnStart = columnStart;
+        myBodyRowIndex = rowIndex;
+        myBodyValue = value;
+
+        myDiagonal = new double[numberOfRows];
+        myLStart = new int[numberOfRows + 1];
+        myUStart = new int[numberOfRows + 1];
+        myLRowStart = new int[numberOfRows + 1];
+        myURowStart = new int[numberOfRows + 1];
+        myPosition = new int[numberOfRows];
+        myRow = new int[numberOfRows];
+        myStep = new int[numberOfRows];
+        myStepOfPosition = new int[numberOfRows];
+        myWork = new double[numberOfRows];
+
+        myList = new int[numberOfRows];
+        myNodes = new int[numberOfRows];
+        myStack = new int[numberOfRows];
+        myResume = new int[numberOfRows];
+        myMarked = new int[numberOfRows];
+
+        myActive = new int[numberOfRows];
+        myBasisRowStart = new int[numberOfRows + 1];
+        myColCount = new int[numberOfRows];
+        myForced = new int[numberOfRows];
+        myOrder = new int[numberOfRows];
+        myRowCount = new int[numberOfRows];
+    }
+
+    /**
+     * Solve [B]<sup>T</sup>[y] = [c] in place. On input the vector is indexed by basis position, on output by
+     * constraint row.
+     */
+    void btran(final double[] vector) {
+
+        final int m = myNumberOfRows;
+        final double[] work = myWork;
+
+        for (int e = myEtaCount - 1; e >= 0; e--) {
+            this.btran(e, vector);
+        }
+
+        for (int k = 0; k < m; k++) {
+            work[k] = vector[myPosition[k]];
+        }
+
+        for (int k = 0; k < m; k++) {
+            double value = work[k];
+            if (value != ZERO) {
+                value /= myDiagonal[k];
+                work[k] = value;
+                for (int p = myURowStart[k], limit = myURowStart[k + 1]; p < limit; p++) {
+                    work[myURowIndex[p]] -= myURowValue[p] * value;
+                }
+            }
+        }
+
+        for (int s = m - 1; s >= 0; s--) {
+            final double value = work[s];
+            if (value != ZERO) {
+                for (int p = myLRowStart[s], limit = myLRowStart[s + 1]; p < limit; p++) {
+                    work[myLRowIndex[p]] -= myLRowValue[p] * value;
+                }
+            }
+        }
+
+        for (int s = 0; s < m; s++) {
+            vector[myRow[s]] = work[s];
+        }
+
+        Arrays.fill(work, ZERO);
+    }
+
+    /**
+     * Sparse version of {@link #btran(double[])}.
+     *
+     * @param vector The right hand side, indexed by basis position, is replaced by the solution, indexed by
+     *        row
+     * @param pattern On input the (basis position) indices of the right hand side nonzeros. On output the
+     *        (row) indices of the solution nonzeros.
+     * @param count The number of nonzero indices on input
+     * @return The number of nonzero indices on output
+     */
+    int btran(final double[] vector, final int[] pattern, final int count) {
+
+        final int m = myNumberOfRows;
+
+        if (count > (DENSE * m)) {
+            this.btran(vector);
+            return this.pattern(vector, pattern);
+        }
+
+        final double[] work = myWork;
+        final int[] nodes = myNodes;
+        final int[] list = myList;
+        final int[] marked = myMarked;
+
+        int retVal = count;
+
+        if (myEtaCount > 0) {
+            final int stamp = ++myStamp;
+            for (int c = 0; c < retVal; c++) {
+                marked[pattern[c]] = stamp;
+            }
+            for (int e = myEtaCount - 1; e >= 0; e--) {
+                final int r = myEtaPosition[e];
+                this.btran(e, vector);
+                if ((marked[r] != stamp) && (vector[r] != ZERO)) {
+                    marked[r] = stamp;
+                    pattern[retVal++] = r;
+                }
+            }
+        }
+
+        int size = 0;
+        for (int c = 0; c < retVal; c++) {
+            final int position = pattern[c];
+            final double value = vector[position];
+            if (value != ZERO) {
+                vector[position] = ZERO;
+                final int step = myStepOfPosition[position];
+                work[step] = value;
+                nodes[size++] = step;
+            }
+        }
+
+        int top = this.solve(myURowStart, myURowIndex, myURowValue, myDiagonal, nodes, size);
+        size = m - top;
+        System.arraycopy(list, top, nodes, 0, size);
+
+        top = this.solve(myLRowStart, myLRowIndex, myLRowValue, null, nodes, size);
+
+        retVal = 0;
+        for (int r = top; r < m; r++) {
+            final int step = list[r];
+            final double value = work[step];
+            if (value != ZERO) {
+                work[step] = ZERO;
+                final int row = myRow[step];
+                vector[row] = value;
+                pattern[retVal++] = row;
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * @return The number of nonzeros in the factors, excluding the diagonal of U, and in the eta file
+     */
+    int countNonzeros() {
+        return myFactorSize + myEtaSize;
+    }
+
+    /**
+     * Factorise the basis. Any basis column found to be singular is replaced, in the input array, by an
+     * artificial column.
+     *
+     * @param basis The variable (column) index at each basis position
+     * @return The number of basis columns that had to be replaced
+     */
+    int factorise(final int[] basis) {
+
+        final int m = myNumberOfRows;
+
+        myEtaCount = 0;
+        myEtaSize = 0;
+
+        this.order(basis);
+
+        Arrays.fill(myStep, -1);
+        myLStart[0] = 0;
+        myUStart[0] = 0;
+
+        int k = 0;
+        int countDeferred = 0;
+
+        for (int o = 0; o < m; o++) {
+            final int pos = myOrder[o];
+            if (this.eliminate(k, pos, basis[pos])) {
+                k++;
+            } else {
+                myNodes[countDeferred++] = pos;
+            }
+        }
+
+        final int lSize = myLStart[k];
+        final int uSize = myUStart[k];
+
+        // Singular columns are replaced by the artificials of the rows left without a pivot
+
+        if (countDeferred > 0) {
+            int d = 0;
+            for (int row = 0; row < m; row++) {
+                if (myStep[row] < 0) {
+                    final int pos = myNodes[d++];
+                    basis[pos] = myNumberOfBodyColumns + row;
+                    myDiagonal[k] = ONE;
+                    myRow[k] = row;
+                    myPosition[k] = pos;
+                    myStep[row] = k;
+                    k++;
+                    myLStart[k] = lSize;
+                    myUStart[k] = uSize;
+                }
+            }
+        }
+
+        myFactorSize = lSize + uSize;
+
+        // Everything to step space, and row-wise copies of L and U
+
+        for (int s = 0; s < m; s++) {
+            myStepOfPosition[myPosition[s]] = s;
+        }
+        for (int p = 0; p < lSize; p++) {
+            myLIndex[p] = myStep[myLIndex[p]];
+        }
+
+        myLRowIndex = this.ensure(myLRowIndex, lSize);
+        myLRowValue = this.ensure(myLRowValue, lSize);
+        this.transpose(myLStart, myLIndex, myLValue, myLRowStart, myLRowIndex, myLRowValue, myColCount);
+
+        myURowIndex = this.ensure(myURowIndex, uSize);
+        myURowValue = this.ensure(myURowValue, uSize);
+        this.transpose(myUStart, myUIndex, myUValue, myURowStart, myURowIndex, myURowValue, myColCount);
+
+        return countDeferred;
+    }
+
+    /**
+     * Solve [B][x] = [a] in place. On input the vector is indexed by constraint row, on output by basis
+     * position.
+     */
+    void ftran(final double[] vector) {
+
+        final int m = myNumberOfRows;
+        final double[] work = myWork;
+
+        for (int t = 0; t < m; t++) {
+            work[t] = vector[myRow[t]];
+        }
+
+        for (int t = 0; t < m; t++) {
+            final double value = work[t];
+            if (value != ZERO) {
+                for (int p = myLStart[t], limit = myLStart[t + 1]; p < limit; p++) {
+                    work[myLIndex[p]] -= myLValue[p] * value;
+                }
+            }
+        }
+
+        for (int k = m - 1; k >= 0; k--) {
+            double value = work[k];
+            if (value != ZERO) {
+                value /= myDiagonal[k];
+                work[k] = value;
+                for (int p = myUStart[k], limit = myUStart[k + 1]; p < limit; p++) {
+                    work[myUIndex[p]] -= myUValue[p] * value;
+                }
+            }
+        }
+
+        for (int k = 0; k < m; k++) {
+            vector[myPosition[k]] = work[k];
+        }
+
+        Arrays.fill(work, ZERO);
+
+        for (int e = 0; e < myEtaCount; e++) {
+            this.ftran(e, vector);
+        }
+    }
+
+    /**
+     * Sparse version of {@link #ftran(double[])}.
+     *
+     * @param vector The right hand side, indexed by row, is replaced by the solution, indexed by basis
+     *        position
+     * @param pattern On input the (row) indices of the right hand side nonzeros. On output the (basis
+     *        position) indices of the solution nonzeros.
+     * @param count The number of nonzero indices on input
+     * @return The number of nonzero indices on output
+     */
+    int ftran(final double[] vector, final int[] pattern, final int count) {
+
+        final int m = myNumberOfRows;
+
+        if (count > (DENSE * m)) {
+            this.ftran(vector);
+            return this.pattern(vector, pattern);
+        }
+
+        final double[] work = myWork;
+        final int[] nodes = myNodes;
+        final int[] list = myList;
+        final int[] marked = myMarked;
+
+        int size = 0;
+        for (int c = 0; c < count; c++) {
+            final int row = pattern[c];
+            final double value = vector[row];
+            if (value != ZERO) {
+                vector[row] = ZERO;
+                final int step = myStep[row];
+                work[step] = value;
+                nodes[size++] = step;
+            }
+        }
+
+        int top = this.solve(myLStart, myLIndex, myLValue, null, nodes, size);
+        size = m - top;
+        System.arraycopy(list, top, nodes, 0, size);
+
+        top = this.solve(myUStart, myUIndex, myUValue, myDiagonal, nodes, size);
+
+        final int stamp = ++myStamp;
+
+        int retVal = 0;
+        for (int r = top; r < m; r++) {
+            final int step = list[r];
+            final double value = work[step];
+            if (value != ZERO) {
+                work[step] = ZERO;
+                final int position = myPosition[step];
+                vector[position] = value;
+                pattern[retVal++] = position;
+                marked[position] = stamp;
+            }
+        }
+
+        for (int e = 0; e < myEtaCount; e++) {
+            if (vector[myEtaPosition[e]] != ZERO) {
+                for (int p = myEtaStart[e], limit = myEtaStart[e + 1]; p < limit; p++) {
+                    final int index = myEtaIndex[p];
+                    if (marked[index] != stamp) {
+                        marked[index] = stamp;
+                        pattern[retVal++] = index;
+                    }
+                }
+                this.ftran(e, vector);
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * @return true if there are no updates since the last factorisation
+     */
+    boolean isFresh() {
+        return myEtaCount == 0;
+    }
+
+    boolean isRefactorisationDue() {
+        return (myEtaCount >= ETA_LIMIT) || (myEtaSize > (myFactorSize + myNumberOfRows));
+    }
+
+    /**
+     * Replace the column at basis position {@code position}.
+     *
+     * @param position The basis position of the leaving column
+     * @param column The entering column, already transformed by {@link #ftran(double[], int[], int)}
+     * @param pattern The nonzero indices of the column
+     * @param count The number of nonzero indices
+     */
+    void update(final int position, final double[] column, final int[] pattern, final int count) {
+
+        final double pivot = column[position];
+
+        if (myEtaCount == myEtaPosition.length) {
+            final int capacity = 2 * myEtaCount;
+            myEtaPosition = Arrays.copyOf(myEtaPosition, capacity);
+            myEtaPivot = Arrays.copyOf(myEtaPivot, capacity);
+            myEtaStart = Arrays.copyOf(myEtaStart, capacity + 1);
+        }
+
+        myEtaIndex = this.ensure(myEtaIndex, myEtaSize + count);
+        myEtaValue = this.ensure(myEtaValue, myEtaSize + count);
+
+        for (int c = 0; c < count; c++) {
+            final int i = pattern[c];
+            final double value = column[i];
+            if ((value != ZERO) && (i != position)) {
+                myEtaIndex[myEtaSize] = i;
+                myEtaValue[myEtaSize++] = -value / pivot;
+            }
+        }
+
+        myEtaPosition[myEtaCount] = position;
+        myEtaPivot[myEtaCount] = ONE / pivot;
+        myEtaStart[++myEtaCount] = myEtaSize;
+    }
+
+    private void btran(final int eta, final double[] vector) {
+        final int r = myEtaPosition[eta];
+        double sum = myEtaPivot[eta] * vector[r];
+        for (int p = myEtaStart[eta], limit = myEtaStart[eta + 1]; p < limit; p++) {
+            sum += myEtaValue[p] * vector[myEtaIndex[p]];
+        }
+        vector[r] = sum;
+    }
+
+    /**
+     * Depth-first search in a graph (stored as compressed sparse columns) starting at {@code node}. Nodes
+     * are added to {@link #myList} (from {@code top} and downwards) so that every node comes before all
+     * the nodes reachable from it.
+     *
+     * @return The new top
+     */
+    private int depthFirst(final int[] start, final int[] index, final int node, final int top, final int stamp) {
+
+        final int[] list = myList;
+        final int[] stack = myStack;
+        final int[] resume = myResume;
+        final int[] marked = myMarked;
+
+        int retVal = top;
+        int head = 0;
+        stack[0] = node;
+
+        while (head >= 0) {
+
+            final int current = stack[head];
+
+            if (marked[current] != stamp) {
+                marked[current] = stamp;
+                resume[head] = start[current];
+            }
+
+            boolean done = true;
+            for (int p = resume[head], limit = start[current + 1]; p < limit; p++) {
+                final int next = index[p];
+                if (marked[next] != stamp) {
+                    resume[head] = p + 1;
+                    stack[++head] = next;
+                    done = false;
+                    break;
+                }
+            }
+
+            if (done) {
+                head--;
+                list[--retVal] = current;
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * One step of the left-looking factorisation - solve with the L computed so far, pick a pivot and
+     * append a column to L and U. While factorising L is indexed by row.
+     *
+     * @return false if the column is (numerically) dependent on those already factored
+     */
+    private boolean eliminate(final int k, final int pos, final int col) {
+
+        final int m = myNumberOfRows;
+        final double[] x = myWork;
+        final int[] reach = myList;
+        final int[] marked = myMarked;
+
+        final int stamp = ++myStamp;
+        int top = m;
+
+        // Symbolic - the rows reachable from the column pattern in the graph of L, in topological order
+
+        final int first, limit;
+        if (col < myNumberOfBodyColumns) {
+            first = myBodyColumnStart[col];
+            limit = myBodyColumnStart[col + 1];
+        } else {
+            first = -1;
+            limit = 0;
+        }
+
+        for (int p = first; p < limit; p++) {
+            final int start = p < 0 ? col - myNumberOfBodyColumns : myBodyRowIndex[p];
+            if (marked[start] != stamp) {
+                top = this.reach(start, top, stamp);
+            }
+        }
+
+        // Numeric
+
+        if (first < 0) {
+            x[col - myNumberOfBodyColumns] = ONE;
+        } else {
+            for (int p = first; p < limit; p++) {
+                x[myBodyRowIndex[p]] = myBodyValue[p];
+            }
+        }
+
+        for (int r = top; r < m; r++) {
+            final int row = reach[r];
+            final int step = myStep[row];
+            if (step >= 0) {
+                final double pivotValue = x[row];
+                if (pivotValue != ZERO) {
+                    for (int p = myLStart[step], end = myLStart[step + 1]; p < end; p++) {
+                        x[myLIndex[p]] -= myLValue[p] * pivotValue;
+                    }
+                }
+            }
+        }
+
+        // Pivot selection - threshold partial pivoting, preferring sparse rows
+
+        double largest = ZERO;
+        for (int r = top; r < m; r++) {
+            final int row = reach[r];
+            if (myStep[row] < 0) {
+                largest = Math.max(largest, Math.abs(x[row]));
+            }
+        }
+
+        if (largest <= PIVOT_MINIMUM) {
+            for (int r = top; r < m; r++) {
+                x[reach[r]] = ZERO;
+            }
+            return false;
+        }
+
+        final double acceptable = PIVOT_THRESHOLD * largest;
+        int pivotRow = myForced[pos];
+        if ((pivotRow >= 0) && ((myStep[pivotRow] >= 0) || (Math.abs(x[pivotRow]) < acceptable))) {
+            pivotRow = -1;
+        }
+        if (pivotRow < 0) {
+            int pivotCount = Integer.MAX_VALUE;
+            double pivotMagnitude = ZERO;
+            for (int r = top; r < m; r++) {
+                final int row = reach[r];
+                if (myStep[row] < 0) {
+                    final double magnitude = Math.abs(x[row]);
+                    final int count = myRowCount[row];
+                    if ((magnitude >= acceptable) && ((count < pivotCount) || ((count == pivotCount) && (magnitude > pivotMagnitude)))) {
+                        pivotRow = row;
+                        pivotCount = count;
+                        pivotMagnitude = magnitude;
+                    }
+                }
+            }
+        }
+
+        final double pivot = x[pivotRow];
+
+        int lSize = myLStart[k];
+        int uSize = myUStart[k];
+
+        myLIndex = this.ensure(myLIndex, lSize + (m - top));
+        myLValue = this.ensure(myLValue, lSize + (m - top));
+        myUIndex = this.ensure(myUIndex, uSize + (m - top));
+        myUValue = this.ensure(myUValue, uSize + (m - top));
+
+        for (int r = top; r < m; r++) {
+            final int row = reach[r];
+            final double value = x[row];
+            x[row] = ZERO;
+            if ((value != ZERO) && (row != pivotRow)) {
+                final int step = myStep[row];
+                if (step >= 0) {
+                    myUIndex[uSize] = step;
+                    myUValue[uSize++] = value;
+                } else {
+                    myLIndex[lSize] = row;
+                    myLValue[lSize++] = value / pivot;
+                }
+            }
+        }
+
+        myDiagonal[k] = pivot;
+        myRow[k] = pivotRow;
+        myPosition[k] = pos;
+        myStep[pivotRow] = k;
+        myLStart[k + 1] = lSize;
+        myUStart[k + 1] = uSize;
+
+        return true;
+    }
+
+    private double[] ensure(final double[] array, final int capacity) {
+        return capacity > array.length ? Arrays.copyOf(array, Math.max(capacity, 2 * array.length)) : array;
+    }
+
+    private int[] ensure(final int[] array, final int capacity) {
+        return capacity > array.length ? Arrays.copyOf(array, Math.max(capacity, 2 * array.length)) : array;
+    }
+
+    private void ftran(final int eta, final double[] vector) {
+        final int r = myEtaPosition[eta];
+        final double value = vector[r];
+        if (value != ZERO) {
+            vector[r] = myEtaPivot[eta] * value;
+            for (int p = myEtaStart[eta], limit = myEtaStart[eta + 1]; p < limit; p++) {
+                vector[myEtaIndex[p]] += myEtaValue[p] * value;
+            }
+        }
+    }
+
+    /**
+     * The order in which the basis positions are factored. Row singletons, repeatedly, first - the
+     * triangular part of the basis is factored without any fill-in, and the pivot row of each such column is
+     * noted in {@link #myForced}. Then the remaining columns in order of increasing nonzero count.
+     */
+    private void order(final int[] basis) {
+
+        final int m = myNumberOfRows;
+        final int[] rowCount = myRowCount;
+        final int[] colCount = myColCount;
+        final int[] rowStart = myBasisRowStart;
+        final int[] active = myActive;
+        final int[] singletons = myNodes;
+        final int[] forced = myForced;
+        final int[] order = myOrder;
+
+        Arrays.fill(rowCount, 0);
+
+        int maxCount = 0;
+        for (int pos = 0; pos < m; pos++) {
+            final int col = basis[pos];
+            if (col < myNumberOfBodyColumns) {
+                for (int p = myBodyColumnStart[col], limit = myBodyColumnStart[col + 1]; p < limit; p++) {
+                    rowCount[myBodyRowIndex[p]]++;
+                }
+                colCount[pos] = myBodyColumnStart[col + 1] - myBodyColumnStart[col];
+            } else {
+                rowCount[col - myNumberOfBodyColumns]++;
+                colCount[pos] = 1;
+            }
+            maxCount = Math.max(maxCount, colCount[pos]);
+        }
+
+        rowStart[0] = 0;
+        for (int i = 0; i < m; i++) {
+            rowStart[i + 1] = rowStart[i] + rowCount[i];
+        }
+        myBasisRowPosition = this.ensure(myBasisRowPosition, rowStart[m]);
+        final int[] rowPosition = myBasisRowPosition;
+        System.arraycopy(rowStart, 0, active, 0, m);
+        for (int pos = 0; pos < m; pos++) {
+            final int col = basis[pos];
+            if (col < myNumberOfBodyColumns) {
+                for (int p = myBodyColumnStart[col], limit = myBodyColumnStart[col + 1]; p < limit; p++) {
+                    rowPosition[active[myBodyRowIndex[p]]++] = pos;
+                }
+            } else {
+                rowPosition[active[col - myNumberOfBodyColumns]++] = pos;
+            }
+        }
+
+        System.arraycopy(rowCount, 0, active, 0, m);
+        Arrays.fill(forced, -1);
+
+        int countSingletons = 0;
+        for (int i = 0; i < m; i++) {
+            if (active[i] == 1) {
+                singletons[countSingletons++] = i;
+            }
+        }
+
+        int countOrdered = 0;
+        while (countSingletons > 0) {
+            final int row = singletons[--countSingletons];
+            if (active[row] == 1) {
+                int pos = -1;
+                for (int p = rowStart[row], limit = rowStart[row + 1]; (pos < 0) && (p < limit); p++) {
+                    if (colCount[rowPosition[p]] >= 0) {
+                        pos = rowPosition[p];
+                    }
+                }
+                order[countOrdered++] = pos;
+                forced[pos] = row;
+                colCount[pos] = -1;
+                final int col = basis[pos];
+                if (col < myNumberOfBodyColumns) {
+                    for (int p = myBodyColumnStart[col], limit = myBodyColumnStart[col + 1]; p < limit; p++) {
+                        final int i = myBodyRowIndex[p];
+                        if (--active[i] == 1) {
+                            singletons[countSingletons++] = i;
+                        }
+                    }
+                } else {
+                    active[col - myNumberOfBodyColumns]--;
+                }
+            }
+        }
+
+        // Bucket sort of the remaining columns
+
+        final int[] bucket = new int[maxCount + 2];
+        for (int pos = 0; pos < m; pos++) {
+            if (colCount[pos] >= 0) {
+                bucket[colCount[pos] + 1]++;
+            }
+        }
+        bucket[0] = countOrdered;
+        for (int c = 1; c < bucket.length; c++) {
+            bucket[c] += bucket[c - 1];
+        }
+        for (int pos = 0; pos < m; pos++) {
+            if (colCount[pos] >= 0) {
+                order[bucket[colCount[pos]]++] = pos;
+            }
+        }
+    }
+
+    private int pattern(final double[] vector, final int[] pattern) {
+        int retVal = 0;
+        for (int i = 0; i < myNumberOfRows; i++) {
+            if (vector[i] != ZERO) {
+                pattern[retVal++] = i;
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Depth-first search in the graph of L, while factorising, starting at row {@code start}. Rows are added
+     * to {@link #myList} (from {@code top} and downwards) in topological order.
+     *
+     * @return The new top
+     */
+    private int reach(final int start, final int top, final int stamp) {
+
+        final int[] list = myList;
+        final int[] stack = myStack;
+        final int[] resume = myResume;
+        final int[] marked = myMarked;
+
+        int retVal = top;
+        int head = 0;
+        stack[0] = start;
+
+        while (head >= 0) {
+
+            final int row = stack[head];
+            final int step = myStep[row];
+
+            if (marked[row] != stamp) {
+                marked[row] = stamp;
+                resume[head] = step < 0 ? 0 : myLStart[step];
+            }
+
+            boolean done = true;
+            final int limit = step < 0 ? 0 : myLStart[step + 1];
+            for (int p = resume[head]; p < limit; p++) {
+                final int next = myLIndex[p];
+                if (marked[next] != stamp) {
+                    resume[head] = p + 1;
+                    stack[++head] = next;
+                    done = false;
+                    break;
+                }
+            }
+
+            if (done) {
+                head--;
+                list[--retVal] = row;
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Sparse triangular solve, in step space, using {@link #myWork}. The triangular matrix is given as a
+     * graph (compressed sparse columns) where each node, once its value is final, is divided by the
+     * diagonal (if any) and then scattered to the nodes it links to.
+     *
+     * @return The top of {@link #myList} - the nodes from there to the end are the possibly nonzero ones
+     */
+    private int solve(final int[] start, final int[] index, final double[] value, final double[] diagonal, final int[] nodes, final int count) {
+
+        final int m = myNumberOfRows;
+        final double[] work = myWork;
+        final int[] list = myList;
+        final int[] marked = myMarked;
+
+        final int stamp = ++myStamp;
+        int top = m;
+
+        for (int c = 0; c < count; c++) {
+            final int node = nodes[c];
+            if (marked[node] != stamp) {
+                top = this.depthFirst(start, index, node, top, stamp);
+            }
+        }
+
+        for (int r = top; r < m; r++) {
+            final int node = list[r];
+            double current = work[node];
+            if (current != ZERO) {
+                if (diagonal != null) {
+                    current /= diagonal[node];
+                    work[node] = current;
+                }
+                for (int p = start[node], limit = start[node + 1]; p < limit; p++) {
+                    work[index[p]] -= value[p] * current;
+                }
+            }
+        }
+
+        return top;
+    }
+
+    /**
+     * Compressed sparse columns to compressed sparse rows (or the other way around).
+     */
+    private void transpose(final int[] start, final int[] index, final double[] value, final int[] tStart, final int[] tIndex, final double[] tValue,
+            final int[] next) {
+
+        final int m = myNumberOfRows;
+
+        Arrays.fill(tStart, 0);
+        for (int p = 0, limit = start[m]; p < limit; p++) {
+            tStart[index[p] + 1]++;
+        }
+        for (int i = 0; i < m; i++) {
+            tStart[i + 1] += tStart[i];
+        }
+        System.arraycopy(tStart, 0, next, 0, m);
+        for (int j = 0; j < m; j++) {
+            for (int p = start[j], limit = start[j + 1]; p < limit; p++) {
+                final int q = next[index[p]]++;
+                tIndex[q] = j;
+                tValue[q] = value[p];
+            }
+        }
+    }
+
+}
@@ -166,7 +166,11 @@ public abstract class LinearSolver extends GenericSolver implements UpdatableSol
 
             // BasicLogger.debug("EBM tabeau", tableau);
 
-            return new PrimalSimplex(tableau, model.options);
+            if (RevisedSimplex.isApplicable(tableau)) {
+                return new RevisedSimplex(tableau, model.options);
+            } else {
+                return new PrimalSimplex(tableau, model.options);
+            }
         }
 
         public boolean isCapable(final ExpressionsBasedModel model) {
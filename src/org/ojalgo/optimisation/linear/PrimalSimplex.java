@@ -34,6 +34,7 @@ import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.RowsSupplier;
 import org.ojalgo.optimisation.Expression;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.IndexedFactors;
 import org.ojalgo.optimisation.Optimisation;
 import org.ojalgo.optimisation.Variable;
 import org.ojalgo.optimisation.convex.ConvexSolver;
@@ -150,16 +151,19 @@ final class PrimalSimplex extends SimplexSolver {
         int tmpNegVarsBaseIndex = tmpPosVarsBaseIndex + tmpPosVariables.size();
         int tmpSlaVarsBaseIndex = tmpNegVarsBaseIndex + tmpNegVariables.size();
 
-        for (IntIndex tmpKey : tmpObjFunc.getLinearKeySet()) {
+        IndexedFactors tmpObjFactors = tmpObjFunc.getLinearFactors();
+        double tmpObjAdjustment = model.isMaximisation() ? -tmpObjFunc.getAdjustmentFactor() : tmpObjFunc.getAdjustmentFactor();
+        for (int p = 0, limit = tmpObjFactors.size(); p < limit; p++) {
 
-            double tmpFactor = model.isMaximisation() ? -tmpObjFunc.getAdjustedLinearFactor(tmpKey) : tmpObjFunc.getAdjustedLinearFactor(tmpKey);
+            int tmpIndex = tmpObjFactors.index(p);
+            double tmpFactor = tmpObjFactors.doubleValue(p) * tmpObjAdjustment;
 
-            int tmpPosInd = model.indexOfPositiveVariable(tmpKey.index);
+            int tmpPosInd = model.indexOfPositiveVariable(tmpIndex);
             if (tmpPosInd >= 0) {
                 retVal.objective().set(tmpPosInd, tmpFactor);
             }
 
-            int tmpNegInd = model.indexOfNegativeVariable(tmpKey.index);
+            int tmpNegInd = model.indexOfNegativeVariable(tmpIndex);
             if (tmpNegInd >= 0) {
                 retVal.objective().set(tmpNegVarsBaseIndex + tmpNegInd, -tmpFactor);
             }
@@ -178,16 +182,19 @@ final class PrimalSimplex extends SimplexSolver {
 
                 retVal.constraintsRHS().set(tmpConstrBaseIndex + c, -tmpRHS);
 
-                for (IntIndex tmpKey : tmpExpr.getLinearKeySet()) {
+                IndexedFactors tmpFactors = tmpExpr.getLinearFactors();
+                double tmpAdjustment = tmpExpr.getAdjustmentFactor();
+                for (int p = 0, limit = tmpFactors.size(); p < limit; p++) {
 
-                    double tmpFactor = tmpExpr.getAdjustedLinearFactor(tmpKey);
+                    int tmpIndex = tmpFactors.index(p);
+                    double tmpFactor = tmpFactors.doubleValue(p) * tmpAdjustment;
 
-                    int tmpPosInd = model.indexOfPositiveVariable(tmpKey.index);
+                    int tmpPosInd = model.indexOfPositiveVariable(tmpIndex);
                     if (tmpPosInd >= 0) {
                         retVal.constraintsBody().set(tmpConstrBaseIndex + c, tmpPosVarsBaseIndex + tmpPosInd, -tmpFactor);
                     }
 
-                    int tmpNegInd = model.indexOfNegativeVariable(tmpKey.index);
+                    int tmpNegInd = model.indexOfNegativeVariable(tmpIndex);
                     if (tmpNegInd >= 0) {
                         retVal.constraintsBody().set(tmpConstrBaseIndex + c, tmpNegVarsBaseIndex + tmpNegInd, tmpFactor);
                     }
@@ -197,16 +204,19 @@ final class PrimalSimplex extends SimplexSolver {
 
                 retVal.constraintsRHS().set(tmpConstrBaseIndex + c, tmpRHS);
 
-                for (IntIndex tmpKey : tmpExpr.getLinearKeySet()) {
+                IndexedFactors tmpFactors = tmpExpr.getLinearFactors();
+                double tmpAdjustment = tmpExpr.getAdjustmentFactor();
+                for (int p = 0, limit = tmpFactors.size(); p < limit; p++) {
 
-                    double tmpFactor = tmpExpr.getAdjustedLinearFactor(tmpKey);
+                    int tmpIndex = tmpFactors.index(p);
+                    double tmpFactor = tmpFactors.doubleValue(p) * tmpAdjustment;
 
-                    int tmpPosInd = model.indexOfPositiveVariable(tmpKey.index);
+                    int tmpPosInd = model.indexOfPositiveVariable(tmpIndex);
                     if (tmpPosInd >= 0) {
                         retVal.constraintsBody().set(tmpConstrBaseIndex + c, tmpPosVarsBaseIndex + tmpPosInd, tmpFactor);
                     }
 
-                    int tmpNegInd = model.indexOfNegativeVariable(tmpKey.index);
+                    int tmpNegInd = model.indexOfNegativeVariable(tmpIndex);
                     if (tmpNegInd >= 0) {
                         retVal.constraintsBody().set(tmpConstrBaseIndex + c, tmpNegVarsBaseIndex + tmpNegInd, -tmpFactor);
                     }
@@ -225,16 +235,19 @@ final class PrimalSimplex extends SimplexSolver {
 
                 retVal.constraintsRHS().set(tmpConstrBaseIndex + c, -tmpRHS);
 
-                for (IntIndex tmpKey : tmpExpr.getLinearKeySet()) {
+                IndexedFactors tmpFactors = tmpExpr.getLinearFactors();
+                double tmpAdjustment = tmpExpr.getAdjustmentFactor();
+                for (int p = 0, limit = tmpFactors.size(); p < limit; p++) {
 
-                    double tmpFactor = tmpExpr.getAdjustedLinearFactor(tmpKey);
+                    int tmpIndex = tmpFactors.index(p);
+                    double tmpFactor = tmpFactors.doubleValue(p) * tmpAdjustment;
 
-                    int tmpPosInd = model.indexOfPositiveVariable(tmpKey.index);
+                    int tmpPosInd = model.indexOfPositiveVariable(tmpIndex);
                     if (tmpPosInd >= 0) {
                         retVal.constraintsBody().set(tmpConstrBaseIndex + c, tmpPosVarsBaseIndex + tmpPosInd, -tmpFactor);
                     }
 
-                    int tmpNegInd = model.indexOfNegativeVariable(tmpKey.index);
+                    int tmpNegInd = model.indexOfNegativeVariable(tmpIndex);
                     if (tmpNegInd >= 0) {
                         retVal.constraintsBody().set(tmpConstrBaseIndex + c, tmpNegVarsBaseIndex + tmpNegInd, tmpFactor);
                     }
@@ -246,16 +259,19 @@ final class PrimalSimplex extends SimplexSolver {
 
                 retVal.constraintsRHS().set(tmpConstrBaseIndex + c, tmpRHS);
 
-                for (IntIndex tmpKey : tmpExpr.getLinearKeySet()) {
+                IndexedFactors tmpFactors = tmpExpr.getLinearFactors();
+                double tmpAdjustment = tmpExpr.getAdjustmentFactor();
+                for (int p = 0, limit = tmpFactors.size(); p < limit; p++) {
 
-                    double tmpFactor = tmpExpr.getAdjustedLinearFactor(tmpKey);
+                    int tmpIndex = tmpFactors.index(p);
+                    double tmpFactor = tmpFactors.doubleValue(p) * tmpAdjustment;
 
-                    int tmpPosInd = model.indexOfPositiveVariable(tmpKey.index);
+                    int tmpPosInd = model.indexOfPositiveVariable(tmpIndex);
                     if (tmpPosInd >= 0) {
                         retVal.constraintsBody().set(tmpConstrBaseIndex + c, tmpPosVarsBaseIndex + tmpPosInd, tmpFactor);
                     }
 
-                    int tmpNegInd = model.indexOfNegativeVariable(tmpKey.index);
+                    int tmpNegInd = model.indexOfNegativeVariable(tmpIndex);
                     if (tmpNegInd >= 0) {
                         retVal.constraintsBody().set(tmpConstrBaseIndex + c, tmpNegVarsBaseIndex + tmpNegInd, -tmpFactor);
                     }
@@ -276,16 +292,19 @@ final class PrimalSimplex extends SimplexSolver {
 
                 retVal.constraintsRHS().set(tmpConstrBaseIndex + c, -tmpRHS);
 
-                for (IntIndex tmpKey : tmpExpr.getLinearKeySet()) {
+                IndexedFactors tmpFactors = tmpExpr.getLinearFactors();
+                double tmpAdjustment = tmpExpr.getAdjustmentFactor();
+                for (int p = 0, limit = tmpFactors.size(); p < limit; p++) {
 
-                    double tmpFactor = tmpExpr.getAdjustedLinearFactor(tmpKey);
+                    int tmpIndex = tmpFactors.index(p);
+                    double tmpFactor = tmpFactors.doubleValue(p) * tmpAdjustment;
 
-                    int tmpPosInd = model.indexOfPositiveVariable(tmpKey.index);
+                    int tmpPosInd = model.indexOfPositiveVariable(tmpIndex);
                     if (tmpPosInd >= 0) {
                         retVal.constraintsBody().set(tmpConstrBaseIndex + c, tmpPosVarsBaseIndex + tmpPosInd, -tmpFactor);
                     }
 
-                    int tmpNegInd = model.indexOfNegativeVariable(tmpKey.index);
+                    int tmpNegInd = model.indexOfNegativeVariable(tmpIndex);
                     if (tmpNegInd >= 0) {
                         retVal.constraintsBody().set(tmpConstrBaseIndex + c, tmpNegVarsBaseIndex + tmpNegInd, tmpFactor);
                     }
@@ -297,16 +316,19 @@ final class PrimalSimplex extends SimplexSolver {
 
                 retVal.constraintsRHS().set(tmpConstrBaseIndex + c, tmpRHS);
 
-                for (IntIndex tmpKey : tmpExpr.getLinearKeySet()) {
+                IndexedFactors tmpFactors = tmpExpr.getLinearFactors();
+                double tmpAdjustment = tmpExpr.getAdjustmentFactor();
+                for (int p = 0, limit = tmpFactors.size(); p < limit; p++) {
 
-                    double tmpFactor = tmpExpr.getAdjustedLinearFactor(tmpKey);
+                    int tmpIndex = tmpFactors.index(p);
+                    double tmpFactor = tmpFactors.doubleValue(p) * tmpAdjustment;
 
-                    int tmpPosInd = model.indexOfPositiveVariable(tmpKey.index);
+                    int tmpPosInd = model.indexOfPositiveVariable(tmpIndex);
                     if (tmpPosInd >= 0) {
                         retVal.constraintsBody().set(tmpConstrBaseIndex + c, tmpPosVarsBaseIndex + tmpPosInd, tmpFactor);
                     }
 
-                    int tmpNegInd = model.indexOfNegativeVariable(tmpKey.index);
+                    int tmpNegInd = model.indexOfNegativeVariable(tmpIndex);
                     if (tmpNegInd >= 0) {
                         retVal.constraintsBody().set(tmpConstrBaseIndex + c, tmpNegVarsBaseIndex + tmpNegInd, -tmpFactor);
                     }
@@ -0,0 +1,717 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.ElementView1D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Revised (primal) simplex. Solves the same standard form problems as {@link SimplexSolver}, but instead of
+ * maintaining a full tableau that every pivot updates it keeps the constraints body unmodified (as sparse
+ * columns and rows) and works with a factorisation of the basis matrix only - see
+ * {@link BasisFactorisation}. Each iteration is then a couple of sparse triangular solves rather than a
+ * rank-1 update of the entire tableau, which is what makes problems with tens or hundreds of thousands of
+ * constraints tractable.
+ * <ul>
+ * <li>The reduced costs are updated each iteration using the pivot row, and recalculated from scratch at
+ * each refactorisation.</li>
+ * <li>Pricing is partial devex - the nonbasic columns are split in segments, and each iteration scans
+ * segments until one with an improving column is found. Within that segment the column with the largest
+ * devex weighted reduced cost wins.</li>
+ * <li>The ratio test is Harris' two-pass test, preferring large pivot elements among the (almost) tied
+ * rows.</li>
+ * <li>After a long sequence of degenerate pivots the pricing switches to Bland's rule until progress is
+ * made again.</li>
+ * <li>Slack (singleton) columns are used as a crash basis. Artificial variables are only added for the rows
+ * that don't have one, and once they've left the basis they never re-enter.</li>
+ * </ul>
+ *
+ * @author apete
+ */
+final class RevisedSimplex extends LinearSolver {
+
+    /**
+     * Problems with at least this many constraints, that would otherwise be solved using a sparse tableau,
+     * are instead solved with the revised simplex.
+     */
+    static int THRESHOLD = 2_000;
+
+    private static final int DEGENERATE_LIMIT = 100;
+    private static final double DEVEX_RESET = 1E6;
+    private static final double FEASIBILITY = 1E-9;
+    private static final double OPTIMALITY = 1E-9;
+    private static final NumberContext PHASE1 = ACCURACY.withScale(7);
+    private static final double PIVOT = 1E-9;
+    private static final int SEGMENTS = 8;
+
+    static boolean isApplicable(final SimplexTableau tableau) {
+        return (tableau instanceof SimplexTableau.SparseTableau) && (tableau.countConstraints() >= THRESHOLD);
+    }
+
+    private final double[] myAlpha;
+    private final int[] myAlphaPattern;
+    /**
+     * The variable index at each basis position (artificial variables are indexed from the number of
+     * variables and up)
+     */
+    private final int[] myBasis;
+    private boolean myBland = false;
+    private final int[] myColumnIndex;
+    private final int[] myColumnStart;
+    private final double[] myCost;
+    private int myDegenerate = 0;
+    private int myEntering = -1;
+    private final BasisFactorisation myFactorisation;
+    private int myLeaving = -1;
+    private final int[] myMarked;
+    private final boolean[] myNegative;
+    private final int myNumberOfConstraints;
+    private final int myNumberOfVariables;
+    private boolean myPhase1;
+    /**
+     * The basis position of each variable, or -1 if nonbasic
+     */
+    private final int[] myPosition;
+    private final double[] myPrimal;
+    private int myPricingStart = 0;
+    private final double[] myReducedCosts;
+    private final double[] myRHS;
+    private final double[] myRho;
+    private int myRhoCount = 0;
+    private final int[] myRhoPattern;
+    private final int[] myRowIndex;
+    private final int[] myRowStart;
+    private final double[] myRowValue;
+    private final int mySegmentSize;
+    private int myStamp = 0;
+    private final double[] myTransformed;
+    private int myTransformedCount = 0;
+    private final int[] myTransformedPattern;
+    private final double[] myValue;
+    private final double[] myWeights;
+
+    RevisedSimplex(final SimplexTableau tableau, final Optimisation.Options solverOptions) {
+
+        super(solverOptions);
+
+        final int m = tableau.countConstraints();
+        final int n = tableau.countVariables();
+
+        myNumberOfConstraints = m;
+        myNumberOfVariables = n;
+        myNegative = tableau.negative;
+
+        // Constraints body, row-wise in the tableau, to compressed sparse rows and columns (excluding the artificials)
+
+        myRowStart = new int[m + 1];
+        myColumnStart = new int[n + 1];
+        for (int i = 0; i < m; i++) {
+            for (final ElementView1D<Double, ?> nz : tableau.sliceTableauRow(i).nonzeros()) {
+                final long j = nz.index();
+                if ((j < n) && (nz.doubleValue() != ZERO)) {
+                    myRowStart[i + 1]++;
+                    myColumnStart[(int) j + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < m; i++) {
+            myRowStart[i + 1] += myRowStart[i];
+        }
+        for (int j = 0; j < n; j++) {
+            myColumnStart[j + 1] += myColumnStart[j];
+        }
+
+        final int nnz = myColumnStart[n];
+        myColumnIndex = new int[nnz];
+        myRowValue = new double[nnz];
+        myRowIndex = new int[nnz];
+        myValue = new double[nnz];
+
+        final int[] next = Arrays.copyOf(myColumnStart, n);
+        for (int i = 0; i < m; i++) {
+            int q = myRowStart[i];
+            for (final ElementView1D<Double, ?> nz : tableau.sliceTableauRow(i).nonzeros()) {
+                final long j = nz.index();
+                final double value = nz.doubleValue();
+                if ((j < n) && (value != ZERO)) {
+                    myColumnIndex[q] = (int) j;
+                    myRowValue[q++] = value;
+                    final int p = next[(int) j]++;
+                    myRowIndex[p] = i;
+                    myValue[p] = value;
+                }
+            }
+        }
+
+        myRHS = new double[m];
+        final Access1D<Double> rhs = tableau.sliceConstraintsRHS();
+        for (int i = 0; i < m; i++) {
+            myRHS[i] = rhs.doubleValue(i);
+        }
+
+        myCost = new double[n];
+        final Access1D<Double> objective = tableau.sliceTableauRow(m);
+        for (int j = 0; j < n; j++) {
+            myCost[j] = objective.doubleValue(j);
+        }
+
+        myBasis = new int[m];
+        myPosition = new int[n + m];
+        myPrimal = new double[m];
+        myReducedCosts = new double[n];
+        myWeights = new double[n];
+
+        myTransformed = new double[m];
+        myTransformedPattern = new int[m];
+        myRho = new double[m];
+        myRhoPattern = new int[m];
+        myAlpha = new double[n];
+        myAlphaPattern = new int[n];
+        myMarked = new int[n];
+
+        mySegmentSize = Math.max(1, (n + SEGMENTS - 1) / SEGMENTS);
+
+        myFactorisation = new BasisFactorisation(m, myColumnStart, myRowIndex, myValue);
+
+        this.crash();
+
+        if (this.isLogProgress()) {
+            this.log("");
+            this.log("Created RevisedSimplex");
+            this.log("countConstraints: {}", m);
+            this.log("countVariables: {}", n);
+            this.log("countNonzeros: {}", nnz);
+            this.log("countArtificials: {}", this.countBasicArtificials());
+        }
+    }
+
+    public Result solve(final Result kickStarter) {
+
+        this.resetIterationsCount();
+
+        this.refactorise();
+
+        if (!myPhase1) {
+            this.setState(State.FEASIBLE);
+        }
+
+        while (this.isIterationAllowed() && this.needsAnotherIteration()) {
+
+            this.performIteration();
+
+            this.incrementIterationsCount();
+        }
+
+        if (this.isLogProgress()) {
+            this.log("RevisedSimplex done after {} iterations with state {}", this.countIterations(), this.getState());
+        }
+
+        return this.buildResult();
+    }
+
+    private int countBasicArtificials() {
+        int retVal = 0;
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            if (myBasis[i] >= myNumberOfVariables) {
+                retVal++;
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Initial basis: a singleton column with a positive coefficient (typically a slack variable) for each
+     * row that has one, and an artificial variable for the other rows. The basis matrix is diagonal and,
+     * since the RHS is nonnegative, the basic solution is feasible apart from the artificials.
+     */
+    private void crash() {
+
+        final int m = myNumberOfConstraints;
+        final int n = myNumberOfVariables;
+
+        Arrays.fill(myPosition, -1);
+
+        for (int i = 0; i < m; i++) {
+            myBasis[i] = n + i;
+        }
+
+        for (int j = n - 1; j >= 0; j--) {
+            final int p = myColumnStart[j];
+            if ((myColumnStart[j + 1] - p) == 1) {
+                final int i = myRowIndex[p];
+                if ((myValue[p] > ZERO) && (myBasis[i] >= n)) {
+                    myBasis[i] = j;
+                }
+            }
+        }
+
+        for (int i = 0; i < m; i++) {
+            myPosition[myBasis[i]] = i;
+        }
+
+        Arrays.fill(myWeights, ONE);
+
+        myPhase1 = this.countBasicArtificials() > 0;
+    }
+
+    private double getCost(final int variable) {
+        if (myPhase1) {
+            return variable >= myNumberOfVariables ? ONE : ZERO;
+        } else {
+            return variable >= myNumberOfVariables ? ZERO : myCost[variable];
+        }
+    }
+
+    private double getInfeasibility() {
+        double retVal = ZERO;
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            if (myBasis[i] >= myNumberOfVariables) {
+                retVal += myPrimal[i];
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Partial devex pricing, or, when cycling is suspected, Bland's rule.
+     *
+     * @return The entering variable, or -1 if there is none
+     */
+    private int price() {
+
+        final int n = myNumberOfVariables;
+        final double[] reduced = myReducedCosts;
+
+        if (myBland) {
+            for (int j = 0; j < n; j++) {
+                if ((reduced[j] < -OPTIMALITY) && (myPosition[j] < 0)) {
+                    return j;
+                }
+            }
+            return -1;
+        }
+
+        final double[] weights = myWeights;
+
+        int start = myPricingStart;
+
+        for (int s = 0; s < SEGMENTS; s++) {
+
+            final int limit = Math.min(start + mySegmentSize, n);
+
+            int retVal = -1;
+            double best = ZERO;
+
+            for (int j = start; j < limit; j++) {
+                final double value = reduced[j];
+                if ((value < -OPTIMALITY) && (myPosition[j] < 0)) {
+                    final double measure = (value * value) / weights[j];
+                    if (measure > best) {
+                        best = measure;
+                        retVal = j;
+                    }
+                }
+            }
+
+            start = limit < n ? limit : 0;
+
+            if (retVal >= 0) {
+                myPricingStart = start;
+                return retVal;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Harris' two-pass ratio test. Artificial variables still in the basis in phase 2 (at zero level) leave
+     * as soon as they would be affected.
+     *
+     * @return The basis position of the leaving variable, or -1 if unbounded
+     */
+    private int ratioTest() {
+
+        final int n = myNumberOfVariables;
+        final double[] column = myTransformed;
+        final int[] pattern = myTransformedPattern;
+        final int count = myTransformedCount;
+
+        if (!myPhase1) {
+            int retVal = -1;
+            double largest = PIVOT;
+            for (int c = 0; c < count; c++) {
+                final int i = pattern[c];
+                if ((myBasis[i] >= n) && (Math.abs(column[i]) > largest)) {
+                    largest = Math.abs(column[i]);
+                    retVal = i;
+                }
+            }
+            if (retVal >= 0) {
+                return retVal;
+            }
+        }
+
+        if (myBland) {
+            int retVal = -1;
+            double minimum = Double.MAX_VALUE;
+            for (int c = 0; c < count; c++) {
+                final int i = pattern[c];
+                if (column[i] > PIVOT) {
+                    final double ratio = myPrimal[i] / column[i];
+                    if ((ratio < minimum) || ((ratio == minimum) && (myBasis[i] < myBasis[retVal]))) {
+                        minimum = ratio;
+                        retVal = i;
+                    }
+                }
+            }
+            return retVal;
+        }
+
+        double bound = Double.MAX_VALUE;
+        for (int c = 0; c < count; c++) {
+            final int i = pattern[c];
+            if (column[i] > PIVOT) {
+                bound = Math.min(bound, (myPrimal[i] + FEASIBILITY) / column[i]);
+            }
+        }
+
+        int retVal = -1;
+        double largest = ZERO;
+        for (int c = 0; c < count; c++) {
+            final int i = pattern[c];
+            if ((column[i] > PIVOT) && ((myPrimal[i] / column[i]) <= bound) && (column[i] > largest)) {
+                largest = column[i];
+                retVal = i;
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Factorise the basis, and recalculate the basic variables' values and the reduced costs from scratch.
+     */
+    private void refactorise() {
+
+        final int m = myNumberOfConstraints;
+
+        final int replaced = myFactorisation.factorise(myBasis);
+
+        if (replaced > 0) {
+            Arrays.fill(myPosition, -1);
+            for (int i = 0; i < m; i++) {
+                myPosition[myBasis[i]] = i;
+            }
+            if (this.isLogDebug()) {
+                this.log("Replaced {} singular basis column(s) with artificials", replaced);
+            }
+        }
+
+        System.arraycopy(myRHS, 0, myPrimal, 0, m);
+        myFactorisation.ftran(myPrimal);
+
+        for (int i = 0; i < m; i++) {
+            if (myPrimal[i] < ZERO) {
+                if ((myPrimal[i] < -FEASIBILITY) && this.isLogDebug()) {
+                    this.log("Basic variable {} infeasible by {} after refactorisation", myBasis[i], myPrimal[i]);
+                }
+                myPrimal[i] = ZERO;
+            }
+        }
+
+        if (!myPhase1 && (replaced > 0) && !PHASE1.isZero(this.getInfeasibility())) {
+            myPhase1 = true;
+            this.setState(State.UNEXPLORED);
+        }
+
+        this.recalculateReducedCosts();
+    }
+
+    private void recalculateReducedCosts() {
+
+        final int m = myNumberOfConstraints;
+        final int n = myNumberOfVariables;
+
+        final double[] duals = myRho;
+        for (int i = 0; i < m; i++) {
+            duals[i] = this.getCost(myBasis[i]);
+        }
+        myFactorisation.btran(duals);
+
+        for (int j = 0; j < n; j++) {
+            if (myPosition[j] >= 0) {
+                myReducedCosts[j] = ZERO;
+            } else {
+                double value = this.getCost(j);
+                for (int p = myColumnStart[j], limit = myColumnStart[j + 1]; p < limit; p++) {
+                    value -= myValue[p] * duals[myRowIndex[p]];
+                }
+                myReducedCosts[j] = value;
+            }
+        }
+
+        Arrays.fill(duals, ZERO);
+    }
+
+    /**
+     * Update the reduced costs and devex weights using the pivot row - the leaving variable's row of the
+     * (old) basis inverse times the constraints body.
+     */
+    private void updateReducedCosts(final int row, final int col) {
+
+        final int n = myNumberOfVariables;
+
+        final double[] rho = myRho;
+        final int[] rhoPattern = myRhoPattern;
+        rho[row] = ONE;
+        rhoPattern[0] = row;
+        myRhoCount = myFactorisation.btran(rho, rhoPattern, 1);
+
+        final double[] alpha = myAlpha;
+        final int[] alphaPattern = myAlphaPattern;
+        final int[] marked = myMarked;
+        final int stamp = ++myStamp;
+        int alphaCount = 0;
+
+        for (int c = 0; c < myRhoCount; c++) {
+            final int i = rhoPattern[c];
+            final double value = rho[i];
+            rho[i] = ZERO;
+            if (value != ZERO) {
+                for (int p = myRowStart[i], limit = myRowStart[i + 1]; p < limit; p++) {
+                    final int j = myColumnIndex[p];
+                    if (marked[j] != stamp) {
+                        marked[j] = stamp;
+                        alphaPattern[alphaCount++] = j;
+                    }
+                    alpha[j] += value * myRowValue[p];
+                }
+            }
+        }
+
+        final double pivot = myTransformed[row];
+        final double ratio = myReducedCosts[col] / pivot;
+        final double weight = myWeights[col];
+        boolean reset = false;
+
+        for (int c = 0; c < alphaCount; c++) {
+            final int j = alphaPattern[c];
+            final double value = alpha[j];
+            alpha[j] = ZERO;
+            if ((value != ZERO) && (myPosition[j] < 0)) {
+                myReducedCosts[j] -= ratio * value;
+                final double quotient = value / pivot;
+                final double candidate = quotient * quotient * weight;
+                if (candidate > myWeights[j]) {
+                    myWeights[j] = candidate;
+                    reset |= candidate > DEVEX_RESET;
+                }
+            }
+        }
+
+        myReducedCosts[col] = ZERO;
+
+        final int leaving = myBasis[row];
+        if (leaving < n) {
+            myReducedCosts[leaving] = -ratio;
+            myWeights[leaving] = Math.max(weight / (pivot * pivot), ONE);
+        }
+
+        if (reset) {
+            Arrays.fill(myWeights, ONE);
+        }
+    }
+
+    @Override
+    protected Result buildResult() {
+        return super.buildResult().multipliers(this.extractMultipliers());
+    }
+
+    @Override
+    protected double evaluateFunction(final Access1D<?> solution) {
+        double retVal = ZERO;
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            retVal += myCost[j] * solution.doubleValue(j);
+        }
+        return retVal;
+    }
+
+    protected Access1D<?> extractMultipliers() {
+
+        final int m = myNumberOfConstraints;
+
+        final double[] duals = new double[m];
+        for (int i = 0; i < m; i++) {
+            final int variable = myBasis[i];
+            duals[i] = variable < myNumberOfVariables ? myCost[variable] : ZERO;
+        }
+        myFactorisation.btran(duals);
+
+        for (int i = 0; i < m; i++) {
+            if (myNegative[i]) {
+                duals[i] = -duals[i];
+            }
+        }
+
+        return Primitive64Array.wrap(duals);
+    }
+
+    @Override
+    protected Access1D<?> extractSolution() {
+
+        final Primitive64Array retVal = Primitive64Array.make(myNumberOfVariables);
+
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            final int variable = myBasis[i];
+            if (variable < myNumberOfVariables) {
+                retVal.set(variable, myPrimal[i]);
+            }
+        }
+
+        return retVal;
+    }
+
+    @Override
+    protected boolean initialise(final Result kickStarter) {
+        return false;
+    }
+
+    @Override
+    protected boolean needsAnotherIteration() {
+
+        myEntering = this.price();
+
+        if ((myEntering < 0) && !myFactorisation.isFresh()) {
+            // Confirm with a fresh factorisation (and recalculated reduced costs) before concluding anything
+            this.refactorise();
+            myEntering = this.price();
+        }
+
+        if (myEntering < 0) {
+
+            if (myPhase1) {
+
+                final double infeasibility = this.getInfeasibility();
+
+                if (PHASE1.isZero(infeasibility)) {
+
+                    if (this.isLogDebug()) {
+                        this.log("Switching to phase 2 with {} artificial variable(s) still in the basis and infeasibility {}.",
+                                this.countBasicArtificials(), infeasibility);
+                    }
+
+                    myPhase1 = false;
+                    myBland = false;
+                    myDegenerate = 0;
+                    Arrays.fill(myWeights, ONE);
+                    this.recalculateReducedCosts();
+                    this.setState(State.FEASIBLE);
+
+                    return this.needsAnotherIteration();
+
+                } else {
+
+                    this.setState(State.INFEASIBLE);
+                    return false;
+                }
+
+            } else {
+
+                this.setState(State.OPTIMAL);
+                return false;
+            }
+        }
+
+        final double[] column = myTransformed;
+        final int[] pattern = myTransformedPattern;
+        for (int c = 0; c < myTransformedCount; c++) {
+            column[pattern[c]] = ZERO;
+        }
+        int count = 0;
+        for (int p = myColumnStart[myEntering], limit = myColumnStart[myEntering + 1]; p < limit; p++) {
+            column[myRowIndex[p]] = myValue[p];
+            pattern[count++] = myRowIndex[p];
+        }
+        myTransformedCount = myFactorisation.ftran(column, pattern, count);
+
+        myLeaving = this.ratioTest();
+
+        if (myLeaving < 0) {
+            this.setState(myPhase1 ? State.INFEASIBLE : State.UNBOUNDED);
+            return false;
+        }
+
+        if (this.isLogDebug()) {
+            this.log("Phase {}: Position: {},\tExit: {},\tEnter: {}.", myPhase1 ? 1 : 2, myLeaving, myBasis[myLeaving], myEntering);
+        }
+
+        return true;
+    }
+
+    void performIteration() {
+
+        final int row = myLeaving;
+        final int col = myEntering;
+        final double[] column = myTransformed;
+        final int[] pattern = myTransformedPattern;
+        final int count = myTransformedCount;
+
+        final double step = Math.max(ZERO, myPrimal[row] / column[row]);
+
+        if (step > ZERO) {
+            for (int c = 0; c < count; c++) {
+                final int i = pattern[c];
+                final double value = myPrimal[i] - (step * column[i]);
+                myPrimal[i] = value < ZERO ? ZERO : value;
+            }
+            myDegenerate = 0;
+            myBland = false;
+        } else if (++myDegenerate >= DEGENERATE_LIMIT) {
+            myBland = true;
+        }
+        myPrimal[row] = step;
+
+        final boolean refactorise = myFactorisation.isRefactorisationDue();
+
+        if (!refactorise) {
+            this.updateReducedCosts(row, col);
+            myFactorisation.update(row, column, pattern, count);
+        }
+
+        myPosition[myBasis[row]] = -1;
+        myBasis[row] = col;
+        myPosition[col] = row;
+
+        if (refactorise) {
+            this.refactorise();
+        }
+    }
+
+}
@@ -76,6 +76,7 @@ public abstract class SimplexSolver extends LinearSolver {
     private static final NumberContext RATIO = ACCURACY.withScale(8);
 
     private LongToNumberMap<Double> myFixedVariables = null;
+    private boolean myInfeasible = false;
     private final IterationPoint myPoint;
     private final SimplexTableau myTableau;
 
@@ -105,20 +106,39 @@ public abstract class SimplexSolver extends LinearSolver {
         }
     }
 
+    /**
+     * Fixing a variable on an already solved (optimal) solver keeps the current basis. The tableau is updated
+     * in-place, and then primal feasibility is restored using dual simplex iterations - typically only a
+     * few pivots are needed. This is what makes re-solving branch&bound nodes cheap. If the solver is not
+     * (yet) in phase 2 the variable is only fixed if the tableau remains primal feasible, and then solving
+     * continues from phase 1. Returns false, without modifying anything, if the variable can't be fixed.
+     */
     public boolean fixVariable(final int index, final double value) {
 
-        if (value < ZERO) {
+        if ((index < 0) || (value < ZERO) || myInfeasible) {
+            return false;
+        }
+
+        boolean reoptimise = myPoint.isPhase2() && !myTableau.isBasicArtificials();
+
+        if (!reoptimise && !this.isFixable(index, value)) {
             return false;
         }
 
         boolean retVal = myTableau.fixVariable(index, value);
 
         if (retVal) {
+
             if (myFixedVariables == null) {
                 myFixedVariables = LongToNumberMap.factory(Primitive64Array.FACTORY).make();
             }
             myFixedVariables.put(index, value);
-            myPoint.returnToPhase1();
+
+            if (reoptimise) {
+                retVal = this.restorePrimalFeasibility();
+            } else {
+                myPoint.returnToPhase1();
+            }
         }
 
         return retVal;
@@ -132,6 +152,11 @@ public abstract class SimplexSolver extends LinearSolver {
 
         this.resetIterationsCount();
 
+        if (myInfeasible) {
+            this.setState(State.INFEASIBLE);
+            return this.buildResult();
+        }
+
         while (this.isIterationAllowed() && this.needsAnotherIteration()) {
 
             this.performIteration(myPoint);
@@ -150,6 +175,31 @@ public abstract class SimplexSolver extends LinearSolver {
         return myPoint.isPhase1() ? myTableau.countConstraints() + 1 : myTableau.countConstraints();
     }
 
+    /**
+     * Without dual feasibility (before phase 2) primal feasibility can't be restored using dual simplex
+     * pivots. Then only a non-basic variable can be fixed, and only if that doesn't make any of the
+     * constraints' RHS negative. Pivoting a basic variable out of the basis could do that, and isn't
+     * attempted. This is all checked before anything is modified.
+     */
+    private boolean isFixable(final int index, final double value) {
+
+        if (myTableau.getBasisRowIndex(index) >= 0) {
+            return false;
+        }
+
+        Access1D<Double> column = myTableau.sliceTableauColumn(index);
+        Access1D<Double> rhs = myTableau.sliceConstraintsRHS();
+
+        for (long i = 0L, limit = column.count(); i < limit; i++) {
+            double shifted = rhs.doubleValue(i) - (column.doubleValue(i) * value);
+            if ((shifted < ZERO) && !RATIO.isZero(shifted)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     private boolean isTableauPrintable() {
         return myTableau.count() <= 512L;
     }
@@ -322,6 +372,50 @@ public abstract class SimplexSolver extends LinearSolver {
         return retVal;
     }
 
+    /**
+     * Dual simplex iterations. Assumes the tableau is dual feasible (all reduced costs non-negative) and
+     * pivots until it is also primal feasible (all constraint RHS non-negative). If a row with negative RHS
+     * has no possible pivot element the problem is infeasible.
+     *
+     * @return false if the iterations limit was reached (the tableau should then be discarded)
+     */
+    boolean restorePrimalFeasibility() {
+
+        final int maxIterations = myTableau.countConstraints() + myTableau.countVariables();
+
+        final IterationPoint pivot = new IterationPoint();
+        pivot.switchToPhase2();
+
+        for (int iterations = 0; iterations < maxIterations; iterations++) {
+
+            pivot.row = myTableau.findMostNegativeRHS(RATIO);
+
+            if (pivot.row < 0) {
+                return true;
+            }
+
+            pivot.col = myTableau.findNextPivotColumn(myTableau.sliceTableauRow(pivot.row), myTableau.sliceTableauRow(myTableau.countConstraints()));
+
+            if (pivot.col < 0) {
+
+                if (this.isLogDebug()) {
+                    this.log("Dual simplex: no pivot column for row {} => infeasible!", pivot.row);
+                }
+
+                myInfeasible = true;
+                return true;
+            }
+
+            if (this.isLogDebug()) {
+                this.log("Dual simplex iteration: Row: {},\tExit: {},\tColumn/Enter: {}.", pivot.row, myTableau.getBasisColumnIndex(pivot.row), pivot.col);
+            }
+
+            myTableau.pivot(pivot);
+        }
+
+        return false;
+    }
+
     int findNextPivotCol() {
 
         int[] tmpExcluded = myTableau.getExcluded();
@@ -45,6 +45,7 @@ import org.ojalgo.structure.Mutate1D;
 import org.ojalgo.structure.Mutate2D;
 import org.ojalgo.type.IndexSelector;
 import org.ojalgo.type.NumberDefinition;
+import org.ojalgo.type.context.NumberContext;
 
 abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
 
@@ -57,8 +58,8 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
 
             super(numberOfConstraints, numberOfProblemVariables, numberOfSlackVariables);
 
-            final int numbRows = numberOfConstraints + 2;
-            final int numbCols = numberOfProblemVariables + numberOfSlackVariables + numberOfConstraints + 1;
+            final long numbRows = numberOfConstraints + 2L;
+            final long numbCols = numberOfProblemVariables + numberOfSlackVariables + numberOfConstraints + 1L;
 
             myTransposed = Primitive64Store.FACTORY.makeZero(numbCols, numbRows);
             myStructure = (int) myTransposed.countRows();
@@ -158,7 +159,22 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
             int row = this.getBasisRowIndex(index);
 
             if (row < 0) {
-                return false;
+
+                // Non-basic, currently at zero. Substitute the fixed value and remove the column.
+
+                final double[] data = myTransposed.data;
+                final int colRHS = myStructure - 1;
+
+                for (int i = 0, limit = (int) myTransposed.countColumns(); i < limit; i++) {
+                    final int base = i * myStructure;
+                    final double factor = data[base + index];
+                    if (factor != ZERO) {
+                        data[base + colRHS] -= factor * value;
+                        data[base + index] = ZERO;
+                    }
+                }
+
+                return true;
             }
 
             // Diff begin
@@ -167,16 +183,14 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
             double currentRHS = currentRow.doubleValue(myStructure - 1);
 
             final Primitive64Array auxiliaryRow = Primitive64Array.make(myStructure);
-            if (currentRHS > value) {
+            if (currentRHS >= value) {
                 currentRow.axpy(NEG, auxiliaryRow);
                 auxiliaryRow.set(index, ZERO);
                 auxiliaryRow.set(myStructure - 1, value - currentRHS);
-            } else if (currentRHS < value) {
+            } else {
                 currentRow.axpy(ONE, auxiliaryRow);
                 auxiliaryRow.set(index, ZERO);
                 auxiliaryRow.set(myStructure - 1, currentRHS - value);
-            } else {
-                return true;
             }
 
             // Diff end
@@ -201,12 +215,6 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
 
             // Diff end
 
-            for (ElementView1D<Double, ?> elem : this.sliceConstraintsRHS().elements()) {
-                if (elem.doubleValue() < ZERO) {
-                    return false;
-                }
-            }
-
             IterationPoint iterationPoint = new IterationPoint();
             iterationPoint.row = row;
             iterationPoint.col = pivotCol;
@@ -609,7 +617,32 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
             int row = this.getBasisRowIndex(index);
 
             if (row < 0) {
-                return false;
+
+                // Non-basic, currently at zero. Substitute the fixed value and remove the column.
+
+                double factor;
+
+                for (int i = 0; i < myRows.length; i++) {
+                    factor = myRows[i].doubleValue(index);
+                    if (factor != ZERO) {
+                        myRHS.add(i, -factor * value);
+                        myRows[i].set(index, ZERO);
+                    }
+                }
+
+                factor = myObjectiveWeights.doubleValue(index);
+                if (factor != ZERO) {
+                    myValue -= factor * value;
+                    myObjectiveWeights.set(index, ZERO);
+                }
+
+                factor = myPhase1Weights.doubleValue(index);
+                if (factor != ZERO) {
+                    myInfeasibility -= factor * value;
+                    myPhase1Weights.set(index, ZERO);
+                }
+
+                return true;
             }
 
             // Diff begin
@@ -622,16 +655,14 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
             SparseArray<Double> auxiliaryRow = mySparseFactory.make(totNumbVars);
             double auxiliaryRHS = ZERO;
 
-            if (currentRHS > value) {
+            if (currentRHS >= value) {
                 currentRow.axpy(NEG, auxiliaryRow);
                 auxiliaryRow.set(index, ZERO);
                 auxiliaryRHS = value - currentRHS;
-            } else if (currentRHS < value) {
+            } else {
                 currentRow.axpy(ONE, auxiliaryRow);
                 auxiliaryRow.set(index, ZERO);
                 auxiliaryRHS = currentRHS - value;
-            } else {
-                return true;
             }
 
             // Diff end
@@ -657,12 +688,6 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
 
             // Diff end
 
-            for (ElementView1D<Double, ?> elem : this.sliceConstraintsRHS().elements()) {
-                if (elem.doubleValue() < ZERO) {
-                    return false;
-                }
-            }
-
             IterationPoint iterationPoint = new IterationPoint();
             iterationPoint.row = row;
             iterationPoint.col = pivotCol;
@@ -897,9 +922,9 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
     protected static SimplexTableau make(final int numberOfConstraints, final int numberOfProblemVariables, final int numberOfSlackVariables,
             final Optimisation.Options options) {
 
-        final int numbRows = numberOfConstraints + 2;
-        final int numbCols = numberOfProblemVariables + numberOfSlackVariables + numberOfConstraints + 1;
-        final int totCount = numbRows * numbCols; //  Total number of elements in a dense tableau
+        final long numbRows = numberOfConstraints + 2L;
+        final long numbCols = numberOfProblemVariables + numberOfSlackVariables + numberOfConstraints + 1L;
+        final long totCount = numbRows * numbCols; //  Total number of elements in a dense tableau
 
         if (options.sparse == null) {
 
@@ -1006,6 +1031,15 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
         return myNumberOfProblemVariables + myNumberOfSlackVariables + myNumberOfConstraints;
     }
 
+    /**
+     * Fix a variable to a specific value, and remove it from the tableau. If the variable is basic it is
+     * pivoted out of the basis (one dual simplex pivot). The resulting tableau remains dual feasible, but
+     * the constraints' RHS may have negative elements. It's then up to the solver to restore primal
+     * feasibility.
+     *
+     * @return true if the tableau was updated, false if the variable could not be fixed and the tableau was
+     *         not modified
+     */
     protected boolean fixVariable(final int index, final double value) {
 
         int row = this.getBasisRowIndex(index);
@@ -1083,6 +1117,27 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
         myBasis[pivotRow] = pivotCol;
     }
 
+    /**
+     * @return The row with the most negative RHS, or -1 if there are no (significantly) negative elements
+     */
+    int findMostNegativeRHS(final NumberContext accuracy) {
+
+        int retVal = -1;
+        double minRHS = ZERO;
+
+        final int colRHS = this.countVariablesTotally();
+
+        for (int i = 0, limit = this.countConstraints(); i < limit; i++) {
+            final double rhs = this.doubleValue(i, colRHS);
+            if ((rhs < minRHS) && !accuracy.isZero(rhs)) {
+                retVal = i;
+                minRHS = rhs;
+            }
+        }
+
+        return retVal;
+    }
+
     int findNextPivotColumn(final Access1D<Double> auxiliaryRow, final Access1D<Double> objectiveRow) {
 
         int retVal = -1;
@@ -0,0 +1,384 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.random;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.ojalgo.function.VoidFunction;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * A streaming alternative to {@link SampleSet}. Values are added one at the time, and are not stored. Mean and
+ * variance are accumulated using Welford's method (exact, apart from rounding), minimum and maximum are
+ * tracked exactly, and quantiles are estimated using a KLL sketch. Memory use is bounded – it depends on the
+ * sketch size parameter, k, and only logarithmically on the number of values.
+ * <p>
+ * The rank error of the quantile estimates is roughly 1.7/k (for the default k=200 that's less than 1%).
+ * <p>
+ * Instances are not thread safe. Use one per thread and then {@link #merge(SampleSketch)} them.
+ *
+ * @author apete
+ * @see <a href="https://arxiv.org/abs/1603.05346">Optimal Quantile Approximation in Streams</a>
+ */
+public final class SampleSketch implements VoidFunction<Double> {
+
+    /**
+     * The capacity ratio between consecutive levels
+     */
+    private static final double C = TWO / THREE;
+    /**
+     * The capacity of the lowest levels would otherwise be very small, which is slow
+     */
+    private static final int MIN_CAPACITY = 8;
+
+    public static SampleSketch make() {
+        return new SampleSketch(200);
+    }
+
+    /**
+     * @param k The sketch size parameter. Larger means more accurate quantiles, and more memory.
+     */
+    public static SampleSketch make(final int k) {
+        return new SampleSketch(k);
+    }
+
+    /**
+     * Sketch (all) the samples
+     */
+    public static SampleSketch of(final Access1D<?> samples) {
+        SampleSketch retVal = SampleSketch.make();
+        for (long i = 0L, limit = samples.count(); i < limit; i++) {
+            retVal.invoke(samples.doubleValue(i));
+        }
+        return retVal;
+    }
+
+    private int[] myCapacities = new int[1];
+    private long myCount = 0L;
+    private final int myK;
+    private double[][] myLevels = new double[1][];
+    private double myMax = NEGATIVE_INFINITY;
+    private double myMean = ZERO;
+    private double myMin = POSITIVE_INFINITY;
+    private final SplittableRandom myRandom;
+    private int[] mySizes = new int[1];
+    private transient double[] mySortedValues = null;
+    private transient long[] mySortedWeights = null;
+    private double mySumOfSquares = ZERO;
+    private int myTotalCapacity;
+    private int myTotalSize = 0;
+
+    SampleSketch(final int k) {
+
+        super();
+
+        if (k < 8) {
+            throw new IllegalArgumentException("The sketch size parameter must be at least 8!");
+        }
+
+        myK = k;
+        myLevels[0] = new double[k];
+        this.updateCapacities();
+        // Fixed seed so that a sketch, for a given sequence of updates and merges, is always the same
+        myRandom = new SplittableRandom(k);
+    }
+
+    public long count() {
+        return myCount;
+    }
+
+    public double getInterquartileRange() {
+        return this.getQuartile3() - this.getQuartile1();
+    }
+
+    /**
+     * max(value)
+     */
+    public double getMaximum() {
+        return myCount > 0L ? myMax : ZERO;
+    }
+
+    public double getMean() {
+        return myCount > 0L ? myMean : NaN;
+    }
+
+    public double getMedian() {
+        return this.getQuantile(HALF);
+    }
+
+    /**
+     * min(value)
+     */
+    public double getMinimum() {
+        return myCount > 0L ? myMin : ZERO;
+    }
+
+    /**
+     * @param probability [0,1]
+     * @return The smallest (retained) value such that (approximately) that fraction of all values are less
+     *         than or equal to it. 0.0 gives the minimum and 1.0 the maximum.
+     */
+    public double getQuantile(final double probability) {
+
+        if ((probability < ZERO) || (ONE < probability)) {
+            throw new IllegalArgumentException("Probabilty must be [0,1]");
+        }
+
+        if (myCount <= 0L) {
+            return ZERO;
+        } else if (probability <= ZERO) {
+            return myMin;
+        } else if (probability >= ONE) {
+            return myMax;
+        }
+
+        this.sort();
+
+        double rank = probability * myCount;
+
+        long cumulative = 0L;
+        for (int i = 0; i < mySortedValues.length; i++) {
+            cumulative += mySortedWeights[i];
+            if (cumulative >= rank) {
+                return mySortedValues[i];
+            }
+        }
+
+        return myMax;
+    }
+
+    public double getQuartile1() {
+        return this.getQuantile(QUARTER);
+    }
+
+    public double getQuartile2() {
+        return this.getQuantile(HALF);
+    }
+
+    public double getQuartile3() {
+        return this.getQuantile(THREE * QUARTER);
+    }
+
+    public double getStandardDeviation() {
+        return PrimitiveMath.SQRT.invoke(this.getVariance());
+    }
+
+    public double getVariance() {
+        return myCount > 1L ? mySumOfSquares / (myCount - 1L) : ZERO;
+    }
+
+    public void invoke(final double arg) {
+
+        myCount++;
+
+        double delta = arg - myMean;
+        myMean += delta / myCount;
+        mySumOfSquares += delta * (arg - myMean);
+
+        if (arg < myMin) {
+            myMin = arg;
+        }
+        if (arg > myMax) {
+            myMax = arg;
+        }
+
+        this.append(0, arg);
+
+        if (myTotalSize >= myTotalCapacity) {
+            this.compress();
+        }
+
+        mySortedValues = null;
+    }
+
+    public void invoke(final Double arg) {
+        this.invoke(arg.doubleValue());
+    }
+
+    public void invoke(final float arg) {
+        this.invoke((double) arg);
+    }
+
+    /**
+     * Merge the other sketch in to this one. The other sketch is not modified.
+     */
+    public SampleSketch merge(final SampleSketch other) {
+
+        if (other.myCount <= 0L) {
+            return this;
+        }
+
+        long count = myCount + other.myCount;
+        double delta = other.myMean - myMean;
+
+        mySumOfSquares += other.mySumOfSquares + (((delta * delta) * myCount) / count) * other.myCount;
+        myMean += (delta * other.myCount) / count;
+        myCount = count;
+
+        myMin = Math.min(myMin, other.myMin);
+        myMax = Math.max(myMax, other.myMax);
+
+        for (int h = 0; h < other.mySizes.length; h++) {
+            for (int i = 0; i < other.mySizes[h]; i++) {
+                this.append(h, other.myLevels[h][i]);
+            }
+        }
+
+        while (myTotalSize >= myTotalCapacity) {
+            this.compress();
+        }
+
+        mySortedValues = null;
+
+        return this;
+    }
+
+    public SampleSketch reset() {
+
+        myCount = 0L;
+        myMean = ZERO;
+        mySumOfSquares = ZERO;
+        myMin = POSITIVE_INFINITY;
+        myMax = NEGATIVE_INFINITY;
+
+        myLevels = new double[1][myK];
+        mySizes = new int[1];
+        myTotalSize = 0;
+        this.updateCapacities();
+
+        mySortedValues = null;
+
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "Sample sketch Size=" + this.count() + ", Mean=" + this.getMean() + ", Var=" + this.getVariance() + ", StdDev=" + this.getStandardDeviation()
+                + ", Min=" + this.getMinimum() + ", Max=" + this.getMaximum();
+    }
+
+    private void append(final int level, final double value) {
+
+        if (level >= mySizes.length) {
+            myLevels = Arrays.copyOf(myLevels, level + 1);
+            mySizes = Arrays.copyOf(mySizes, level + 1);
+            this.updateCapacities();
+        }
+
+        double[] items = myLevels[level];
+        if (items == null) {
+            items = myLevels[level] = new double[myCapacities[level]];
+        } else if (mySizes[level] >= items.length) {
+            items = myLevels[level] = Arrays.copyOf(items, 2 * items.length);
+        }
+
+        items[mySizes[level]++] = value;
+        myTotalSize++;
+    }
+
+    /**
+     * Compact the lowest level that's (over) full. Half the values (every other one, after sorting, starting
+     * at a random offset) are promoted to the next level with double weight, and the others dropped.
+     */
+    private void compress() {
+
+        for (int h = 0; h < mySizes.length; h++) {
+
+            if (mySizes[h] >= myCapacities[h]) {
+
+                double[] items = myLevels[h];
+                int size = mySizes[h];
+
+                // If odd, keep one value at this level
+                int kept = size % 2;
+                Arrays.sort(items, kept, size);
+
+                int offset = kept + (myRandom.nextBoolean() ? 1 : 0);
+                for (int i = offset; i < size; i += 2) {
+                    this.append(h + 1, items[i]);
+                }
+                myTotalSize -= size - kept;
+                mySizes[h] = kept;
+
+                return;
+            }
+        }
+    }
+
+    /**
+     * All retained values, sorted, with their weights (2^level).
+     */
+    private void sort() {
+
+        if (mySortedValues != null) {
+            return;
+        }
+
+        int total = 0;
+        for (int h = 0; h < mySizes.length; h++) {
+            total += mySizes[h];
+        }
+
+        double[] values = new double[total];
+        long[] weights = new long[total];
+        Integer[] order = new Integer[total];
+
+        int index = 0;
+        for (int h = 0; h < mySizes.length; h++) {
+            for (int i = 0; i < mySizes[h]; i++) {
+                values[index] = myLevels[h][i];
+                weights[index] = 1L << h;
+                order[index] = index;
+                index++;
+            }
+        }
+
+        Arrays.sort(order, (i1, i2) -> Double.compare(values[i1], values[i2]));
+
+        mySortedValues = new double[total];
+        mySortedWeights = new long[total];
+        for (int i = 0; i < total; i++) {
+            mySortedValues[i] = values[order[i]];
+            mySortedWeights[i] = weights[order[i]];
+        }
+    }
+
+    /**
+     * Level capacities decrease geometrically going down from the top level.
+     */
+    private void updateCapacities() {
+
+        int levels = mySizes.length;
+
+        myCapacities = new int[levels];
+        myTotalCapacity = 0;
+        for (int h = 0; h < levels; h++) {
+            myCapacities[h] = Math.max(MIN_CAPACITY, (int) Math.ceil(myK * Math.pow(C, levels - 1 - h)));
+            myTotalCapacity += myCapacities[h];
+        }
+    }
+
+}
@@ -24,13 +24,19 @@ package org.ojalgo.random.process;
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.SplittableRandom;
 import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
 
+import org.ojalgo.ProgrammingError;
 import org.ojalgo.array.Array2D;
+import org.ojalgo.concurrent.DivideAndConquer;
 import org.ojalgo.random.ContinuousDistribution;
 import org.ojalgo.random.Distribution;
+import org.ojalgo.random.SampleSketch;
 import org.ojalgo.type.keyvalue.ComparableToDouble;
 
 /**
@@ -40,6 +46,85 @@ import org.ojalgo.type.keyvalue.ComparableToDouble;
 @Deprecated
 public abstract class AbstractProcess<D extends Distribution> implements RandomProcess<D> {
 
+    /**
+     * A source of random numbers, for one block of realisations, used when simulating. Not thread safe.
+     */
+    static final class Generator {
+
+        private boolean myHaveNextGaussian = false;
+        private double myNextGaussian = ZERO;
+        private final SplittableRandom myRandom;
+
+        Generator(final SplittableRandom random) {
+            super();
+            myRandom = random;
+        }
+
+        double nextDouble() {
+            return myRandom.nextDouble();
+        }
+
+        /**
+         * Same algorithm (polar method) as {@link java.util.Random#nextGaussian()}
+         */
+        double nextGaussian() {
+
+            if (myHaveNextGaussian) {
+                myHaveNextGaussian = false;
+                return myNextGaussian;
+            }
+
+            double v1, v2, s;
+            do {
+                v1 = (TWO * myRandom.nextDouble()) - ONE;
+                v2 = (TWO * myRandom.nextDouble()) - ONE;
+                s = (v1 * v1) + (v2 * v2);
+            } while ((s >= ONE) || (s == ZERO));
+
+            double multiplier = SQRT.invoke((-TWO * LOG.invoke(s)) / s);
+
+            myNextGaussian = v2 * multiplier;
+            myHaveNextGaussian = true;
+
+            return v1 * multiplier;
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface Recorder {
+
+        void record(int realisation, int step, double value);
+
+    }
+
+    /**
+     * The number of realisations simulated together, using the same {@link Generator}. This is fixed (not a
+     * tuning parameter) since changing it would change the simulated values for any given seed.
+     */
+    private static final int BLOCK_SIZE = 256;
+    /**
+     * The maximum number of groups (of blocks) with their own sketches when sketching. Also fixed, for the
+     * same reason as {@link #BLOCK_SIZE}.
+     */
+    private static final int SKETCH_GROUPS = 32;
+
+    /**
+     * One {@link SplittableRandom} per block of realisations, split off in order from one seeded with the
+     * seed.
+     */
+    private static SplittableRandom[] split(final long seed, final int numberOfRealisations) {
+
+        final SplittableRandom root = new SplittableRandom(seed);
+
+        final SplittableRandom[] retVal = new SplittableRandom[(numberOfRealisations + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        for (int b = 0; b < retVal.length; b++) {
+            retVal[b] = root.split();
+        }
+
+        return retVal;
+    }
+
     private final TreeSet<ComparableToDouble<Double>> myObservations = new TreeSet<>();
 
     protected AbstractProcess() {
@@ -105,26 +190,105 @@ public abstract class AbstractProcess<D extends Distribution> implements RandomP
     }
 
     /**
-     * @return An array of sample sets. The array has aNumberOfSteps elements, and each sample set has
-     *         aNumberOfRealisations samples.
+     * Same as {@link #simulate(int, int, double, long)} with a random seed.
      */
     public final RandomProcess.SimulationResults simulate(final int numberOfRealisations, final int numberOfSteps, final double stepSize) {
+        return this.simulate(numberOfRealisations, numberOfSteps, stepSize, ThreadLocalRandom.current().nextLong());
+    }
 
-        final List<ComparableToDouble<Double>> tmpInitialState = new ArrayList<>(myObservations);
-        final double tmpInitialValue = this.getValue();
+    /**
+     * The realisations are split in fixed size blocks, and each block gets its own {@link SplittableRandom}
+     * split off (in order) from one seeded with the specified seed. The blocks are then simulated in parallel,
+     * and the values written straight to the results, column by column. For a given seed the results are
+     * identical regardless of the number of threads used. The state of this process is not changed.
+     * <p>
+     * Processes where the next value depends on more than the current value ({@link GaussianProcess}) are
+     * simulated sequentially, but still reproducibly.
+     *
+     * @param seed Seeds the random number generators
+     */
+    public final RandomProcess.SimulationResults simulate(final int numberOfRealisations, final int numberOfSteps, final double stepSize,
+            final long seed) {
+
+        final double initialValue = this.getValue();
+
+        final Array2D<Double> realisationValues = Array2D.PRIMITIVE64.make(numberOfRealisations, numberOfSteps);
+        final Recorder recorder = (r, s, value) -> realisationValues.set(r, s, value);
+
+        final SplittableRandom[] randoms = AbstractProcess.split(seed, numberOfRealisations);
+        final int numberOfBlocks = randoms.length;
+
+        if (this.isMarkovian()) {
 
-        final Array2D<Double> tmpRealisationValues = Array2D.PRIMITIVE64.make(numberOfRealisations, numberOfSteps);
+            final DivideAndConquer conquerer = new DivideAndConquer() {
 
-        for (int r = 0; r < numberOfRealisations; r++) {
-            double tmpCurrentValue = tmpInitialValue;
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    AbstractProcess.this.simulate(randoms, first, limit, initialValue, numberOfRealisations, numberOfSteps, stepSize, recorder);
+                }
+
+            };
+
+            conquerer.invoke(0, numberOfBlocks, 1);
+
+        } else {
+
+            this.simulate(randoms, 0, numberOfBlocks, initialValue, numberOfRealisations, numberOfSteps, stepSize, recorder);
+        }
+
+        return new RandomProcess.SimulationResults(initialValue, realisationValues);
+    }
+
+    /**
+     * Same as {@link #simulate(int, int, double, long)} (the exact same realisations) except that the values
+     * are not stored. Instead each sample set is accumulated in a {@link SampleSketch} – memory use does not
+     * depend on the number of realisations. The blocks of realisations are divided among (at most 32) groups,
+     * each with its own sketches, that are merged in order when done. The results are identical regardless
+     * of the number of threads used.
+     *
+     * @param seed Seeds the random number generators
+     */
+    public final RandomProcess.SimulationResults sketch(final int numberOfRealisations, final int numberOfSteps, final double stepSize, final long seed) {
+
+        final double initialValue = this.getValue();
+
+        final SplittableRandom[] randoms = AbstractProcess.split(seed, numberOfRealisations);
+        final int numberOfBlocks = randoms.length;
+        final int numberOfGroups = this.isMarkovian() ? Math.max(1, Math.min(numberOfBlocks, SKETCH_GROUPS)) : 1;
+
+        final SampleSketch[][] groupSketches = new SampleSketch[numberOfGroups][numberOfSteps];
+
+        final DivideAndConquer conquerer = new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+                for (int g = first; g < limit; g++) {
+
+                    final SampleSketch[] sketches = groupSketches[g];
+                    for (int s = 0; s < numberOfSteps; s++) {
+                        sketches[s] = SampleSketch.make();
+                    }
+
+                    final int firstBlock = (int) (((long) g * numberOfBlocks) / numberOfGroups);
+                    final int limitBlock = (int) (((long) (g + 1) * numberOfBlocks) / numberOfGroups);
+
+                    AbstractProcess.this.simulate(randoms, firstBlock, limitBlock, initialValue, numberOfRealisations, numberOfSteps, stepSize,
+                            (r, s, value) -> sketches[s].invoke(value));
+                }
+            }
+
+        };
+
+        conquerer.invoke(0, numberOfGroups, 1);
+
+        final SampleSketch[] retVal = groupSketches[0];
+        for (int g = 1; g < numberOfGroups; g++) {
             for (int s = 0; s < numberOfSteps; s++) {
-                tmpCurrentValue = this.step(tmpCurrentValue, stepSize, this.getNormalisedRandomIncrement());
-                tmpRealisationValues.set(r, s, tmpCurrentValue);
+                retVal[s].merge(groupSketches[g][s]);
             }
-            this.setObservations(tmpInitialState);
         }
 
-        return new RandomProcess.SimulationResults(tmpInitialValue, tmpRealisationValues);
+        return new RandomProcess.SimulationResults(initialValue, retVal);
     }
 
     protected abstract double getNormalisedRandomIncrement();
@@ -140,6 +304,8 @@ public abstract class AbstractProcess<D extends Distribution> implements RandomP
 
     abstract double getLowerConfidenceQuantile(double stepSize, final double confidence);
 
+    abstract double getNormalisedRandomIncrement(Generator generator);
+
     final TreeSet<ComparableToDouble<Double>> getObservations() {
         return myObservations;
     }
@@ -150,8 +316,77 @@ public abstract class AbstractProcess<D extends Distribution> implements RandomP
 
     abstract double getVariance(double stepSize);
 
+    /**
+     * @return true if the next value only depends on the current value. Then the simulations are done in
+     *         parallel using {@link #next(double, double, double)}, that must be overridden. By default false,
+     *         and the simulations are done sequentially using {@link #step(double, double, double)}.
+     */
+    boolean isMarkovian() {
+        return false;
+    }
+
+    /**
+     * Same as {@link #step(double, double, double)} but without changing the state of this process - a pure
+     * function that can be called from multiple threads. Only used if the process {@link #isMarkovian()},
+     * and then it must be overridden.
+     */
+    double next(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
+        ProgrammingError.throwForUnsupportedOptionalOperation();
+        return ZERO;
+    }
+
     final double step(final double stepSize) {
         return this.step(this.getValue(), stepSize, this.getNormalisedRandomIncrement());
     }
 
+    /**
+     * Simulate the realisations of a range of blocks, and record the values.
+     */
+    private void simulate(final SplittableRandom[] randoms, final int firstBlock, final int limitBlock, final double initialValue,
+            final int numberOfRealisations, final int numberOfSteps, final double stepSize, final Recorder recorder) {
+
+        if (this.isMarkovian()) {
+
+            final double[] currentValues = new double[BLOCK_SIZE];
+
+            for (int b = firstBlock; b < limitBlock; b++) {
+
+                final Generator generator = new Generator(randoms[b]);
+
+                final int firstRealisation = b * BLOCK_SIZE;
+                final int blockSize = Math.min(BLOCK_SIZE, numberOfRealisations - firstRealisation);
+
+                Arrays.fill(currentValues, initialValue);
+
+                for (int s = 0; s < numberOfSteps; s++) {
+                    for (int r = 0; r < blockSize; r++) {
+                        currentValues[r] = this.next(currentValues[r], stepSize, this.getNormalisedRandomIncrement(generator));
+                        recorder.record(firstRealisation + r, s, currentValues[r]);
+                    }
+                }
+            }
+
+        } else {
+
+            final List<ComparableToDouble<Double>> initialState = new ArrayList<>(myObservations);
+
+            for (int b = firstBlock; b < limitBlock; b++) {
+
+                final Generator generator = new Generator(randoms[b]);
+
+                final int firstRealisation = b * BLOCK_SIZE;
+                final int limitRealisation = Math.min(firstRealisation + BLOCK_SIZE, numberOfRealisations);
+
+                for (int r = firstRealisation; r < limitRealisation; r++) {
+                    double currentValue = initialValue;
+                    for (int s = 0; s < numberOfSteps; s++) {
+                        currentValue = this.step(currentValue, stepSize, this.getNormalisedRandomIncrement(generator));
+                        recorder.record(r, s, currentValue);
+                    }
+                    this.setObservations(initialState);
+                }
+            }
+        }
+    }
+
 }
@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.TreeSet;
 
 import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.matrix.decomposition.Cholesky;
 import org.ojalgo.matrix.decomposition.Eigenvalue;
 import org.ojalgo.matrix.decomposition.MatrixDecomposition;
 import org.ojalgo.matrix.decomposition.SingularValue;
@@ -86,6 +87,19 @@ public final class GaussianField<K extends Comparable<? super K>> {
     }
 
     private final Covariance<K> myCovarianceFunction;
+    /**
+     * Live factorisation of the covariances between the observations – kept up to date, rather than
+     * recalculated, as observations are added or removed.
+     */
+    private Cholesky.Updatable myFactorisation = null;
+    /**
+     * The number of observations when the factorisation failed, or -1 if it didn't
+     */
+    private int myFactorisationFailed = -1;
+    /**
+     * The observation keys in the order they're in the factorisation
+     */
+    private final List<K> myFactorisedKeys = new ArrayList<>();
     private final Mean<K> myMeanFunction;
 
     private final TreeSet<ComparableToDouble<K>> myObservations;
@@ -125,6 +139,7 @@ public final class GaussianField<K extends Comparable<? super K>> {
     public void calibrate() {
         myMeanFunction.calibrate(myObservations);
         myCovarianceFunction.calibrate(myObservations, myMeanFunction);
+        this.invalidate();
     }
 
     public Normal1D getDistribution(final boolean cleanCovariances, final K... evaluationPoint) {
@@ -171,6 +186,10 @@ public final class GaussianField<K extends Comparable<? super K>> {
         return this.getDistribution(false, evaluationPoint);
     }
 
+    public boolean removeObservation(final K key) {
+        return myObservations.remove(new ComparableToDouble<>(key, ZERO));
+    }
+
     MatrixStore<Double> getC11(final K[] args) {
 
         final int tmpLength = args.length;
@@ -224,6 +243,10 @@ public final class GaussianField<K extends Comparable<? super K>> {
 
     MatrixDecomposition.Solver<Double> getC22() {
 
+        if (this.update()) {
+            return myFactorisation;
+        }
+
         final List<ComparableToDouble<K>> tmpObservations = this.getObservations();
 
         final int tmpSize = tmpObservations.size();
@@ -291,12 +314,93 @@ public final class GaussianField<K extends Comparable<? super K>> {
         return retVal;
     }
 
+    /**
+     * @return The observations in the same order as in the factorisation of the covariances – sorted on
+     *         key if there is no such factorisation.
+     */
     List<ComparableToDouble<K>> getObservations() {
-        return new ArrayList<>(myObservations);
+
+        if (this.update()) {
+
+            final List<ComparableToDouble<K>> retVal = new ArrayList<>(myFactorisedKeys.size());
+            for (final K key : myFactorisedKeys) {
+                retVal.add(myObservations.ceiling(new ComparableToDouble<>(key, ZERO)));
+            }
+            return retVal;
+
+        } else {
+
+            return new ArrayList<>(myObservations);
+        }
     }
 
     MatrixStore<Double> getRegressionCoefficients(final K[] args) {
         return this.getC22().getSolution(this.getC21(args)).logical().transpose().get();
     }
 
+    private void invalidate() {
+        myFactorisation = null;
+        myFactorisedKeys.clear();
+        myFactorisationFailed = -1;
+    }
+
+    /**
+     * Bring the factorisation up to date with the observations. Observations no longer present are removed,
+     * and new ones appended, each in O(n<sup>2</sup>) time. If the covariances are not positive definite
+     * this fails, and then it's not tried again until the number of observations changes or the field is
+     * recalibrated.
+     *
+     * @return true if the factorisation is up to date
+     */
+    private boolean update() {
+
+        final int numberOfObservations = myObservations.size();
+
+        if (myFactorisationFailed >= 0) {
+            if (myFactorisationFailed == numberOfObservations) {
+                return false;
+            }
+            this.invalidate();
+        }
+
+        if (myFactorisation == null) {
+            myFactorisation = Cholesky.updatable();
+        }
+
+        for (int i = myFactorisedKeys.size() - 1; i >= 0; i--) {
+            if (!myObservations.contains(new ComparableToDouble<>(myFactorisedKeys.get(i), ZERO))) {
+                myFactorisation.remove(i);
+                myFactorisedKeys.remove(i);
+            }
+        }
+
+        if (myFactorisedKeys.size() < numberOfObservations) {
+
+            final TreeSet<K> factorised = new TreeSet<>(myFactorisedKeys);
+
+            for (final ComparableToDouble<K> observation : myObservations) {
+                if (!factorised.contains(observation.key)) {
+
+                    final int size = myFactorisedKeys.size();
+
+                    final Primitive64Store column = FACTORY.make(size + 1, 1);
+                    for (int i = 0; i < size; i++) {
+                        column.set(i, myCovarianceFunction.invoke(myFactorisedKeys.get(i), observation.key));
+                    }
+                    column.set(size, myCovarianceFunction.invoke(observation.key, observation.key));
+
+                    if (!myFactorisation.append(column)) {
+                        this.invalidate();
+                        myFactorisationFailed = numberOfObservations;
+                        return false;
+                    }
+
+                    myFactorisedKeys.add(observation.key);
+                }
+            }
+        }
+
+        return true;
+    }
+
 }
@@ -109,6 +109,11 @@ public final class GaussianProcess extends AbstractProcess<Normal> {
         return this.getDistribution(stepSize).getLowerConfidenceQuantile(confidence);
     }
 
+    @Override
+    double getNormalisedRandomIncrement(final Generator generator) {
+        return generator.nextGaussian();
+    }
+
     @Override
     double getStandardDeviation(final double stepSize) {
         return this.getDistribution(stepSize).getStandardDeviation();
@@ -158,11 +158,7 @@ public final class GeometricBrownianMotion extends AbstractProcess<LogNormal> {
 
     @Override
     protected double step(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
-
-        final double tmpDetPart = (myLocalDrift - ((myDiffusionFunction * myDiffusionFunction) / TWO)) * stepSize;
-        final double tmpRandPart = myDiffusionFunction * PrimitiveMath.SQRT.invoke(stepSize) * normalisedRandomIncrement;
-
-        final double retVal = currentValue * PrimitiveMath.EXP.invoke(tmpDetPart + tmpRandPart);
+        final double retVal = this.next(currentValue, stepSize, normalisedRandomIncrement);
         this.setValue(retVal);
         return retVal;
     }
@@ -187,6 +183,11 @@ public final class GeometricBrownianMotion extends AbstractProcess<LogNormal> {
         return PrimitiveMath.EXP.invoke(tmpLocation - (tmpScale * SQRT_TWO * ErrorFunction.erfi(confidence)));
     }
 
+    @Override
+    double getNormalisedRandomIncrement(final Generator generator) {
+        return generator.nextGaussian();
+    }
+
     @Override
     double getStandardDeviation(final double stepSize) {
         return PrimitiveMath.SQRT.invoke(this.getVariance(stepSize));
@@ -210,4 +211,18 @@ public final class GeometricBrownianMotion extends AbstractProcess<LogNormal> {
                 * PrimitiveMath.EXPM1.invoke(this.getDistributionVariance(stepSize));
     }
 
+    @Override
+    boolean isMarkovian() {
+        return true;
+    }
+
+    @Override
+    double next(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
+
+        final double tmpDetPart = (myLocalDrift - ((myDiffusionFunction * myDiffusionFunction) / TWO)) * stepSize;
+        final double tmpRandPart = myDiffusionFunction * PrimitiveMath.SQRT.invoke(stepSize) * normalisedRandomIncrement;
+
+        return currentValue * PrimitiveMath.EXP.invoke(tmpDetPart + tmpRandPart);
+    }
+
 }
@@ -67,7 +67,7 @@ public final class PoissonProcess extends AbstractProcess<Poisson> {
 
     @Override
     protected double step(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
-        final double retVal = currentValue + ((myRate * stepSize) * normalisedRandomIncrement);
+        final double retVal = this.next(currentValue, stepSize, normalisedRandomIncrement);
         this.setValue(retVal);
         return retVal;
     }
@@ -83,6 +83,25 @@ public final class PoissonProcess extends AbstractProcess<Poisson> {
         return 0;
     }
 
+    /**
+     * Same algorithm as {@link Poisson}, with lambda = 1.0
+     */
+    @Override
+    double getNormalisedRandomIncrement(final Generator generator) {
+
+        int retVal = -1;
+        double tmpVal = ZERO;
+
+        while (tmpVal <= ONE) {
+
+            retVal++;
+
+            tmpVal -= PrimitiveMath.LOG.invoke(generator.nextDouble());
+        }
+
+        return retVal;
+    }
+
     @Override
     double getStandardDeviation(final double stepSize) {
         return PrimitiveMath.SQRT.invoke(myRate * stepSize);
@@ -99,4 +118,14 @@ public final class PoissonProcess extends AbstractProcess<Poisson> {
         return myRate * stepSize;
     }
 
+    @Override
+    boolean isMarkovian() {
+        return true;
+    }
+
+    @Override
+    double next(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
+        return currentValue + ((myRate * stepSize) * normalisedRandomIncrement);
+    }
+
 }
@@ -21,10 +21,12 @@
  */
 package org.ojalgo.random.process;
 
+import org.ojalgo.ProgrammingError;
 import org.ojalgo.array.Array1D;
 import org.ojalgo.array.Array2D;
 import org.ojalgo.random.Distribution;
 import org.ojalgo.random.SampleSet;
+import org.ojalgo.random.SampleSketch;
 import org.ojalgo.series.primitive.PrimitiveSeries;
 
 /**
@@ -41,6 +43,8 @@ public interface RandomProcess<D extends Distribution> {
 
         private final Array2D<Double> myResults;
 
+        private final SampleSketch[] mySketches;
+
         /**
          * @param initialValue Initial value
          * @param results (Random values) scenarios/realisations/series in rows, and sample sets in columns.
@@ -51,6 +55,22 @@ public interface RandomProcess<D extends Distribution> {
 
             myInitialValue = initialValue;
             myResults = results;
+            mySketches = null;
+        }
+
+        /**
+         * Results where the individual realisations are not stored, only a sketch of each sample set.
+         *
+         * @param initialValue Initial value
+         * @param sketches One sketch per sample set
+         */
+        public SimulationResults(final double initialValue, final SampleSketch[] sketches) {
+
+            super();
+
+            myInitialValue = initialValue;
+            myResults = null;
+            mySketches = sketches;
         }
 
         @SuppressWarnings("unused")
@@ -60,30 +80,57 @@ public interface RandomProcess<D extends Distribution> {
 
             myInitialValue = 0.0;
             myResults = null;
+            mySketches = null;
         }
 
         public int countSampleSets() {
-            return (int) myResults.countColumns();
+            return mySketches != null ? mySketches.length : (int) myResults.countColumns();
         }
 
         public int countScenarios() {
-            return (int) myResults.countRows();
+            if (mySketches != null) {
+                return mySketches.length > 0 ? (int) mySketches[0].count() : 0;
+            } else {
+                return (int) myResults.countRows();
+            }
         }
 
         public double getInitialValue() {
             return myInitialValue;
         }
 
+        /**
+         * Only available if the individual realisations are stored.
+         */
         public SampleSet getSampleSet(final int index) {
+            if (myResults == null) {
+                ProgrammingError.throwForUnsupportedOptionalOperation();
+            }
             return SampleSet.wrap(myResults.sliceColumn(0, index));
         }
 
+        /**
+         * Always available. If the individual realisations are stored the sketch is created (each time this
+         * method is called) from them.
+         */
+        public SampleSketch getSampleSketch(final int index) {
+            if (mySketches != null) {
+                return mySketches[index];
+            } else {
+                return SampleSketch.of(myResults.sliceColumn(0, index));
+            }
+        }
+
         /**
          * A series representing one scenario. Each series has length "number of simulation steps" + 1 as the
-         * series includes the initial value.
+         * series includes the initial value. Only available if the individual realisations are stored.
          */
         public PrimitiveSeries getScenario(final int index) {
 
+            if (myResults == null) {
+                ProgrammingError.throwForUnsupportedOptionalOperation();
+            }
+
             final Array1D<Double> slicedRow = myResults.sliceRow(index, 0);
 
             return new PrimitiveSeries() {
@@ -57,7 +57,7 @@ public final class WienerProcess extends AbstractProcess<Normal> {
 
     @Override
     protected double step(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
-        final double retVal = currentValue + (PrimitiveMath.SQRT.invoke(stepSize) * normalisedRandomIncrement);
+        final double retVal = this.next(currentValue, stepSize, normalisedRandomIncrement);
         this.setValue(retVal);
         return retVal;
     }
@@ -72,6 +72,11 @@ public final class WienerProcess extends AbstractProcess<Normal> {
         return this.getValue() - (PrimitiveMath.SQRT.invoke(stepSize) * SQRT_TWO * ErrorFunction.erfi(confidence));
     }
 
+    @Override
+    double getNormalisedRandomIncrement(final Generator generator) {
+        return generator.nextGaussian();
+    }
+
     @Override
     double getStandardDeviation(final double stepSize) {
         return PrimitiveMath.SQRT.invoke(stepSize);
@@ -87,4 +92,14 @@ public final class WienerProcess extends AbstractProcess<Normal> {
         return stepSize;
     }
 
+    @Override
+    boolean isMarkovian() {
+        return true;
+    }
+
+    @Override
+    double next(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
+        return currentValue + (PrimitiveMath.SQRT.invoke(stepSize) * normalisedRandomIncrement);
+    }
+
 }
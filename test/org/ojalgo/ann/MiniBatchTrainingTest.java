@@ -0,0 +1,257 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.ann;
+
+import static org.ojalgo.ann.ArtificialNeuralNetwork.Activator.*;
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.netio.BasicLogger;
+import org.ojalgo.ann.ArtificialNeuralNetwork.Activator;
+import org.ojalgo.concurrent.Parallelism;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.RowView;
+import org.ojalgo.type.context.NumberContext;
+
+public class MiniBatchTrainingTest extends ANNTest {
+
+    private static final NumberContext PRECISION = NumberContext.getGeneral(12, 14);
+    private static final int THRESHOLD = NetworkTrainer.THRESHOLD;
+
+    static ArtificialNeuralNetwork newNetwork(final Activator hidden, final Activator output) {
+
+        ArtificialNeuralNetwork network = ArtificialNeuralNetwork.builder(Primitive64Store.FACTORY, 4).layer(5, hidden).layer(3, output).get();
+
+        NetworkTrainer trainer = network.newTrainer();
+        for (int l = 0; l < network.depth(); l++) {
+            for (int j = 0; j < network.countOutputNodes(l); j++) {
+                for (int i = 0; i < network.countInputNodes(l); i++) {
+                    trainer.weight(l, i, j, Math.sin(1 + l + (7 * i) + (3 * j)) / 2.0);
+                }
+                trainer.bias(l, j, Math.cos(l + j) / 10.0);
+            }
+        }
+
+        return network;
+    }
+
+    static Primitive64Store newInputs(final int samples) {
+        Primitive64Store retVal = Primitive64Store.FACTORY.make(samples, 4);
+        retVal.loopAll((i, j) -> retVal.set(i, j, Math.sin((i * 4) + j)));
+        return retVal;
+    }
+
+    static Primitive64Store newTargets(final int samples) {
+        Primitive64Store retVal = Primitive64Store.FACTORY.make(samples, 3);
+        for (int i = 0; i < samples; i++) {
+            retVal.set(i, i % 3, 1.0);
+        }
+        return retVal;
+    }
+
+    @AfterEach
+    public void reset() {
+        NetworkTrainer.THRESHOLD = THRESHOLD;
+    }
+
+    /**
+     * A mini-batch of 1 sample is the same thing as ordinary (per sample) training.
+     */
+    @Test
+    public void testBatchOfOneSameAsSingle() {
+
+        Primitive64Store inputs = newInputs(10);
+        Primitive64Store targets = newTargets(10);
+
+        ArtificialNeuralNetwork single = MiniBatchTrainingTest.newNetwork(SIGMOID, SOFTMAX);
+        ArtificialNeuralNetwork batched = MiniBatchTrainingTest.newNetwork(SIGMOID, SOFTMAX);
+
+        single.newTrainer().error(ArtificialNeuralNetwork.Error.CROSS_ENTROPY).rate(0.1).train(MiniBatchTrainingTest.rows(inputs), MiniBatchTrainingTest.rows(targets));
+        batched.newTrainer().error(ArtificialNeuralNetwork.Error.CROSS_ENTROPY).rate(0.1).batch(1).train(MiniBatchTrainingTest.rows(inputs), MiniBatchTrainingTest.rows(targets));
+
+        MiniBatchTrainingTest.assertSameWeights(single, batched);
+
+        NetworkTrainer trainer = MiniBatchTrainingTest.newNetwork(SIGMOID, SOFTMAX).newTrainer().error(ArtificialNeuralNetwork.Error.CROSS_ENTROPY)
+                .rate(0.1);
+        for (int i = 0; i < 10; i++) {
+            trainer.trainBatch(inputs.logical().offsets(i, 0).limits(1, 4).get(), targets.logical().offsets(i, 0).limits(1, 3).get());
+        }
+
+        MiniBatchTrainingTest.assertSameWeights(single, trainer.get());
+    }
+
+    /**
+     * Splitting a batch between several threads should not change the result (other than rounding).
+     */
+    @Test
+    public void testParallelSameAsSequential() {
+
+        NetworkTrainer.THRESHOLD = 4;
+
+        Primitive64Store inputs = newInputs(50);
+        Primitive64Store targets = newTargets(50);
+
+        ArtificialNeuralNetwork sequential = MiniBatchTrainingTest.newNetwork(RECTIFIER, SIGMOID);
+        ArtificialNeuralNetwork parallel = MiniBatchTrainingTest.newNetwork(RECTIFIER, SIGMOID);
+
+        sequential.newTrainer().rate(0.5).batch(25).parallelism(Parallelism.ONE).train(MiniBatchTrainingTest.rows(inputs), MiniBatchTrainingTest.rows(targets));
+        parallel.newTrainer().rate(0.5).batch(25).parallelism(Parallelism.FOUR).train(MiniBatchTrainingTest.rows(inputs), MiniBatchTrainingTest.rows(targets));
+
+        MiniBatchTrainingTest.assertSameWeights(sequential, parallel);
+    }
+
+    /**
+     * The gradients are averaged over the batch, but the regularisation is applied (once) with the full
+     * learning rate – the same as it is when training on a single sample.
+     */
+    @Test
+    public void testRegularisationOncePerBatch() {
+
+        int samples = 5;
+        double rate = 0.2;
+        double factor = 0.1;
+
+        Primitive64Store inputs = newInputs(samples);
+        Primitive64Store targets = newTargets(samples);
+
+        ArtificialNeuralNetwork batched = MiniBatchTrainingTest.newNetwork(SIGMOID, IDENTITY);
+        batched.newTrainer().rate(rate).ridge(factor).trainBatch(inputs, targets);
+
+        List<MatrixStore<Double>> initial = MiniBatchTrainingTest.newNetwork(SIGMOID, IDENTITY).getWeights();
+        Primitive64Store[] expected = new Primitive64Store[initial.size()];
+        for (int l = 0; l < expected.length; l++) {
+            expected[l] = Primitive64Store.FACTORY.copy(initial.get(l));
+            // The last row holds the biases, and they're not regularised
+            for (long i = 0L, limit = expected[l].countRows() - 1L; i < limit; i++) {
+                for (long j = 0L, numbOutput = expected[l].countColumns(); j < numbOutput; j++) {
+                    expected[l].add(i, j, -rate * factor * initial.get(l).doubleValue(i, j));
+                }
+            }
+        }
+        for (int s = 0; s < samples; s++) {
+            ArtificialNeuralNetwork single = MiniBatchTrainingTest.newNetwork(SIGMOID, IDENTITY);
+            single.newTrainer().rate(rate / samples).train(inputs.sliceRow(s), targets.sliceRow(s));
+            List<MatrixStore<Double>> adjusted = single.getWeights();
+            for (int l = 0; l < expected.length; l++) {
+                expected[l].modifyMatching(ADD, adjusted.get(l).subtract(initial.get(l)));
+            }
+        }
+
+        List<MatrixStore<Double>> actual = batched.getWeights();
+        for (int l = 0; l < expected.length; l++) {
+            TestUtils.assertEquals((Access1D<?>) expected[l], (Access1D<?>) actual.get(l), PRECISION);
+        }
+    }
+
+    /**
+     * Training on a batch applies the average of the per sample gradients.
+     */
+    @Test
+    public void testSameAsAveragedGradient() {
+
+        int samples = 6;
+        double rate = 0.3;
+
+        Primitive64Store inputs = newInputs(samples);
+        Primitive64Store targets = newTargets(samples);
+
+        ArtificialNeuralNetwork batched = MiniBatchTrainingTest.newNetwork(Activator.TANH, IDENTITY);
+        batched.newTrainer().rate(rate).trainBatch(inputs, targets);
+
+        // Each sample (separately) applied to an unmodified network, with the learning rate scaled.
+        // The weight changes are then summed.
+        List<MatrixStore<Double>> initial = MiniBatchTrainingTest.newNetwork(Activator.TANH, IDENTITY).getWeights();
+        Primitive64Store[] expected = new Primitive64Store[initial.size()];
+        for (int l = 0; l < expected.length; l++) {
+            expected[l] = Primitive64Store.FACTORY.copy(initial.get(l));
+        }
+        for (int s = 0; s < samples; s++) {
+            ArtificialNeuralNetwork single = MiniBatchTrainingTest.newNetwork(Activator.TANH, IDENTITY);
+            single.newTrainer().rate(rate / samples).train(inputs.sliceRow(s), targets.sliceRow(s));
+            List<MatrixStore<Double>> adjusted = single.getWeights();
+            for (int l = 0; l < expected.length; l++) {
+                expected[l].modifyMatching(ADD, adjusted.get(l).subtract(initial.get(l)));
+            }
+        }
+
+        List<MatrixStore<Double>> actual = batched.getWeights();
+        for (int l = 0; l < expected.length; l++) {
+            TestUtils.assertEquals((Access1D<?>) expected[l], (Access1D<?>) actual.get(l), PRECISION);
+        }
+    }
+
+    @Test
+    public void testTrainingReducesError() {
+
+        int samples = 200;
+
+        Primitive64Store inputs = newInputs(samples);
+        Primitive64Store targets = newTargets(samples);
+
+        ArtificialNeuralNetwork network = MiniBatchTrainingTest.newNetwork(SIGMOID, SOFTMAX);
+        NetworkTrainer trainer = network.newTrainer().error(ArtificialNeuralNetwork.Error.CROSS_ENTROPY).rate(0.5).batch(20);
+
+        double before = MiniBatchTrainingTest.error(trainer, inputs, targets);
+        for (int e = 0; e < 50; e++) {
+            trainer.train(MiniBatchTrainingTest.rows(inputs), MiniBatchTrainingTest.rows(targets));
+        }
+        double after = MiniBatchTrainingTest.error(trainer, inputs, targets);
+
+        if (DEBUG) {
+            BasicLogger.debug("Error before {} and after {}", before, after);
+        }
+
+        TestUtils.assertTrue(after < before);
+    }
+
+    private static void assertSameWeights(final ArtificialNeuralNetwork expected, final ArtificialNeuralNetwork actual) {
+        List<MatrixStore<Double>> expectedWeights = expected.getWeights();
+        List<MatrixStore<Double>> actualWeights = actual.getWeights();
+        for (int l = 0; l < expectedWeights.size(); l++) {
+            TestUtils.assertEquals((Access1D<?>) expectedWeights.get(l), (Access1D<?>) actualWeights.get(l), PRECISION);
+        }
+    }
+
+    /**
+     * {@link RowView} is both {@link Access1D} and {@link Iterable} – need to specify which train method to
+     * call.
+     */
+    private static Iterable<RowView<Double>> rows(final Primitive64Store data) {
+        return data.rows();
+    }
+
+    private static double error(final NetworkTrainer trainer, final Primitive64Store inputs, final Primitive64Store targets) {
+        NetworkInvoker invoker = trainer.get().newInvoker();
+        double retVal = 0.0;
+        for (int i = 0; i < inputs.countRows(); i++) {
+            retVal += trainer.error(targets.sliceRow(i), invoker.invoke(inputs.sliceRow(i)));
+        }
+        return retVal;
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.ann;
+
+import static org.ojalgo.ann.ArtificialNeuralNetwork.Activator.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.ann.ArtificialNeuralNetwork.Activator;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.type.context.NumberContext;
+
+public class NetworkInvokerTest extends ANNTest {
+
+    private static final NumberContext PRECISION = NumberContext.getGeneral(12, 14);
+
+    static Primitive64Store invokeOneByOne(final ArtificialNeuralNetwork network, final Primitive64Store inputs) {
+        NetworkInvoker invoker = network.newInvoker();
+        Primitive64Store retVal = Primitive64Store.FACTORY.make(inputs.countRows(), network.countOutputNodes(network.depth() - 1));
+        for (int i = 0; i < inputs.countRows(); i++) {
+            retVal.fillRow(i, invoker.invoke(inputs.sliceRow(i)));
+        }
+        return retVal;
+    }
+
+    @Test
+    public void testBatchSameAsOneByOne() {
+
+        Primitive64Store inputs = MiniBatchTrainingTest.newInputs(30);
+
+        for (Activator[] activators : new Activator[][] { { SIGMOID, SOFTMAX }, { RECTIFIER, IDENTITY }, { Activator.TANH, SIGMOID } }) {
+
+            ArtificialNeuralNetwork network = MiniBatchTrainingTest.newNetwork(activators[0], activators[1]);
+
+            Primitive64Store expected = NetworkInvokerTest.invokeOneByOne(network, inputs);
+
+            for (int batchSize : new int[] { 1, 7, 30, 100 }) {
+
+                NetworkInvoker invoker = network.newInvoker(batchSize);
+                Primitive64Store actual = Primitive64Store.FACTORY.make(expected.countRows(), expected.countColumns());
+
+                // Twice to verify the buffers are reused correctly
+                for (int r = 0; r < 2; r++) {
+                    actual.fillAll(0.0);
+                    invoker.invoke(inputs, actual);
+                    TestUtils.assertEquals((Access1D<?>) expected, (Access1D<?>) actual, PRECISION);
+                }
+            }
+        }
+    }
+
+    /**
+     * Many threads, one invoker each, sharing the same network.
+     */
+    @Test
+    public void testThreadConfinedInvokers() throws InterruptedException, ExecutionException {
+
+        Primitive64Store inputs = MiniBatchTrainingTest.newInputs(100);
+
+        ArtificialNeuralNetwork network = MiniBatchTrainingTest.newNetwork(SIGMOID, SOFTMAX);
+
+        Primitive64Store expected = NetworkInvokerTest.invokeOneByOne(network, inputs);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+
+            List<Future<Primitive64Store>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    NetworkInvoker invoker = network.newInvoker(16);
+                    Primitive64Store outputs = Primitive64Store.FACTORY.make(expected.countRows(), expected.countColumns());
+                    for (int r = 0; r < 10; r++) {
+                        invoker.invoke(inputs, outputs);
+                    }
+                    return outputs;
+                }));
+            }
+
+            for (Future<Primitive64Store> future : futures) {
+                TestUtils.assertEquals((Access1D<?>) expected, (Access1D<?>) future.get(), PRECISION);
+            }
+
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.array.MappedArray.ElementType;
+import org.ojalgo.netio.IDX;
+
+public class MappedArrayTest extends ArrayTests {
+
+    /**
+     * Small segments (64 bytes) to make sure the segment/index arithmetic is tested.
+     */
+    private static final int SEGMENT_BITS = 6;
+
+    static double expected(final ElementType type, final int index) {
+        int value = (index * 37) - 1000;
+        switch (type) {
+        case BYTE:
+            return (byte) value;
+        case UNSIGNED_BYTE:
+            return value & 0xFF;
+        case SHORT:
+            return (short) (value * 13);
+        case UNSIGNED_SHORT:
+            return (value * 13) & 0xFFFF;
+        case INT:
+            return value * 1_000_003;
+        case FLOAT:
+            return (float) (value / 7.0);
+        default:
+            return value / 7.0;
+        }
+    }
+
+    static File write(final ElementType type, final int header, final int count) throws IOException {
+
+        File file = File.createTempFile("MappedArrayTest", ".bin");
+        file.deleteOnExit();
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            for (int h = 0; h < header; h++) {
+                output.write(h);
+            }
+            for (int i = 0; i < count; i++) {
+                double value = MappedArrayTest.expected(type, i);
+                switch (type) {
+                case BYTE:
+                case UNSIGNED_BYTE:
+                    output.writeByte((int) value);
+                    break;
+                case SHORT:
+                case UNSIGNED_SHORT:
+                    output.writeShort((int) value);
+                    break;
+                case INT:
+                    output.writeInt((int) value);
+                    break;
+                case FLOAT:
+                    output.writeFloat((float) value);
+                    break;
+                default:
+                    output.writeDouble(value);
+                    break;
+                }
+            }
+        }
+
+        return file;
+    }
+
+    @Test
+    public void testAllElementTypes() throws IOException {
+
+        int header = 11;
+        int count = 1001;
+
+        for (ElementType type : ElementType.values()) {
+
+            File file = MappedArrayTest.write(type, header, count);
+
+            MappedArray array = MappedArray.map(SEGMENT_BITS, file, header, type, ByteOrder.BIG_ENDIAN, count);
+
+            TestUtils.assertEquals(count, array.count());
+            for (int i = 0; i < count; i++) {
+                TestUtils.assertEquals(type.name(), MappedArrayTest.expected(type, i), array.doubleValue(i));
+            }
+
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testIDX() throws IOException {
+
+        // 3 images of 4 rows and 5 columns
+        int[] dimensions = { 3, 4, 5 };
+
+        File file = File.createTempFile("MappedArrayTest", ".idx");
+        file.deleteOnExit();
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.write(0);
+            output.write(0);
+            output.write(0x08);
+            output.write(dimensions.length);
+            for (int d : dimensions) {
+                output.writeInt(d);
+            }
+            for (int i = 0; i < (3 * 4 * 5); i++) {
+                output.writeByte(i * 4);
+            }
+        }
+
+        ArrayAnyD<Double> parsed = IDX.parse(file.getPath());
+        MappedArray mapped = IDX.map(file.getPath());
+
+        TestUtils.assertEquals(parsed.shape(), mapped.shape());
+        for (long i = 0L; i < parsed.count(); i++) {
+            TestUtils.assertEquals(parsed.doubleValue(i), mapped.doubleValue(i));
+        }
+
+        // The element at row 2, column 3, of the second image – the order of the indices is reversed
+        TestUtils.assertEquals(parsed.doubleValue(new long[] { 3, 2, 1 }), mapped.doubleValue(new long[] { 3, 2, 1 }));
+        TestUtils.assertEquals(4 * ((1 * 20) + (2 * 5) + 3), mapped.doubleValue(new long[] { 3, 2, 1 }));
+
+        file.delete();
+    }
+
+    @Test
+    public void testSegmentsFromPosition() throws IOException {
+
+        File file = MappedArrayTest.write(ElementType.DOUBLE, 8, 100);
+
+        // 2 x 50 starting after the header, using the default segment size
+        MappedArray array = MappedArray.map(file, 8L, ElementType.DOUBLE, ByteOrder.BIG_ENDIAN, 2, 50);
+
+        TestUtils.assertEquals(2L, array.count(0));
+        TestUtils.assertEquals(50L, array.count(1));
+        TestUtils.assertEquals(MappedArrayTest.expected(ElementType.DOUBLE, 99), array.doubleValue(new long[] { 1, 49 }));
+        TestUtils.assertEquals(MappedArrayTest.expected(ElementType.DOUBLE, 2), array.get(2L).doubleValue());
+
+        file.delete();
+    }
+
+}
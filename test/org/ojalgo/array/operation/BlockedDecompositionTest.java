@@ -0,0 +1,274 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.decomposition.Bidiagonal;
+import org.ojalgo.matrix.decomposition.Cholesky;
+import org.ojalgo.matrix.decomposition.Hessenberg;
+import org.ojalgo.matrix.decomposition.LDL;
+import org.ojalgo.matrix.decomposition.LU;
+import org.ojalgo.matrix.decomposition.QR;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Normal;
+import org.ojalgo.type.context.NumberContext;
+
+public class BlockedDecompositionTest extends StoreOperationsTests {
+
+    private static final NumberContext ACCURACY = NumberContext.of(10);
+    private static final int[] BLOCKS = { 1, 5, 64 };
+
+    static void doTestCholesky(final int dim, final int block) {
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.makeSPD(dim);
+
+        double[] data = matrix.data.clone();
+        double[] diagonal = new double[dim];
+
+        TestUtils.assertEquals(dim, BlockedCholesky.invoke(data, dim, diagonal, block));
+
+        MatrixStore<Double> mtrxL = BlockedDecompositionTest.wrap(data, dim, dim).logical().triangular(false, false).get();
+
+        TestUtils.assertEquals(matrix, mtrxL.multiply(mtrxL.transpose()), ACCURACY);
+    }
+
+    static void doTestLDL(final int dim, final int block, final boolean pivoting) {
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.makeSPD(dim);
+        for (int ij = 0; ij < dim; ij++) {
+            matrix.set(ij, ij, (ij % 3) == 0 ? -ij - 1.0 : ij + 1.0); // Indefinite
+        }
+
+        double[] data = matrix.data.clone();
+        int[] pivots = pivoting ? new int[dim] : null;
+
+        BlockedLDL.invoke(data, dim, pivots, block);
+
+        Primitive64Store factored = BlockedDecompositionTest.wrap(data, dim, dim);
+        MatrixStore<Double> mtrxL = factored.logical().triangular(false, true).get();
+        MatrixStore<Double> mtrxD = factored.logical().diagonal().get();
+
+        Primitive64Store expected = matrix.copy();
+        if (pivoting) {
+            for (int ij = 0; ij < dim; ij++) {
+                expected.exchangeRows(ij, pivots[ij]);
+                expected.exchangeColumns(ij, pivots[ij]);
+            }
+        }
+
+        TestUtils.assertEquals(expected, mtrxL.multiply(mtrxD).multiply(mtrxL.transpose()), ACCURACY);
+    }
+
+    static void doTestLU(final int rows, final int columns, final int block) {
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.makeFilled(rows, columns, new Normal());
+
+        double[] data = matrix.data.clone();
+        int[] pivots = new int[Math.min(rows, columns)];
+
+        BlockedLU.invoke(data, rows, columns, pivots, block);
+
+        Primitive64Store factored = BlockedDecompositionTest.wrap(data, rows, columns);
+
+        MatrixStore<Double> mtrxL = factored.logical().triangular(false, true).limits(rows, pivots.length).get();
+        MatrixStore<Double> mtrxU = factored.logical().triangular(true, false).limits(pivots.length, columns).get();
+
+        Primitive64Store expected = matrix.copy();
+        for (int ij = 0; ij < pivots.length; ij++) {
+            expected.exchangeRows(ij, pivots[ij]);
+        }
+
+        TestUtils.assertEquals(expected, mtrxL.multiply(mtrxU), ACCURACY);
+    }
+
+    static void doTestQR(final int rows, final int columns, final int block) {
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.makeFilled(rows, columns, new Normal());
+
+        double[] data = matrix.data.clone();
+        int minDim = Math.min(rows, columns);
+        double[] beta = new double[minDim];
+
+        BlockedQR.invoke(data, rows, columns, beta, block);
+
+        MatrixStore<Double> mtrxR = BlockedDecompositionTest.wrap(data, rows, columns).logical().triangular(true, false).get();
+
+        Primitive64Store mtrxQ = Primitive64Store.FACTORY.makeEye(rows, rows);
+        BlockedHouseholder.invoke(mtrxQ.data, rows, rows, data, 1, rows, 0, beta, minDim, false, true, block);
+
+        TestUtils.assertEquals(Primitive64Store.FACTORY.makeEye(rows, rows), mtrxQ.transpose().multiply(mtrxQ), ACCURACY);
+        TestUtils.assertEquals(matrix, mtrxQ.logical().limits(rows, minDim).get().multiply(mtrxR), ACCURACY);
+
+        Primitive64Store transformed = matrix.copy();
+        BlockedHouseholder.invoke(transformed.data, rows, columns, data, 1, rows, 0, beta, minDim, true, false, block);
+
+        TestUtils.assertEquals(mtrxR.logical().below(rows - minDim).get(), transformed, ACCURACY);
+    }
+
+    static Primitive64Store wrap(final double[] data, final int rows, final int columns) {
+        Primitive64Store retVal = Primitive64Store.FACTORY.make(rows, columns);
+        System.arraycopy(data, 0, retVal.data, 0, data.length);
+        return retVal;
+    }
+
+    @Test
+    public void testCholesky() {
+        for (int block : BLOCKS) {
+            BlockedDecompositionTest.doTestCholesky(1, block);
+            BlockedDecompositionTest.doTestCholesky(7, block);
+            BlockedDecompositionTest.doTestCholesky(150, block);
+        }
+    }
+
+    @Test
+    public void testCholeskyNotPositiveDefinite() {
+
+        int dim = 20;
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.makeSPD(dim);
+        matrix.set(13, 13, -1.0);
+
+        TestUtils.assertEquals(13, BlockedCholesky.invoke(matrix.data, dim, new double[dim], 5));
+    }
+
+    @Test
+    public void testLDL() {
+        for (int block : BLOCKS) {
+            BlockedDecompositionTest.doTestLDL(1, block, true);
+            BlockedDecompositionTest.doTestLDL(7, block, false);
+            BlockedDecompositionTest.doTestLDL(7, block, true);
+            BlockedDecompositionTest.doTestLDL(150, block, false);
+            BlockedDecompositionTest.doTestLDL(150, block, true);
+        }
+    }
+
+    @Test
+    public void testLU() {
+        for (int block : BLOCKS) {
+            BlockedDecompositionTest.doTestLU(1, 1, block);
+            BlockedDecompositionTest.doTestLU(7, 7, block);
+            BlockedDecompositionTest.doTestLU(50, 30, block);
+            BlockedDecompositionTest.doTestLU(30, 50, block);
+            BlockedDecompositionTest.doTestLU(150, 150, block);
+        }
+    }
+
+    @Test
+    public void testQR() {
+        for (int block : BLOCKS) {
+            BlockedDecompositionTest.doTestQR(1, 1, block);
+            BlockedDecompositionTest.doTestQR(7, 7, block);
+            BlockedDecompositionTest.doTestQR(50, 30, block);
+            BlockedDecompositionTest.doTestQR(30, 50, block);
+            BlockedDecompositionTest.doTestQR(150, 150, block);
+        }
+    }
+
+    /**
+     * The decompositions should give the same results whether the blocked algorithms are used or not.
+     */
+    @Test
+    public void testSameAsUnblocked() {
+
+        Primitive64Store general = Primitive64Store.FACTORY.makeFilled(600, 600, new Normal());
+        Primitive64Store spd = Primitive64Store.FACTORY.makeSPD(300);
+        Primitive64Store tall = Primitive64Store.FACTORY.makeFilled(500, 200, new Normal());
+        Primitive64Store fat = Primitive64Store.FACTORY.makeFilled(200, 300, new Normal());
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(500, 40, new Normal());
+
+        LU<Double> blockedLU = LU.PRIMITIVE.make(general);
+        Cholesky<Double> blockedCholesky = Cholesky.PRIMITIVE.make(spd);
+        LDL<Double> blockedLDL = LDL.PRIMITIVE.make(spd);
+        QR<Double> blockedQR = QR.PRIMITIVE.make(tall);
+        Bidiagonal<Double> blockedTall = Bidiagonal.PRIMITIVE.make(tall);
+        Bidiagonal<Double> blockedFat = Bidiagonal.PRIMITIVE.make(fat);
+        Hessenberg<Double> blockedHessenberg = Hessenberg.PRIMITIVE.make(general);
+
+        BlockedLU.THRESHOLD = Integer.MAX_VALUE;
+        BlockedCholesky.THRESHOLD = Integer.MAX_VALUE;
+        BlockedLDL.THRESHOLD = Integer.MAX_VALUE;
+        BlockedQR.THRESHOLD = Integer.MAX_VALUE;
+        BlockedHouseholder.THRESHOLD = Integer.MAX_VALUE;
+
+        LU<Double> unblockedLU = LU.PRIMITIVE.make(general);
+        unblockedLU.decompose(general);
+        Cholesky<Double> unblockedCholesky = Cholesky.PRIMITIVE.make(spd);
+        unblockedCholesky.decompose(spd);
+        LDL<Double> unblockedLDL = LDL.PRIMITIVE.make(spd);
+        unblockedLDL.decompose(spd);
+        QR<Double> unblockedQR = QR.PRIMITIVE.make(tall);
+        unblockedQR.decompose(tall);
+        Bidiagonal<Double> unblockedTall = Bidiagonal.PRIMITIVE.make(tall);
+        unblockedTall.decompose(tall);
+        Bidiagonal<Double> unblockedFat = Bidiagonal.PRIMITIVE.make(fat);
+        unblockedFat.decompose(fat);
+        Hessenberg<Double> unblockedHessenberg = Hessenberg.PRIMITIVE.make(general);
+        unblockedHessenberg.compute(general, false);
+
+        MatrixStore<Double> unblockedSolution = unblockedQR.getSolution(rhs);
+        MatrixStore<Double> unblockedQ = unblockedQR.getQ();
+        MatrixStore<Double> unblockedTallLQ = unblockedTall.getLQ();
+        MatrixStore<Double> unblockedTallRQ = unblockedTall.getRQ();
+        MatrixStore<Double> unblockedFatLQ = unblockedFat.getLQ();
+        MatrixStore<Double> unblockedFatRQ = unblockedFat.getRQ();
+        MatrixStore<Double> unblockedHessenbergQ = unblockedHessenberg.getQ();
+
+        BlockedLU.THRESHOLD = 2;
+        BlockedCholesky.THRESHOLD = 2;
+        BlockedLDL.THRESHOLD = 2;
+        BlockedQR.THRESHOLD = 2;
+        BlockedHouseholder.THRESHOLD = 2;
+
+        blockedLU.decompose(general);
+        blockedCholesky.decompose(spd);
+        blockedLDL.decompose(spd);
+        blockedQR.decompose(tall);
+        blockedTall.decompose(tall);
+        blockedFat.decompose(fat);
+        blockedHessenberg.compute(general, false);
+
+        TestUtils.assertEquals(unblockedLU.getPivotOrder(), blockedLU.getPivotOrder());
+        TestUtils.assertEquals(unblockedLU.getL(), blockedLU.getL(), ACCURACY);
+        TestUtils.assertEquals(unblockedLU.getU(), blockedLU.getU(), ACCURACY);
+
+        TestUtils.assertTrue(blockedCholesky.isSolvable());
+        TestUtils.assertEquals(unblockedCholesky.getL(), blockedCholesky.getL(), ACCURACY);
+
+        TestUtils.assertEquals(unblockedLDL.getPivotOrder(), blockedLDL.getPivotOrder());
+        TestUtils.assertEquals(unblockedLDL.getL(), blockedLDL.getL(), ACCURACY);
+        TestUtils.assertEquals(unblockedLDL.getD(), blockedLDL.getD(), ACCURACY);
+
+        TestUtils.assertEquals(unblockedQR.getR(), blockedQR.getR(), ACCURACY);
+        TestUtils.assertEquals(unblockedQ, blockedQR.getQ(), ACCURACY);
+        TestUtils.assertEquals(unblockedSolution, blockedQR.getSolution(rhs), ACCURACY);
+        TestUtils.assertEquals(unblockedQR.getDeterminant(), blockedQR.getDeterminant(), ACCURACY);
+
+        TestUtils.assertEquals(unblockedTallLQ, blockedTall.getLQ(), ACCURACY);
+        TestUtils.assertEquals(unblockedTallRQ, blockedTall.getRQ(), ACCURACY);
+        TestUtils.assertEquals(unblockedFatLQ, blockedFat.getLQ(), ACCURACY);
+        TestUtils.assertEquals(unblockedFatRQ, blockedFat.getRQ(), ACCURACY);
+        TestUtils.assertEquals(unblockedHessenbergQ, blockedHessenberg.getQ(), ACCURACY);
+    }
+
+}
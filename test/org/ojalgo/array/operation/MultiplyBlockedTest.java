@@ -0,0 +1,111 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.RawStore;
+import org.ojalgo.random.Normal;
+import org.ojalgo.type.context.NumberContext;
+
+public class MultiplyBlockedTest extends StoreOperationsTests {
+
+    private static final NumberContext ACCURACY = NumberContext.of(10);
+
+    static void doTest(final int rows, final int complexity, final int columns) {
+
+        Primitive64Store left = Primitive64Store.FACTORY.makeFilled(rows, complexity, new Normal());
+        Primitive64Store right = Primitive64Store.FACTORY.makeFilled(complexity, columns, new Normal());
+
+        RawStore expected = RawStore.FACTORY.copy(left).multiply(RawStore.FACTORY.copy(right));
+
+        Primitive64Store actual = Primitive64Store.FACTORY.makeZero(rows, columns);
+
+        MultiplyBlocked.invoke(actual.data, left.data, complexity, right.data);
+        TestUtils.assertEquals(expected, actual, ACCURACY);
+
+        MultiplyBlocked.invoke(actual.data, left.logical().get(), complexity, right.data);
+        TestUtils.assertEquals(expected, actual, ACCURACY);
+
+        MultiplyBlocked.invoke(actual.data, left.data, complexity, right.logical().get());
+        TestUtils.assertEquals(expected, actual, ACCURACY);
+
+        MultiplyBlocked.invoke(actual, left.logical().get(), complexity, right.logical().get());
+        TestUtils.assertEquals(expected, actual, ACCURACY);
+
+        MatrixStore<Double> viaStore = left.multiply(right);
+        TestUtils.assertEquals(expected, viaStore, ACCURACY);
+    }
+
+    @Test
+    public void testEdgeTiles() {
+        MultiplyBlockedTest.doTest(1, 1, 1);
+        MultiplyBlockedTest.doTest(3, 5, 7);
+        MultiplyBlockedTest.doTest(MultiplyBlocked.MR + 1, MultiplyBlocked.KC + 1, MultiplyBlocked.NR + 1);
+    }
+
+    @Test
+    public void testLargerThanBlocks() {
+        MultiplyBlockedTest.doTest(MultiplyBlocked.MC + 3, MultiplyBlocked.KC + 5, 2 * MultiplyBlocked.NR + 1);
+        MultiplyBlockedTest.doTest(150, 300, 130);
+    }
+
+    /**
+     * product[2:2+rows, 3:3+columns] += alpha * left<sup>T</sup> * right where left and right are sub-matrices
+     * of larger matrices
+     */
+    @Test
+    public void testUpdateSubMatrices() {
+
+        int rows = MultiplyBlocked.MC + 3;
+        int complexity = MultiplyBlocked.KC + 5;
+        int columns = (2 * MultiplyBlocked.NR) + 1;
+        double alpha = -0.5;
+
+        Primitive64Store product = Primitive64Store.FACTORY.makeFilled(rows + 4, columns + 5, new Normal());
+        Primitive64Store left = Primitive64Store.FACTORY.makeFilled(complexity + 1, rows + 2, new Normal());
+        Primitive64Store right = Primitive64Store.FACTORY.makeFilled(complexity + 3, columns, new Normal());
+
+        MatrixStore<Double> subLeft = left.logical().offsets(1, 2).get().transpose();
+        MatrixStore<Double> subRight = right.logical().offsets(3, 0).get();
+
+        MatrixStore<Double> increment = subLeft.multiply(subRight);
+        Primitive64Store expected = product.copy();
+        for (int j = 0; j < columns; j++) {
+            for (int i = 0; i < rows; i++) {
+                expected.add(2 + i, 3 + j, alpha * increment.doubleValue(i, j));
+            }
+        }
+
+        int productStructure = rows + 4;
+        int leftStructure = complexity + 1;
+        int rightStructure = complexity + 3;
+
+        MultiplyBlocked.update(product.data, 2 + (3 * productStructure), productStructure, rows, columns, alpha, left.data, 1 + (2 * leftStructure),
+                leftStructure, 1, complexity, right.data, 3, 1, rightStructure);
+
+        TestUtils.assertEquals(expected, product, ACCURACY);
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.concurrent;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+
+public class DivideAndConquerTest {
+
+    static void doTest(final ForkJoinPool pool, final int count, final int threshold, final boolean nested) {
+
+        final AtomicIntegerArray visits = new AtomicIntegerArray(count);
+
+        final DivideAndConquer conquerer = new DivideAndConquer(pool) {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+                if (nested) {
+                    new DivideAndConquer() {
+
+                        @Override
+                        protected void conquer(final int first2, final int limit2) {
+                            for (int i = first2; i < limit2; i++) {
+                                visits.incrementAndGet(i);
+                            }
+                        }
+
+                    }.invoke(first, limit, 2);
+                } else {
+                    for (int i = first; i < limit; i++) {
+                        visits.incrementAndGet(i);
+                    }
+                }
+            }
+
+        };
+
+        conquerer.invoke(0, count, threshold);
+
+        for (int i = 0; i < count; i++) {
+            TestUtils.assertEquals(1, visits.get(i));
+        }
+    }
+
+    @Test
+    public void testEveryIndexExactlyOnce() {
+        DivideAndConquerTest.doTest(null, 1000, 10, false);
+        DivideAndConquerTest.doTest(null, 7, 1, false);
+        DivideAndConquerTest.doTest(null, 0, 1, false);
+    }
+
+    @Test
+    public void testInjectedPool() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            DivideAndConquerTest.doTest(pool, 999, 4, false);
+            DivideAndConquerTest.doTest(pool, 999, 4, true);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testNested() {
+        DivideAndConquerTest.doTest(null, 1000, 10, true);
+    }
+
+}
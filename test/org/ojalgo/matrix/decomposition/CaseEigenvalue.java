@@ -24,6 +24,7 @@ package org.ojalgo.matrix.decomposition;
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import java.math.MathContext;
+import java.util.Arrays;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -43,6 +44,7 @@ import org.ojalgo.matrix.store.GenericStore;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
 import org.ojalgo.matrix.task.SolverTask;
 import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.scalar.ComplexNumber;
@@ -68,6 +70,120 @@ public class CaseEigenvalue extends MatrixDecompositionTests {
         TestUtils.minimiseAllBranchLimits();
     }
 
+    /**
+     * A few eigenpairs of a (sparse) grid graph Laplacian, that has repeated eigenvalues and a zero
+     * eigenvalue, compared with a full decomposition.
+     */
+    @Test
+    public void testIterative() {
+
+        int side = 12;
+        int dim = side * side;
+        int count = 6;
+
+        NumberContext accuracy = NumberContext.of(8);
+
+        SparseStore<Double> laplacian = SparseStore.PRIMITIVE64.make(dim, dim);
+        for (int x = 0; x < side; x++) {
+            for (int y = 0; y < side; y++) {
+                int index = x + (y * side);
+                if (x > 0) {
+                    laplacian.set(index, index - 1, NEG);
+                    laplacian.add(index, index, ONE);
+                }
+                if (x < (side - 1)) {
+                    laplacian.set(index, index + 1, NEG);
+                    laplacian.add(index, index, ONE);
+                }
+                if (y > 0) {
+                    laplacian.set(index, index - side, NEG);
+                    laplacian.add(index, index, ONE);
+                }
+                if (y < (side - 1)) {
+                    laplacian.set(index, index + side, NEG);
+                    laplacian.add(index, index, ONE);
+                }
+            }
+        }
+
+        Eigenvalue<Double> full = Eigenvalue.PRIMITIVE.make(dim, true);
+        full.decompose(Primitive64Store.FACTORY.copy(laplacian));
+        double[] expected = new double[dim];
+        full.getEigenvalues(expected, Optional.empty());
+        Arrays.sort(expected);
+
+        Eigenvalue.Iterative largest = Eigenvalue.Iterative.largest(count);
+        Eigenvalue.Iterative smallest = Eigenvalue.Iterative.smallest(count);
+        Eigenvalue.Iterative nearest = Eigenvalue.Iterative.nearest(count, -0.01);
+        Eigenvalue.Iterative operator = Eigenvalue.Iterative.largest(count);
+
+        TestUtils.assertTrue(largest.decompose(laplacian));
+        TestUtils.assertTrue(smallest.decompose(laplacian));
+        TestUtils.assertTrue(nearest.decompose(laplacian));
+        TestUtils.assertTrue(operator.decompose(dim, x -> laplacian.multiply(Primitive64Store.FACTORY.columns(x))));
+
+        for (int i = 0; i < count; i++) {
+            TestUtils.assertEquals(expected[dim - 1 - i], largest.getEigenvalues().get(i).doubleValue(), accuracy);
+            TestUtils.assertEquals(expected[count - 1 - i], smallest.getEigenvalues().get(i).doubleValue(), accuracy);
+            TestUtils.assertEquals(expected[count - 1 - i], nearest.getEigenvalues().get(i).doubleValue(), accuracy);
+            TestUtils.assertEquals(expected[dim - 1 - i], operator.getEigenvalues().get(i).doubleValue(), accuracy);
+        }
+
+        for (Eigenvalue.Iterative evd : Arrays.asList(largest, smallest, nearest, operator)) {
+            MatrixStore<Double> mtrxV = evd.getV();
+            TestUtils.assertEquals(count, mtrxV.countColumns());
+            TestUtils.assertEquals(laplacian.multiply(mtrxV), mtrxV.multiply(evd.getD()), accuracy);
+            TestUtils.assertEquals(Primitive64Store.FACTORY.makeEye(count, count), mtrxV.transpose().multiply(mtrxV), accuracy);
+        }
+    }
+
+    /**
+     * With the shift inside the spectrum [A]-&sigma;[I] is indefinite. A dense matrix is factorised using
+     * (pivoting) LU, and that works. A sparse matrix is not densified, and the (non-pivoting) sparse LDL
+     * can't factorise it – the decomposition fails rather than throws.
+     */
+    @Test
+    public void testIterativeInteriorShift() {
+
+        int dim = 400;
+        int count = 4;
+
+        NumberContext accuracy = NumberContext.of(8);
+
+        SparseStore<Double> tridiagonal = SparseStore.PRIMITIVE64.make(dim, dim);
+        for (int ij = 0; ij < dim; ij++) {
+            tridiagonal.set(ij, ij, TWO);
+            if (ij > 0) {
+                tridiagonal.set(ij, ij - 1, NEG);
+                tridiagonal.set(ij - 1, ij, NEG);
+            }
+        }
+
+        double[] spectrum = new double[dim];
+        for (int k = 0; k < dim; k++) {
+            spectrum[k] = TWO - (TWO * Math.cos(((k + 1) * PI) / (dim + 1)));
+        }
+
+        for (double shift : new double[] { ONE, TWO, 3.3 }) {
+
+            double[] expected = Arrays.stream(spectrum).boxed().sorted((v1, v2) -> Double.compare(Math.abs(v1 - shift), Math.abs(v2 - shift)))
+                    .limit(count).sorted((v1, v2) -> Double.compare(v2, v1)).mapToDouble(Double::doubleValue).toArray();
+
+            Eigenvalue.Iterative nearest = Eigenvalue.Iterative.nearest(count, shift);
+
+            TestUtils.assertTrue(nearest.decompose(Primitive64Store.FACTORY.copy(tridiagonal)));
+
+            for (int i = 0; i < count; i++) {
+                TestUtils.assertEquals(expected[i], nearest.getEigenvalues().get(i).doubleValue(), accuracy);
+            }
+
+            MatrixStore<Double> mtrxV = nearest.getV();
+            TestUtils.assertEquals(tridiagonal.multiply(mtrxV), mtrxV.multiply(nearest.getD()), accuracy);
+
+            TestUtils.assertFalse(Eigenvalue.Iterative.nearest(count, shift).decompose(tridiagonal));
+        }
+    }
+
     @Test
     public void testP20050125Case() {
 
@@ -21,10 +21,13 @@
  */
 package org.ojalgo.matrix.decomposition;
 
+import java.util.Arrays;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.ojalgo.TestUtils;
 import org.ojalgo.array.Array1D;
+import org.ojalgo.data.DataProcessors;
 import org.ojalgo.function.PrimitiveFunction;
 import org.ojalgo.function.UnaryFunction;
 import org.ojalgo.function.constant.ComplexMath;
@@ -314,6 +317,49 @@ public class CaseSingularValue extends MatrixDecompositionTests {
         this.doTestTypes(MTRX_TALL);
     }
 
+    /**
+     * A matrix with exact rank 6 is fully captured by a randomised SVD of rank 6 – tall as well as fat.
+     */
+    @Test
+    public void testRandomised() {
+
+        int rank = 6;
+        NumberContext accuracy = NumberContext.of(8);
+
+        Primitive64Store factor1 = Primitive64Store.FACTORY.makeFilled(300, rank, new Normal());
+        Primitive64Store factor2 = Primitive64Store.FACTORY.makeFilled(rank, 40, new Normal());
+
+        MatrixStore<Double> tall = factor1.multiply(factor2);
+
+        for (MatrixStore<Double> matrix : Arrays.asList(tall, tall.transpose())) {
+
+            SingularValue<Double> full = new RawSingularValue();
+            full.decompose(matrix);
+
+            SingularValue<Double> randomised = SingularValue.randomised(rank).make(matrix);
+            TestUtils.assertTrue(randomised.decompose(matrix));
+
+            TestUtils.assertEquals(rank, randomised.getSingularValues().count());
+            TestUtils.assertEquals(rank, randomised.getRank());
+            TestUtils.assertFalse(randomised.isSolvable());
+            TestUtils.assertEquals(full.getSingularValues().sliceRange(0, rank), randomised.getSingularValues(), accuracy);
+
+            TestUtils.assertEquals(matrix.countRows(), randomised.getU().countRows());
+            TestUtils.assertEquals(matrix.countColumns(), randomised.getV().countRows());
+            TestUtils.assertEquals(matrix, randomised.reconstruct(), accuracy);
+
+            TestUtils.assertEquals(DataProcessors.covariances(Primitive64Store.FACTORY, full, rank),
+                    DataProcessors.covariances(Primitive64Store.FACTORY, matrix, rank), accuracy);
+        }
+
+        // Only solvable when the rank is the full rank
+
+        SingularValue<Double> randomised = SingularValue.randomised(rank).make(factor1);
+        TestUtils.assertTrue(randomised.decompose(factor1));
+        TestUtils.assertTrue(randomised.isSolvable());
+        TestUtils.assertEquals(factor2, randomised.getSolution(tall), accuracy);
+    }
+
     @Test
     public void testRecreationFat() {
 
@@ -0,0 +1,248 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * {@link SparseCholesky} and {@link SparseLDL}
+ *
+ * @author apete
+ */
+public class CaseSparse extends MatrixDecompositionTests {
+
+    private static final NumberContext ACCURACY = NumberContext.getGeneral(10, 10);
+
+    /**
+     * The 5-point finite difference Laplacian on a grid, plus something on the diagonal
+     */
+    static SparseStore<Double> makeGrid(final int size, final double shift) {
+
+        int dim = size * size;
+
+        SparseStore<Double> retVal = SparseStore.PRIMITIVE64.make(dim, dim);
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int k = (i * size) + j;
+                retVal.set(k, k, 4.0 + shift);
+                if (i > 0) {
+                    retVal.set(k, k - size, -1.0);
+                    retVal.set(k - size, k, -1.0);
+                }
+                if (j > 0) {
+                    retVal.set(k, k - 1, -1.0);
+                    retVal.set(k - 1, k, -1.0);
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Quasi-definite: a positive definite block bordered by a sparse constraint block with negative
+     * diagonal.
+     */
+    static SparseStore<Double> makeQuasiDefinite(final int n, final int m) {
+
+        Random random = new Random(123);
+
+        SparseStore<Double> retVal = SparseStore.PRIMITIVE64.make(n + m, n + m);
+
+        for (int j = 0; j < n; j++) {
+            retVal.set(j, j, 1.0 + random.nextDouble());
+            if (j > 0) {
+                double value = 0.1 * random.nextDouble();
+                retVal.set(j - 1, j, value);
+                retVal.set(j, j - 1, value);
+            }
+        }
+        for (int i = 0; i < m; i++) {
+            retVal.set(n + i, n + i, -1E-3);
+            for (int k = 0; k < 3; k++) {
+                int j = random.nextInt(n);
+                double value = random.nextGaussian();
+                retVal.set(j, n + i, value);
+                retVal.set(n + i, j, value);
+            }
+        }
+
+        return retVal;
+    }
+
+    private static void assertSolution(final MatrixStore<Double> matrix, final MatrixDecomposition.Solver<Double> decomposition) {
+
+        Primitive64Store expected = Primitive64Store.FACTORY.makeFilled(matrix.countRows(), 2L, new org.ojalgo.random.Normal());
+        MatrixStore<Double> rhs = matrix.multiply(expected);
+
+        TestUtils.assertTrue(decomposition.isSolvable());
+        TestUtils.assertEquals(expected, decomposition.getSolution(rhs), ACCURACY);
+    }
+
+    @Test
+    public void testCholeskyGrid() {
+
+        SparseStore<Double> matrix = CaseSparse.makeGrid(30, 0.1);
+
+        Cholesky<Double> decomposition = Cholesky.SPARSE.make(matrix);
+        TestUtils.assertTrue(decomposition instanceof SparseCholesky);
+
+        TestUtils.assertTrue(decomposition.checkAndDecompose(matrix));
+        TestUtils.assertTrue(decomposition.isSPD());
+        TestUtils.assertTrue(Cholesky.equals(matrix, decomposition, ACCURACY));
+        CaseSparse.assertSolution(matrix, decomposition);
+
+        Cholesky<Double> dense = Cholesky.PRIMITIVE.make(Primitive64Store.FACTORY.copy(matrix));
+        dense.decompose(matrix);
+        TestUtils.assertEquals(dense.getDeterminant(), decomposition.getDeterminant(), ACCURACY);
+    }
+
+    /**
+     * {@link Cholesky#PRIMITIVE} must return a decomposition with a triangular [L] also for sparse input –
+     * {@link GeneralisedEvD} uses it in forward/backward substitutions.
+     */
+    @Test
+    public void testCholeskyPrimitiveSparseInput() {
+
+        SparseStore<Double> matrixA = CaseSparse.makeGrid(6, 0.5);
+        SparseStore<Double> matrixB = CaseSparse.makeGrid(6, 1.0);
+
+        Cholesky<Double> cholesky = Cholesky.PRIMITIVE.make(matrixB);
+        TestUtils.assertFalse(cholesky instanceof SparseCholesky);
+        TestUtils.assertTrue(cholesky.decompose(matrixB));
+        MatrixStore<Double> mtrxL = cholesky.getL();
+        for (int j = 1; j < mtrxL.countColumns(); j++) {
+            for (int i = 0; i < j; i++) {
+                TestUtils.assertEquals(0.0, mtrxL.doubleValue(i, j));
+            }
+        }
+
+        Eigenvalue.Generalised<Double> sparse = Eigenvalue.PRIMITIVE.makeGeneralised(matrixA);
+        TestUtils.assertTrue(sparse.decompose(matrixA, matrixB));
+
+        Primitive64Store denseA = Primitive64Store.FACTORY.copy(matrixA);
+        Primitive64Store denseB = Primitive64Store.FACTORY.copy(matrixB);
+        Eigenvalue.Generalised<Double> dense = Eigenvalue.PRIMITIVE.makeGeneralised(denseA);
+        TestUtils.assertTrue(dense.decompose(denseA, denseB));
+
+        TestUtils.assertEquals(dense.getD(), sparse.getD(), ACCURACY);
+        TestUtils.assertFalse(Double.isNaN(sparse.getD().doubleValue(0, 0)));
+    }
+
+    @Test
+    public void testCholeskyNotPositiveDefinite() {
+
+        SparseStore<Double> matrix = CaseSparse.makeGrid(10, -6.0);
+
+        Cholesky<Double> decomposition = Cholesky.SPARSE.make(matrix);
+
+        TestUtils.assertFalse(decomposition.decompose(matrix));
+        TestUtils.assertFalse(decomposition.isSPD());
+        TestUtils.assertFalse(decomposition.isSolvable());
+    }
+
+    @Test
+    public void testDenseInput() {
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.copy(CaseSparse.makeGrid(7, 0.5));
+
+        Cholesky<Double> decomposition = Cholesky.SPARSE.make(matrix);
+        decomposition.decompose(matrix);
+
+        TestUtils.assertTrue(Cholesky.equals(matrix, decomposition, ACCURACY));
+        CaseSparse.assertSolution(matrix, decomposition);
+        TestUtils.assertEquals(Primitive64Store.FACTORY.makeEye(49, 49), matrix.multiply(decomposition.getInverse()), ACCURACY);
+    }
+
+    @Test
+    public void testLDLQuasiDefinite() {
+
+        SparseStore<Double> matrix = CaseSparse.makeQuasiDefinite(60, 20);
+
+        LDL<Double> decomposition = LDL.SPARSE.make(matrix);
+
+        TestUtils.assertTrue(decomposition.checkAndDecompose(matrix));
+        TestUtils.assertEquals(0, ((SparseLDL) decomposition).countRegularised());
+        TestUtils.assertTrue(LDL.equals(matrix, decomposition, ACCURACY));
+        CaseSparse.assertSolution(matrix, decomposition);
+    }
+
+    @Test
+    public void testLDLWithoutPivoting() {
+
+        SparseStore<Double> matrix = CaseSparse.makeQuasiDefinite(30, 10);
+
+        LDL<Double> decomposition = LDL.SPARSE.make(matrix);
+        decomposition.decomposeWithoutPivoting(matrix);
+
+        TestUtils.assertFalse(decomposition.isPivoted());
+        MatrixStore<Double> mtrxL = decomposition.getL();
+        for (int j = 0; j < 40; j++) {
+            TestUtils.assertEquals(1.0, mtrxL.doubleValue(j, j));
+            for (int i = 0; i < j; i++) {
+                TestUtils.assertEquals(0.0, mtrxL.doubleValue(i, j));
+            }
+        }
+        TestUtils.assertTrue(LDL.equals(matrix, decomposition, ACCURACY));
+        CaseSparse.assertSolution(matrix, decomposition);
+    }
+
+    /**
+     * The symbolic analysis is reused for matrices with the same nonzero pattern, or a subset of it.
+     */
+    @Test
+    public void testReuseSymbolic() {
+
+        SparseStore<Double> matrix = CaseSparse.makeGrid(20, 1.0);
+
+        SparseCholesky decomposition = (SparseCholesky) Cholesky.SPARSE.make(matrix);
+        decomposition.decompose(matrix);
+        SparseDecomposition.Symbolic symbolic = decomposition.getSymbolic();
+
+        SparseStore<Double> scaled = CaseSparse.makeGrid(20, 2.0);
+        decomposition.decompose(scaled);
+        TestUtils.assertTrue(symbolic == decomposition.getSymbolic());
+        CaseSparse.assertSolution(scaled, decomposition);
+
+        scaled.set(5, 6, 0.0);
+        scaled.set(6, 5, 0.0);
+        decomposition.decompose(scaled);
+        TestUtils.assertTrue(symbolic == decomposition.getSymbolic());
+        CaseSparse.assertSolution(scaled, decomposition);
+
+        SparseStore<Double> other = CaseSparse.makeGrid(20, 1.0);
+        other.set(0, 399, 0.5);
+        other.set(399, 0, 0.5);
+        decomposition.decompose(other);
+        TestUtils.assertFalse(symbolic == decomposition.getSymbolic());
+        CaseSparse.assertSolution(other, decomposition);
+    }
+
+}
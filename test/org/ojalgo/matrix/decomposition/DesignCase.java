@@ -231,6 +231,55 @@ public class DesignCase extends MatrixDecompositionTests {
     /**
      * http://en.wikipedia.org/wiki/Kernel_%28matrix%29
      */
+    /**
+     * Build the decomposition by appending rows/columns, modify it with updates, downdates and removals, and
+     * compare with decomposing the modified matrix from scratch.
+     */
+    @Test
+    public void testUpdatableCholesky() {
+
+        int dim = 9;
+        NumberContext accuracy = NumberContext.of(10);
+
+        PhysicalStore<Double> vectors = Primitive64Store.FACTORY.makeFilled(dim, dim + 3, new Normal());
+        Primitive64Store matrix = Primitive64Store.FACTORY.copy(vectors.multiply(vectors.transpose()));
+
+        Cholesky.Updatable decomposition = Cholesky.updatable();
+        for (int j = 0; j < dim; j++) {
+            TestUtils.assertTrue(decomposition.append(matrix.sliceColumn(0, j).sliceRange(0, j + 1)));
+        }
+        TestUtils.assertTrue(Cholesky.equals(matrix, decomposition, accuracy));
+
+        Primitive64Store vector = Primitive64Store.FACTORY.makeFilled(dim, 1, new Normal());
+        Primitive64Store outer = Primitive64Store.FACTORY.copy(vector.multiply(vector.transpose()));
+
+        TestUtils.assertTrue(decomposition.update(vector));
+        matrix.modifyMatching(PrimitiveMath.ADD, outer);
+        TestUtils.assertTrue(Cholesky.equals(matrix, decomposition, accuracy));
+        Cholesky<Double> recalculated = Cholesky.PRIMITIVE.make(matrix);
+        TestUtils.assertTrue(recalculated.decompose(matrix));
+        TestUtils.assertEquals(recalculated.getL(), decomposition.getL(), accuracy);
+
+        TestUtils.assertTrue(decomposition.downdate(vector));
+        matrix.modifyMatching(PrimitiveMath.SUBTRACT, outer);
+        TestUtils.assertTrue(Cholesky.equals(matrix, decomposition, accuracy));
+
+        // Would not be positive definite - should fail and leave the decomposition unchanged
+        vector.modifyAll(PrimitiveMath.MULTIPLY.second(1000.0));
+        TestUtils.assertFalse(decomposition.downdate(vector));
+        TestUtils.assertTrue(Cholesky.equals(matrix, decomposition, accuracy));
+
+        int[] remaining = { 0, 1, 2, 4, 5, 6, 8 };
+        decomposition.remove(7);
+        decomposition.remove(3);
+        TestUtils.assertEquals(remaining.length, decomposition.countRows());
+        MatrixStore<Double> reduced = matrix.logical().row(remaining).column(remaining).get();
+        TestUtils.assertTrue(Cholesky.equals(reduced, decomposition, accuracy));
+
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(remaining.length, 2, new Normal());
+        TestUtils.assertEquals(rhs, reduced.multiply(decomposition.getSolution(rhs)), accuracy);
+    }
+
     @Test
     public void testWikipediaNullspace() {
 
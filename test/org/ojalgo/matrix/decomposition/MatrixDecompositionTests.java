@@ -64,7 +64,7 @@ public abstract class MatrixDecompositionTests {
 
     public static Cholesky<?>[] getAnyCholesky() {
         return new Cholesky<?>[] { new CholeskyDecomposition.Complex(), new CholeskyDecomposition.Primitive(), new CholeskyDecomposition.Quat(),
-                new CholeskyDecomposition.Rational(), new RawCholesky() };
+                new CholeskyDecomposition.Rational(), new RawCholesky(), new SparseCholesky(), new UpdatableCholesky() };
     }
 
     public static List<Eigenvalue<?>> getAnyEigenvalue() {
@@ -97,7 +97,8 @@ public abstract class MatrixDecompositionTests {
     }
 
     public static LDL<?>[] getAnyLDL() {
-        return new LDL<?>[] { new LDLDecomposition.Complex(), new LDLDecomposition.Primitive(), new LDLDecomposition.Quat(), new LDLDecomposition.Rational() };
+        return new LDL<?>[] { new LDLDecomposition.Complex(), new LDLDecomposition.Primitive(), new LDLDecomposition.Quat(), new LDLDecomposition.Rational(),
+                new SparseLDL() };
     }
 
     public static LU<?>[] getAnyLU() {
@@ -174,7 +175,8 @@ public abstract class MatrixDecompositionTests {
 
     @SuppressWarnings("unchecked")
     public static Cholesky<Double>[] getPrimitiveCholesky() {
-        return (Cholesky<Double>[]) new Cholesky<?>[] { new CholeskyDecomposition.Primitive(), new RawCholesky() };
+        return (Cholesky<Double>[]) new Cholesky<?>[] { new CholeskyDecomposition.Primitive(), new RawCholesky(), new SparseCholesky(),
+                new UpdatableCholesky() };
     }
 
     public static List<Eigenvalue<Double>> getPrimitiveEigenvalue() {
@@ -210,7 +212,7 @@ public abstract class MatrixDecompositionTests {
 
     @SuppressWarnings("unchecked")
     public static LDL<Double>[] getPrimitiveLDL() {
-        return (LDL<Double>[]) new LDL<?>[] { new LDLDecomposition.Primitive() };
+        return (LDL<Double>[]) new LDL<?>[] { new LDLDecomposition.Primitive(), new SparseLDL() };
     }
 
     @SuppressWarnings("unchecked")
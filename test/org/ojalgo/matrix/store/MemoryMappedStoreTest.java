@@ -0,0 +1,171 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.decomposition.Cholesky;
+import org.ojalgo.matrix.transformation.Householder;
+import org.ojalgo.matrix.transformation.Rotation;
+import org.ojalgo.random.Normal;
+import org.ojalgo.type.context.NumberContext;
+
+public class MemoryMappedStoreTest extends MatrixStoreTests {
+
+    private static final NumberContext ACCURACY = NumberContext.of(12);
+
+    private int myTileSize;
+
+    @AfterEach
+    public void restoreTileSize() {
+        MemoryMappedStore.TILE_SIZE = myTileSize;
+    }
+
+    @BeforeEach
+    public void smallTiles() {
+        myTileSize = MemoryMappedStore.TILE_SIZE;
+        // Small tiles, not dividing the dimensions, to have many tiles and padding at the edges
+        MemoryMappedStore.TILE_SIZE = 8;
+    }
+
+    @Test
+    public void testCholesky() {
+
+        int dim = 37;
+
+        Primitive64Store spd = Primitive64Store.FACTORY.makeSPD(dim);
+
+        MemoryMappedStore mapped = MemoryMappedStore.FACTORY.copy(spd);
+        TestUtils.assertTrue(mapped.decomposeCholesky());
+
+        Cholesky<Double> expected = Cholesky.PRIMITIVE.make(spd);
+        expected.decompose(spd);
+
+        TestUtils.assertEquals(expected.getL(), mapped, ACCURACY);
+        TestUtils.assertEquals(spd, mapped.multiply(mapped.transpose()), ACCURACY);
+
+        MemoryMappedStore indefinite = MemoryMappedStore.FACTORY.copy(spd);
+        indefinite.set(dim - 1, dim - 1, -1.0);
+        TestUtils.assertFalse(indefinite.decomposeCholesky());
+    }
+
+    @Test
+    public void testElements() {
+
+        Primitive64Store dense = Primitive64Store.FACTORY.makeFilled(19, 11, new Normal());
+        MemoryMappedStore mapped = MemoryMappedStore.FACTORY.copy(dense);
+
+        TestUtils.assertEquals(dense, mapped);
+        TestUtils.assertEquals(dense.transpose(), mapped.transpose());
+        TestUtils.assertEquals(dense.indexOfLargest(), mapped.indexOfLargest());
+
+        mapped.regionByOffsets(3, 2).regionByTransposing().fillAll(1.0);
+        dense.regionByOffsets(3, 2).regionByTransposing().fillAll(1.0);
+        TestUtils.assertEquals(dense, mapped);
+    }
+
+    @Test
+    public void testMultiplyAndGram() {
+
+        Primitive64Store left = Primitive64Store.FACTORY.makeFilled(30, 21, new Normal());
+        Primitive64Store right = Primitive64Store.FACTORY.makeFilled(21, 17, new Normal());
+
+        MemoryMappedStore mappedLeft = MemoryMappedStore.FACTORY.copy(left);
+        MemoryMappedStore mappedRight = MemoryMappedStore.FACTORY.copy(right);
+
+        TestUtils.assertEquals(left.multiply(right), mappedLeft.multiply(mappedRight), ACCURACY);
+        TestUtils.assertEquals(left.multiply(right), mappedLeft.multiply(right), ACCURACY);
+        TestUtils.assertEquals(left.multiply(right), left.multiply(mappedRight), ACCURACY);
+
+        TestUtils.assertEquals(left.transpose().multiply(left), mappedLeft.transpose().multiply(mappedLeft), ACCURACY);
+        TestUtils.assertEquals(left.multiply(left.transpose()), mappedLeft.multiply(mappedLeft.transpose()), ACCURACY);
+    }
+
+    @Test
+    public void testSubstitution() {
+
+        int dim = 19;
+
+        Primitive64Store body = Primitive64Store.FACTORY.makeSPD(dim);
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(dim, 11, new Normal());
+
+        for (boolean conjugated : new boolean[] { false, true }) {
+
+            Primitive64Store expected = rhs.copy();
+            MemoryMappedStore actual = MemoryMappedStore.FACTORY.copy(rhs);
+            expected.substituteForwards(body, false, conjugated, false);
+            actual.substituteForwards(body, false, conjugated, false);
+            TestUtils.assertEquals(expected, actual, ACCURACY);
+
+            expected = rhs.copy();
+            actual = MemoryMappedStore.FACTORY.copy(rhs);
+            expected.substituteBackwards(body, true, conjugated, false);
+            actual.substituteBackwards(body, true, conjugated, false);
+            TestUtils.assertEquals(expected, actual, ACCURACY);
+        }
+
+        Primitive64Store expected = Primitive64Store.FACTORY.make(dim, dim);
+        MemoryMappedStore actual = MemoryMappedStore.FACTORY.make(dim, dim);
+        expected.substituteForwards(body, false, false, true);
+        actual.substituteForwards(body, false, false, true);
+        TestUtils.assertEquals(expected, actual, ACCURACY);
+    }
+
+    @Test
+    public void testTransformations() {
+
+        int dim = 13;
+
+        Primitive64Store expected = Primitive64Store.FACTORY.makeFilled(dim, dim, new Normal());
+        MemoryMappedStore actual = MemoryMappedStore.FACTORY.copy(expected);
+
+        Householder.Primitive64 householder = new Householder.Primitive64(dim);
+        householder.first = 2;
+        double norm2 = 0.0;
+        for (int i = householder.first; i < dim; i++) {
+            householder.vector[i] = Normal.standard().doubleValue();
+            norm2 += householder.vector[i] * householder.vector[i];
+        }
+        householder.beta = 2.0 / norm2;
+
+        expected.transformLeft(householder, 1);
+        actual.transformLeft(householder, 1);
+        TestUtils.assertEquals(expected, actual, ACCURACY);
+
+        expected.transformRight(householder, 3);
+        actual.transformRight(householder, 3);
+        TestUtils.assertEquals(expected, actual, ACCURACY);
+
+        Rotation.Primitive rotation = new Rotation.Primitive(1, 9, 0.6, 0.8);
+
+        expected.transformLeft(rotation);
+        actual.transformLeft(rotation);
+        TestUtils.assertEquals(expected, actual, ACCURACY);
+
+        expected.transformRight(rotation);
+        actual.transformRight(rotation);
+        TestUtils.assertEquals(expected, actual, ACCURACY);
+    }
+
+}
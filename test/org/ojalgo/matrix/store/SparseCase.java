@@ -49,6 +49,82 @@ public class SparseCase extends NonPhysicalTest {
         numberOfColumns = dim;
     }
 
+    @Test
+    public void testCompressed() {
+
+        SparseStore<Double> sparseA = SparseStore.makePrimitive(70, 80);
+        SparseStore<Double> sparseB = SparseStore.makePrimitive(80, 90);
+
+        SparsePerformance.fill(sparseA);
+        SparsePerformance.fill(sparseB);
+
+        CompressedSparseStore compressedA = sparseA.compress();
+
+        TestUtils.assertEquals(sparseA, compressedA);
+        TestUtils.assertEquals(sparseA.transpose(), compressedA.transpose());
+        TestUtils.assertEquals(sparseA, compressedA.transpose().transpose());
+        TestUtils.assertEquals(sparseA.nonzeros().estimateSize(), compressedA.countNonzeros());
+
+        PhysicalStore<Double> denseA = sparseA.copy();
+        PhysicalStore<Double> denseB = sparseB.copy();
+
+        TestUtils.assertEquals(denseA.multiply(denseB), compressedA.multiply(denseB));
+        TestUtils.assertEquals(denseA.multiply(denseB), compressedA.multiply(sparseB));
+        TestUtils.assertEquals(denseA.transpose().multiply(denseA), compressedA.transpose().multiply(denseA));
+        TestUtils.assertEquals(denseA.premultiply(denseB.transpose()).get(), compressedA.premultiply(denseB.transpose()).get());
+
+        Primitive64Store x = Primitive64Store.FACTORY.makeFilled(80, 1, new Uniform());
+        Primitive64Store y = Primitive64Store.FACTORY.make(70, 1);
+        compressedA.multiply(x.data, y.data);
+        TestUtils.assertEquals(denseA.multiply(x), y);
+
+        Primitive64Store z = Primitive64Store.FACTORY.make(80, 1);
+        compressedA.multiplyTransposed(y.data, z.data);
+        TestUtils.assertEquals(denseA.transpose().multiply(y), z);
+    }
+
+    @Test
+    public void testCompressedPartition() {
+
+        // 1 very dense column among otherwise 1 nonzero per column
+        SparseStore<Double> sparse = SparseStore.makePrimitive(100, 50);
+        for (int j = 0; j < 50; j++) {
+            sparse.set(j, j, 1.0 + j);
+        }
+        for (int i = 0; i < 100; i++) {
+            sparse.set(i, 20, 1.0 + i);
+        }
+
+        CompressedSparseStore compressed = sparse.compress();
+        int[] pointers = compressed.getColPointers();
+
+        int[] boundaries = CompressedSparseStore.partition(pointers, 4);
+
+        TestUtils.assertEquals(5, boundaries.length);
+        TestUtils.assertEquals(0, boundaries[0]);
+        TestUtils.assertEquals(50, boundaries[4]);
+        for (int p = 0; p < 4; p++) {
+            TestUtils.assertTrue(boundaries[p] <= boundaries[p + 1]);
+        }
+        // The dense column (20) ends up in a part of its own
+        TestUtils.assertEquals(20, boundaries[1]);
+        TestUtils.assertEquals(21, boundaries[2]);
+
+        int thresholdToRestore = CompressedSparseStore.THRESHOLD;
+        CompressedSparseStore.THRESHOLD = 16;
+
+        try {
+
+            Primitive64Store x = Primitive64Store.FACTORY.makeFilled(100, 1, new Uniform());
+            Primitive64Store y = Primitive64Store.FACTORY.make(50, 1);
+            compressed.multiplyTransposed(x.data, y.data);
+            TestUtils.assertEquals(sparse.transpose().multiply(x), y);
+
+        } finally {
+            CompressedSparseStore.THRESHOLD = thresholdToRestore;
+        }
+    }
+
     @Test
     public void testMultiplySparseDense() {
 
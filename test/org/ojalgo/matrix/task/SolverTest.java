@@ -31,13 +31,51 @@ import org.ojalgo.matrix.decomposition.MatrixDecomposition.Solver;
 import org.ojalgo.matrix.decomposition.MatrixDecompositionTests;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.matrix.task.iterative.BiCGSTABSolver;
 import org.ojalgo.matrix.task.iterative.ConjugateGradientSolver;
+import org.ojalgo.matrix.task.iterative.GMRESSolver;
 import org.ojalgo.matrix.task.iterative.GaussSeidelSolver;
+import org.ojalgo.matrix.task.iterative.IterativeSolverTask.Preconditioner;
 import org.ojalgo.matrix.task.iterative.JacobiSolver;
+import org.ojalgo.matrix.task.iterative.KrylovSubspaceSolver;
 import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
 
 public class SolverTest extends MatrixTaskTests {
 
+    private static final NumberContext ACCURACY = NumberContext.of(12);
+
+    /**
+     * 5-point finite difference Laplacian on a dim x dim grid, with (central difference) convection if
+     * convection != 0.0 – then non-symmetric.
+     */
+    private static SparseStore<Double> makeConvectionDiffusion(final int dim, final double convection) {
+
+        SparseStore<Double> retVal = SparseStore.PRIMITIVE64.make(dim * dim, dim * dim);
+
+        for (int i = 0; i < dim; i++) {
+            for (int j = 0; j < dim; j++) {
+                int row = i * dim + j;
+                retVal.set(row, row, 4.0);
+                if (i > 0) {
+                    retVal.set(row, row - dim, -1.0 - convection);
+                }
+                if (i < dim - 1) {
+                    retVal.set(row, row + dim, -1.0 + convection);
+                }
+                if (j > 0) {
+                    retVal.set(row, row - 1, -1.0 - convection);
+                }
+                if (j < dim - 1) {
+                    retVal.set(row, row + 1, -1.0 + convection);
+                }
+            }
+        }
+
+        return retVal;
+    }
+
     @Test
     public void testExampleWikipediA() {
 
@@ -90,6 +128,71 @@ public class SolverTest extends MatrixTaskTests {
         GaussSeidelSolver tmpGaussSeidelSolver = new GaussSeidelSolver();
         TestUtils.assertEquals(tmpExpected, tmpGaussSeidelSolver.solve(tmpA, tmpB).get());
 
+        GMRESSolver tmpGMRESSolver = new GMRESSolver(Preconditioner.newIncompleteLU());
+        TestUtils.assertEquals(tmpExpected, tmpGMRESSolver.solve(tmpA, tmpB).get());
+
+        BiCGSTABSolver tmpBiCGSTABSolver = new BiCGSTABSolver();
+        TestUtils.assertEquals(tmpExpected, tmpBiCGSTABSolver.solve(tmpA, tmpB).get());
+    }
+
+    /**
+     * With multicolour (red-black for the 5-point stencil) ordering, and sweeps done in parallel, Gauss-Seidel
+     * should still converge to the correct solution.
+     */
+    @Test
+    public void testMulticolourGaussSeidel() throws RecoverableCondition {
+
+        int thresholdToRestore = GaussSeidelSolver.THRESHOLD;
+        GaussSeidelSolver.THRESHOLD = 8;
+
+        try {
+
+            SparseStore<Double> body = SolverTest.makeConvectionDiffusion(10, 0.0);
+            MatrixStore<Double> rhs = Primitive64Store.FACTORY.makeFilled(body.countRows(), 1L, new Uniform());
+
+            MatrixStore<Double> expected = SolverTask.PRIMITIVE.make(body, rhs).solve(body, rhs);
+
+            GaussSeidelSolver solver = new GaussSeidelSolver();
+            solver.configurator().accuracy(ACCURACY);
+            solver.setMulticolour(true);
+            solver.setRelaxationFactor(1.5);
+
+            TestUtils.assertEquals(expected, solver.solve(body, rhs).get(), NumberContext.of(8));
+
+        } finally {
+            GaussSeidelSolver.THRESHOLD = thresholdToRestore;
+        }
+    }
+
+    /**
+     * On a non-symmetric system GMRES and BiCGSTAB, preconditioned with ILU(0), should converge in (a lot)
+     * fewer iterations than with Jacobi.
+     */
+    @Test
+    public void testNonSymmetricKrylov() throws RecoverableCondition {
+
+        SparseStore<Double> body = SolverTest.makeConvectionDiffusion(30, 0.5);
+        MatrixStore<Double> rhs = Primitive64Store.FACTORY.makeFilled(body.countRows(), 1L, new Uniform());
+
+        MatrixStore<Double> expected = SolverTask.PRIMITIVE.make(body, rhs).solve(body, rhs);
+
+        KrylovSubspaceSolver[] solvers = { new GMRESSolver(Preconditioner.newIncompleteLU()), new BiCGSTABSolver(Preconditioner.newIncompleteLU()),
+                new GMRESSolver(10, Preconditioner.newIncompleteLU()) };
+
+        for (KrylovSubspaceSolver solver : solvers) {
+
+            solver.configurator().accuracy(ACCURACY).iterations(40);
+
+            Primitive64Store solution = Primitive64Store.FACTORY.make(body.countRows(), 1L);
+            double error = solver.resolve(body.compress(), rhs.toRawCopy1D(), solution);
+
+            TestUtils.assertTrue(solver.getClass().getSimpleName() + " " + error, error < 1E-8);
+            TestUtils.assertEquals(expected, solution, NumberContext.of(8));
+        }
+
+        GMRESSolver jacobi = new GMRESSolver(Preconditioner.newJacobi());
+        jacobi.configurator().accuracy(ACCURACY).iterations(40);
+        TestUtils.assertTrue(jacobi.resolve(body.compress(), rhs.toRawCopy1D(), Primitive64Store.FACTORY.make(body.countRows(), 1L)) > 1E-8);
     }
 
     @Test
@@ -149,6 +252,33 @@ public class SolverTest extends MatrixTaskTests {
         TestUtils.assertEquals(expected, tmpConjugateGradientSolver.solve(body, rhs).get());
     }
 
+    /**
+     * The IC(0) preconditioned conjugate gradient solver should converge in fewer iterations than the Jacobi
+     * preconditioned one.
+     */
+    @Test
+    public void testPreconditionedConjugateGradient() throws RecoverableCondition {
+
+        SparseStore<Double> body = SolverTest.makeConvectionDiffusion(30, 0.0);
+        MatrixStore<Double> rhs = Primitive64Store.FACTORY.makeFilled(body.countRows(), 1L, new Uniform());
+
+        MatrixStore<Double> expected = SolverTask.PRIMITIVE.make(body, rhs).solve(body, rhs);
+
+        for (Preconditioner preconditioner : new Preconditioner[] { Preconditioner.newIncompleteCholesky(), Preconditioner.newIncompleteLU() }) {
+
+            ConjugateGradientSolver solver = new ConjugateGradientSolver(preconditioner);
+            solver.configurator().accuracy(ACCURACY).iterations(40);
+
+            MatrixStore<Double> actual = solver.solve(body, rhs).get();
+
+            TestUtils.assertEquals(expected, actual, NumberContext.of(8));
+        }
+
+        ConjugateGradientSolver jacobi = new ConjugateGradientSolver();
+        jacobi.configurator().accuracy(ACCURACY).iterations(40);
+        TestUtils.assertTrue(jacobi.resolve(body.compress(), rhs.toRawCopy1D(), Primitive64Store.FACTORY.make(body.countRows(), 1L)) > 1E-8);
+    }
+
     private void doCompare(final SolverTask<Double> fixed, final int dimension) {
 
         try {
@@ -0,0 +1,138 @@
+/*
+ * Copyright 1997-2016 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.concurrent.Parallelism;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.structure.Access1D;
+
+public class DelimitedNumbersParserTest extends NetioTests {
+
+    /**
+     * Element-wise, and NaN == NaN
+     */
+    static void assertSame(final Access1D<?> expected, final Access1D<?> actual) {
+        TestUtils.assertEquals(expected.count(), actual.count());
+        for (long i = 0L; i < expected.count(); i++) {
+            TestUtils.assertEquals(Double.doubleToLongBits(expected.doubleValue(i)), Double.doubleToLongBits(actual.doubleValue(i)));
+        }
+    }
+
+    static void assertParsed(final String text) {
+        char[] chars = text.toCharArray();
+        double expected;
+        try {
+            expected = Double.parseDouble(text.trim());
+        } catch (NumberFormatException cause) {
+            expected = Double.NaN;
+        }
+        double actual = DelimitedNumbersParser.parseDouble(chars, 0, chars.length);
+        TestUtils.assertEquals(text, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+    }
+
+    @Test
+    public void testParseDouble() {
+
+        String[] special = { "0", "-0", "+1", "1.", ".5", "-.5", "1e3", "1E-3", "2.5e+10", "123456789012345", "1234567890123456789", "0.1", "0.3",
+                "3.141592653589793", "1e22", "1e23", "1e-22", "1e-23", "9007199254740993", "4.9e-324", "1.7976931348623157e308", "NaN", "-Infinity", " 42 ",
+                "0.000001234", "100000000000000000000000", "", "abc", "1e", "-", "." };
+        for (String text : special) {
+            DelimitedNumbersParserTest.assertParsed(text);
+        }
+
+        Random random = new Random(123L);
+        for (int i = 0; i < 10_000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 10);
+            DelimitedNumbersParserTest.assertParsed(Double.toString(value));
+            DelimitedNumbersParserTest.assertParsed(String.format("%.4f", value));
+            DelimitedNumbersParserTest.assertParsed(String.format("%.6e", value));
+        }
+
+        DelimitedNumbersParserTest.assertParsed("-12.5");
+        char[] quoted = "\"-12.5\"".toCharArray();
+        TestUtils.assertEquals(-12.5, DelimitedNumbersParser.parseDouble(quoted, 0, quoted.length));
+    }
+
+    @Test
+    public void testSameResultAllSources() throws IOException {
+
+        int rows = 500;
+        int columns = 4;
+
+        Random random = new Random(456L);
+        Primitive64Store expected = Primitive64Store.FACTORY.make(rows, columns);
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("A,B,C,D\n");
+        for (int i = 0; i < rows; i++) {
+            if ((i % 50) == 0) {
+                builder.append("# comment\n\n");
+            }
+            for (int j = 0; j < columns; j++) {
+                if (j > 0) {
+                    builder.append(',');
+                }
+                if (((i + j) % 97) == 0) {
+                    // Missing value
+                    expected.set(i, j, Double.NaN);
+                } else {
+                    double value = Math.round(random.nextGaussian() * 1_000_000.0) / 1_000.0;
+                    expected.set(i, j, value);
+                    builder.append(value);
+                }
+            }
+            builder.append((i % 3) == 0 ? "\r\n" : "\n");
+        }
+        String text = builder.toString();
+
+        DelimitedNumbersParser parser = DelimitedNumbersParser.make(columns).skipHeader().chunk(256).parallelism(Parallelism.FOUR).get();
+
+        Primitive64Store fromReader = parser.parse(new StringReader(text));
+        DelimitedNumbersParserTest.assertSame(expected, fromReader);
+
+        Primitive64Store fromBuffer = parser.parse(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)));
+        DelimitedNumbersParserTest.assertSame(expected, fromBuffer);
+
+        File file = File.createTempFile("DelimitedNumbersParserTest", ".csv");
+        file.deleteOnExit();
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.US_ASCII));
+
+        Primitive64Store fromFile = parser.parse(file);
+        DelimitedNumbersParserTest.assertSame(expected, fromFile);
+
+        // Without header skipping the header line is a row of NaN:s
+        Primitive64Store withHeader = DelimitedNumbersParser.make(columns).get().parse(new StringReader(text));
+        TestUtils.assertEquals(rows + 1, withHeader.countRows());
+        TestUtils.assertTrue(Double.isNaN(withHeader.doubleValue(0, 0)));
+    }
+
+}
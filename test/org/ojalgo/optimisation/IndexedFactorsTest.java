@@ -0,0 +1,117 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.structure.Structure1D.IntIndex;
+
+public class IndexedFactorsTest {
+
+    private static void assertSame(final Map<IntIndex, BigDecimal> expected, final IndexedFactors actual) {
+
+        TestUtils.assertEquals(expected.size(), actual.size());
+
+        for (Map.Entry<IntIndex, BigDecimal> entry : expected.entrySet()) {
+            int position = actual.position(entry.getKey().index);
+            TestUtils.assertTrue(position >= 0);
+            TestUtils.assertEquals(entry.getKey().index, actual.index(position));
+            TestUtils.assertEquals(entry.getValue().doubleValue(), actual.doubleValue(position));
+            TestUtils.assertEquals(entry.getValue(), actual.get(entry.getKey()));
+        }
+
+        TestUtils.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testExact() {
+
+        IndexedFactors factors = new IndexedFactors(true);
+
+        BigDecimal third = BigDecimal.ONE.divide(BigDecimal.valueOf(3), 30, BigDecimal.ROUND_HALF_EVEN);
+        factors.put(new IntIndex(7), third);
+
+        TestUtils.assertTrue(factors.isExact());
+        TestUtils.assertEquals(third, factors.get(new IntIndex(7)));
+        TestUtils.assertEquals(third.doubleValue(), factors.doubleValue(0));
+
+        IndexedFactors copy = new IndexedFactors(factors);
+        TestUtils.assertEquals(third, copy.get(new IntIndex(7)));
+    }
+
+    /**
+     * Random puts and removes (past the linear search limit and through several rehashes) compared to a
+     * {@link HashMap}
+     */
+    @Test
+    public void testSameAsHashMap() {
+
+        Random random = new Random(123);
+
+        for (int range : new int[] { 5, 50, 5000 }) {
+
+            IndexedFactors actual = new IndexedFactors(false);
+            Map<IntIndex, BigDecimal> expected = new HashMap<>();
+
+            for (int i = 0; i < 20_000; i++) {
+
+                IntIndex key = new IntIndex(random.nextInt(range));
+
+                if (random.nextInt(3) == 0) {
+                    TestUtils.assertTrue(Objects.equals(expected.remove(key), actual.remove(key)));
+                } else {
+                    BigDecimal value = BigDecimal.valueOf(random.nextInt(1000) + 1, 2);
+                    actual.put(key, value);
+                    expected.put(key, BigDecimal.valueOf(value.doubleValue()));
+                }
+
+                if ((i % 1000) == 0) {
+                    IndexedFactorsTest.assertSame(expected, actual);
+                }
+            }
+
+            IndexedFactorsTest.assertSame(expected, actual);
+
+            IndexedFactors copy = new IndexedFactors(actual);
+            IndexedFactorsTest.assertSame(expected, copy);
+
+            for (Iterator<Map.Entry<IntIndex, BigDecimal>> iterator = actual.entrySet().iterator(); iterator.hasNext();) {
+                Map.Entry<IntIndex, BigDecimal> entry = iterator.next();
+                if ((entry.getKey().index % 2) == 0) {
+                    iterator.remove();
+                    expected.remove(entry.getKey());
+                }
+            }
+
+            IndexedFactorsTest.assertSame(expected, actual);
+            IndexedFactorsTest.assertSame(expected, new IndexedFactors(actual));
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+
+public class MathProgSysParserTest {
+
+    private static final String[] FILES = new String[] { "burkardt/adlittle.mps", "burkardt/afiro.mps", "burkardt/empstest.mps", "burkardt/maros.mps",
+            "burkardt/nazareth.mps", "burkardt/testprob.mps", "miplib/gen-ip036.mps", "miplib/neos5.mps", "netlib/BOEING1.SIF", "netlib/FORPLAN.SIF",
+            "netlib/SHARE2B.SIF" };
+
+    private static final String FREE_FORMAT = "NAME free\n" + "OBJSENSE MAX\n" + "ROWS\n" + " N  profit\n" + " L  capacity limit\n"
+            + " G  demand\n" + "COLUMNS\n" + "    MARKER  'MARKER'  'INTORG'\n" + "    production_of_widgets  profit  3.5  capacity limit  2\n"
+            + "    production_of_widgets  demand  1\n" + "    MARKER  'MARKER'  'INTEND'\n" + "    y  profit  -1e-2  demand  1\n" + "RHS\n"
+            + "    capacity limit  10  demand  2\n" + "RANGES\n" + "    capacity limit  4\n" + "BOUNDS\n" + " UP  production_of_widgets  4\n"
+            + " MI  y\n" + "ENDATA\n";
+
+    static void assertSame(final ExpressionsBasedModel expected, final ExpressionsBasedModel actual) {
+
+        TestUtils.assertEquals(expected.isMaximisation(), actual.isMaximisation());
+
+        List<Variable> expVars = expected.getVariables();
+        List<Variable> actVars = actual.getVariables();
+        TestUtils.assertEquals(expVars.size(), actVars.size());
+        for (int j = 0; j < expVars.size(); j++) {
+            Variable expVar = expVars.get(j);
+            Variable actVar = actVars.get(j);
+            TestUtils.assertEquals(expVar.getName(), actVar.getName());
+            MathProgSysParserTest.assertLimits(expVar, actVar);
+            TestUtils.assertEquals(expVar.getName(), expVar.isInteger(), actVar.isInteger());
+        }
+
+        TestUtils.assertEquals(expected.countExpressions(), actual.countExpressions());
+        for (Expression expExpr : expected.getExpressions()) {
+            Expression actExpr = actual.getExpression(expExpr.getName());
+            TestUtils.assertEquals(expExpr.getName(), actExpr.getName());
+            MathProgSysParserTest.assertLimits(expExpr, actExpr);
+            TestUtils.assertEquals(expExpr.getLinearKeySet(), actExpr.getLinearKeySet());
+            for (Variable variable : expVars) {
+                TestUtils.assertEquals(expExpr.get(variable).doubleValue(), actExpr.get(variable).doubleValue());
+            }
+        }
+    }
+
+    private static void assertLimits(final ModelEntity<?> expected, final ModelEntity<?> actual) {
+        MathProgSysParserTest.assertNullOrEquals(expected.getLowerLimit(), actual.getLowerLimit());
+        MathProgSysParserTest.assertNullOrEquals(expected.getUpperLimit(), actual.getUpperLimit());
+        MathProgSysParserTest.assertNullOrEquals(expected.getContributionWeight(), actual.getContributionWeight());
+    }
+
+    private static void assertNullOrEquals(final BigDecimal expected, final BigDecimal actual) {
+        if (expected == null) {
+            TestUtils.assertTrue(actual == null);
+        } else {
+            TestUtils.assertEquals(expected.doubleValue(), actual.doubleValue());
+        }
+    }
+
+    private int myThreshold;
+
+    @BeforeEach
+    public void setUp() {
+        myThreshold = MathProgSysParser.THRESHOLD;
+        // Split the COLUMNS section in to many chunks even for tiny files
+        MathProgSysParser.THRESHOLD = 64;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        MathProgSysParser.THRESHOLD = myThreshold;
+    }
+
+    @Test
+    public void testFreeFormat() {
+
+        ExpressionsBasedModel model = ExpressionsBasedModel.parse(new ByteArrayInputStream(FREE_FORMAT.getBytes(StandardCharsets.US_ASCII)),
+                ExpressionsBasedModel.FileFormat.MPS);
+
+        TestUtils.assertTrue(model.isMaximisation());
+        TestUtils.assertEquals(2, model.countVariables());
+
+        Variable widgets = model.getVariable(0);
+        TestUtils.assertEquals("production_of_widgets", widgets.getName());
+        TestUtils.assertTrue(widgets.isInteger());
+        TestUtils.assertEquals(0.0, widgets.getLowerLimit().doubleValue());
+        TestUtils.assertEquals(4.0, widgets.getUpperLimit().doubleValue());
+
+        Variable y = model.getVariable(1);
+        TestUtils.assertFalse(y.isInteger());
+        TestUtils.assertTrue(y.getLowerLimit() == null);
+
+        Expression capacity = model.getExpression("capacity limit");
+        TestUtils.assertEquals(2.0, capacity.get(widgets).doubleValue());
+        TestUtils.assertEquals(6.0, capacity.getLowerLimit().doubleValue());
+        TestUtils.assertEquals(10.0, capacity.getUpperLimit().doubleValue());
+
+        Expression profit = model.getExpression("profit");
+        TestUtils.assertEquals(-0.01, profit.get(y).doubleValue());
+        TestUtils.assertEquals(1.0, profit.getContributionWeight().doubleValue());
+
+        TestUtils.assertEquals(2.0, model.getExpression("demand").getLowerLimit().doubleValue());
+    }
+
+    /**
+     * Compares with the (deprecated) {@link MathProgSysModel} parser – memory mapped and parsed in parallel
+     * chunks, as well as gzip compressed and streamed.
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testSameAsMathProgSysModel() throws IOException {
+
+        for (String name : FILES) {
+
+            File file = new File(ModelFileMPS.OPTIMISATION_RSRC + name);
+
+            ExpressionsBasedModel expected = MathProgSysModel.make(file).getExpressionsBasedModel();
+
+            MathProgSysParserTest.assertSame(expected, ExpressionsBasedModel.parse(file));
+
+            File compressed = File.createTempFile("ojAlgo", ".mps.gz");
+            try (OutputStream output = new GZIPOutputStream(new FileOutputStream(compressed))) {
+                Files.copy(file.toPath(), output);
+            }
+            try {
+                MathProgSysParserTest.assertSame(expected, ExpressionsBasedModel.parse(compressed));
+            } finally {
+                compressed.delete();
+            }
+        }
+    }
+
+}
@@ -103,7 +103,7 @@ public interface ModelFileMPS {
     static ExpressionsBasedModel makeModel(final String dataset, final String name, final boolean relax) {
 
         final File file = new File(OPTIMISATION_RSRC + dataset + "/" + name);
-        final ExpressionsBasedModel model = MathProgSysModel.make(file).getExpressionsBasedModel();
+        final ExpressionsBasedModel model = ExpressionsBasedModel.parse(file);
 
         TestUtils.assertTrue(model.validate());
 
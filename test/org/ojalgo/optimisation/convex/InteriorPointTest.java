@@ -0,0 +1,151 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.convex;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.ModelFileMPS;
+import org.ojalgo.optimisation.Optimisation.Result;
+import org.ojalgo.optimisation.Variable;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Solves problems with the {@link InteriorPointSolver} and compares with the known optimal values, or with
+ * the (active set) {@link ConvexSolver}. An interior point method converges to (within tolerance of) the
+ * optimum rather than to an exact vertex, so validation is done with a somewhat looser context than the
+ * default.
+ *
+ * @author apete
+ */
+public class InteriorPointTest extends OptimisationConvexTests {
+
+    private static final NumberContext ACCURACY = NumberContext.getGeneral(7, 6);
+    private static final InteriorPointSolver.ModelIntegration INTEGRATION = new InteriorPointSolver.ModelIntegration();
+
+    private static void assertNetlib(final String name, final double expected) {
+
+        ExpressionsBasedModel model = ModelFileMPS.makeModel("netlib", name, false);
+
+        Result result = model.minimise();
+
+        TestUtils.assertStateNotLessThanOptimal(result);
+        TestUtils.assertEquals(expected, result.getValue(), ACCURACY);
+        TestUtils.assertTrue(model.validate(result, ACCURACY));
+    }
+
+    static ExpressionsBasedModel makePortfolio(final int size) {
+
+        Random random = new Random(size);
+
+        ExpressionsBasedModel retVal = new ExpressionsBasedModel();
+
+        Variable[] weights = new Variable[size];
+        for (int i = 0; i < size; i++) {
+            weights[i] = retVal.addVariable("W" + i).lower(0).upper(0.25).weight(-0.01 * random.nextDouble());
+        }
+
+        Expression budget = retVal.addExpression("Budget").level(1);
+        Expression risk = retVal.addExpression("Risk").weight(0.5);
+
+        double[][] factors = new double[size][3];
+        for (int i = 0; i < size; i++) {
+            budget.set(weights[i], 1);
+            for (int k = 0; k < 3; k++) {
+                factors[i][k] = random.nextGaussian() / 10.0;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                double covariance = (i == j) ? 0.01 * (1 + random.nextDouble()) : 0.0;
+                for (int k = 0; k < 3; k++) {
+                    covariance += factors[i][k] * factors[j][k];
+                }
+                risk.set(weights[i], weights[j], covariance);
+            }
+        }
+
+        return retVal;
+    }
+
+    @AfterEach
+    public void removeIntegration() {
+        ExpressionsBasedModel.removeIntegration(INTEGRATION);
+    }
+
+    @BeforeEach
+    public void addIntegration() {
+        ExpressionsBasedModel.addPreferredSolver(INTEGRATION);
+    }
+
+    @Test
+    public void testADLITTLE() {
+        InteriorPointTest.assertNetlib("ADLITTLE.SIF", 2.2549496316E+05);
+    }
+
+    @Test
+    public void testAFIRO() {
+        InteriorPointTest.assertNetlib("AFIRO.SIF", -4.6475314286E+02);
+    }
+
+    @Test
+    public void testInfeasible() {
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel();
+        Variable x = model.addVariable("X").lower(0).upper(1).weight(1);
+        Variable y = model.addVariable("Y").lower(0).upper(1).weight(1);
+        model.addExpression("Sum").lower(3).set(x, 1).set(y, 1);
+
+        TestUtils.assertFalse(model.minimise().getState().isFeasible());
+    }
+
+    @Test
+    public void testPortfolio() {
+
+        ExpressionsBasedModel model = InteriorPointTest.makePortfolio(40);
+
+        Result actual = model.minimise();
+
+        ExpressionsBasedModel.removeIntegration(INTEGRATION);
+        Result expected = model.minimise();
+
+        TestUtils.assertStateNotLessThanOptimal(actual);
+        TestUtils.assertEquals(expected.getValue(), actual.getValue(), ACCURACY);
+        TestUtils.assertTrue(model.validate(actual, ACCURACY));
+    }
+
+    @Test
+    public void testSC50A() {
+        InteriorPointTest.assertNetlib("SC50A.SIF", -6.4575077059E+01);
+    }
+
+    @Test
+    public void testSHARE2B() {
+        InteriorPointTest.assertNetlib("SHARE2B.SIF", -4.1573224074E+02);
+    }
+
+}
@@ -38,6 +38,7 @@ import org.ojalgo.optimisation.Optimisation;
 import org.ojalgo.optimisation.Optimisation.Result;
 import org.ojalgo.optimisation.Optimisation.State;
 import org.ojalgo.optimisation.Variable;
+import org.ojalgo.structure.Access1D;
 import org.ojalgo.type.context.NumberContext;
 
 public class IntegerProblems {
@@ -430,6 +431,44 @@ public class IntegerProblems {
         TestUtils.assertStateAndSolution(nodeResult, fixedResult);
     }
 
+    /**
+     * Fixing variables, one at the time, on the same (in-place updated) solver should give the same results
+     * as re-building and solving from scratch.
+     */
+    @Test
+    public void testP20140819sequenceOfFixes() {
+
+        final ExpressionsBasedModel model = IntegerProblems.makeP20140819().relax(true);
+        model.setMinimisation();
+
+        final Intermediate intermediate = model.prepare();
+        final Result relaxedResult = intermediate.solve();
+
+        TestUtils.assertStateNotLessThanOptimal(relaxedResult);
+
+        final int[] indices = new int[] { 13, 9, 5, 0, 3, 11 };
+        final int[] values = new int[] { 7, 5, 2, 1, 0, 3 };
+
+        for (int f = 0; f < indices.length; f++) {
+
+            final Variable variableToFix = model.getVariable(indices[f]);
+            variableToFix.lower(values[f]).upper(values[f]);
+            intermediate.update(variableToFix);
+
+            final Result inPlaceResult = intermediate.solve();
+
+            final ExpressionsBasedModel rebuilt = IntegerProblems.makeP20140819().relax(true);
+            for (int r = 0; r <= f; r++) {
+                rebuilt.getVariable(indices[r]).lower(values[r]).upper(values[r]);
+            }
+            final Result rebuiltResult = rebuilt.minimise();
+
+            TestUtils.assertStateNotLessThanOptimal(inPlaceResult);
+            TestUtils.assertEquals((Access1D<?>) rebuiltResult, (Access1D<?>) inPlaceResult, model.options.feasibility);
+            TestUtils.assertTrue(rebuilt.validate(inPlaceResult, BasicLogger.DEBUG));
+        }
+    }
+
     @Test
     public void testP20140819node() {
 
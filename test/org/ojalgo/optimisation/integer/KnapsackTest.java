@@ -31,6 +31,7 @@ import org.ojalgo.TestUtils;
 import org.ojalgo.function.constant.BigMath;
 import org.ojalgo.optimisation.Expression;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
 import org.ojalgo.optimisation.Variable;
 import org.ojalgo.type.context.NumberContext;
 
@@ -80,6 +81,44 @@ public class KnapsackTest extends OptimisationIntegerTests {
 
     }
 
+    /**
+     * All node selection strategies, sequential as well as parallel, should find the same optimal solution.
+     * The reference value is calculated using dynamic programming.
+     */
+    @Test
+    public void testNodeSelectionStrategies() {
+
+        final int[] weights = { 23, 31, 29, 44, 53, 38, 63, 85, 89, 82, 12, 17, 41, 27, 35, 58, 19, 71, 46, 33 };
+        final int[] values = { 92, 57, 49, 68, 60, 43, 67, 84, 87, 72, 21, 30, 55, 42, 48, 73, 27, 80, 61, 45 };
+        final int capacity = 300;
+
+        final int[] best = new int[capacity + 1];
+        for (int i = 0; i < weights.length; i++) {
+            for (int c = capacity; c >= weights[i]; c--) {
+                best[c] = Math.max(best[c], best[c - weights[i]] + values[i]);
+            }
+        }
+
+        for (final NodeSelection selection : NodeSelection.values()) {
+            for (final double defer : new double[] { 0.0, 1.0 }) {
+
+                final ExpressionsBasedModel model = new ExpressionsBasedModel();
+                final Expression totalWeight = model.addExpression("Total Weight").lower(0).upper(capacity);
+                for (int i = 0; i < weights.length; i++) {
+                    model.addVariable(Variable.makeBinary("Item" + i).weight(values[i]));
+                    totalWeight.set(i, weights[i]);
+                }
+                model.options.mip_selection = selection;
+                model.options.mip_defer = defer;
+
+                final Optimisation.Result result = model.maximise();
+
+                TestUtils.assertStateNotLessThanOptimal(result);
+                TestUtils.assertEquals(selection + " " + defer, best[capacity], result.getValue(), 1E-6);
+            }
+        }
+    }
+
     @Test
     public void testVaryingMaxWeight0() {
         ExpressionsBasedModel model = new KnapsackProblemBuilder(3d).addItem(20, 2).addItem(30, 4).build();
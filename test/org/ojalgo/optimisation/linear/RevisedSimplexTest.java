@@ -0,0 +1,164 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.ModelFileMPS;
+import org.ojalgo.optimisation.Optimisation.Result;
+import org.ojalgo.optimisation.Optimisation.State;
+import org.ojalgo.optimisation.Variable;
+
+/**
+ * Solves problems with the {@link RevisedSimplex} (forced, regardless of size) and compares with the
+ * tableau based solver.
+ *
+ * @author apete
+ */
+public class RevisedSimplexTest extends OptimisationLinearTests {
+
+    private static int threshold;
+
+    static ExpressionsBasedModel makeFlowNetwork(final int size) {
+
+        ExpressionsBasedModel retVal = new ExpressionsBasedModel();
+
+        Variable[][] right = new Variable[size][size - 1];
+        Variable[][] down = new Variable[size - 1][size];
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size - 1; j++) {
+                right[i][j] = retVal.addVariable("R" + i + "_" + j).lower(0).upper(2 * size).weight(1 + ((7 * i + 3 * j) % 5));
+                down[j][i] = retVal.addVariable("D" + j + "_" + i).lower(0).upper(2 * size).weight(1 + ((5 * i + 11 * j) % 7));
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int supply = (i == 0) && (j == 0) ? size : ((i == size - 1) && (j == size - 1) ? -size : 0);
+                Expression node = retVal.addExpression("N" + i + "_" + j).level(supply);
+                if (j < size - 1) {
+                    node.set(right[i][j], 1);
+                }
+                if (j > 0) {
+                    node.set(right[i][j - 1], -1);
+                }
+                if (i < size - 1) {
+                    node.set(down[i][j], 1);
+                }
+                if (i > 0) {
+                    node.set(down[i - 1][j], -1);
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    private static void compare(final ExpressionsBasedModel model) {
+
+        Result expected = model.minimise();
+
+        model.options.sparse = Boolean.TRUE;
+        RevisedSimplex.THRESHOLD = 0;
+
+        Result actual = model.minimise();
+
+        TestUtils.assertStateNotLessThanOptimal(actual);
+        TestUtils.assertEquals(expected.getValue(), actual.getValue(), NetlibCase.PRECISION);
+        TestUtils.assertTrue(model.validate(actual));
+    }
+
+    @AfterEach
+    public void restoreThreshold() {
+        RevisedSimplex.THRESHOLD = threshold;
+    }
+
+    @BeforeEach
+    public void saveThreshold() {
+        threshold = RevisedSimplex.THRESHOLD;
+    }
+
+    @Test
+    public void testADLITTLE() {
+        RevisedSimplexTest.compare(ModelFileMPS.makeModel("netlib", "ADLITTLE.SIF", false));
+    }
+
+    @Test
+    public void testAFIRO() {
+        RevisedSimplexTest.compare(ModelFileMPS.makeModel("netlib", "AFIRO.SIF", false));
+    }
+
+    /**
+     * A network flow problem - every basis is triangular, and many of the pivots are degenerate.
+     */
+    @Test
+    public void testFlowNetwork() {
+        RevisedSimplexTest.compare(RevisedSimplexTest.makeFlowNetwork(12));
+    }
+
+    @Test
+    public void testInfeasible() {
+
+        ExpressionsBasedModel model = RevisedSimplexTest.makeFlowNetwork(6);
+
+        // Every unit of flow needs (at least) 10 arcs to reach the sink, and there are 6 units
+        Expression budget = model.addExpression("Budget").upper(59);
+        model.getVariables().forEach(variable -> budget.set(variable, 1));
+
+        model.options.sparse = Boolean.TRUE;
+        RevisedSimplex.THRESHOLD = 0;
+
+        TestUtils.assertFalse(model.minimise().getState().isFeasible());
+    }
+
+    @Test
+    public void testSC50A() {
+        RevisedSimplexTest.compare(ModelFileMPS.makeModel("netlib", "SC50A.SIF", false));
+    }
+
+    @Test
+    public void testSHARE2B() {
+        RevisedSimplexTest.compare(ModelFileMPS.makeModel("netlib", "SHARE2B.SIF", false));
+    }
+
+    @Test
+    public void testUnbounded() {
+
+        ExpressionsBasedModel model = new ExpressionsBasedModel();
+        Variable x = model.addVariable("X").lower(0).weight(-1);
+        Variable y = model.addVariable("Y").lower(0).weight(-2);
+        model.addExpression("C1").upper(4).set(x, 1).set(y, -1);
+        model.addExpression("C2").upper(3).set(x, -1).set(y, 1).set(model.addVariable("Z").lower(0).weight(1), -1);
+
+        model.options.sparse = Boolean.TRUE;
+        RevisedSimplex.THRESHOLD = 0;
+
+        Result result = model.minimise();
+        TestUtils.assertEquals(State.UNBOUNDED, result.getState());
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.random;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.array.Primitive64Array;
+
+/**
+ * SampleSketchTest
+ *
+ * @author apete
+ */
+public class SampleSketchTest extends RandomTests {
+
+    private static void assertRankError(final double[] sorted, final SampleSketch sketch, final double tolerance) {
+        for (double probability = 0.01; probability < 1.0; probability += 0.01) {
+            double estimate = sketch.getQuantile(probability);
+            int lower = Arrays.binarySearch(sorted, estimate);
+            TestUtils.assertTrue(lower >= 0);
+            TestUtils.assertEquals(probability, (double) lower / sorted.length, tolerance);
+        }
+    }
+
+    @Test
+    public void testEmptySketch() {
+
+        SampleSketch sketch = SampleSketch.make();
+
+        TestUtils.assertEquals(0L, sketch.count());
+        TestUtils.assertEquals(0.0, sketch.getInterquartileRange());
+        TestUtils.assertEquals(0.0, sketch.getMaximum());
+        TestUtils.assertEquals(Double.NaN, sketch.getMean());
+        TestUtils.assertEquals(0.0, sketch.getMedian());
+        TestUtils.assertEquals(0.0, sketch.getMinimum());
+        TestUtils.assertEquals(0.0, sketch.getStandardDeviation());
+        TestUtils.assertEquals(0.0, sketch.getVariance());
+    }
+
+    /**
+     * Few enough values that nothing is compacted - the quantiles are exact.
+     */
+    @Test
+    public void testExact() {
+
+        SampleSketch sketch = SampleSketch.make();
+        for (int i = 100; i >= 1; i--) {
+            sketch.invoke(i);
+        }
+
+        TestUtils.assertEquals(1.0, sketch.getMinimum());
+        TestUtils.assertEquals(100.0, sketch.getMaximum());
+        TestUtils.assertEquals(25.0, sketch.getQuartile1());
+        TestUtils.assertEquals(50.0, sketch.getMedian());
+        TestUtils.assertEquals(75.0, sketch.getQuartile3());
+        TestUtils.assertEquals(99.0, sketch.getQuantile(0.99));
+    }
+
+    /**
+     * Mean and variance should match {@link SampleSet}, and the quantile estimates be within the expected
+     * rank error, also after merging.
+     */
+    @Test
+    public void testMergedMatchesSampleSet() {
+
+        int size = 200_000;
+
+        Normal normal = new Normal();
+        normal.setSeed(0L);
+        double[] samples = new double[size];
+        for (int i = 0; i < size; i++) {
+            samples[i] = normal.doubleValue();
+        }
+
+        SampleSet sampleSet = SampleSet.wrap(Primitive64Array.wrap(samples));
+
+        SampleSketch whole = SampleSketch.of(sampleSet);
+
+        SampleSketch merged = SampleSketch.make();
+        for (int p = 0; p < 7; p++) {
+            SampleSketch part = SampleSketch.make();
+            for (int i = p; i < size; i += 7) {
+                part.invoke(samples[i]);
+            }
+            merged.merge(part);
+        }
+
+        for (SampleSketch sketch : new SampleSketch[] { whole, merged }) {
+
+            TestUtils.assertEquals(size, sketch.count());
+            TestUtils.assertEquals(sampleSet.getMean(), sketch.getMean(), 1E-14);
+            TestUtils.assertEquals(sampleSet.getVariance(), sketch.getVariance(), 1E-12);
+            TestUtils.assertEquals(sampleSet.getMinimum(), sketch.getMinimum());
+            TestUtils.assertEquals(sampleSet.getMaximum(), sketch.getMaximum());
+        }
+
+        double[] sorted = samples.clone();
+        Arrays.sort(sorted);
+
+        SampleSketchTest.assertRankError(sorted, whole, 0.01);
+        SampleSketchTest.assertRankError(sorted, merged, 0.01);
+    }
+
+}
@@ -30,6 +30,7 @@ import org.ojalgo.TestUtils;
 import org.ojalgo.function.constant.PrimitiveMath;
 import org.ojalgo.matrix.store.Primitive64Store;
 import org.ojalgo.random.Normal;
+import org.ojalgo.random.Normal1D;
 import org.ojalgo.random.process.GaussianField.Mean;
 import org.ojalgo.type.context.NumberContext;
 import org.ojalgo.type.keyvalue.ComparableToDouble;
@@ -39,6 +40,54 @@ import org.ojalgo.type.keyvalue.ComparableToDouble;
  */
 public class GaussianProcessTest {
 
+    /**
+     * Observations added and removed one at the time, querying in between, should give the same results as
+     * a field created with the final set of observations.
+     */
+    @Test
+    public void testIncrementalObservations() {
+
+        final GaussianField.Covariance<Double> covariance = new GaussianField.Covariance<Double>() {
+
+            public void calibrate(final Collection<ComparableToDouble<Double>> observations, final Mean<Double> mean) {
+            }
+
+            public double invoke(final Double key1, final Double key2) {
+                final double difference = key1.doubleValue() - key2.doubleValue();
+                return PrimitiveMath.EXP.invoke(-(difference * difference) / TWO) + (key1.equals(key2) ? 0.01 : ZERO);
+            }
+
+        };
+
+        final GaussianField<Double> incremental = new GaussianField<>(covariance);
+        final GaussianField<Double> recreated = new GaussianField<>(covariance);
+
+        final Double[] evaluationPoints = { -0.3, 2.2, 7.7 };
+
+        for (int i = 0; i < 40; i++) {
+
+            final double key = ((i * 7) % 40) / FOUR;
+            final double value = PrimitiveMath.SIN.invoke(key);
+
+            incremental.addObservation(key, value);
+            if ((i % 3) != 0) {
+                recreated.addObservation(key, value);
+            }
+
+            incremental.getDistribution(evaluationPoints);
+        }
+
+        for (int i = 0; i < 40; i += 3) {
+            TestUtils.assertTrue(incremental.removeObservation(((i * 7) % 40) / FOUR));
+        }
+
+        final Normal1D expected = recreated.getDistribution(evaluationPoints);
+        final Normal1D actual = incremental.getDistribution(evaluationPoints);
+
+        TestUtils.assertEquals(expected.getExpected(), actual.getExpected(), new NumberContext(10, 8));
+        TestUtils.assertEquals(expected.getStandardDeviation(), actual.getStandardDeviation(), new NumberContext(10, 8));
+    }
+
     @Test
     public void testTutorial() {
 
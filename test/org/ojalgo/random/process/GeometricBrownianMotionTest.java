@@ -23,6 +23,9 @@ package org.ojalgo.random.process;
 
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.ojalgo.TestUtils;
@@ -34,6 +37,8 @@ import org.ojalgo.random.ContinuousDistribution;
 import org.ojalgo.random.LogNormal;
 import org.ojalgo.random.Normal;
 import org.ojalgo.random.SampleSet;
+import org.ojalgo.random.SampleSketch;
+import org.ojalgo.random.process.RandomProcess.SimulationResults;
 import org.ojalgo.type.context.NumberContext;
 
 /**
@@ -220,6 +225,72 @@ public class GeometricBrownianMotionTest extends RandomProcessTests {
         TestUtils.assertEquals(ONE, tmpGeometrVal / tmpFactoryVal, tmpDeltaFinal);
     }
 
+    /**
+     * Same seed, same results - regardless of the number of threads. The sample mean should match the
+     * distribution.
+     */
+    @Test
+    public void testSimulateReproducible() throws InterruptedException, ExecutionException {
+
+        final GeometricBrownianMotion process = GeometricBrownianMotion.make(1.1, 0.01);
+
+        final int numberOfRealisations = 10_000;
+        final int numberOfSteps = 12;
+        final double stepSize = ONE / numberOfSteps;
+
+        final ForkJoinPool single = new ForkJoinPool(1);
+        final ForkJoinPool multi = new ForkJoinPool(4);
+
+        final SimulationResults singleResults = single.submit(() -> process.simulate(numberOfRealisations, numberOfSteps, stepSize, 123L)).get();
+        final SimulationResults multiResults = multi.submit(() -> process.simulate(numberOfRealisations, numberOfSteps, stepSize, 123L)).get();
+        final SimulationResults otherResults = process.simulate(numberOfRealisations, numberOfSteps, stepSize, 456L);
+
+        single.shutdown();
+        multi.shutdown();
+
+        for (int s = 0; s < numberOfSteps; s++) {
+            TestUtils.assertEquals(singleResults.getSampleSet(s), multiResults.getSampleSet(s));
+        }
+        TestUtils.assertFalse(singleResults.getSampleSet(0).getMean() == otherResults.getSampleSet(0).getMean());
+
+        TestUtils.assertEquals(ONE, process.getValue());
+
+        final SampleSet last = singleResults.getSampleSet(numberOfSteps - 1);
+        TestUtils.assertEquals(1.1, last.getMean(), 0.005);
+        TestUtils.assertEquals(0.01, last.getVariance(), 0.001);
+    }
+
+    /**
+     * Sketching simulates the exact same realisations, but doesn't store them.
+     */
+    @Test
+    public void testSketchSameAsSimulate() {
+
+        final GeometricBrownianMotion process = GeometricBrownianMotion.make(1.1, 0.01);
+
+        final int numberOfRealisations = 20_000;
+        final int numberOfSteps = 4;
+        final double stepSize = ONE / numberOfSteps;
+
+        final SimulationResults simulated = process.simulate(numberOfRealisations, numberOfSteps, stepSize, 789L);
+        final SimulationResults sketched = process.sketch(numberOfRealisations, numberOfSteps, stepSize, 789L);
+
+        TestUtils.assertEquals(simulated.countScenarios(), sketched.countScenarios());
+        TestUtils.assertEquals(simulated.countSampleSets(), sketched.countSampleSets());
+
+        for (int s = 0; s < numberOfSteps; s++) {
+
+            final SampleSet sampleSet = simulated.getSampleSet(s);
+            final SampleSketch sketch = sketched.getSampleSketch(s);
+
+            TestUtils.assertEquals(sampleSet.getMean(), sketch.getMean(), 1E-12);
+            TestUtils.assertEquals(sampleSet.getVariance(), sketch.getVariance(), 1E-12);
+            TestUtils.assertEquals(sampleSet.getMinimum(), sketch.getMinimum());
+            TestUtils.assertEquals(sampleSet.getMaximum(), sketch.getMaximum());
+            TestUtils.assertEquals(sampleSet.getMedian(), sketch.getMedian(), 0.01);
+        }
+    }
+
     @Test
     public void testWikipediaCases() {
 